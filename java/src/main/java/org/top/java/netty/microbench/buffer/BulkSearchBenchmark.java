@@ -0,0 +1,113 @@
+package org.top.java.netty.microbench.buffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.top.java.netty.source.buffer.ByteBuf;
+import org.top.java.netty.source.buffer.Unpooled;
+import org.top.java.netty.source.buffer.search.AbstractMultiSearchProcessorFactory;
+import org.top.java.netty.source.buffer.search.AbstractSearchProcessorFactory;
+import org.top.java.netty.source.buffer.search.BulkSearchProcessorFactory;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searching a 1 MiB body of lowercase text for a multipart style delimiter ({@code "\r\n--"} followed by letters) of
+ * {@code needleLength} bytes that only occurs at its very end, byte by byte through
+ * {@link ByteBuf#forEachByte(int, int, io.netty.util.ByteProcessor)} or through
+ * {@link BulkSearchProcessorFactory#search(ByteBuf, int, int, org.top.java.netty.source.buffer.search.SearchProcessor)}.
+ * The Aho-Corasick variant searches for the delimiter and a second needle of the same length at once.
+ */
+
+/**
+ * 在 1 MiB 的小写文本正文中搜索一个长度为 {@code needleLength} 字节、仅出现在其末尾的 multipart 风格分隔符
+ * （{@code "\r\n--"} 后跟字母），分别通过 {@link ByteBuf#forEachByte(int, int, io.netty.util.ByteProcessor)}
+ * 逐字节搜索，或通过
+ * {@link BulkSearchProcessorFactory#search(ByteBuf, int, int, org.top.java.netty.source.buffer.search.SearchProcessor)}
+ * 搜索。Aho-Corasick 变体同时搜索该分隔符和另一个相同长度的 needle。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkSearchBenchmark {
+
+    private static final int HAYSTACK_SIZE = 1024 * 1024;
+
+    @Param({ "kmp", "bitap", "ahoCorasic" })
+    public String algorithm;
+
+    @Param({ "4", "16", "64" })
+    public int needleLength;
+
+    private ByteBuf haystack;
+    private BulkSearchProcessorFactory factory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        byte[] needle = newNeedle(random, "\r\n--");
+        byte[] bytes = new byte[HAYSTACK_SIZE];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (random.nextInt(8) == 0 ? ' ' : 'a' + random.nextInt(26));
+        }
+        System.arraycopy(needle, 0, bytes, bytes.length - needle.length, needle.length);
+        haystack = Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+
+        if ("kmp".equals(algorithm)) {
+            factory = AbstractSearchProcessorFactory.newKmpSearchProcessorFactory(needle);
+        } else if ("bitap".equals(algorithm)) {
+            factory = AbstractSearchProcessorFactory.newBitapSearchProcessorFactory(needle);
+        } else {
+            factory = AbstractMultiSearchProcessorFactory.newAhoCorasicSearchProcessorFactory(
+                    needle, newNeedle(random, "\"\r\n"));
+        }
+    }
+
+    private byte[] newNeedle(Random random, String prefix) {
+        byte[] needle = new byte[needleLength];
+        for (int i = 0; i < needle.length; i++) {
+            needle[i] = (byte) (i < prefix.length() ? prefix.charAt(i) : 'a' + random.nextInt(26));
+        }
+        return needle;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        haystack.release();
+    }
+
+    @Benchmark
+    public int forEachByte() {
+        return haystack.forEachByte(0, HAYSTACK_SIZE, factory.newSearchProcessor());
+    }
+
+    @Benchmark
+    public int bulkSearch() {
+        return factory.search(haystack, 0, HAYSTACK_SIZE, factory.newSearchProcessor());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BulkSearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,115 @@
+package org.top.java.netty.microbench.buffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.top.java.netty.source.buffer.ByteBuf;
+import org.top.java.netty.source.buffer.CompositeByteBuf;
+import org.top.java.netty.source.buffer.Unpooled;
+import org.top.java.netty.source.buffer.search.AbstractMultiSearchProcessorFactory;
+import org.top.java.netty.source.buffer.search.AbstractSearchProcessorFactory;
+import org.top.java.netty.source.buffer.search.BulkSearchProcessorFactory;
+import org.top.java.netty.source.buffer.search.StreamingScanner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searching a 1 MiB body that arrived as a {@link CompositeByteBuf} of 1460 byte components for a delimiter that
+ * only occurs at its very end: through {@link ByteBuf#forEachByte(io.netty.util.ByteProcessor)} of the composite,
+ * by copying the composite into one buffer first, or component by component with a {@link StreamingScanner}.
+ */
+
+/**
+ * 在一个以 1460 字节组件组成的 {@link CompositeByteBuf} 形式到达的 1 MiB 正文中搜索仅出现在其末尾的分隔符：
+ * 通过复合缓冲区的 {@link ByteBuf#forEachByte(io.netty.util.ByteProcessor)}、先将复合缓冲区复制到一个缓冲区中，
+ * 或者使用 {@link StreamingScanner} 逐个组件地搜索。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompositeScanBenchmark {
+
+    private static final int BODY_SIZE = 1024 * 1024;
+    private static final int COMPONENT_SIZE = 1460;
+    private static final byte[] DELIMITER = "\r\n--boundary".getBytes(StandardCharsets.US_ASCII);
+
+    @Param({ "bitap", "ahoCorasic" })
+    public String algorithm;
+
+    private CompositeByteBuf body;
+    private BulkSearchProcessorFactory factory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        byte[] bytes = new byte[BODY_SIZE];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (random.nextInt(8) == 0 ? ' ' : 'a' + random.nextInt(26));
+        }
+        System.arraycopy(DELIMITER, 0, bytes, bytes.length - DELIMITER.length, DELIMITER.length);
+
+        body = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        for (int i = 0; i < bytes.length; i += COMPONENT_SIZE) {
+            int length = Math.min(COMPONENT_SIZE, bytes.length - i);
+            body.addComponent(true, Unpooled.directBuffer(length).writeBytes(bytes, i, length));
+        }
+
+        if ("bitap".equals(algorithm)) {
+            factory = AbstractSearchProcessorFactory.newBitapSearchProcessorFactory(DELIMITER);
+        } else {
+            factory = AbstractMultiSearchProcessorFactory.newAhoCorasicSearchProcessorFactory(
+                    DELIMITER, "\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        body.release();
+    }
+
+    @Benchmark
+    public int forEachByte() {
+        return body.forEachByte(factory.newSearchProcessor());
+    }
+
+    @Benchmark
+    public int copy() {
+        ByteBuf copy = body.copy();
+        try {
+            return factory.search(copy, 0, copy.readableBytes(), factory.newSearchProcessor());
+        } finally {
+            copy.release();
+        }
+    }
+
+    @Benchmark
+    public int scanner() {
+        return new StreamingScanner(factory).scan(body);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(CompositeScanBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
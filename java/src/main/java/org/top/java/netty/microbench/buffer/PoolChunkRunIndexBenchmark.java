@@ -0,0 +1,129 @@
+package org.top.java.netty.microbench.buffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.top.java.netty.source.buffer.ByteBuf;
+import org.top.java.netty.source.buffer.PooledByteBufAllocator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normal size (8 KiB - 4 MiB) alloc/free throughput of {@link PooledByteBufAllocator} with the run queues of a chunk
+ * walked one by one ({@code bitmapRunIndex=false}) or found through the two level bitmap ({@code true}). Buffers are
+ * released in random order so chunks are fragmented into runs of many different sizes.
+ */
+
+/**
+ * 测量 {@link PooledByteBufAllocator} 正常大小（8 KiB - 4 MiB）分配/释放的吞吐量，块的运行队列要么逐个遍历
+ * （{@code bitmapRunIndex=false}），要么通过两级位图查找（{@code true}）。缓冲区按随机顺序释放，
+ * 因此块会被切分成许多不同大小的运行。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class PoolChunkRunIndexBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean bitmapRunIndex;
+
+    // small: 8 KiB - 64 KiB, mixed: 8 KiB - 4 MiB, large: 512 KiB - 4 MiB.
+    // small: 8 KiB - 64 KiB，mixed: 8 KiB - 4 MiB，large: 512 KiB - 4 MiB。
+    @Param({ "small", "mixed", "large" })
+    public String sizes;
+
+    private static final int LIVE_BUFFERS = 256;
+    private static final int MASK = LIVE_BUFFERS - 1;
+
+    private PooledByteBufAllocator allocator;
+    private int[] requestSizes;
+    private int[] releaseOrder;
+    private ByteBuf[] live;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int minShift;
+        int maxShift;
+        if ("small".equals(sizes)) {
+            minShift = 13;
+            maxShift = 16;
+        } else if ("large".equals(sizes)) {
+            minShift = 19;
+            maxShift = 22;
+        } else {
+            minShift = 13;
+            maxShift = 22;
+        }
+        // Heap only, no thread cache and a 16 MiB chunk so every request is a normal allocation out of the arena.
+        // 仅使用堆，没有线程缓存并且块大小为 16 MiB，因此每个请求都是从arena进行的正常分配。
+        allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, false, 0, null, bitmapRunIndex);
+
+        Random random = new Random(42);
+        requestSizes = new int[LIVE_BUFFERS * 4];
+        for (int i = 0; i < requestSizes.length; i++) {
+            int shift = minShift + random.nextInt(maxShift - minShift + 1);
+            // Anything between 2^(shift - 1) and 2^shift, so run sizes that are not powers of two are used too.
+            // 取 2^(shift - 1) 到 2^shift 之间的任意值，因此也会使用非 2 的幂的运行大小。
+            requestSizes[i] = (1 << shift - 1) + random.nextInt(1 << shift - 1) + 1;
+        }
+        releaseOrder = new int[LIVE_BUFFERS];
+        for (int i = 0; i < releaseOrder.length; i++) {
+            releaseOrder[i] = random.nextInt(LIVE_BUFFERS);
+        }
+        live = new ByteBuf[LIVE_BUFFERS];
+        for (int i = 0; i < live.length; i++) {
+            live[i] = allocator.heapBuffer(requestSizes[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (int i = 0; i < live.length; i++) {
+            live[i].release();
+            live[i] = null;
+        }
+    }
+
+    /**
+     * Release a random live buffer and allocate a new one in its place.
+     */
+
+    /**
+     * 释放一个随机的存活缓冲区，并在其位置上分配一个新的缓冲区。
+     */
+    @Benchmark
+    public int replace() {
+        int n = next++;
+        int slot = releaseOrder[n & MASK];
+        live[slot].release();
+        ByteBuf buf = allocator.heapBuffer(requestSizes[n % requestSizes.length]);
+        live[slot] = buf;
+        return buf.capacity();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PoolChunkRunIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,138 @@
+package org.top.java.netty.microbench.buffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.top.java.netty.source.buffer.ByteBuf;
+import org.top.java.netty.source.buffer.PooledByteBufAllocator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multi-threaded alloc/free throughput of {@link PooledByteBufAllocator} with the thread local caches disabled, so
+ * every allocation and release goes to the shared {@code PoolArena}. Run it against the previous revision to compare
+ * the arena lock contention before and after the per size class free path.
+ */
+
+/**
+ * 在禁用线程本地缓存的情况下测量 {@link PooledByteBufAllocator} 的多线程分配/释放吞吐量，
+ * 因此每次分配和释放都会进入共享的 {@code PoolArena}。与之前的版本对比运行，
+ * 即可比较按大小类释放路径引入前后的 arena 锁竞争情况。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@Threads(8)
+public class PooledByteBufAllocatorContentionBenchmark {
+
+    // Small size classes, every benchmark thread picks one of them by its index.
+    // 小尺寸类，每个基准测试线程按其索引选择其中一个。
+    private static final int[] SMALL_SIZES = { 16, 64, 256, 512, 1024, 2048, 4096, 8192 };
+
+    @State(Scope.Benchmark)
+    public static class AllocatorState {
+        @Param({ "true", "false" })
+        public boolean direct;
+
+        @Param({ "1", "4" })
+        public int arenas;
+
+        PooledByteBufAllocator allocator;
+        final AtomicInteger threadIndex = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setup() {
+            // Cache sizes of 0 force every allocation and free through the arena.
+            // 缓存大小为 0 会强制每次分配和释放都经过 arena。
+            allocator = new PooledByteBufAllocator(direct, arenas, arenas, 8192, 9, 0, 0, false, 0);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        @Param({ "64" })
+        public int batch;
+
+        int distinctSize;
+        ByteBuf[] buffers;
+
+        @Setup(Level.Trial)
+        public void setup(AllocatorState state) {
+            distinctSize = SMALL_SIZES[state.threadIndex.getAndIncrement() % SMALL_SIZES.length];
+            buffers = new ByteBuf[batch];
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            for (int i = 0; i < buffers.length; i++) {
+                if (buffers[i] != null) {
+                    buffers[i].release();
+                    buffers[i] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Every thread allocates from the same size class, so they share one subpage pool head.
+     */
+
+    /**
+     * 每个线程都从同一个大小类分配，因此它们共享同一个子页面池头部。
+     */
+    @Benchmark
+    public int sameSizeClass(AllocatorState state, ThreadState thread) {
+        return allocateAndFree(state, thread, 256);
+    }
+
+    /**
+     * Every thread allocates from its own size class, which should not contend once frees bypass the arena lock.
+     */
+
+    /**
+     * 每个线程从各自的大小类分配，一旦释放绕过 arena 锁，就不应该发生竞争。
+     */
+    @Benchmark
+    public int distinctSizeClasses(AllocatorState state, ThreadState thread) {
+        return allocateAndFree(state, thread, thread.distinctSize);
+    }
+
+    private static int allocateAndFree(AllocatorState state, ThreadState thread, int size) {
+        ByteBuf[] buffers = thread.buffers;
+        int capacity = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = state.allocator.buffer(size);
+        }
+        for (int i = 0; i < buffers.length; i++) {
+            capacity += buffers[i].capacity();
+            buffers[i].release();
+            buffers[i] = null;
+        }
+        return capacity;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PooledByteBufAllocatorContentionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
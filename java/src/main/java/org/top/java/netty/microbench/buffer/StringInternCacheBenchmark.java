@@ -0,0 +1,130 @@
+package org.top.java.netty.microbench.buffer;
+
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.top.java.netty.source.buffer.ByteBuf;
+import org.top.java.netty.source.buffer.StringInternCache;
+import org.top.java.netty.source.buffer.Unpooled;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a stream of {@code distinct} different header names into {@link String}s, either by decoding every one of
+ * them with {@link ByteBuf#toString(int, int, java.nio.charset.Charset)} or through a {@link StringInternCache} of
+ * 1024 entries. With more distinct names than entries the cache starts to miss, which shows the cost of a miss.
+ * The hits and misses of the cache are reported as auxiliary counters. Run with {@code -prof gc} to compare the
+ * allocation rates.
+ */
+
+/**
+ * 将由 {@code distinct} 个不同头部名称组成的流转换为 {@link String}，要么用
+ * {@link ByteBuf#toString(int, int, java.nio.charset.Charset)} 逐个解码，要么通过一个 1024 个条目的
+ * {@link StringInternCache}。当不同名称多于条目数时，缓存开始未命中，从而显示未命中的开销。
+ * 缓存的命中和未命中次数作为辅助计数器报告。使用 {@code -prof gc} 运行以比较分配速率。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class StringInternCacheBenchmark {
+
+    private static final int NAMES_PER_OP = 256;
+
+    @Param({ "16", "256", "4096" })
+    public int distinct;
+
+    private ByteBuf names;
+    private int[] offsets;
+    private int[] lengths;
+    private StringInternCache cache;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        String[] dictionary = new String[distinct];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = "x-header-" + Integer.toHexString(random.nextInt()) + '-' + i;
+        }
+        names = Unpooled.directBuffer();
+        offsets = new int[NAMES_PER_OP];
+        lengths = new int[NAMES_PER_OP];
+        for (int i = 0; i < NAMES_PER_OP; i++) {
+            byte[] name = dictionary[random.nextInt(distinct)].getBytes(CharsetUtil.US_ASCII);
+            offsets[i] = names.writerIndex();
+            lengths[i] = name.length;
+            names.writeBytes(name);
+        }
+        cache = new StringInternCache(1024, 64);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        names.release();
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh) {
+        for (int i = 0; i < NAMES_PER_OP; i++) {
+            bh.consume(names.toString(offsets[i], lengths[i], CharsetUtil.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public void intern(Blackhole bh, CacheCounters counters) {
+        long hits = cache.hits();
+        long misses = cache.misses();
+        for (int i = 0; i < NAMES_PER_OP; i++) {
+            bh.consume(cache.intern(names, offsets[i], lengths[i]));
+        }
+        counters.hits += cache.hits() - hits;
+        counters.misses += cache.misses() - misses;
+    }
+
+    /**
+     * Reports the hits and misses of the cache next to the score of {@link #intern(Blackhole, CacheCounters)}.
+     */
+
+    /**
+     * 在 {@link #intern(Blackhole, CacheCounters)} 的得分旁报告缓存的命中和未命中次数。
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class CacheCounters {
+        public long hits;
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(StringInternCacheBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,117 @@
+package org.top.java.netty.microbench.buffer;
+
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.top.java.netty.source.buffer.ByteBuf;
+import org.top.java.netty.source.buffer.ByteBufUtil;
+import org.top.java.netty.source.buffer.Unpooled;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding and validating UTF-8 text frames of about {@code size} bytes that are mostly ASCII (JSON), Latin (mostly
+ * ASCII with some 2 byte chars) or CJK (3 byte chars), held in a heap or a direct buffer. {@code jdk} is how
+ * {@link ByteBuf#toString(java.nio.charset.Charset)} decoded before it had its own UTF-8 fast path.
+ */
+
+/**
+ * 解码和校验大约 {@code size} 字节的 UTF-8 文本帧，其内容主要是 ASCII（JSON）、拉丁文（大部分是 ASCII，带有一些
+ * 2 字节字符）或 CJK（3 字节字符），保存在堆缓冲区或直接缓冲区中。{@code jdk} 是
+ * {@link ByteBuf#toString(java.nio.charset.Charset)} 在拥有自己的 UTF-8 快速路径之前的解码方式。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class Utf8DecodeBenchmark {
+
+    private static final String ASCII = "{\"id\":12345,\"type\":\"message\",\"text\":\"hello world\",\"ok\":true},";
+    private static final String LATIN = "Grüße aus Köln: café, crème brûlée und Smørrebrød für alle. ";
+    private static final String CJK = "中文文本的解码测试，日本語のテキスト，한국어 텍스트。";
+
+    @Param({ "ascii", "latin", "cjk" })
+    public String payload;
+
+    @Param({ "1024" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    private ByteBuf buffer;
+    private byte[] bytes;
+    private char[] chars;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String sample = "ascii".equals(payload) ? ASCII : "latin".equals(payload) ? LATIN : CJK;
+        StringBuilder text = new StringBuilder();
+        while (text.toString().getBytes(CharsetUtil.UTF_8).length < size) {
+            text.append(sample);
+        }
+        bytes = text.toString().getBytes(CharsetUtil.UTF_8);
+        buffer = direct ? Unpooled.directBuffer(bytes.length) : Unpooled.buffer(bytes.length);
+        buffer.writeBytes(bytes);
+        chars = new char[bytes.length];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        buffer.release();
+    }
+
+    @Benchmark
+    public String jdk() {
+        final byte[] array;
+        final int offset;
+        if (buffer.hasArray()) {
+            array = buffer.array();
+            offset = buffer.arrayOffset() + buffer.readerIndex();
+        } else {
+            array = bytes;
+            offset = 0;
+            buffer.getBytes(buffer.readerIndex(), array, 0, buffer.readableBytes());
+        }
+        return new String(array, offset, buffer.readableBytes(), CharsetUtil.UTF_8);
+    }
+
+    @Benchmark
+    public String decodeString() {
+        return buffer.toString(CharsetUtil.UTF_8);
+    }
+
+    @Benchmark
+    public int decodeIntoCharArray() {
+        return ByteBufUtil.decodeUtf8(buffer, buffer.readerIndex(), buffer.readableBytes(), chars, 0);
+    }
+
+    @Benchmark
+    public boolean isText() {
+        return ByteBufUtil.isText(buffer, CharsetUtil.UTF_8);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(Utf8DecodeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
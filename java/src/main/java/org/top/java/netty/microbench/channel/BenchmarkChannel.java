@@ -0,0 +1,209 @@
+package org.top.java.netty.microbench.channel;
+
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.top.java.netty.source.channel.AbstractChannel;
+import org.top.java.netty.source.channel.Channel;
+import org.top.java.netty.source.channel.ChannelFuture;
+import org.top.java.netty.source.channel.ChannelOutboundBuffer;
+import org.top.java.netty.source.channel.ChannelPromise;
+import org.top.java.netty.source.channel.DefaultChannelPromise;
+import org.top.java.netty.source.channel.EventLoop;
+import org.top.java.netty.source.channel.EventLoopGroup;
+import org.top.java.netty.source.util.concurrent.AbstractEventExecutor;
+import org.top.java.netty.source.util.concurrent.FailedFuture;
+import org.top.java.netty.source.util.concurrent.Future;
+
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Just enough of an {@link AbstractChannel} to drive its {@link org.top.java.netty.source.channel.ChannelPipeline}
+ * and {@link ChannelOutboundBuffer} from a benchmark thread: it never does I/O, never becomes unwritable, and can be
+ * registered to an {@link InlineEventLoop} that runs everything on the calling thread.
+ */
+
+/**
+ * 仅足以让基准线程驱动其 {@link org.top.java.netty.source.channel.ChannelPipeline} 和 {@link ChannelOutboundBuffer}
+ * 的 {@link AbstractChannel}：它从不执行 I/O，永远不会变为不可写，并且可以注册到一个在调用线程上运行一切的
+ * {@link InlineEventLoop}。
+ */
+final class BenchmarkChannel extends AbstractChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+    private final ChannelConfig config = new EmbeddedChannel().config()
+            .setWriteBufferWaterMark(new WriteBufferWaterMark(Integer.MAX_VALUE - 1, Integer.MAX_VALUE));
+
+    BenchmarkChannel() {
+        super(null);
+    }
+
+    /**
+     * Returns a new channel that is registered to a new {@link InlineEventLoop}.
+     */
+
+    /**
+     * 返回一个注册到新的 {@link InlineEventLoop} 的新通道。
+     */
+    static BenchmarkChannel newRegisteredChannel() {
+        BenchmarkChannel channel = new BenchmarkChannel();
+        new InlineEventLoop().register(channel).syncUninterruptibly();
+        return channel;
+    }
+
+    @Override
+    protected AbstractUnsafe newUnsafe() {
+        return new AbstractUnsafe() {
+            @Override
+            public void connect(SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) {
+                promise.setFailure(new UnsupportedOperationException());
+            }
+        };
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof InlineEventLoop;
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return null;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return null;
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void doDisconnect() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void doClose() {
+        // NOOP
+    }
+
+    @Override
+    protected void doBeginRead() {
+        // NOOP
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public boolean isActive() {
+        // Not active, so registering does not start reading.
+        // 非活跃状态，因此注册时不会开始读取。
+        return false;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    /**
+     * An {@link EventLoop} that runs every task right away on the calling thread, which always counts as the event
+     * loop thread.
+     */
+
+    /**
+     * 一个在调用线程上立即运行每个任务的 {@link EventLoop}，调用线程总是被视为事件循环线程。
+     */
+    static final class InlineEventLoop extends AbstractEventExecutor implements EventLoop {
+
+        @Override
+        public EventLoopGroup parent() {
+            return this;
+        }
+
+        @Override
+        public EventLoop next() {
+            return this;
+        }
+
+        @Override
+        public ChannelFuture register(Channel channel) {
+            return register(new DefaultChannelPromise(channel, this));
+        }
+
+        @Override
+        public ChannelFuture register(ChannelPromise promise) {
+            promise.channel().unsafe().register(this, promise);
+            return promise;
+        }
+
+        @Override
+        public ChannelFuture register(Channel channel, ChannelPromise promise) {
+            channel.unsafe().register(this, promise);
+            return promise;
+        }
+
+        @Override
+        public boolean inEventLoop(Thread thread) {
+            return true;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public boolean isShuttingDown() {
+            return false;
+        }
+
+        @Override
+        public Future<?> shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+            return terminationFuture();
+        }
+
+        @Override
+        public Future<?> terminationFuture() {
+            return new FailedFuture<Object>(this, new UnsupportedOperationException());
+        }
+
+        @Override
+        public void shutdown() {
+            // NOOP
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.top.java.netty.microbench.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.top.java.netty.source.channel.ChannelOutboundBuffer;
+import org.top.java.netty.source.channel.ChannelPromise;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of flushing {@code pendingBuffers} small {@link ByteBuf}s out of a {@link ChannelOutboundBuffer} the way
+ * {@code NioSocketChannel.doWrite} does: {@link ChannelOutboundBuffer#nioBuffers(int, long)}, a gathering write
+ * that only accepts {@code bytesPerWrite} bytes, and {@link ChannelOutboundBuffer#removeBytes(long)}, repeated until
+ * everything was written. The write is simulated by advancing the {@link ByteBuffer}s, so only the bookkeeping of
+ * the outbound buffer is measured.
+ */
+
+/**
+ * 以 {@code NioSocketChannel.doWrite} 的方式从 {@link ChannelOutboundBuffer} 中刷出 {@code pendingBuffers} 个小 {@link ByteBuf} 的开销：
+ * {@link ChannelOutboundBuffer#nioBuffers(int, long)}、一次只接受 {@code bytesPerWrite} 字节的聚集写，
+ * 以及 {@link ChannelOutboundBuffer#removeBytes(long)}，重复直到全部写出。写操作通过推进 {@link ByteBuffer} 来模拟，
+ * 因此只测量出站缓冲区自身的簿记开销。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChannelOutboundBufferFlushBenchmark {
+
+    @Param({ "1", "64", "1024" })
+    public int pendingBuffers;
+
+    @Param({ "128" })
+    public int messageSize;
+
+    @Param({ "16384" })
+    public int bytesPerWrite;
+
+    private ChannelOutboundBuffer buffer;
+    private ChannelPromise promise;
+    private ByteBuf[] messages;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkChannel channel = new BenchmarkChannel();
+        buffer = channel.unsafe().outboundBuffer();
+        promise = channel.voidPromise();
+        messages = new ByteBuf[pendingBuffers];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = Unpooled.directBuffer(messageSize).writeZero(messageSize);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (ByteBuf message: messages) {
+            message.release();
+        }
+    }
+
+    @Benchmark
+    public int flush() {
+        for (ByteBuf message: messages) {
+            // The outbound buffer releases every message once it was written.
+            // 出站缓冲区会在每条消息写出后将其释放。
+            buffer.addMessage(message.retain().readerIndex(0), messageSize, promise);
+        }
+        buffer.addFlush();
+        int writes = 0;
+        while (!buffer.isEmpty()) {
+            ByteBuffer[] nioBuffers = buffer.nioBuffers(1024, Integer.MAX_VALUE);
+            buffer.removeBytes(write(nioBuffers, buffer.nioBufferCount(), bytesPerWrite));
+            writes++;
+        }
+        return writes;
+    }
+
+    private static long write(ByteBuffer[] nioBuffers, int count, long budget) {
+        long written = 0;
+        for (int i = 0; i < count && written < budget; i++) {
+            ByteBuffer nioBuffer = nioBuffers[i];
+            int bytes = (int) Math.min(nioBuffer.remaining(), budget - written);
+            nioBuffer.position(nioBuffer.position() + bytes);
+            written += bytes;
+        }
+        return written;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ChannelOutboundBufferFlushBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,190 @@
+package org.top.java.netty.microbench.channel;
+
+import io.netty.util.concurrent.EventExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.top.java.netty.example.echo.EchoServerHandler;
+import org.top.java.netty.source.channel.nio.NioEventLoop;
+import org.top.java.netty.source.channel.nio.NioEventLoopGroup;
+import org.top.java.netty.source.channel.nio.NioTask;
+import org.top.java.netty.source.channel.nio.NioWaitStrategy;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip latency of the echo protocol of {@link EchoServerHandler} with the different {@link NioWaitStrategy}s.
+ * The benchmark thread hands every request to the client event loop as a task, the client writes it to the
+ * server event loop which echoes it back, and the benchmark thread spins until the echo was read. So each sample
+ * contains one cross-thread task submission and two hops through a {@link java.nio.channels.Selector}. The
+ * channels are registered as {@link NioTask}s to use the {@link NioEventLoop}s of this tree directly. Run with
+ * {@code Mode.SampleTime} to get the latency percentiles.
+ */
+
+/**
+ * 使用不同 {@link NioWaitStrategy} 时 {@link EchoServerHandler} 回显协议的往返延迟。
+ * 基准线程把每个请求作为任务交给客户端事件循环，客户端将其写给服务端事件循环，服务端再回显回来，
+ * 基准线程自旋直到读到回显。因此每个样本包含一次跨线程任务提交和两次经过 {@link java.nio.channels.Selector} 的跳转。
+ * 通道以 {@link NioTask} 的形式注册，以便直接使用本代码树中的 {@link NioEventLoop}。使用 {@code Mode.SampleTime} 运行以获得延迟百分位数。
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NioWaitStrategyEchoBenchmark {
+
+    @Param({ "blocking", "spinYieldPark", "busySpin" })
+    public String waitStrategy;
+
+    @Param({ "64" })
+    public int messageSize;
+
+    private NioEventLoopGroup group;
+    private NioEventLoop clientLoop;
+    private SocketChannel client;
+    private SocketChannel server;
+    private ByteBuffer request;
+    private volatile long echoedBytes;
+    private long expectedBytes;
+
+    private final Runnable writeRequest = new Runnable() {
+        @Override
+        public void run() {
+            request.clear();
+            try {
+                while (request.hasRemaining()) {
+                    client.write(request);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        group = new NioEventLoopGroup(2, (Executor) null, newWaitStrategy(waitStrategy));
+        Iterator<EventExecutor> loops = group.iterator();
+        NioEventLoop serverLoop = (NioEventLoop) loops.next();
+        clientLoop = (NioEventLoop) loops.next();
+
+        ServerSocketChannel acceptor = ServerSocketChannel.open();
+        acceptor.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = SocketChannel.open(acceptor.getLocalAddress());
+        server = acceptor.accept();
+        acceptor.close();
+        client.socket().setTcpNoDelay(true);
+        server.socket().setTcpNoDelay(true);
+        client.configureBlocking(false);
+        server.configureBlocking(false);
+
+        request = ByteBuffer.allocateDirect(messageSize);
+        serverLoop.register(server, SelectionKey.OP_READ, new EchoTask());
+        clientLoop.register(client, SelectionKey.OP_READ, new NioTask<SocketChannel>() {
+            private final ByteBuffer response = ByteBuffer.allocateDirect(64 * 1024);
+
+            @Override
+            public void channelReady(SocketChannel ch, SelectionKey key) throws Exception {
+                response.clear();
+                int read = ch.read(response);
+                if (read > 0) {
+                    echoedBytes += read;
+                }
+            }
+
+            @Override
+            public void channelUnregistered(SocketChannel ch, Throwable cause) {
+                // NOOP
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public long roundTrip() {
+        expectedBytes += messageSize;
+        clientLoop.execute(writeRequest);
+        long echoed;
+        while ((echoed = echoedBytes) < expectedBytes) {
+            // Spin so that the benchmark thread itself does not add a wakeup to the measured latency.
+            // 自旋，以免基准线程自身为测得的延迟增加一次唤醒。
+        }
+        return echoed;
+    }
+
+    private static NioWaitStrategy newWaitStrategy(String name) {
+        if ("busySpin".equals(name)) {
+            return NioWaitStrategy.busySpin();
+        }
+        if ("spinYieldPark".equals(name)) {
+            return NioWaitStrategy.spinYieldPark(1000, 100);
+        }
+        return NioWaitStrategy.blocking();
+    }
+
+    /**
+     * Writes back everything it reads, like {@link EchoServerHandler}.
+     */
+
+    /**
+     * 将读到的所有内容写回，就像 {@link EchoServerHandler} 一样。
+     */
+    private static final class EchoTask implements NioTask<SocketChannel> {
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+        @Override
+        public void channelReady(SocketChannel ch, SelectionKey key) throws Exception {
+            buffer.clear();
+            if (ch.read(buffer) <= 0) {
+                return;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                ch.write(buffer);
+            }
+        }
+
+        @Override
+        public void channelUnregistered(SocketChannel ch, Throwable cause) {
+            // NOOP
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(NioWaitStrategyEchoBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,102 @@
+package org.top.java.netty.microbench.channel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.top.java.netty.source.channel.ChannelDuplexHandler;
+import org.top.java.netty.source.channel.ChannelHandlerContext;
+import org.top.java.netty.source.channel.ChannelInboundHandlerAdapter;
+import org.top.java.netty.source.channel.ChannelPipeline;
+import org.top.java.netty.source.channel.ChannelPromise;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the pipeline changes a short-lived connection goes through, all done from the event loop of its channel:
+ * {@code handlers} handlers are added when the connection is set up, a protocol upgrade then replaces the codec and
+ * removes the upgrade handler, and finally all remaining handlers are removed again. This measures the mutation lock
+ * and the relinking of the pipeline rather than the dispatch of events.
+ */
+
+/**
+ * 短连接经历的管道变更开销，全部在其通道的事件循环中完成：建立连接时添加 {@code handlers} 个处理器，
+ * 随后一次协议升级替换编解码器并移除升级处理器，最后再移除所有剩余的处理器。它测量的是变更锁和管道的重新链接，
+ * 而不是事件的分发。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineChurnBenchmark {
+
+    private static final String CODEC = "codec";
+    private static final String UPGRADE = "upgrade";
+
+    @Param({ "4", "16" })
+    public int handlers;
+
+    private ChannelPipeline pipeline;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pipeline = BenchmarkChannel.newRegisteredChannel().pipeline();
+        names = new String[handlers];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "handler" + i;
+        }
+    }
+
+    @Benchmark
+    public int connection() {
+        final ChannelPipeline pipeline = this.pipeline;
+        pipeline.addLast(CODEC, new InboundHandler());
+        pipeline.addLast(UPGRADE, new DuplexHandler());
+        for (int i = 0; i < names.length; i++) {
+            pipeline.addLast(names[i], (i & 1) == 0 ? new InboundHandler() : new WriteHandler());
+        }
+
+        pipeline.replace(CODEC, CODEC, new DuplexHandler());
+        pipeline.remove(UPGRADE);
+
+        int removed = 0;
+        while (pipeline.last() != null) {
+            pipeline.removeLast();
+            removed++;
+        }
+        return removed;
+    }
+
+    private static final class InboundHandler extends ChannelInboundHandlerAdapter { }
+
+    private static final class WriteHandler extends ChannelDuplexHandler {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ctx.write(msg, promise);
+        }
+    }
+
+    private static final class DuplexHandler extends ChannelDuplexHandler { }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PipelineChurnBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,118 @@
+package org.top.java.netty.microbench.channel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.top.java.netty.source.channel.ChannelDuplexHandler;
+import org.top.java.netty.source.channel.ChannelHandler.Sharable;
+import org.top.java.netty.source.channel.ChannelHandlerContext;
+import org.top.java.netty.source.channel.ChannelInboundHandlerAdapter;
+import org.top.java.netty.source.channel.ChannelPipeline;
+import org.top.java.netty.source.channel.ChannelPromise;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of passing a read and a write through a {@link ChannelPipeline} of {@code depth} handlers, half of which only
+ * handle reads and the other half only writes. So every event executes {@code depth / 2} handlers and skips the
+ * others, which the pipeline resolves through its precomputed dispatch links.
+ */
+
+/**
+ * 让一次读和一次写穿过由 {@code depth} 个处理器组成的 {@link ChannelPipeline} 的开销，其中一半处理器只处理读，
+ * 另一半只处理写。因此每个事件执行 {@code depth / 2} 个处理器并跳过其余的，管道通过其预先计算的分发链接完成跳过。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineDispatchBenchmark {
+
+    private static final Object MESSAGE = new Object();
+
+    @Param({ "4", "20" })
+    public int depth;
+
+    private ChannelPipeline pipeline;
+    private ChannelPromise promise;
+    private final ConsumingHandler consumer = new ConsumingHandler();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkChannel channel = BenchmarkChannel.newRegisteredChannel();
+        pipeline = channel.pipeline();
+        promise = channel.voidPromise();
+        // Swallows the writes before they reach the head and the outbound buffer.
+        // 在写操作到达 head 和出站缓冲区之前将其吞掉。
+        pipeline.addLast(consumer);
+        for (int i = 0; i < depth; i++) {
+            pipeline.addLast((i & 1) == 0 ? new ReadHandler() : new WriteHandler());
+        }
+        // Swallows the reads before they reach the tail.
+        // 在读操作到达 tail 之前将其吞掉。
+        pipeline.addLast(consumer);
+    }
+
+    @Benchmark
+    public long read() {
+        pipeline.fireChannelRead(MESSAGE);
+        return consumer.count;
+    }
+
+    @Benchmark
+    public long write() {
+        pipeline.write(MESSAGE, promise);
+        return consumer.count;
+    }
+
+    private static final class ReadHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    private static final class WriteHandler extends ChannelDuplexHandler {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ctx.write(msg, promise);
+        }
+    }
+
+    @Sharable
+    private static final class ConsumingHandler extends ChannelDuplexHandler {
+        long count;
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            count++;
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            count++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PipelineDispatchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
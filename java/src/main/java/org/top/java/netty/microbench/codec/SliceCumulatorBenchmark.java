@@ -0,0 +1,122 @@
+package org.top.java.netty.microbench.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.top.java.netty.source.codec.ByteToMessageDecoder;
+import org.top.java.netty.source.codec.LengthFieldBasedFrameDecoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a {@link LengthFieldBasedFrameDecoder} that receives {@code FRAMES} length-prefixed frames of 64 KiB in reads
+ * of 1460 bytes, so every frame spans about 45 reads, with each of the {@link ByteToMessageDecoder.Cumulator}s: the
+ * {@link ByteToMessageDecoder#MERGE_CUMULATOR} copies every read into the cumulation, the
+ * {@link ByteToMessageDecoder#COMPOSITE_CUMULATOR} and the {@link ByteToMessageDecoder#SLICE_CUMULATOR} do not.
+ */
+
+/**
+ * 一个 {@link LengthFieldBasedFrameDecoder} 以每次 1460 字节的读取接收 {@code FRAMES} 个带长度前缀的 64 KiB 帧的开销，
+ * 因此每个帧都跨越大约 45 次读取，分别使用每种 {@link ByteToMessageDecoder.Cumulator}：
+ * {@link ByteToMessageDecoder#MERGE_CUMULATOR} 会把每次读取拷贝到累积缓冲区中，
+ * {@link ByteToMessageDecoder#COMPOSITE_CUMULATOR} 和 {@link ByteToMessageDecoder#SLICE_CUMULATOR} 则不会。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SliceCumulatorBenchmark {
+
+    private static final int FRAMES = 16;
+    private static final int FRAME_SIZE = 64 * 1024;
+    private static final int READ_SIZE = 1460;
+
+    @Param({ "merge", "composite", "slice" })
+    public String cumulator;
+
+    private EmbeddedChannel channel;
+    private ByteBuf[] reads;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ByteBuf stream = Unpooled.buffer(FRAMES * (4 + FRAME_SIZE));
+        for (int i = 0; i < FRAMES; i++) {
+            stream.writeInt(FRAME_SIZE);
+            for (int j = 0; j < FRAME_SIZE; j++) {
+                stream.writeByte(i + j);
+            }
+        }
+        reads = new ByteBuf[(stream.readableBytes() + READ_SIZE - 1) / READ_SIZE];
+        for (int i = 0; i < reads.length; i++) {
+            int length = Math.min(READ_SIZE, stream.readableBytes());
+            reads[i] = Unpooled.directBuffer(length).writeBytes(stream, length);
+        }
+        stream.release();
+
+        LengthFieldBasedFrameDecoder decoder = new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4);
+        if ("merge".equals(cumulator)) {
+            decoder.setCumulator(ByteToMessageDecoder.MERGE_CUMULATOR);
+        } else if ("composite".equals(cumulator)) {
+            decoder.setCumulator(ByteToMessageDecoder.COMPOSITE_CUMULATOR);
+        } else {
+            decoder.setCumulator(ByteToMessageDecoder.SLICE_CUMULATOR);
+        }
+        channel = new EmbeddedChannel(decoder);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        for (ByteBuf read: reads) {
+            read.release();
+        }
+    }
+
+    @Benchmark
+    public long decode() {
+        ChannelPipeline pipeline = channel.pipeline();
+        long sum = 0;
+        for (ByteBuf read: reads) {
+            // The decoder releases every read once it was cumulated.
+            // 解码器会在每次读取被累积后将其释放。
+            pipeline.fireChannelRead(read.retainedDuplicate());
+            for (;;) {
+                ByteBuf frame = channel.readInbound();
+                if (frame == null) {
+                    break;
+                }
+                sum += frame.getByte(frame.readerIndex() + frame.readableBytes() - 1);
+                frame.release();
+            }
+        }
+        pipeline.fireChannelReadComplete();
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(SliceCumulatorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
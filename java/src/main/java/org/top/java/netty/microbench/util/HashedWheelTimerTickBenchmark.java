@@ -0,0 +1,110 @@
+package org.top.java.netty.microbench.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.top.java.netty.source.util.HashedWheelTimer;
+import org.top.java.netty.source.util.Timeout;
+import org.top.java.netty.source.util.TimerTask;
+import org.top.java.netty.source.util.concurrent.ImmediateExecutor;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of timer ticks while {@code pending} far away timeouts are parked in a
+ * {@link HashedWheelTimer} with one ({@code levels = 1}) or more wheel levels. Every invocation stalls the worker
+ * thread for {@value #STALL_TICKS} ticks and then waits for a timeout that expires at the end of the stall, so the
+ * worker has to run the missed ticks back to back. The stall itself is constant, the difference between the
+ * configurations is the cost of catching up {@value #STALL_TICKS} ticks.
+ */
+
+/**
+ * 测量在 {@link HashedWheelTimer} 中有 {@code pending} 个远期超时时滴答的开销，时间轮为单层（{@code levels = 1}）或多层。
+ * 每次调用都会让工作线程停顿 {@value #STALL_TICKS} 个滴答，然后等待一个在停顿结束时到期的超时，
+ * 因此工作线程必须连续执行错过的滴答。停顿本身是恒定的，各配置之间的差异就是追赶 {@value #STALL_TICKS} 个滴答的开销。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class HashedWheelTimerTickBenchmark {
+
+    private static final int STALL_TICKS = 64;
+    private static final TimerTask NOOP = new TimerTask() {
+        @Override
+        public void run(Timeout timeout) {
+            // NOOP
+        }
+    };
+
+    @Param({ "0", "10000", "1000000" })
+    public int pending;
+
+    @Param({ "1", "4" })
+    public int levels;
+
+    private HashedWheelTimer timer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        timer = new HashedWheelTimer(Executors.defaultThreadFactory(), 1, TimeUnit.MILLISECONDS, 512, false,
+                0, ImmediateExecutor.INSTANCE, levels);
+        // Spread the idle timeouts between one minute and one hour, like connection idle timeouts.
+        // 将空闲超时分布在一分钟到一小时之间，类似于连接空闲超时。
+        Random random = new Random(42);
+        for (int i = 0; i < pending; i++) {
+            timer.newTimeout(NOOP, 60000 + random.nextInt(3540000), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Benchmark
+    public void catchUpTicks() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        // The timeouts run on the worker thread because of the ImmediateExecutor.
+        // 由于使用了 ImmediateExecutor，超时在工作线程上运行。
+        timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                Thread.sleep(STALL_TICKS);
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+        timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) {
+                done.countDown();
+            }
+        }, STALL_TICKS, TimeUnit.MILLISECONDS);
+        done.await();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(HashedWheelTimerTickBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,160 @@
+package org.top.java.netty.microbench.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.top.java.netty.source.util.collection.IntObjectHashMap;
+import org.top.java.netty.source.util.collection.IntObjectMap;
+import org.top.java.netty.source.util.collection.IntObjectSwissHashMap;
+import org.top.java.netty.source.util.collection.LongObjectHashMap;
+import org.top.java.netty.source.util.collection.LongObjectMap;
+import org.top.java.netty.source.util.collection.LongObjectSwissHashMap;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link IntObjectHashMap} / {@link LongObjectHashMap} with their Swiss table variants. Every map is
+ * filled with {@code size} keys. Half of the looked up keys are present and half are missing. For memory, run
+ * {@link #intPutAll()} with {@code -prof gc}: its {@code gc.alloc.rate.norm} is the bytes allocated to fill a map,
+ * including the tables dropped while rehashing.
+ */
+
+/**
+ * 比较 {@link IntObjectHashMap} / {@link LongObjectHashMap} 与其 Swiss table 变体。每个映射都填充 {@code size} 个键。
+ * 查找的键一半存在一半不存在。要了解内存，请使用 {@code -prof gc} 运行 {@link #intPutAll()}：
+ * 其 {@code gc.alloc.rate.norm} 是填充一个映射所分配的字节数，包括重新哈希时丢弃的表。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class PrimitiveObjectMapBenchmark {
+
+    @Param({ "1000", "1000000", "10000000" })
+    public int size;
+
+    @Param({ "linear", "swiss" })
+    public String impl;
+
+    private static final int LOOKUPS = 1 << 16;
+    private static final Object VALUE = new Object();
+
+    private IntObjectMap<Object> intMap;
+    private LongObjectMap<Object> longMap;
+    private int[] intLookups;
+    private long[] longLookups;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Even keys are in the map and odd keys are not, stream ids are sequential so the int keys are too.
+        // 偶数键在映射中而奇数键不在，流 ID 是连续的，因此 int 键也是连续的。
+        intMap = newIntMap();
+        for (int i = 0; i < size; i++) {
+            intMap.put(i << 1, VALUE);
+        }
+
+        longMap = newLongMap();
+        Random longKeys = new Random(7);
+        for (int i = 0; i < size; i++) {
+            longMap.put(longKeys.nextLong() & ~1L, VALUE);
+        }
+
+        // Replay the random long keys to look up some of the inserted ones.
+        // 重放随机 long 键以查找部分已插入的键。
+        longKeys = new Random(7);
+        long[] inserted = new long[Math.min(size, LOOKUPS)];
+        for (int i = 0; i < inserted.length; i++) {
+            inserted[i] = longKeys.nextLong() & ~1L;
+        }
+        Random random = new Random(42);
+        intLookups = new int[LOOKUPS];
+        longLookups = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            intLookups[i] = random.nextInt(size) << 1 | i & 1;
+            longLookups[i] = inserted[random.nextInt(inserted.length)] | i & 1;
+        }
+    }
+
+    private IntObjectMap<Object> newIntMap() {
+        return "swiss".equals(impl) ? new IntObjectSwissHashMap<Object>() : new IntObjectHashMap<Object>();
+    }
+
+    private LongObjectMap<Object> newLongMap() {
+        return "swiss".equals(impl) ? new LongObjectSwissHashMap<Object>() : new LongObjectHashMap<Object>();
+    }
+
+    @Benchmark
+    public Object intGet() {
+        return intMap.get(intLookups[next++ & LOOKUPS - 1]);
+    }
+
+    @Benchmark
+    public Object longGet() {
+        return longMap.get(longLookups[next++ & LOOKUPS - 1]);
+    }
+
+    /**
+     * Removes a present key and puts it back, so the size of the map stays the same.
+     */
+
+    /**
+     * 移除一个存在的键并将其放回，因此映射的大小保持不变。
+     */
+    @Benchmark
+    public Object intRemovePut() {
+        int key = intLookups[next++ & LOOKUPS - 1] & ~1;
+        Object value = intMap.remove(key);
+        intMap.put(key, VALUE);
+        return value;
+    }
+
+    @Benchmark
+    public Object longRemovePut() {
+        long key = longLookups[next++ & LOOKUPS - 1] & ~1L;
+        Object value = longMap.remove(key);
+        longMap.put(key, VALUE);
+        return value;
+    }
+
+    /**
+     * Fills a new map up to {@code size} keys, including all the rehashing on the way.
+     */
+
+    /**
+     * 向新映射中填充最多 {@code size} 个键，包括过程中所有的重新哈希。
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public IntObjectMap<Object> intPutAll() {
+        IntObjectMap<Object> map = newIntMap();
+        for (int i = 0; i < size; i++) {
+            map.put(i << 1, VALUE);
+        }
+        return map;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PrimitiveObjectMapBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
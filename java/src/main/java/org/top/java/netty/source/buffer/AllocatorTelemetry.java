@@ -0,0 +1,119 @@
+package org.top.java.netty.source.buffer;
+
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records per size class allocation counts and sampled allocation call sites of one {@link PoolArena}. Only created
+ * if {@code -Dio.netty.allocator.telemetry=true}, every counter is a {@link LongCounter} so recording never takes a
+ * lock and a {@link AllocatorTelemetrySnapshot} can be taken at any time.
+ */
+
+/**
+ * 记录一个 {@link PoolArena} 的每个大小类的分配次数以及采样的分配调用点。仅在
+ * {@code -Dio.netty.allocator.telemetry=true} 时创建，所有计数器都是 {@link LongCounter}，
+ * 因此记录永远不会获取锁，并且可以随时获取 {@link AllocatorTelemetrySnapshot}。
+ */
+final class AllocatorTelemetry {
+    // Upper bound of distinct call sites, everything beyond is counted as OTHER_SITES.
+    // 不同调用点的上限，超出的部分都计为 OTHER_SITES。
+    static final int MAX_SITES = 1024;
+    static final String OTHER_SITES = "<other>";
+    private static final String BUFFER_PACKAGE = AllocatorTelemetry.class.getPackage().getName() + '.';
+
+    private final int sampleRate;
+    // Indexed by sizeIdx, the last slot counts huge allocations.
+    // 按 sizeIdx 索引，最后一个槽位统计巨大的分配。
+    private final LongCounter[] cacheHits;
+    private final LongCounter[] arenaAllocations;
+    private final ConcurrentMap<String, LongCounter> sites = new ConcurrentHashMap<String, LongCounter>();
+
+    AllocatorTelemetry(int nSizes, int sampleRate) {
+        this.sampleRate = sampleRate;
+        cacheHits = newCounters(nSizes + 1);
+        arenaAllocations = newCounters(nSizes + 1);
+    }
+
+    private static LongCounter[] newCounters(int length) {
+        LongCounter[] counters = new LongCounter[length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = PlatformDependent.newLongCounter();
+        }
+        return counters;
+    }
+
+    /**
+     * Record an allocation of the given size class, {@code sizeIdx == nSizes} for huge allocations.
+     */
+
+    /**
+     * 记录给定大小类的一次分配，巨大的分配使用 {@code sizeIdx == nSizes}。
+     */
+    void record(int sizeIdx, boolean cacheHit) {
+        (cacheHit ? cacheHits : arenaAllocations)[sizeIdx].increment();
+    }
+
+    /**
+     * Record the call site of roughly one out of {@code sampleRate} allocations.
+     */
+
+    /**
+     * 大约每 {@code sampleRate} 次分配记录一次调用点。
+     */
+    void sample() {
+        if (sampleRate > 0 && PlatformDependent.threadLocalRandom().nextInt(sampleRate) == 0) {
+            String site = allocationSite(new Throwable().getStackTrace());
+            LongCounter counter = sites.get(site);
+            if (counter == null) {
+                if (sites.size() >= MAX_SITES) {
+                    site = OTHER_SITES;
+                }
+                LongCounter newCounter = PlatformDependent.newLongCounter();
+                counter = sites.putIfAbsent(site, newCounter);
+                if (counter == null) {
+                    counter = newCounter;
+                }
+            }
+            counter.increment();
+        }
+    }
+
+    /**
+     * Returns the first frame outside of the buffer package, which is the code that asked for the buffer.
+     */
+
+    /**
+     * 返回缓冲区包之外的第一个栈帧，也就是请求缓冲区的代码。
+     */
+    static String allocationSite(StackTraceElement[] trace) {
+        for (StackTraceElement element : trace) {
+            if (!element.getClassName().startsWith(BUFFER_PACKAGE)) {
+                return element.toString();
+            }
+        }
+        return OTHER_SITES;
+    }
+
+    int sampleRate() {
+        return sampleRate;
+    }
+
+    long cacheHits(int sizeIdx) {
+        return cacheHits[sizeIdx].value();
+    }
+
+    long arenaAllocations(int sizeIdx) {
+        return arenaAllocations[sizeIdx].value();
+    }
+
+    void collectSites(Map<String, Long> samples) {
+        for (Map.Entry<String, LongCounter> e : sites.entrySet()) {
+            Long previous = samples.get(e.getKey());
+            samples.put(e.getKey(), e.getValue().value() + (previous == null ? 0 : previous));
+        }
+    }
+}
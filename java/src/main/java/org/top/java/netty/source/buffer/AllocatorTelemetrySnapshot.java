@@ -0,0 +1,243 @@
+package org.top.java.netty.source.buffer;
+
+import io.netty.util.internal.StringUtil;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point in time view of the telemetry of a {@link PooledByteBufAllocator}, see
+ * {@link PooledByteBufAllocatorMetric#telemetrySnapshot()}. Counters are read one by one without stopping the
+ * allocating threads, so values taken from different counters may be slightly apart.
+ */
+
+/**
+ * {@link PooledByteBufAllocator} 遥测数据的某一时刻视图，参见 {@link PooledByteBufAllocatorMetric#telemetrySnapshot()}。
+ * 计数器是逐个读取的，不会停止正在分配的线程，因此从不同计数器读取的值可能略有偏差。
+ */
+public final class AllocatorTelemetrySnapshot {
+    private final long timestampMillis;
+    private final int sampleRate;
+    private final List<SizeClassStats> sizeClasses;
+    private final List<ArenaStats> arenas;
+    private final Map<String, Long> allocationSites;
+
+    AllocatorTelemetrySnapshot(int sampleRate, List<SizeClassStats> sizeClasses, List<ArenaStats> arenas,
+                               Map<String, Long> allocationSites) {
+        timestampMillis = System.currentTimeMillis();
+        this.sampleRate = sampleRate;
+        this.sizeClasses = Collections.unmodifiableList(sizeClasses);
+        this.arenas = Collections.unmodifiableList(arenas);
+        this.allocationSites = Collections.unmodifiableMap(allocationSites);
+    }
+
+    /**
+     * Return the time this snapshot was taken at, in milliseconds since the epoch.
+     */
+
+    /**
+     * 返回获取此快照的时间，以自纪元以来的毫秒数表示。
+     */
+    public long timestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * Return the per size class statistics, heap and direct size classes are listed separately.
+     */
+
+    /**
+     * 返回每个大小类的统计信息，堆和直接内存的大小类分别列出。
+     */
+    public List<SizeClassStats> sizeClasses() {
+        return sizeClasses;
+    }
+
+    /**
+     * Return the occupancy and fragmentation of the chunks of every arena.
+     */
+
+    /**
+     * 返回每个arena中块的占用率和碎片情况。
+     */
+    public List<ArenaStats> arenas() {
+        return arenas;
+    }
+
+    /**
+     * Return one out of how many allocations had their call site sampled, {@code 0} if sampling is disabled.
+     */
+
+    /**
+     * 返回每多少次分配采样一次调用点，如果禁用采样则返回 {@code 0}。
+     */
+    public int sampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Return the number of samples per allocation call site. Multiply by {@link #sampleRate()} to estimate the number
+     * of allocations.
+     */
+
+    /**
+     * 返回每个分配调用点的采样次数。乘以 {@link #sampleRate()} 可估算分配次数。
+     */
+    public Map<String, Long> allocationSites() {
+        return allocationSites;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder(1024)
+                .append(StringUtil.simpleClassName(this))
+                .append("(timestampMillis: ").append(timestampMillis)
+                .append("; sampleRate: ").append(sampleRate).append(')')
+                .append(StringUtil.NEWLINE);
+        for (ArenaStats arena : arenas) {
+            buf.append(arena).append(StringUtil.NEWLINE);
+        }
+        for (SizeClassStats sizeClass : sizeClasses) {
+            if (sizeClass.allocations() > 0) {
+                buf.append(sizeClass).append(StringUtil.NEWLINE);
+            }
+        }
+        for (Map.Entry<String, Long> site : allocationSites.entrySet()) {
+            buf.append(site.getValue()).append(" samples at ").append(site.getKey()).append(StringUtil.NEWLINE);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Allocation statistics of one size class, summed over all arenas of the same kind.
+     */
+
+    /**
+     * 一个大小类的分配统计信息，按同类型的所有arena汇总。
+     */
+    public static final class SizeClassStats {
+        private final boolean direct;
+        private final int sizeIdx;
+        private final int size;
+        private final long cacheHits;
+        private final long arenaAllocations;
+
+        SizeClassStats(boolean direct, int sizeIdx, int size, long cacheHits, long arenaAllocations) {
+            this.direct = direct;
+            this.sizeIdx = sizeIdx;
+            this.size = size;
+            this.cacheHits = cacheHits;
+            this.arenaAllocations = arenaAllocations;
+        }
+
+        public boolean isDirect() {
+            return direct;
+        }
+
+        public int sizeIdx() {
+            return sizeIdx;
+        }
+
+        /**
+         * Return the normalized size of this size class, {@code -1} for huge allocations which are never pooled.
+         */
+
+        /**
+         * 返回此大小类的规范化大小，对于从不池化的巨大分配返回 {@code -1}。
+         */
+        public int size() {
+            return size;
+        }
+
+        public long cacheHits() {
+            return cacheHits;
+        }
+
+        public long arenaAllocations() {
+            return arenaAllocations;
+        }
+
+        public long allocations() {
+            return cacheHits + arenaAllocations;
+        }
+
+        public double cacheHitRate() {
+            long allocations = allocations();
+            return allocations == 0 ? 0 : (double) cacheHits / allocations;
+        }
+
+        @Override
+        public String toString() {
+            return (direct ? "direct " : "heap ") + (size < 0 ? "huge" : String.valueOf(size)) +
+                    ": allocations: " + allocations() + ", cacheHitRate: " + cacheHitRate();
+        }
+    }
+
+    /**
+     * Chunk occupancy of one arena. {@code freeBytes} is memory held by chunks but not handed out,
+     * {@code usedBytes - pinnedBytes} is lost to rounding requests up to their size class.
+     */
+
+    /**
+     * 一个arena的块占用情况。{@code freeBytes} 是块持有但未分配出去的内存，
+     * {@code usedBytes - pinnedBytes} 是将请求向上取整到其大小类而损失的内存。
+     */
+    public static final class ArenaStats {
+        private final boolean direct;
+        private final int numChunks;
+        private final long chunkBytes;
+        private final long freeBytes;
+        private final long pinnedBytes;
+
+        ArenaStats(boolean direct, int numChunks, long chunkBytes, long freeBytes, long pinnedBytes) {
+            this.direct = direct;
+            this.numChunks = numChunks;
+            this.chunkBytes = chunkBytes;
+            this.freeBytes = freeBytes;
+            this.pinnedBytes = pinnedBytes;
+        }
+
+        public boolean isDirect() {
+            return direct;
+        }
+
+        public int numChunks() {
+            return numChunks;
+        }
+
+        public long chunkBytes() {
+            return chunkBytes;
+        }
+
+        public long freeBytes() {
+            return freeBytes;
+        }
+
+        public long usedBytes() {
+            return chunkBytes - freeBytes;
+        }
+
+        public long pinnedBytes() {
+            return pinnedBytes;
+        }
+
+        /**
+         * Return the fraction of chunk memory that is not pinned by any buffer, between {@code 0} and {@code 1}.
+         */
+
+        /**
+         * 返回未被任何缓冲区固定的块内存所占的比例，介于 {@code 0} 和 {@code 1} 之间。
+         */
+        public double fragmentation() {
+            return chunkBytes == 0 ? 0 : 1 - (double) Math.min(pinnedBytes, chunkBytes) / chunkBytes;
+        }
+
+        @Override
+        public String toString() {
+            return (direct ? "direct" : "heap") + " arena: chunks: " + numChunks + ", chunkBytes: " + chunkBytes +
+                    ", freeBytes: " + freeBytes + ", pinnedBytes: " + pinnedBytes +
+                    ", fragmentation: " + fragmentation();
+        }
+    }
+}
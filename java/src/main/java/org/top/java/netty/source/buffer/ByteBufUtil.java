@@ -46,6 +46,18 @@ public final class ByteBufUtil {
         }
     };
 
+    private static final FastThreadLocal<char[]> CHAR_ARRAYS = new FastThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() throws Exception {
+            return new char[MAX_TL_ARRAY_LEN];
+        }
+    };
+
+    // Reading 8 bytes of a byte[] at once needs Unsafe and must not fault on unaligned addresses.
+    // 一次读取 byte[] 的 8 个字节需要 Unsafe，并且不能在未对齐的地址上出错。
+    private static final boolean SWAR_ARRAY_ACCESS = PlatformDependent.hasUnsafe() && PlatformDependent.isUnaligned();
+    private static final long NON_ASCII_BITS = 0x8080808080808080L;
+
     private static final byte WRITE_UTF_UNKNOWN = (byte) '?';
     private static final int MAX_CHAR_BUFFER_SIZE;
     private static final int THREAD_LOCAL_BUFFER_SIZE;
@@ -229,12 +241,22 @@ public final class ByteBufUtil {
      * 计算指定缓冲区的哈希码。此方法在实现新缓冲区类型时非常有用。
      */
     public static int hashCode(ByteBuf buffer) {
-        final int aLen = buffer.readableBytes();
-        final int intCount = aLen >>> 2;
-        final int byteCount = aLen & 3;
+        return hashCode(buffer, buffer.readerIndex(), buffer.readableBytes());
+    }
+
+    /**
+     * Same as {@link #hashCode(ByteBuf)}, but for the {@code length} bytes starting at {@code index}.
+     */
+
+    /**
+     * 与 {@link #hashCode(ByteBuf)} 相同，但针对从 {@code index} 开始的 {@code length} 个字节。
+     */
+    static int hashCode(ByteBuf buffer, int index, int length) {
+        final int intCount = length >>> 2;
+        final int byteCount = length & 3;
 
         int hashCode = EmptyByteBuf.EMPTY_BYTE_BUF_HASH_CODE;
-        int arrayIndex = buffer.readerIndex();
+        int arrayIndex = index;
         if (buffer.order() == ByteOrder.BIG_ENDIAN) {
             for (int i = intCount; i > 0; i --) {
                 hashCode = 31 * hashCode + buffer.getInt(arrayIndex);
@@ -1521,9 +1543,190 @@ public final class ByteBufUtil {
             // 为频繁使用的 US-ASCII 提供快速路径。
             return new String(array, 0, offset, len);
         }
+        if (CharsetUtil.UTF_8.equals(charset)) {
+            return decodeUtf8String(array, offset, len);
+        }
         return new String(array, offset, len, charset);
     }
 
+    @SuppressWarnings("deprecation")
+    private static String decodeUtf8String(byte[] src, int offset, int len) {
+        final int asciiLength = asciiPrefixLength(src, offset, len);
+        if (asciiLength == len) {
+            // Pure ASCII, so every byte is a char and nothing needs to be decoded.
+            // 纯 ASCII，因此每个字节就是一个字符，无需解码。
+            return new String(src, 0, offset, len);
+        }
+        final char[] chars = threadLocalCharArray(len);
+        for (int i = 0; i < asciiLength; i++) {
+            chars[i] = (char) src[offset + i];
+        }
+        final int count = decodeUtf8(src, offset + asciiLength, len - asciiLength, chars, asciiLength);
+        if (count < 0) {
+            // Malformed, let the JDK replace the malformed sequences exactly like it always did.
+            // 格式错误，让 JDK 像以前一样精确地替换格式错误的序列。
+            return new String(src, offset, len, CharsetUtil.UTF_8);
+        }
+        return new String(chars, 0, asciiLength + count);
+    }
+
+    /**
+     * Returns a cached thread-local char array of at least {@code minLength} chars, or a new array if
+     * {@code minLength} is greater than {@code io.netty.maxThreadLocalCharBufferSize}.
+     */
+
+    /**
+     * 返回一个至少有 {@code minLength} 个字符的缓存线程本地字符数组；如果 {@code minLength} 大于
+     * {@code io.netty.maxThreadLocalCharBufferSize}，则返回一个新数组。
+     */
+    private static char[] threadLocalCharArray(int minLength) {
+        if (minLength > MAX_CHAR_BUFFER_SIZE) {
+            return new char[minLength];
+        }
+        char[] chars = CHAR_ARRAYS.get();
+        if (chars.length < minLength) {
+            chars = new char[Math.min(Math.max(minLength, chars.length << 1), MAX_CHAR_BUFFER_SIZE)];
+            CHAR_ARRAYS.set(chars);
+        }
+        return chars;
+    }
+
+    /**
+     * Decodes the UTF-8 text of {@code src} starting at {@code index} with {@code length} bytes into {@code dst}
+     * starting at {@code dstIndex}, and validates it on the way. Unlike {@link ByteBuf#toString(int, int, Charset)}
+     * it does not create a {@link String}, so the same {@code dst} can be reused for every message. Runs of ASCII
+     * characters are checked 8 bytes at a time.
+     * <br>
+     * {@code dst} must have room for {@code length} chars, as no UTF-8 text has more chars than bytes.
+     *
+     * @return the number of chars written to {@code dst}, or {@code -1} if the bytes are not valid UTF-8 as
+     *         defined by {@link #isText(ByteBuf, int, int, Charset)}, in which case the contents of {@code dst} are
+     *         undefined
+     */
+
+    /**
+     * 将 {@code src} 从 {@code index} 开始、长度为 {@code length} 字节的 UTF-8 文本解码到 {@code dst} 中从
+     * {@code dstIndex} 开始的位置，并在此过程中进行校验。与 {@link ByteBuf#toString(int, int, Charset)} 不同，
+     * 它不会创建 {@link String}，因此同一个 {@code dst} 可以在每条消息中重复使用。连续的 ASCII 字符每次检查 8 个字节。
+     * <br>
+     * {@code dst} 必须能容纳 {@code length} 个字符，因为任何 UTF-8 文本的字符数都不会多于字节数。
+     *
+     * @return 写入 {@code dst} 的字符数；如果这些字节不是 {@link #isText(ByteBuf, int, int, Charset)} 所定义的有效
+     *         UTF-8，则返回 {@code -1}，此时 {@code dst} 的内容是未定义的
+     */
+    public static int decodeUtf8(ByteBuf src, int index, int length, char[] dst, int dstIndex) {
+        checkNotNull(src, "src");
+        checkNotNull(dst, "dst");
+        if (isOutOfBounds(index, length, src.capacity())) {
+            throw new IndexOutOfBoundsException("expected: " + "0 <= index(" + index + ") <= index + length(" + length
+                    + ") <= " + "src.capacity(" + src.capacity() + ')');
+        }
+        if (isOutOfBounds(dstIndex, length, dst.length)) {
+            throw new IndexOutOfBoundsException("expected: " + "0 <= dstIndex(" + dstIndex + ") <= dstIndex + length("
+                    + length + ") <= " + "dst.length(" + dst.length + ')');
+        }
+        if (length == 0) {
+            return 0;
+        }
+        if (src.hasArray()) {
+            return decodeUtf8(src.array(), src.arrayOffset() + index, length, dst, dstIndex);
+        }
+        final byte[] array = threadLocalTempArray(length);
+        src.getBytes(index, array, 0, length);
+        return decodeUtf8(array, 0, length, dst, dstIndex);
+    }
+
+    private static int asciiPrefixLength(byte[] src, int offset, int length) {
+        final int end = offset + length;
+        int i = offset;
+        if (SWAR_ARRAY_ACCESS) {
+            for (final int lastWord = end - Long.BYTES; i <= lastWord; i += Long.BYTES) {
+                if ((PlatformDependent.getLong(src, i) & NON_ASCII_BITS) != 0) {
+                    break;
+                }
+            }
+        }
+        while (i < end && src[i] >= 0) {
+            i++;
+        }
+        return i - offset;
+    }
+
+    // Same rules as isUtf8(ByteBuf, int, int), see there for the byte patterns.
+    // 与 isUtf8(ByteBuf, int, int) 的规则相同，字节模式参见该方法。
+    private static int decodeUtf8(byte[] src, int offset, int length, char[] dst, int dstIndex) {
+        final int end = offset + length;
+        int i = offset;
+        int j = dstIndex;
+        while (i < end) {
+            final int b1 = src[i];
+            if (b1 >= 0) {
+                dst[j++] = (char) b1;
+                i++;
+                // One ASCII char is usually followed by more, so continue 8 bytes at a time until the next non ASCII
+                // byte. Text without ASCII does not pay for this.
+
+                // 一个 ASCII 字符之后通常还有更多，因此每次 8 个字节地继续，直到下一个非 ASCII 字节。
+                // 不含 ASCII 的文本不会为此付出代价。
+                if (SWAR_ARRAY_ACCESS) {
+                    for (final int lastWord = end - Long.BYTES; i <= lastWord; i += Long.BYTES, j += Long.BYTES) {
+                        if ((PlatformDependent.getLong(src, i) & NON_ASCII_BITS) != 0) {
+                            break;
+                        }
+                        for (int k = 0; k < Long.BYTES; k++) {
+                            dst[j + k] = (char) src[i + k];
+                        }
+                    }
+                }
+                continue;
+            }
+            if ((b1 & 0xE0) == 0xC0) {
+                if (i > end - 2) {
+                    return -1;
+                }
+                final int b2 = src[i + 1];
+                if ((b2 & 0xC0) != 0x80 || (b1 & 0xFF) < 0xC2) {
+                    return -1;
+                }
+                dst[j++] = (char) ((b1 & 0x1F) << 6 | b2 & 0x3F);
+                i += 2;
+            } else if ((b1 & 0xF0) == 0xE0) {
+                if (i > end - 3) {
+                    return -1;
+                }
+                final int b2 = src[i + 1];
+                final int b3 = src[i + 2];
+                if ((b2 & 0xC0) != 0x80 || (b3 & 0xC0) != 0x80 ||
+                        (b1 & 0x0F) == 0x00 && (b2 & 0xFF) < 0xA0 ||
+                        (b1 & 0x0F) == 0x0D && (b2 & 0xFF) > 0x9F) {
+                    return -1;
+                }
+                dst[j++] = (char) ((b1 & 0x0F) << 12 | (b2 & 0x3F) << 6 | b3 & 0x3F);
+                i += 3;
+            } else if ((b1 & 0xF8) == 0xF0) {
+                if (i > end - 4) {
+                    return -1;
+                }
+                final int b2 = src[i + 1];
+                final int b3 = src[i + 2];
+                final int b4 = src[i + 3];
+                if ((b2 & 0xC0) != 0x80 || (b3 & 0xC0) != 0x80 || (b4 & 0xC0) != 0x80 ||
+                        (b1 & 0xFF) > 0xF4 ||
+                        (b1 & 0xFF) == 0xF0 && (b2 & 0xFF) < 0x90 ||
+                        (b1 & 0xFF) == 0xF4 && (b2 & 0xFF) > 0x8F) {
+                    return -1;
+                }
+                final int codePoint = (b1 & 0x07) << 18 | (b2 & 0x3F) << 12 | (b3 & 0x3F) << 6 | b4 & 0x3F;
+                dst[j++] = Character.highSurrogate(codePoint);
+                dst[j++] = Character.lowSurrogate(codePoint);
+                i += 4;
+            } else {
+                return -1;
+            }
+        }
+        return j - dstIndex;
+    }
+
     /**
      * Returns a cached thread-local direct buffer, if available.
      *
@@ -2120,7 +2323,15 @@ public final class ByteBufUtil {
      * @param length 指定缓冲区的长度。
      */
     private static boolean isAscii(ByteBuf buf, int index, int length) {
-        return buf.forEachByte(index, length, FIND_NON_ASCII) == -1;
+        final int endIndex = index + length;
+        // Check 8 bytes at a time, the byte order does not matter for that.
+        // 每次检查 8 个字节，这与字节序无关。
+        for (final int lastWordIndex = endIndex - Long.BYTES; index <= lastWordIndex; index += Long.BYTES) {
+            if ((buf.getLong(index) & NON_ASCII_BITS) != 0) {
+                return false;
+            }
+        }
+        return buf.forEachByte(index, endIndex - index, FIND_NON_ASCII) == -1;
     }
 
     /**
@@ -2217,6 +2428,12 @@ public final class ByteBufUtil {
             if ((b1 & 0x80) == 0) {
                 // 1 byte
                 // 1 byte
+                //
+                // More ASCII is likely to follow, so skip it 8 bytes at a time.
+                // 后面很可能还有更多 ASCII，因此每次跳过 8 个字节。
+                while (index <= endIndex - Long.BYTES && (buf.getLong(index) & NON_ASCII_BITS) == 0) {
+                    index += Long.BYTES;
+                }
                 continue;
             }
             if ((b1 & 0xE0) == 0xC0) {
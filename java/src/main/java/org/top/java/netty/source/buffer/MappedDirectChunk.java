@@ -0,0 +1,94 @@
+package org.top.java.netty.source.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory of a pooled direct {@link PoolChunk} that lives in a memory-mapped file, for example on {@code /dev/shm} or
+ * a tmpfs mounted with transparent huge pages, instead of the native heap. The file exists as long as the chunk so
+ * its memory can be inspected from outside the process, and is deleted once the chunk is destroyed.
+ * <p>
+ * The mapping is made {@code alignment} bytes larger than the chunk so that the memory used by the chunk can start at
+ * a huge page boundary.
+ */
+
+/**
+ * 池化直接 {@link PoolChunk} 的内存，位于内存映射文件中（例如 {@code /dev/shm} 或启用了透明大页的 tmpfs），
+ * 而不是本机堆中。文件与块的生命周期相同，因此可以从进程外部检查其内存，并在块销毁后被删除。
+ * <p>
+ * 映射比块大 {@code alignment} 字节，以便块使用的内存可以从大页边界开始。
+ */
+final class MappedDirectChunk {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(MappedDirectChunk.class);
+
+    private final File file;
+    private final ByteBuffer base;
+    private final ByteBuffer memory;
+
+    private MappedDirectChunk(File file, ByteBuffer base, ByteBuffer memory) {
+        this.file = file;
+        this.base = base;
+        this.memory = memory;
+    }
+
+    static MappedDirectChunk map(File directory, int size, int alignment) {
+        File file = null;
+        RandomAccessFile raf = null;
+        try {
+            file = File.createTempFile("netty-chunk-", ".mem", directory);
+            long mappedSize = (long) size + alignment;
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(mappedSize);
+            // The mapping stays valid after the channel was closed.
+            // 通道关闭后映射仍然有效。
+            ByteBuffer base = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, mappedSize);
+            ByteBuffer memory = alignment > 0 ? PlatformDependent.alignDirectBuffer(base, alignment) : base;
+            return new MappedDirectChunk(file, base, memory);
+        } catch (IOException e) {
+            if (file != null && !file.delete()) {
+                logger.debug("Failed to delete chunk file: {}", file);
+            }
+            OutOfMemoryError error = new OutOfMemoryError(
+                    "failed to map " + size + " bytes of chunk memory in " + directory);
+            error.initCause(e);
+            throw error;
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    logger.debug("Failed to close chunk file: {}", file, e);
+                }
+            }
+        }
+    }
+
+    ByteBuffer memory() {
+        return memory;
+    }
+
+    File file() {
+        return file;
+    }
+
+    /**
+     * Unmap the memory and delete the backing file.
+     */
+
+    /**
+     * 取消内存映射并删除后备文件。
+     */
+    void unmap() {
+        PlatformDependent.freeDirectBuffer(base);
+        if (!file.delete()) {
+            logger.debug("Failed to delete chunk file: {}", file);
+        }
+    }
+}
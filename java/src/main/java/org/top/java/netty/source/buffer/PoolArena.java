@@ -6,6 +6,7 @@ import io.netty.util.internal.LongCounter;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 
+import java.io.File;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -28,6 +29,7 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
 
     final int numSmallSubpagePools;
     final int directMemoryCacheAlignment;
+    final boolean bitmapRunIndex;
     private final PoolSubpage<T>[] smallSubpagePools;
 
     private final PoolChunkList<T> q050;
@@ -49,12 +51,12 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
     private final LongCounter allocationsHuge = PlatformDependent.newLongCounter();
     private final LongCounter activeBytesHuge = PlatformDependent.newLongCounter();
 
-    private long deallocationsSmall;
     private long deallocationsNormal;
 
     // We need to use the LongCounter here as this is not guarded via synchronized block.
 
     // 我们需要在这里使用 LongCounter，因为它没有通过同步块进行保护。
+    private final LongCounter deallocationsSmall = PlatformDependent.newLongCounter();
     private final LongCounter deallocationsHuge = PlatformDependent.newLongCounter();
 
     // Number of thread caches backed by this arena.
@@ -62,6 +64,35 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
     // 此arena支持的线程缓存数量。
     final AtomicInteger numThreadCaches = new AtomicInteger();
 
+    // Statistics of the thread caches backed by this arena. Hits and misses are flushed by each PoolThreadCache when
+    // it is trimmed, cached bytes are only tracked by adaptive thread caches.
+
+    // 此arena支持的线程缓存的统计信息。命中和未命中次数由每个 PoolThreadCache 在修剪时刷新，
+    // 缓存的字节数仅由自适应线程缓存跟踪。
+    final LongCounter threadCacheHits = PlatformDependent.newLongCounter();
+    final LongCounter threadCacheMisses = PlatformDependent.newLongCounter();
+    final LongCounter threadCacheBytes = PlatformDependent.newLongCounter();
+
+    // Statistics of the return magazines, counting the buffers of this arena that other threads handed back to the
+    // thread cache they were allocated from.
+
+    // 归还弹匣的统计信息，统计其他线程交还给分配它们的线程缓存的此arena的缓冲区。
+    final LongCounter magazineEntries = PlatformDependent.newLongCounter();
+    final LongCounter magazineReturns = PlatformDependent.newLongCounter();
+    final LongCounter magazineOverflows = PlatformDependent.newLongCounter();
+
+    // Per size class counters and sampled call sites, null unless -Dio.netty.allocator.telemetry=true.
+
+    // 每个大小类的计数器和采样的调用点，除非设置了 -Dio.netty.allocator.telemetry=true，否则为 null。
+    final AllocatorTelemetry telemetry;
+
+    // Statistics of the idle chunk reclaimer, see reclaimIdleChunks(int, int). drainingChunks is guarded by the lock.
+
+    // 空闲块回收器的统计信息，参见 reclaimIdleChunks(int, int)。drainingChunks 由锁保护。
+    final LongCounter reclaimedChunks = PlatformDependent.newLongCounter();
+    final LongCounter reclaimedBytes = PlatformDependent.newLongCounter();
+    int drainingChunks;
+
     // TODO: Test if adding padding helps under contention
 
     // TODO: 测试在竞争情况下添加填充是否有帮助
@@ -74,12 +105,13 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
                         int pageShifts, int chunkSize, int cacheAlignment) {
         super(pageSize, pageShifts, chunkSize, cacheAlignment);
         this.parent = parent;
+        bitmapRunIndex = parent != null && parent.bitmapRunIndex();
         directMemoryCacheAlignment = cacheAlignment;
 
         numSmallSubpagePools = nSubpages;
         smallSubpagePools = newSubpagePoolArray(numSmallSubpagePools);
         for (int i = 0; i < smallSubpagePools.length; i ++) {
-            smallSubpagePools[i] = newSubpagePoolHead();
+            smallSubpagePools[i] = newSubpagePoolHead(i);
         }
 
         q100 = new PoolChunkList<T>(this, null, 100, Integer.MAX_VALUE, chunkSize);
@@ -104,10 +136,13 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
         metrics.add(q075);
         metrics.add(q100);
         chunkListMetrics = Collections.unmodifiableList(metrics);
+
+        telemetry = PooledByteBufAllocator.DEFAULT_TELEMETRY ?
+                new AllocatorTelemetry(nSizes, PooledByteBufAllocator.DEFAULT_TELEMETRY_SAMPLE_RATE) : null;
     }
 
-    private PoolSubpage<T> newSubpagePoolHead() {
-        PoolSubpage<T> head = new PoolSubpage<T>();
+    private PoolSubpage<T> newSubpagePoolHead(int index) {
+        PoolSubpage<T> head = new PoolSubpage<T>(index);
         head.prev = head;
         head.next = head;
         return head;
@@ -128,6 +163,9 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
 
     private void allocate(PoolThreadCache cache, PooledByteBuf<T> buf, final int reqCapacity) {
         final int sizeIdx = size2SizeIdx(reqCapacity);
+        if (telemetry != null) {
+            telemetry.sample();
+        }
 
         if (sizeIdx <= smallMaxSizeIdx) {
             tcacheAllocateSmall(cache, buf, reqCapacity, sizeIdx);
@@ -148,6 +186,9 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
         if (cache.allocateSmall(this, buf, reqCapacity, sizeIdx)) {
             // was able to allocate out of the cache so move on
             // 能够从缓存中分配，继续执行
+            if (telemetry != null) {
+                telemetry.record(sizeIdx, true);
+            }
             return;
         }
 
@@ -171,6 +212,7 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
                         s.doNotDestroy + ", elemSize=" + s.elemSize + ", sizeIdx=" + sizeIdx;
                 long handle = s.allocate();
                 assert handle >= 0;
+                s.chunk.markAllocated();
                 s.chunk.initBufWithSubpage(buf, null, handle, reqCapacity, cache);
             }
         } finally {
@@ -187,6 +229,9 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
         }
 
         incSmallAllocation();
+        if (telemetry != null) {
+            telemetry.record(sizeIdx, false);
+        }
     }
 
     private void tcacheAllocateNormal(PoolThreadCache cache, PooledByteBuf<T> buf, final int reqCapacity,
@@ -194,6 +239,9 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
         if (cache.allocateNormal(this, buf, reqCapacity, sizeIdx)) {
             // was able to allocate out of the cache so move on
             // 能够从缓存中分配，继续执行
+            if (telemetry != null) {
+                telemetry.record(sizeIdx, true);
+            }
             return;
         }
         lock();
@@ -203,6 +251,9 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
         } finally {
             unlock();
         }
+        if (telemetry != null) {
+            telemetry.record(sizeIdx, false);
+        }
     }
 
     private void allocateNormal(PooledByteBuf<T> buf, int reqCapacity, int sizeIdx, PoolThreadCache threadCache) {
@@ -215,6 +266,15 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
             return;
         }
 
+        // Rather use a draining chunk again than create a new one.
+
+        // 宁可再次使用正在排空的块，也不创建新的块。
+        if (drainingChunks > 0 &&
+            (q000.allocate(buf, reqCapacity, sizeIdx, threadCache, true) ||
+             qInit.allocate(buf, reqCapacity, sizeIdx, threadCache, true))) {
+            return;
+        }
+
         // Add a new chunk.
 
         // 添加一个新的块。
@@ -233,6 +293,9 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
         activeBytesHuge.add(chunk.chunkSize());
         buf.initUnpooled(chunk, reqCapacity);
         allocationsHuge.increment();
+        if (telemetry != null) {
+            telemetry.record(nSizes, false);
+        }
     }
 
     void free(PoolChunk<T> chunk, ByteBuffer nioBuffer, long handle, int normCapacity, PoolThreadCache cache) {
@@ -253,32 +316,20 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
         }
     }
 
-    private static SizeClass sizeClass(long handle) {
+    static SizeClass sizeClass(long handle) {
         return isSubpage(handle) ? SizeClass.Small : SizeClass.Normal;
     }
 
     void freeChunk(PoolChunk<T> chunk, long handle, int normCapacity, SizeClass sizeClass, ByteBuffer nioBuffer,
                    boolean finalizer) {
+        if (freeSubpageWithoutLock(chunk, handle, normCapacity, sizeClass, nioBuffer, finalizer)) {
+            return;
+        }
+
         final boolean destroyChunk;
         lock();
         try {
-            // We only call this if freeChunk is not called because of the PoolThreadCache finalizer as otherwise this
-            // 我们仅在 freeChunk 未被调用时才调用此方法，因为否则会由于 PoolThreadCache 的 finalizer 导致这种情况
-            // may fail due lazy class-loading in for example tomcat.
-            // 可能由于懒加载类（例如在Tomcat中）而失败。
-            if (!finalizer) {
-                switch (sizeClass) {
-                    case Normal:
-                        ++deallocationsNormal;
-                        break;
-                    case Small:
-                        ++deallocationsSmall;
-                        break;
-                    default:
-                        throw new Error();
-                }
-            }
-            destroyChunk = !chunk.parent.free(chunk, handle, normCapacity, nioBuffer);
+            destroyChunk = freeRun(chunk, handle, sizeClass, nioBuffer, finalizer);
         } finally {
             unlock();
         }
@@ -289,6 +340,103 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
         }
     }
 
+    /**
+     * Release a small handle while only locking the subpage pool head of its size class. Returns {@code true} if the
+     * subpage is still in use, so neither the run nor the position of the chunk in its PoolChunkList changed and
+     * nothing else needs to be done. Otherwise {@link #freeRun} must be called while holding the arena lock.
+     */
+
+    /**
+     * 仅锁定其大小类的子页面池头部来释放一个小句柄。如果子页面仍在使用中则返回 {@code true}，
+     * 此时运行和块在其 PoolChunkList 中的位置都没有改变，无需再做任何事情。
+     * 否则必须在持有 arena 锁的情况下调用 {@link #freeRun}。
+     */
+    boolean freeSubpageWithoutLock(PoolChunk<T> chunk, long handle, int normCapacity, SizeClass sizeClass,
+                                   ByteBuffer nioBuffer, boolean finalizer) {
+        if (sizeClass == SizeClass.Small && chunk.freeSubpage(handle, normCapacity, nioBuffer)) {
+            if (!finalizer) {
+                deallocationsSmall.increment();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Release the run of the given handle. The caller must hold the arena lock and, for small handles, must have called
+     * {@link #freeSubpageWithoutLock} before. Returns {@code true} if the chunk has to be destroyed via
+     * {@link #destroyChunk(PoolChunk)} once the lock was released.
+     */
+
+    /**
+     * 释放给定句柄的运行。调用者必须持有 arena 锁，并且对于小句柄，必须事先调用过 {@link #freeSubpageWithoutLock}。
+     * 如果块需要在释放锁之后通过 {@link #destroyChunk(PoolChunk)} 销毁，则返回 {@code true}。
+     */
+    boolean freeRun(PoolChunk<T> chunk, long handle, SizeClass sizeClass, ByteBuffer nioBuffer, boolean finalizer) {
+        assert lock.isHeldByCurrentThread();
+        // We only call this if freeChunk is not called because of the PoolThreadCache finalizer as otherwise this
+        // 我们仅在 freeChunk 未被调用时才调用此方法，因为否则会由于 PoolThreadCache 的 finalizer 导致这种情况
+        // may fail due lazy class-loading in for example tomcat.
+        // 可能由于懒加载类（例如在Tomcat中）而失败。
+        if (!finalizer) {
+            switch (sizeClass) {
+                case Normal:
+                    ++deallocationsNormal;
+                    break;
+                case Small:
+                    deallocationsSmall.increment();
+                    break;
+                default:
+                    throw new Error();
+            }
+        }
+        if (chunk.parent.free(chunk, handle, nioBuffer)) {
+            return false;
+        }
+        if (chunk.draining) {
+            // The reclaimer made this chunk drain, so it gets the credit for releasing it.
+            // 回收器让此块排空，因此释放它归功于回收器。
+            chunk.draining = false;
+            drainingChunks--;
+            reclaimedChunks.increment();
+            reclaimedBytes.add(chunk.chunkSize());
+        }
+        return true;
+    }
+
+    /**
+     * Release the chunks of {@code qInit} and {@code q000} that are empty and were not allocated from during the last
+     * {@code idlePasses} calls, and stop allocating from the idle ones whose usage is below {@code drainUsage} percent
+     * so they can be released once their remaining buffers are. Live buffers are never moved, so a low usage chunk is
+     * only compacted by attrition. Returns the number of bytes released by this call.
+     */
+
+    /**
+     * 释放 {@code qInit} 和 {@code q000} 中为空并且在最近 {@code idlePasses} 次调用中没有被分配过的块，
+     * 并停止从使用率低于 {@code drainUsage} 百分比的空闲块中分配，以便在其剩余缓冲区释放后将其释放。
+     * 存活的缓冲区永远不会被移动，因此低使用率的块只能通过自然消耗来压缩。返回此次调用释放的字节数。
+     */
+    long reclaimIdleChunks(int idlePasses, int drainUsage) {
+        List<PoolChunk<T>> released = new ArrayList<PoolChunk<T>>();
+        lock();
+        try {
+            qInit.reclaim(idlePasses, drainUsage, released);
+            q000.reclaim(idlePasses, drainUsage, released);
+        } finally {
+            unlock();
+        }
+        long bytes = 0;
+        for (PoolChunk<T> chunk : released) {
+            bytes += chunk.chunkSize();
+            destroyChunk(chunk);
+        }
+        if (bytes > 0) {
+            reclaimedChunks.add(released.size());
+            reclaimedBytes.add(bytes);
+        }
+        return bytes;
+    }
+
     PoolSubpage<T> findSubpagePoolHead(int sizeIdx) {
         return smallSubpagePools[sizeIdx];
     }
@@ -363,16 +511,21 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
     private static List<PoolSubpageMetric> subPageMetricList(PoolSubpage<?>[] pages) {
         List<PoolSubpageMetric> metrics = new ArrayList<PoolSubpageMetric>();
         for (PoolSubpage<?> head : pages) {
-            if (head.next == head) {
-                continue;
-            }
-            PoolSubpage<?> s = head.next;
-            for (;;) {
-                metrics.add(s);
-                s = s.next;
-                if (s == head) {
-                    break;
+            head.lock();
+            try {
+                if (head.next == head) {
+                    continue;
                 }
+                PoolSubpage<?> s = head.next;
+                for (;;) {
+                    metrics.add(s);
+                    s = s.next;
+                    if (s == head) {
+                        break;
+                    }
+                }
+            } finally {
+                head.unlock();
             }
         }
         return metrics;
@@ -415,11 +568,11 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
         final long deallocs;
         lock();
         try {
-            deallocs = deallocationsSmall + deallocationsNormal;
+            deallocs = deallocationsNormal;
         } finally {
             unlock();
         }
-        return deallocs + deallocationsHuge.value();
+        return deallocs + deallocationsSmall.value() + deallocationsHuge.value();
     }
 
     @Override
@@ -429,12 +582,7 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
 
     @Override
     public long numSmallDeallocations() {
-        lock();
-        try {
-            return deallocationsSmall;
-        } finally {
-            unlock();
-        }
+        return deallocationsSmall.value();
     }
 
     @Override
@@ -460,10 +608,10 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
     @Override
     public  long numActiveAllocations() {
         long val = allocationsSmall.value() + allocationsHuge.value()
-                - deallocationsHuge.value();
+                - deallocationsSmall.value() - deallocationsHuge.value();
         lock();
         try {
-            val += allocationsNormal - (deallocationsSmall + deallocationsNormal);
+            val += allocationsNormal - deallocationsNormal;
         } finally {
             unlock();
         }
@@ -513,6 +661,35 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
         return max(0, val);
     }
 
+    /**
+     * Return the chunk occupancy of this arena, huge allocations are not pooled and therefore not included.
+     */
+
+    /**
+     * 返回此arena的块占用情况，巨大的分配不会被池化，因此不包括在内。
+     */
+    AllocatorTelemetrySnapshot.ArenaStats chunkStats() {
+        int numChunks = 0;
+        long chunkBytes = 0;
+        long freeBytes = 0;
+        long pinnedBytes = 0;
+        lock();
+        try {
+            for (int i = 0; i < chunkListMetrics.size(); i++) {
+                for (PoolChunkMetric m: chunkListMetrics.get(i)) {
+                    PoolChunk<?> chunk = (PoolChunk<?>) m;
+                    numChunks++;
+                    chunkBytes += chunk.chunkSize();
+                    freeBytes += chunk.freeBytes;
+                    pinnedBytes += chunk.pinnedBytes();
+                }
+            }
+        } finally {
+            unlock();
+        }
+        return new AllocatorTelemetrySnapshot.ArenaStats(isDirect(), numChunks, chunkBytes, freeBytes, pinnedBytes);
+    }
+
     /**
      * Return the number of bytes that are currently pinned to buffer instances, by the arena. The pinned memory is not
      * accessible for use by any other allocation, until the buffers using have all been released.
@@ -583,20 +760,25 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
     private static void appendPoolSubPages(StringBuilder buf, PoolSubpage<?>[] subpages) {
         for (int i = 0; i < subpages.length; i ++) {
             PoolSubpage<?> head = subpages[i];
-            if (head.next == head) {
-                continue;
-            }
+            head.lock();
+            try {
+                if (head.next == head) {
+                    continue;
+                }
 
-            buf.append(StringUtil.NEWLINE)
-                    .append(i)
-                    .append(": ");
-            PoolSubpage<?> s = head.next;
-            for (;;) {
-                buf.append(s);
-                s = s.next;
-                if (s == head) {
-                    break;
+                buf.append(StringUtil.NEWLINE)
+                        .append(i)
+                        .append(": ");
+                PoolSubpage<?> s = head.next;
+                for (;;) {
+                    buf.append(s);
+                    s = s.next;
+                    if (s == head) {
+                        break;
+                    }
                 }
+            } finally {
+                head.unlock();
             }
         }
     }
@@ -675,10 +857,29 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
 
     static final class DirectArena extends PoolArena<ByteBuffer> {
 
+        // If not null pooled chunks are memory-mapped files in this directory, see MappedDirectChunk.
+        // 如果不为 null，池化块是此目录中的内存映射文件，参见 MappedDirectChunk。
+        private final File mappedChunkDirectory;
+        private final int mappedChunkAlignment;
+
         DirectArena(PooledByteBufAllocator parent, int pageSize, int pageShifts,
                     int chunkSize, int directMemoryCacheAlignment) {
+            this(parent, pageSize, pageShifts, chunkSize, directMemoryCacheAlignment, null, 0);
+        }
+
+        DirectArena(PooledByteBufAllocator parent, int pageSize, int pageShifts,
+                    int chunkSize, int directMemoryCacheAlignment,
+                    File mappedChunkDirectory, int mappedChunkAlignment) {
             super(parent, pageSize, pageShifts, chunkSize,
                   directMemoryCacheAlignment);
+            if ((mappedChunkAlignment & -mappedChunkAlignment) != mappedChunkAlignment) {
+                throw new IllegalArgumentException("mappedChunkAlignment: "
+                        + mappedChunkAlignment + " (expected: power of two)");
+            }
+            this.mappedChunkDirectory = mappedChunkDirectory;
+            // The chunk alignment must also satisfy the cache alignment, both are powers of two.
+            // 块对齐还必须满足缓存对齐，两者都是 2 的幂。
+            this.mappedChunkAlignment = max(mappedChunkAlignment, directMemoryCacheAlignment);
         }
 
         @Override
@@ -689,6 +890,12 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
         @Override
         protected PoolChunk<ByteBuffer> newChunk(int pageSize, int maxPageIdx,
                                                  int pageShifts, int chunkSize) {
+            if (mappedChunkDirectory != null) {
+                MappedDirectChunk mapped = MappedDirectChunk.map(
+                        mappedChunkDirectory, chunkSize, mappedChunkAlignment);
+                return new PoolChunk<ByteBuffer>(this, mapped, mapped.memory(), pageSize, pageShifts,
+                        chunkSize, maxPageIdx);
+            }
             if (directMemoryCacheAlignment == 0) {
                 ByteBuffer memory = allocateDirect(chunkSize);
                 return new PoolChunk<ByteBuffer>(this, memory, memory, pageSize, pageShifts,
@@ -720,7 +927,9 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
 
         @Override
         protected void destroyChunk(PoolChunk<ByteBuffer> chunk) {
-            if (PlatformDependent.useDirectBufferNoCleaner()) {
+            if (chunk.base instanceof MappedDirectChunk) {
+                ((MappedDirectChunk) chunk.base).unmap();
+            } else if (PlatformDependent.useDirectBufferNoCleaner()) {
                 PlatformDependent.freeDirectNoCleaner((ByteBuffer) chunk.base);
             } else {
                 PlatformDependent.freeDirectBuffer((ByteBuffer) chunk.base);
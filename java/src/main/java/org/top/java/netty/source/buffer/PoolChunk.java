@@ -6,6 +6,7 @@ import io.netty.util.internal.PlatformDependent;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.PriorityQueue;
 import java.util.concurrent.locks.ReentrantLock;
@@ -82,6 +83,13 @@ import java.util.concurrent.locks.ReentrantLock;
  * Each queue manages same size of runs.
  * Runs are sorted by offset, so that we always allocate runs with smaller offset.
  *
+ * runsAvailBits / runsAvailPages:
+ * ----------
+ * only used if the allocator was created with {@code bitmapRunIndex}.
+ * runsAvailBits is a two level bitmap of the queues of runsAvail that are not empty, so the first queue holding a
+ * large enough run is found with two find-first-set operations instead of walking the queues.
+ * runsAvailPages replaces runsAvailMap by an array indexed by page.
+ *
  *
  * Algorithm:
  * ----------
@@ -259,6 +267,18 @@ final class PoolChunk<T> implements PoolChunkMetric {
      */
     private final LongPriorityQueue[] runsAvail;
 
+    /**
+     * bitmap index of the non empty runsAvail queues and handle of the avail run starting or ending at each page,
+     * null unless the arena uses a bitmap run index
+     */
+
+    /**
+     * 非空 runsAvail 队列的位图索引，以及在每一页开始或结束的可用运行的句柄，除非arena使用位图运行索引，否则为 null
+     */
+    private final long[] runsAvailBits;
+    private long runsAvailSummary;
+    private final long[] runsAvailPages;
+
     private final ReentrantLock runsAvailLock;
 
     /**
@@ -293,10 +313,27 @@ final class PoolChunk<T> implements PoolChunkMetric {
     //
     // This may be null if the PoolChunk is unpooled as pooling the ByteBuffer instances does not make any sense here.
     // 如果 PoolChunk 未被池化，则此值可能为 null，因为在此处池化 ByteBuffer 实例没有意义。
+    // Small elements are freed without the arena lock, so access is guarded by the deque itself.
+    // 小元素的释放不持有 arena 锁，因此对它的访问由该双端队列自身来保护。
     private final Deque<ByteBuffer> cachedNioBuffers;
 
     int freeBytes;
 
+    // Number of reclaimer passes since a run was last allocated from this chunk, and whether the reclaimer asked the
+    // arena to stop allocating from it so it can become empty and be released. Both are guarded by the arena lock.
+
+    // 自上次从此块分配 run 以来回收器执行的次数，以及回收器是否要求arena停止从此块分配以便其变空并被释放。
+    // 两者都由arena锁保护。
+    int idlePasses;
+    boolean draining;
+
+    // Set by every allocation served from this chunk, including the ones from a subpage of the subpage pool heads that
+    // only hold the lock of the head, and cleared by the reclaimer which then restarts counting idlePasses.
+
+    // 由从此块进行的每一次分配设置，包括只持有子页面池头部锁、从池头部的子页面进行的分配，
+    // 并由回收器清除，回收器随后重新开始计数 idlePasses。
+    volatile boolean allocatedSincePass;
+
     PoolChunkList<T> parent;
     PoolChunk<T> prev;
     PoolChunk<T> next;
@@ -320,7 +357,19 @@ final class PoolChunk<T> implements PoolChunkMetric {
 
         runsAvail = newRunsAvailqueueArray(maxPageIdx);
         runsAvailLock = new ReentrantLock();
-        runsAvailMap = new LongLongHashMap(-1);
+        if (arena.bitmapRunIndex) {
+            // One summary word covers 64 bitmap words, which is far more than the number of page size classes.
+            // 一个摘要字覆盖 64 个位图字，这远多于页面大小类的数量。
+            assert maxPageIdx <= Long.SIZE * Long.SIZE;
+            runsAvailBits = new long[(maxPageIdx + Long.SIZE - 1) >>> 6];
+            runsAvailPages = new long[chunkSize >> pageShifts];
+            Arrays.fill(runsAvailPages, -1);
+            runsAvailMap = null;
+        } else {
+            runsAvailBits = null;
+            runsAvailPages = null;
+            runsAvailMap = new LongLongHashMap(-1);
+        }
         subpages = new PoolSubpage[chunkSize >> pageShifts];
 
         //insert initial run, offset = 0, pages = chunkSize / pageSize
@@ -345,6 +394,8 @@ final class PoolChunk<T> implements PoolChunkMetric {
         pageShifts = 0;
         runsAvailMap = null;
         runsAvail = null;
+        runsAvailBits = null;
+        runsAvailPages = null;
         runsAvailLock = null;
         subpages = null;
         chunkSize = size;
@@ -363,6 +414,10 @@ final class PoolChunk<T> implements PoolChunkMetric {
         int pageIdxFloor = arena.pages2pageIdxFloor(pages);
         LongPriorityQueue queue = runsAvail[pageIdxFloor];
         queue.offer(handle);
+        if (runsAvailBits != null) {
+            runsAvailBits[pageIdxFloor >>> 6] |= 1L << pageIdxFloor;
+            runsAvailSummary |= 1L << (pageIdxFloor >>> 6);
+        }
 
         //insert first page of run
 
@@ -376,6 +431,11 @@ final class PoolChunk<T> implements PoolChunkMetric {
     }
 
     private void insertAvailRun0(int runOffset, long handle) {
+        if (runsAvailPages != null) {
+            assert runsAvailPages[runOffset] == -1;
+            runsAvailPages[runOffset] = handle;
+            return;
+        }
         long pre = runsAvailMap.put(runOffset, handle);
         assert pre == -1;
     }
@@ -391,6 +451,20 @@ final class PoolChunk<T> implements PoolChunkMetric {
 
         int runOffset = runOffset(handle);
         int pages = runPages(handle);
+        if (runsAvailPages != null) {
+            if (queue.isEmpty()) {
+                int pageIdxFloor = arena.pages2pageIdxFloor(pages);
+                int word = pageIdxFloor >>> 6;
+                if ((runsAvailBits[word] &= ~(1L << pageIdxFloor)) == 0) {
+                    runsAvailSummary &= ~(1L << word);
+                }
+            }
+            runsAvailPages[runOffset] = -1;
+            if (pages > 1) {
+                runsAvailPages[lastPage(runOffset, pages)] = -1;
+            }
+            return;
+        }
         //remove first page of run
         //移除运行的第一页
         runsAvailMap.remove(runOffset);
@@ -406,6 +480,15 @@ final class PoolChunk<T> implements PoolChunkMetric {
     }
 
     private long getAvailRunByOffset(int runOffset) {
+        if (runsAvailPages != null) {
+            // The neighbours of the first and the last run of the chunk are outside of the array, like a miss of the
+            // map there are no runs to collapse with.
+            // 块的第一个和最后一个运行的相邻页位于数组之外，与映射未命中一样，没有可以合并的运行。
+            if (runOffset < 0 || runOffset >= runsAvailPages.length) {
+                return -1;
+            }
+            return runsAvailPages[runOffset];
+        }
         return runsAvailMap.get(runOffset);
     }
 
@@ -456,11 +539,40 @@ final class PoolChunk<T> implements PoolChunkMetric {
             assert !isSubpage(handle);
         }
 
-        ByteBuffer nioBuffer = cachedNioBuffers != null? cachedNioBuffers.pollLast() : null;
+        markAllocated();
+        ByteBuffer nioBuffer = pollCachedNioBuffer();
         initBuf(buf, nioBuffer, handle, reqCapacity, cache);
         return true;
     }
 
+    void markAllocated() {
+        // Only write if needed so busy chunks do not keep invalidating the cache line.
+        // 仅在需要时写入，以免繁忙的块不断使缓存行失效。
+        if (!allocatedSincePass) {
+            allocatedSincePass = true;
+        }
+    }
+
+    private ByteBuffer pollCachedNioBuffer() {
+        if (cachedNioBuffers == null) {
+            return null;
+        }
+        synchronized (cachedNioBuffers) {
+            return cachedNioBuffers.pollLast();
+        }
+    }
+
+    private void cacheNioBuffer(ByteBuffer nioBuffer) {
+        if (nioBuffer == null || cachedNioBuffers == null) {
+            return;
+        }
+        synchronized (cachedNioBuffers) {
+            if (cachedNioBuffers.size() < PooledByteBufAllocator.DEFAULT_MAX_CACHED_BYTEBUFFERS_PER_CHUNK) {
+                cachedNioBuffers.offer(nioBuffer);
+            }
+        }
+    }
+
     private long allocateRun(int runSize) {
         int pages = runSize >> pageShifts;
         int pageIdx = arena.pages2pageIdx(pages);
@@ -527,6 +639,9 @@ final class PoolChunk<T> implements PoolChunkMetric {
         if (freeBytes == chunkSize) {
             return arena.nPSizes - 1;
         }
+        if (runsAvailBits != null) {
+            return nextAvailQueue(pageIdx);
+        }
         for (int i = pageIdx; i < arena.nPSizes; i++) {
             LongPriorityQueue queue = runsAvail[i];
             if (queue != null && !queue.isEmpty()) {
@@ -536,6 +651,27 @@ final class PoolChunk<T> implements PoolChunkMetric {
         return -1;
     }
 
+    /**
+     * Returns the index of the first non empty runsAvail queue at or after {@code pageIdx}, or {@code -1}.
+     */
+
+    /**
+     * 返回位于 {@code pageIdx} 或其之后的第一个非空 runsAvail 队列的索引，如果没有则返回 {@code -1}。
+     */
+    private int nextAvailQueue(int pageIdx) {
+        int word = pageIdx >>> 6;
+        long bits = runsAvailBits[word] & -1L << pageIdx;
+        if (bits != 0) {
+            return word << 6 | Long.numberOfTrailingZeros(bits);
+        }
+        long words = runsAvailSummary & -2L << word;
+        if (words == 0) {
+            return -1;
+        }
+        word = Long.numberOfTrailingZeros(words);
+        return word << 6 | Long.numberOfTrailingZeros(runsAvailBits[word]);
+    }
+
     private long splitLargeRun(long handle, int needPages) {
         assert needPages > 0;
 
@@ -616,49 +752,73 @@ final class PoolChunk<T> implements PoolChunkMetric {
     }
 
     /**
-     * Free a subpage or a run of pages When a subpage is freed from PoolSubpage, it might be added back to subpage pool
-     * of the owning PoolArena. If the subpage pool in PoolArena has at least one other PoolSubpage of given elemSize,
-     * we can completely free the owning Page so it is available for subsequent allocations
+     * Release a subpage element while only holding the lock of the subpage pool head for its size class.
      *
-     * @param handle handle to free
+     * @param handle handle of the subpage element to free
+     * @param nioBuffer cached {@link ByteBuffer} of the freed buffer, may be {@code null}
+     *
+     * @return {@code true} if the subpage is still in use, so the run it lives in stays allocated and the arena lock
+     *         is not needed. {@code false} if the subpage was removed from the pool and its run must be released
+     *         via {@link #free(long, ByteBuffer)} while holding the arena lock.
      */
 
     /**
-     * 释放一个子页面或一系列页面 当从PoolSubpage释放一个子页面时，它可能会被添加回所属PoolArena的子页面池。
-     * 如果PoolArena的子页面池中至少有一个其他给定elemSize的PoolSubpage，我们可以完全释放所属的Page，使其可用于后续分配
+     * 释放一个子页面元素，仅持有其大小类对应的子页面池头部的锁。
      *
-     * @param handle 要释放的句柄
+     * @param handle 要释放的子页面元素的句柄
+     * @param nioBuffer 被释放缓冲区缓存的 {@link ByteBuffer}，可以为 {@code null}
+     *
+     * @return {@code true} 如果子页面仍在使用中，因此其所在的运行仍保持已分配状态，不需要 arena 锁。
+     *         {@code false} 如果子页面已从池中移除，其运行必须在持有 arena 锁的情况下通过
+     *         {@link #free(long, ByteBuffer)} 释放。
      */
-    void free(long handle, int normCapacity, ByteBuffer nioBuffer) {
-        int runSize = runSize(pageShifts, handle);
-        if (isSubpage(handle)) {
-            int sizeIdx = arena.size2SizeIdx(normCapacity);
-            PoolSubpage<T> head = arena.findSubpagePoolHead(sizeIdx);
+    boolean freeSubpage(long handle, int normCapacity, ByteBuffer nioBuffer) {
+        assert isSubpage(handle);
+        int sizeIdx = arena.size2SizeIdx(normCapacity);
+        PoolSubpage<T> head = arena.findSubpagePoolHead(sizeIdx);
 
-            int sIdx = runOffset(handle);
-            PoolSubpage<T> subpage = subpages[sIdx];
+        int sIdx = runOffset(handle);
 
-            // Obtain the head of the PoolSubPage pool that is owned by the PoolArena and synchronize on it.
-
-            // 获取由PoolArena拥有的PoolSubPage池的头部，并对其进行同步。
-            // This is need as we may add it back and so alter the linked-list structure.
-            // 这是需要的，因为我们可能会将其添加回来，从而改变链表结构。
-            head.lock();
-            try {
-                assert subpage != null && subpage.doNotDestroy;
-                if (subpage.free(head, bitmapIdx(handle))) {
-                    //the subpage is still used, do not free it
-                    //该子页面仍在使用，不要释放它
-                    return;
-                }
+        // Obtain the head of the PoolSubPage pool that is owned by the PoolArena and synchronize on it.
+
+        // 获取由PoolArena拥有的PoolSubPage池的头部，并对其进行同步。
+        // This is need as we may add it back and so alter the linked-list structure.
+        // 这是需要的，因为我们可能会将其添加回来，从而改变链表结构。
+        head.lock();
+        try {
+            PoolSubpage<T> subpage = subpages[sIdx];
+            assert subpage != null && subpage.doNotDestroy;
+            if (!subpage.free(head, bitmapIdx(handle))) {
                 assert !subpage.doNotDestroy;
                 // Null out slot in the array as it was freed and we should not use it anymore.
                 // 将数组中的槽位置空，因为它已被释放，我们不应再使用它。
                 subpages[sIdx] = null;
-            } finally {
-                head.unlock();
+                return false;
             }
+        } finally {
+            head.unlock();
         }
+        //the subpage is still used, do not free it, but keep its ByteBuffer as free(long, ByteBuffer) would
+        //该子页面仍在使用，不要释放它，但像 free(long, ByteBuffer) 一样保留其 ByteBuffer
+        cacheNioBuffer(nioBuffer);
+        return true;
+    }
+
+    /**
+     * Free a run of pages. If the handle belongs to a subpage, the subpage itself must already have been released
+     * via {@link #freeSubpage(long, int, ByteBuffer)}, which returned {@code false}.
+     *
+     * @param handle handle to free
+     */
+
+    /**
+     * 释放一系列页面。如果句柄属于一个子页面，则该子页面本身必须已经通过 {@link #freeSubpage(long, int, ByteBuffer)}
+     * 释放，并且其返回了 {@code false}。
+     *
+     * @param handle 要释放的句柄
+     */
+    void free(long handle, ByteBuffer nioBuffer) {
+        int runSize = runSize(pageShifts, handle);
 
         //start free run
 
@@ -685,10 +845,7 @@ final class PoolChunk<T> implements PoolChunkMetric {
             runsAvailLock.unlock();
         }
 
-        if (nioBuffer != null && cachedNioBuffers != null &&
-            cachedNioBuffers.size() < PooledByteBufAllocator.DEFAULT_MAX_CACHED_BYTEBUFFERS_PER_CHUNK) {
-            cachedNioBuffers.offer(nioBuffer);
-        }
+        cacheNioBuffer(nioBuffer);
     }
 
     private long collapseRuns(long handle) {
@@ -113,6 +113,20 @@ final class PoolChunkList<T> implements PoolChunkListMetric {
     }
 
     boolean allocate(PooledByteBuf<T> buf, int reqCapacity, int sizeIdx, PoolThreadCache threadCache) {
+        return allocate(buf, reqCapacity, sizeIdx, threadCache, false);
+    }
+
+    /**
+     * Allocate out of the chunks of this list that are draining if {@code draining} is {@code true}, or out of the
+     * others otherwise. A draining chunk that is allocated from stops draining.
+     */
+
+    /**
+     * 如果 {@code draining} 为 {@code true}，则从此列表中正在排空的块中分配，否则从其他块中分配。
+     * 被分配的排空块将停止排空。
+     */
+    boolean allocate(PooledByteBuf<T> buf, int reqCapacity, int sizeIdx, PoolThreadCache threadCache,
+                     boolean draining) {
         int normCapacity = arena.sizeIdx2size(sizeIdx);
         if (normCapacity > maxCapacity) {
             // Either this PoolChunkList is empty or the requested capacity is larger then the capacity which can
@@ -123,7 +137,14 @@ final class PoolChunkList<T> implements PoolChunkListMetric {
         }
 
         for (PoolChunk<T> cur = head; cur != null; cur = cur.next) {
+            if (cur.draining != draining) {
+                continue;
+            }
             if (cur.allocate(buf, reqCapacity, sizeIdx, threadCache)) {
+                if (draining) {
+                    cur.draining = false;
+                    arena.drainingChunks--;
+                }
                 if (cur.freeBytes <= freeMinThreshold) {
                     remove(cur);
                     nextList.add(cur);
@@ -134,8 +155,8 @@ final class PoolChunkList<T> implements PoolChunkListMetric {
         return false;
     }
 
-    boolean free(PoolChunk<T> chunk, long handle, int normCapacity, ByteBuffer nioBuffer) {
-        chunk.free(handle, normCapacity, nioBuffer);
+    boolean free(PoolChunk<T> chunk, long handle, ByteBuffer nioBuffer) {
+        chunk.free(handle, nioBuffer);
         if (chunk.freeBytes > freeMaxThreshold) {
             remove(chunk);
             // Move the PoolChunk down the PoolChunkList linked-list.
@@ -145,6 +166,39 @@ final class PoolChunkList<T> implements PoolChunkListMetric {
         return true;
     }
 
+    /**
+     * Called by the idle chunk reclaimer with the arena lock held. Chunks that were not allocated from during the last
+     * {@code idlePasses} passes are removed and added to {@code released} if they are empty, or start draining if their
+     * usage is below {@code drainUsage}.
+     */
+
+    /**
+     * 由空闲块回收器在持有arena锁时调用。在最近 {@code idlePasses} 次执行中没有被分配过的块，
+     * 如果为空则被移除并添加到 {@code released} 中，如果使用率低于 {@code drainUsage} 则开始排空。
+     */
+    void reclaim(int idlePasses, int drainUsage, List<PoolChunk<T>> released) {
+        for (PoolChunk<T> cur = head; cur != null;) {
+            PoolChunk<T> next = cur.next;
+            if (cur.allocatedSincePass) {
+                cur.allocatedSincePass = false;
+                cur.idlePasses = 0;
+            }
+            if (++cur.idlePasses >= idlePasses) {
+                if (cur.freeBytes == cur.chunkSize()) {
+                    remove(cur);
+                    if (cur.draining) {
+                        arena.drainingChunks--;
+                    }
+                    released.add(cur);
+                } else if (!cur.draining && cur.usage() < drainUsage) {
+                    cur.draining = true;
+                    arena.drainingChunks++;
+                }
+            }
+            cur = next;
+        }
+    }
+
     private boolean move(PoolChunk<T> chunk) {
         assert chunk.usage() < maxUsage;
 
@@ -11,6 +11,7 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
 
     final PoolChunk<T> chunk;
     final int elemSize;
+    final int headIndex;
     private final int pageShifts;
     private final int runOffset;
     private final int runSize;
@@ -36,8 +37,9 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
     /** Special constructor that creates a linked list head */
 
     /** 特殊的构造函数，用于创建链表的头节点 */
-    PoolSubpage() {
+    PoolSubpage(int headIndex) {
         chunk = null;
+        this.headIndex = headIndex;
         pageShifts = -1;
         runOffset = -1;
         elemSize = -1;
@@ -47,6 +49,7 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
 
     PoolSubpage(PoolSubpage<T> head, PoolChunk<T> chunk, int pageShifts, int runOffset, int runSize, int elemSize) {
         this.chunk = chunk;
+        headIndex = head.headIndex;
         this.pageShifts = pageShifts;
         this.runOffset = runOffset;
         this.runSize = runSize;
@@ -237,7 +240,8 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
             numAvail = 0;
             elemSize = -1;
         } else {
-            chunk.arena.lock();
+            final PoolSubpage<T> head = chunk.arena.findSubpagePoolHead(headIndex);
+            head.lock();
             try {
                 if (!this.doNotDestroy) {
                     doNotDestroy = false;
@@ -251,7 +255,7 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
                     elemSize = this.elemSize;
                 }
             } finally {
-                chunk.arena.unlock();
+                head.unlock();
             }
         }
 
@@ -270,11 +274,12 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
             // 这是头部。
             return 0;
         }
-        chunk.arena.lock();
+        PoolSubpage<T> head = chunk.arena.findSubpagePoolHead(headIndex);
+        head.lock();
         try {
             return maxNumElems;
         } finally {
-            chunk.arena.unlock();
+            head.unlock();
         }
     }
 
@@ -286,11 +291,12 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
             return 0;
         }
 
-        chunk.arena.lock();
+        PoolSubpage<T> head = chunk.arena.findSubpagePoolHead(headIndex);
+        head.lock();
         try {
             return numAvail;
         } finally {
-            chunk.arena.unlock();
+            head.unlock();
         }
     }
 
@@ -302,11 +308,12 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
             return -1;
         }
 
-        chunk.arena.lock();
+        PoolSubpage<T> head = chunk.arena.findSubpagePoolHead(headIndex);
+        head.lock();
         try {
             return elemSize;
         } finally {
-            chunk.arena.unlock();
+            head.unlock();
         }
     }
 
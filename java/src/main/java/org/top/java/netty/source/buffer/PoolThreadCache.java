@@ -11,12 +11,15 @@ import io.netty.util.internal.ObjectPool.ObjectCreator;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
+import org.top.java.netty.source.util.internal.shaded.org.jctools.queues.MpscArrayQueue;
+import org.top.java.netty.source.util.internal.shaded.org.jctools.queues.atomic.MpscAtomicArrayQueue;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 
@@ -53,6 +56,19 @@ final class PoolThreadCache {
     private final int freeSweepAllocationThreshold;
     private final AtomicBoolean freed = new AtomicBoolean();
 
+    // Buffers released by other threads that did not fit into the caches above. Only the owner thread drains it, so
+    // they are either cached again or freed in batches while taking each arena lock only once. null if disabled.
+
+    // 由其他线程释放但无法放入上述缓存的缓冲区。只有所属线程会排空它，因此它们要么被重新缓存，
+    // 要么被批量释放，每个arena锁只获取一次。如果禁用则为 null。
+    private final Thread owner;
+    private final Queue<MemoryRegionCache.Entry<?>> magazine;
+    private final MemoryRegionCache.Entry<?>[] drained;
+    // Once this cache was freed the producers free what they offered themselves, one thread at a time, as the
+    // magazine only supports a single consumer.
+    // 一旦此缓存被释放，生产者会自行释放它们放入的条目，每次只允许一个线程，因为弹匣只支持单个消费者。
+    private final AtomicBoolean freeingMagazine = new AtomicBoolean();
+
     private int allocations;
 
     // TODO: Test if adding padding helps under contention
@@ -64,16 +80,41 @@ final class PoolThreadCache {
     PoolThreadCache(PoolArena<byte[]> heapArena, PoolArena<ByteBuffer> directArena,
                     int smallCacheSize, int normalCacheSize, int maxCachedBufferCapacity,
                     int freeSweepAllocationThreshold) {
+        this(heapArena, directArena, smallCacheSize, normalCacheSize, maxCachedBufferCapacity,
+             freeSweepAllocationThreshold, 0, 0);
+    }
+
+    /**
+     * @param adaptiveMaxCachedBytes if {@code > 0} every {@link MemoryRegionCache} sizes its queue by its own hit/miss
+     *                               ratio and all of them together never retain more than this many bytes.
+     *                               {@code 0} keeps the fixed {@code smallCacheSize} / {@code normalCacheSize}.
+     * @param magazineSize           the number of buffers released by other threads that can wait for the owner
+     *                               thread to take them back, {@code 0} to free them directly into the arena.
+     */
+
+    /**
+     * @param adaptiveMaxCachedBytes 如果 {@code > 0}，每个 {@link MemoryRegionCache} 会根据自身的命中/未命中比例
+     *                               调整其队列大小，并且它们总共保留的字节数永远不会超过该值。
+     *                               {@code 0} 保持固定的 {@code smallCacheSize} / {@code normalCacheSize}。
+     * @param magazineSize           由其他线程释放、可以等待所属线程取回的缓冲区数量，
+     *                               {@code 0} 表示直接将它们释放到arena中。
+     */
+    PoolThreadCache(PoolArena<byte[]> heapArena, PoolArena<ByteBuffer> directArena,
+                    int smallCacheSize, int normalCacheSize, int maxCachedBufferCapacity,
+                    int freeSweepAllocationThreshold, long adaptiveMaxCachedBytes, int magazineSize) {
         checkPositiveOrZero(maxCachedBufferCapacity, "maxCachedBufferCapacity");
+        checkPositiveOrZero(adaptiveMaxCachedBytes, "adaptiveMaxCachedBytes");
+        checkPositiveOrZero(magazineSize, "magazineSize");
         this.freeSweepAllocationThreshold = freeSweepAllocationThreshold;
         this.heapArena = heapArena;
         this.directArena = directArena;
+        final CacheBudget budget = adaptiveMaxCachedBytes > 0 ? new CacheBudget(adaptiveMaxCachedBytes) : null;
         if (directArena != null) {
             smallSubPageDirectCaches = createSubPageCaches(
-                    smallCacheSize, directArena.numSmallSubpagePools);
+                    smallCacheSize, directArena.numSmallSubpagePools, budget);
 
             normalDirectCaches = createNormalCaches(
-                    normalCacheSize, maxCachedBufferCapacity, directArena);
+                    normalCacheSize, maxCachedBufferCapacity, directArena, budget);
 
             directArena.numThreadCaches.getAndIncrement();
         } else {
@@ -86,10 +127,10 @@ final class PoolThreadCache {
             // Create the caches for the heap allocations
             // 为堆分配创建缓存
             smallSubPageHeapCaches = createSubPageCaches(
-                    smallCacheSize, heapArena.numSmallSubpagePools);
+                    smallCacheSize, heapArena.numSmallSubpagePools, budget);
 
             normalHeapCaches = createNormalCaches(
-                    normalCacheSize, maxCachedBufferCapacity, heapArena);
+                    normalCacheSize, maxCachedBufferCapacity, heapArena, budget);
 
             heapArena.numThreadCaches.getAndIncrement();
         } else {
@@ -108,17 +149,33 @@ final class PoolThreadCache {
             throw new IllegalArgumentException("freeSweepAllocationThreshold: "
                     + freeSweepAllocationThreshold + " (expected: > 0)");
         }
+
+        if (magazineSize > 0 && (smallSubPageDirectCaches != null || normalDirectCaches != null
+                || smallSubPageHeapCaches != null || normalHeapCaches != null)) {
+            owner = Thread.currentThread();
+            magazine = newMagazine(magazineSize);
+            drained = new MemoryRegionCache.Entry[magazineSize];
+        } else {
+            owner = null;
+            magazine = null;
+            drained = null;
+        }
+    }
+
+    private static <T> Queue<T> newMagazine(int magazineSize) {
+        return PlatformDependent.hasUnsafe() ? new MpscArrayQueue<T>(magazineSize)
+                                             : new MpscAtomicArrayQueue<T>(magazineSize);
     }
 
     private static <T> MemoryRegionCache<T>[] createSubPageCaches(
-            int cacheSize, int numCaches) {
+            int cacheSize, int numCaches, CacheBudget budget) {
         if (cacheSize > 0 && numCaches > 0) {
             @SuppressWarnings("unchecked")
             MemoryRegionCache<T>[] cache = new MemoryRegionCache[numCaches];
             for (int i = 0; i < cache.length; i++) {
                 // TODO: maybe use cacheSize / cache.length
                 // TODO: 也许使用 cacheSize / cache.length
-                cache[i] = new SubPageMemoryRegionCache<T>(cacheSize);
+                cache[i] = new SubPageMemoryRegionCache<T>(cacheSize, budget);
             }
             return cache;
         } else {
@@ -128,7 +185,7 @@ final class PoolThreadCache {
 
     @SuppressWarnings("unchecked")
     private static <T> MemoryRegionCache<T>[] createNormalCaches(
-            int cacheSize, int maxCachedBufferCapacity, PoolArena<T> area) {
+            int cacheSize, int maxCachedBufferCapacity, PoolArena<T> area, CacheBudget budget) {
         if (cacheSize > 0 && maxCachedBufferCapacity > 0) {
             int max = Math.min(area.chunkSize, maxCachedBufferCapacity);
             // Create as many normal caches as we support based on how many sizeIdx we have and what the upper
@@ -137,7 +194,7 @@ final class PoolThreadCache {
             // 边界是我们通常想要缓存的内容。
             List<MemoryRegionCache<T>> cache = new ArrayList<MemoryRegionCache<T>>() ;
             for (int idx = area.numSmallSubpagePools; idx < area.nSizes && area.sizeIdx2size(idx) <= max ; idx++) {
-                cache.add(new NormalMemoryRegionCache<T>(cacheSize));
+                cache.add(new NormalMemoryRegionCache<T>(cacheSize, budget));
             }
             return cache.toArray(new MemoryRegionCache[0]);
         } else {
@@ -182,6 +239,12 @@ final class PoolThreadCache {
             return false;
         }
         boolean allocated = cache.allocate(buf, reqCapacity, this);
+        if (!allocated && magazine != null && !magazine.isEmpty()) {
+            // Other threads may have handed back buffers of this size, take them back before going to the arena.
+            // 其他线程可能已经交还了此大小的缓冲区，在进入arena之前先把它们取回。
+            drainMagazine();
+            allocated = cache.allocate(buf, reqCapacity, this);
+        }
         if (++ allocations >= freeSweepAllocationThreshold) {
             allocations = 0;
             trim();
@@ -203,10 +266,175 @@ final class PoolThreadCache {
                 long handle, int normCapacity, SizeClass sizeClass) {
         int sizeIdx = area.size2SizeIdx(normCapacity);
         MemoryRegionCache<?> cache = cache(area, sizeIdx, sizeClass);
-        if (cache == null) {
+        if (cache != null && cache.add(chunk, nioBuffer, handle, normCapacity)) {
+            return true;
+        }
+        return magazine != null && Thread.currentThread() != owner &&
+               addToMagazine(area, chunk, nioBuffer, handle, normCapacity);
+    }
+
+    private boolean addToMagazine(PoolArena<?> area, PoolChunk<?> chunk, ByteBuffer nioBuffer,
+                                  long handle, int normCapacity) {
+        if (freed.get()) {
+            // The owner thread is gone, nobody would drain the magazine anymore.
+            // 所属线程已经不存在，再也没有人会排空弹匣。
             return false;
         }
-        return cache.add(chunk, nioBuffer, handle, normCapacity);
+        MemoryRegionCache.Entry<?> entry = MemoryRegionCache.newEntry(chunk, nioBuffer, handle, normCapacity);
+        if (magazine.offer(entry)) {
+            area.magazineEntries.increment();
+            area.magazineReturns.increment();
+            if (freed.get()) {
+                // The owner may have freed the magazine between the check above and the offer, so nobody else
+                // would free this entry anymore.
+                // 所属线程可能在上面的检查和放入之间已经释放了弹匣，因此再也不会有其他人释放这个条目。
+                freeMagazine(false);
+            }
+            return true;
+        }
+        entry.recycle();
+        area.magazineOverflows.increment();
+        return false;
+    }
+
+    /**
+     * Move the buffers other threads handed back into the caches of this thread, and free the ones that do not fit
+     * in one batch per arena. Must only be called by the owner thread.
+     */
+
+    /**
+     * 将其他线程交还的缓冲区移动到此线程的缓存中，并按arena批量释放放不下的缓冲区。只能由所属线程调用。
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void drainMagazine() {
+        final MemoryRegionCache.Entry[] drained = this.drained;
+        int length = 0;
+        while (length < drained.length) {
+            MemoryRegionCache.Entry entry = magazine.poll();
+            if (entry == null) {
+                break;
+            }
+            PoolArena<?> area = entry.chunk.arena;
+            area.magazineEntries.decrement();
+            MemoryRegionCache cache = cache(area, area.size2SizeIdx(entry.normCapacity),
+                                            PoolArena.sizeClass(entry.handle));
+            if (cache == null || !cache.add(entry)) {
+                drained[length++] = entry;
+            }
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (drained[i] != null) {
+                freeDrained(drained[i].chunk.arena, i, length);
+            }
+        }
+    }
+
+    /**
+     * Free all drained entries of the given arena, starting at {@code from}. Subpage elements are released without
+     * the arena lock, all remaining runs under a single acquisition of it.
+     */
+
+    /**
+     * 从 {@code from} 开始释放给定arena的所有已排空条目。子页面元素在不持有arena锁的情况下释放，
+     * 其余所有运行在一次获取锁的过程中释放。
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void freeDrained(PoolArena arena, int from, int length) {
+        final MemoryRegionCache.Entry[] drained = this.drained;
+        int runs = 0;
+        for (int i = from; i < length; i++) {
+            MemoryRegionCache.Entry entry = drained[i];
+            if (entry == null || entry.chunk.arena != arena) {
+                continue;
+            }
+            if (arena.freeSubpageWithoutLock(entry.chunk, entry.handle, entry.normCapacity,
+                                             PoolArena.sizeClass(entry.handle), entry.nioBuffer, false)) {
+                drained[i] = null;
+                entry.recycle();
+            } else {
+                runs++;
+            }
+        }
+        if (runs == 0) {
+            return;
+        }
+
+        arena.lock();
+        try {
+            for (int i = from; i < length; i++) {
+                MemoryRegionCache.Entry entry = drained[i];
+                if (entry == null || entry.chunk.arena != arena) {
+                    continue;
+                }
+                if (!arena.freeRun(entry.chunk, entry.handle, PoolArena.sizeClass(entry.handle),
+                                   entry.nioBuffer, false)) {
+                    drained[i] = null;
+                    entry.recycle();
+                }
+                // Otherwise keep the entry, its chunk is destroyed once the lock was released.
+                // 否则保留该条目，其块将在释放锁之后被销毁。
+            }
+        } finally {
+            arena.unlock();
+        }
+
+        for (int i = from; i < length; i++) {
+            MemoryRegionCache.Entry entry = drained[i];
+            if (entry == null || entry.chunk.arena != arena) {
+                continue;
+            }
+            drained[i] = null;
+            arena.destroyChunk(entry.chunk);
+            entry.recycle();
+        }
+    }
+
+    /**
+     * Free all buffers in the magazine. Called once this cache was freed, by the thread that freed it and by every
+     * thread that offered a buffer afterwards.
+     */
+
+    /**
+     * 释放弹匣中的所有缓冲区。在此缓存被释放后，由释放它的线程以及之后每个放入缓冲区的线程调用。
+     */
+    private int freeMagazine(boolean finalizer) {
+        if (magazine == null) {
+            return 0;
+        }
+        int numFreed = 0;
+        // Whoever holds the flag frees everything, but an entry may be offered right before it is cleared, so check
+        // again afterwards.
+        // 持有标志的线程释放所有条目，但可能恰好在清除标志之前有条目被放入，因此之后要再检查一次。
+        while (!magazine.isEmpty() && freeingMagazine.compareAndSet(false, true)) {
+            try {
+                numFreed += freeMagazine0(finalizer);
+            } finally {
+                freeingMagazine.set(false);
+            }
+        }
+        return numFreed;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private int freeMagazine0(boolean finalizer) {
+        int numFreed = 0;
+        for (;;) {
+            MemoryRegionCache.Entry entry = magazine.poll();
+            if (entry == null) {
+                return numFreed;
+            }
+            PoolChunk chunk = entry.chunk;
+            long handle = entry.handle;
+            ByteBuffer nioBuffer = entry.nioBuffer;
+            int normCapacity = entry.normCapacity;
+            if (!finalizer) {
+                entry.recycle();
+            }
+            chunk.arena.magazineEntries.decrement();
+            chunk.arena.freeChunk(chunk, handle, normCapacity, PoolArena.sizeClass(handle), nioBuffer, finalizer);
+            numFreed++;
+        }
     }
 
     private MemoryRegionCache<?> cache(PoolArena<?> area, int sizeIdx, SizeClass sizeClass) {
@@ -248,7 +476,8 @@ final class PoolThreadCache {
             int numFreed = free(smallSubPageDirectCaches, finalizer) +
                     free(normalDirectCaches, finalizer) +
                     free(smallSubPageHeapCaches, finalizer) +
-                    free(normalHeapCaches, finalizer);
+                    free(normalHeapCaches, finalizer) +
+                    freeMagazine(finalizer);
 
             if (numFreed > 0 && logger.isDebugEnabled()) {
                 logger.debug("Freed {} thread-local buffer(s) from thread: {}", numFreed,
@@ -285,26 +514,29 @@ final class PoolThreadCache {
     }
 
     void trim() {
-        trim(smallSubPageDirectCaches);
-        trim(normalDirectCaches);
-        trim(smallSubPageHeapCaches);
-        trim(normalHeapCaches);
+        if (magazine != null && !magazine.isEmpty()) {
+            drainMagazine();
+        }
+        trim(smallSubPageDirectCaches, directArena);
+        trim(normalDirectCaches, directArena);
+        trim(smallSubPageHeapCaches, heapArena);
+        trim(normalHeapCaches, heapArena);
     }
 
-    private static void trim(MemoryRegionCache<?>[] caches) {
+    private static void trim(MemoryRegionCache<?>[] caches, PoolArena<?> arena) {
         if (caches == null) {
             return;
         }
         for (MemoryRegionCache<?> c: caches) {
-            trim(c);
+            trim(c, arena);
         }
     }
 
-    private static void trim(MemoryRegionCache<?> cache) {
+    private static void trim(MemoryRegionCache<?> cache, PoolArena<?> arena) {
         if (cache == null) {
             return;
         }
-        cache.trim();
+        cache.trim(arena);
     }
 
     private MemoryRegionCache<?> cacheForSmall(PoolArena<?> area, int sizeIdx) {
@@ -339,8 +571,8 @@ final class PoolThreadCache {
      * 用于由TINY或SMALL大小支持的缓冲区的缓存。
      */
     private static final class SubPageMemoryRegionCache<T> extends MemoryRegionCache<T> {
-        SubPageMemoryRegionCache(int size) {
-            super(size, SizeClass.Small);
+        SubPageMemoryRegionCache(int size, CacheBudget budget) {
+            super(size, SizeClass.Small, budget);
         }
 
         @Override
@@ -359,8 +591,8 @@ final class PoolThreadCache {
      * 用于由NORMAL大小支持的缓冲区的缓存。
      */
     private static final class NormalMemoryRegionCache<T> extends MemoryRegionCache<T> {
-        NormalMemoryRegionCache(int size) {
-            super(size, SizeClass.Normal);
+        NormalMemoryRegionCache(int size, CacheBudget budget) {
+            super(size, SizeClass.Normal, budget);
         }
 
         @Override
@@ -371,16 +603,77 @@ final class PoolThreadCache {
         }
     }
 
+    /**
+     * Byte budget shared by all {@link MemoryRegionCache}s of one {@link PoolThreadCache} in adaptive mode. Buffers
+     * may be added to the cache by any thread, so the accounting is atomic.
+     */
+
+    /**
+     * 自适应模式下同一个 {@link PoolThreadCache} 的所有 {@link MemoryRegionCache} 共享的字节预算。
+     * 缓冲区可能由任意线程添加到缓存中，因此计数是原子的。
+     */
+    private static final class CacheBudget {
+        private final AtomicLong usedBytes = new AtomicLong();
+        private final long maxBytes;
+
+        CacheBudget(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        boolean reserve(PoolArena<?> arena, int bytes) {
+            for (;;) {
+                long used = usedBytes.get();
+                long newUsed = used + bytes;
+                if (newUsed > maxBytes) {
+                    return false;
+                }
+                if (usedBytes.compareAndSet(used, newUsed)) {
+                    arena.threadCacheBytes.add(bytes);
+                    return true;
+                }
+            }
+        }
+
+        void release(PoolArena<?> arena, int bytes) {
+            usedBytes.addAndGet(-bytes);
+            arena.threadCacheBytes.add(-bytes);
+        }
+
+        /**
+         * Returns {@code true} if there is still room for a cache to grow, keeping a quarter of the budget as
+         * headroom so that a single hot size class can not starve all the others.
+         */
+
+        /**
+         * 如果缓存仍有增长空间则返回 {@code true}，保留四分之一的预算作为余量，
+         * 以免单个热点大小类耗尽其他所有大小类的空间。
+         */
+        boolean canGrow() {
+            return usedBytes.get() < maxBytes - (maxBytes >>> 2);
+        }
+    }
+
     private abstract static class MemoryRegionCache<T> {
         private final int size;
         private final Queue<Entry<T>> queue;
         private final SizeClass sizeClass;
+        // null if the cache is not adaptive.
+        // 如果缓存不是自适应的，则为 null。
+        private final CacheBudget budget;
+        // Number of entries this cache may hold, always size if the cache is not adaptive.
+        // 此缓存可以保存的条目数，如果缓存不是自适应的，则始终为 size。
+        private volatile int capacity;
         private int allocations;
+        private int misses;
 
-        MemoryRegionCache(int size, SizeClass sizeClass) {
+        MemoryRegionCache(int size, SizeClass sizeClass, CacheBudget budget) {
             this.size = MathUtil.safeFindNextPositivePowerOfTwo(size);
             queue = PlatformDependent.newFixedMpscQueue(this.size);
             this.sizeClass = sizeClass;
+            this.budget = budget;
+            // Adaptive caches start at a quarter of their size and grow only if they miss.
+            // 自适应缓存从其大小的四分之一开始，只有在未命中时才会增长。
+            capacity = budget == null ? this.size : Math.max(1, this.size >>> 2);
         }
 
         /**
@@ -403,7 +696,7 @@ final class PoolThreadCache {
         @SuppressWarnings("unchecked")
         public final boolean add(PoolChunk<T> chunk, ByteBuffer nioBuffer, long handle, int normCapacity) {
             Entry<T> entry = newEntry(chunk, nioBuffer, handle, normCapacity);
-            boolean queued = queue.offer(entry);
+            boolean queued = add(entry);
             if (!queued) {
                 // If it was not possible to cache the chunk, immediately recycle the entry
                 // 如果无法缓存该块，立即回收该条目
@@ -413,6 +706,25 @@ final class PoolThreadCache {
             return queued;
         }
 
+        /**
+         * Add an existing entry to the cache if not already full. The entry is not recycled if this fails.
+         */
+
+        /**
+         * 如果缓存未满，则将已有条目添加到缓存中。如果添加失败，条目不会被回收。
+         */
+        final boolean add(Entry<T> entry) {
+            if (budget != null &&
+                (queue.size() >= capacity || !budget.reserve(entry.chunk.arena, entry.normCapacity))) {
+                return false;
+            }
+            boolean queued = queue.offer(entry);
+            if (!queued && budget != null) {
+                budget.release(entry.chunk.arena, entry.normCapacity);
+            }
+            return queued;
+        }
+
         /**
          * Allocate something out of the cache if possible and remove the entry from the cache.
          */
@@ -423,8 +735,12 @@ final class PoolThreadCache {
         public final boolean allocate(PooledByteBuf<T> buf, int reqCapacity, PoolThreadCache threadCache) {
             Entry<T> entry = queue.poll();
             if (entry == null) {
+                ++ misses;
                 return false;
             }
+            if (budget != null) {
+                budget.release(entry.chunk.arena, entry.normCapacity);
+            }
             initBuf(entry.chunk, entry.nioBuffer, entry.handle, buf, reqCapacity, threadCache);
             entry.recycle();
 
@@ -468,9 +784,22 @@ final class PoolThreadCache {
         /**
          * 如果缓存的 {@link PoolChunk} 不够频繁分配，则释放它们。
          */
-        public final void trim() {
-            int free = size - allocations;
+        public final void trim(PoolArena<?> arena) {
+            int hits = allocations;
+            int misses = this.misses;
             allocations = 0;
+            this.misses = 0;
+            if (arena != null) {
+                arena.threadCacheHits.add(hits);
+                arena.threadCacheMisses.add(misses);
+            }
+
+            if (budget != null) {
+                adapt(hits, misses);
+                return;
+            }
+
+            int free = size - hits;
 
             // We not even allocated all the number that are
 
@@ -480,6 +809,31 @@ final class PoolThreadCache {
             }
         }
 
+        /**
+         * Grow the capacity if more than a quarter of the lookups since the last trim missed and the budget allows
+         * it, shrink it if not even half of it was used. Entries above the new capacity are freed.
+         */
+
+        /**
+         * 如果自上次修剪以来超过四分之一的查找未命中且预算允许，则增加容量；如果连一半容量都没有用到，则缩小容量。
+         * 超出新容量的条目将被释放。
+         */
+        private void adapt(int hits, int misses) {
+            int capacity = this.capacity;
+            if (misses > (hits + misses) >>> 2 && capacity < size && budget.canGrow()) {
+                capacity = Math.min(size, capacity << 1);
+            } else if (hits < capacity >>> 1) {
+                capacity = Math.max(1, capacity >>> 1);
+            }
+            this.capacity = capacity;
+
+            int free = queue.size() - capacity;
+            if (free > 0) {
+                free(free, false);
+            }
+        }
+
+
         @SuppressWarnings({ "unchecked", "rawtypes" })
         private  void freeEntry(Entry entry, boolean finalizer) {
             // Capture entry state before we recycle the entry object.
@@ -489,6 +843,10 @@ final class PoolThreadCache {
             ByteBuffer nioBuffer = entry.nioBuffer;
             int normCapacity = entry.normCapacity;
 
+            if (budget != null) {
+                budget.release(chunk.arena, normCapacity);
+            }
+
             if (!finalizer) {
                 // recycle now so PoolChunk can be GC'ed. This will only be done if this is not freed because of
                 // 立即回收以便 PoolChunk 可以被 GC 回收。仅当未因以下原因释放时才会执行此操作。
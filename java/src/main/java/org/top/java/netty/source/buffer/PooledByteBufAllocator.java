@@ -6,6 +6,8 @@ import io.netty.util.NettyRuntime;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.concurrent.FastThreadLocalThread;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GlobalEventExecutor;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 import io.netty.util.internal.SystemPropertyUtil;
@@ -13,12 +15,17 @@ import io.netty.util.internal.ThreadExecutorMap;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.io.File;
+import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
 import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 
 public class PooledByteBufAllocator extends AbstractByteBufAllocator implements ByteBufAllocatorMetricProvider {
@@ -35,6 +42,17 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
     private static final int DEFAULT_CACHE_TRIM_INTERVAL;
     private static final long DEFAULT_CACHE_TRIM_INTERVAL_MILLIS;
     private static final boolean DEFAULT_USE_CACHE_FOR_ALL_THREADS;
+    private static final boolean DEFAULT_ADAPTIVE_THREAD_CACHE;
+    private static final long DEFAULT_THREAD_CACHE_MAX_BYTES;
+    private static final int DEFAULT_RETURN_MAGAZINE_SIZE;
+    private static final File DEFAULT_MAPPED_CHUNK_DIRECTORY;
+    private static final int DEFAULT_MAPPED_CHUNK_ALIGNMENT;
+    private static final boolean DEFAULT_BITMAP_RUN_INDEX;
+    static final boolean DEFAULT_TELEMETRY;
+    private static final long DEFAULT_RECLAIM_INTERVAL_MILLIS;
+    private static final int DEFAULT_RECLAIM_IDLE_INTERVALS;
+    private static final int DEFAULT_RECLAIM_DRAIN_USAGE;
+    static final int DEFAULT_TELEMETRY_SAMPLE_RATE;
     private static final int DEFAULT_DIRECT_MEMORY_CACHE_ALIGNMENT;
     static final int DEFAULT_MAX_CACHED_BYTEBUFFERS_PER_CHUNK;
 
@@ -152,6 +170,66 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
         DEFAULT_USE_CACHE_FOR_ALL_THREADS = SystemPropertyUtil.getBoolean(
                 "io.netty.allocator.useCacheForAllThreads", false);
 
+        // In adaptive mode each size class cache grows and shrinks by its own hit rate, bounded by a per thread budget.
+
+        // 在自适应模式下，每个大小类的缓存根据自身的命中率增长和收缩，并受每个线程的预算限制。
+        DEFAULT_ADAPTIVE_THREAD_CACHE = SystemPropertyUtil.getBoolean(
+                "io.netty.allocator.adaptiveThreadCache", false);
+        DEFAULT_THREAD_CACHE_MAX_BYTES = Math.max(1, SystemPropertyUtil.getLong(
+                "io.netty.allocator.threadCacheMaxBytes", 2 * 1024 * 1024));
+
+        // Number of buffers released by other threads that each thread cache can take back in batches, 0 disables it.
+
+        // 每个线程缓存可以批量取回的由其他线程释放的缓冲区数量，0 表示禁用。
+        DEFAULT_RETURN_MAGAZINE_SIZE = Math.max(0, SystemPropertyUtil.getInt(
+                "io.netty.allocator.returnMagazineSize", 0));
+
+        // If set, pooled direct chunks are memory-mapped files in this directory, e.g. /dev/shm. The chunk memory is
+        // aligned to mappedChunkAlignment (2 MiB by default) so it can be backed by transparent huge pages.
+
+        // 如果设置，池化的直接块将是此目录（例如 /dev/shm）中的内存映射文件。块内存按 mappedChunkAlignment
+        // （默认 2 MiB）对齐，以便可以由透明大页支持。
+        String mappedChunkDirectory = SystemPropertyUtil.get("io.netty.allocator.mappedChunkDirectory");
+        DEFAULT_MAPPED_CHUNK_DIRECTORY = mappedChunkDirectory == null || mappedChunkDirectory.isEmpty() ?
+                null : new File(mappedChunkDirectory);
+        int mappedChunkAlignment = Math.max(0, SystemPropertyUtil.getInt(
+                "io.netty.allocator.mappedChunkAlignment", 2 * 1024 * 1024));
+        if ((mappedChunkAlignment & -mappedChunkAlignment) != mappedChunkAlignment) {
+            // The alignment must be a power of two, so round it up.
+            // 对齐必须是 2 的幂，因此向上取整。
+            int roundedAlignment = findNextPositivePowerOfTwo(Math.min(mappedChunkAlignment, 1 << 30));
+            logger.warn("-Dio.netty.allocator.mappedChunkAlignment: {} (expected: power of two), using {}",
+                    mappedChunkAlignment, roundedAlignment);
+            mappedChunkAlignment = roundedAlignment;
+        }
+        DEFAULT_MAPPED_CHUNK_ALIGNMENT = mappedChunkAlignment;
+
+        // Find free runs of normal allocations through a two level bitmap instead of walking the run queues.
+
+        // 通过两级位图而不是遍历运行队列来查找正常分配的空闲运行。
+        DEFAULT_BITMAP_RUN_INDEX = SystemPropertyUtil.getBoolean("io.netty.allocator.bitmapRunIndex", false);
+
+        // Record per size class allocation counts and the call site of one out of telemetrySampleRate allocations,
+        // see PooledByteBufAllocatorMetric.telemetrySnapshot(). A sample rate of 0 disables call site sampling.
+
+        // 记录每个大小类的分配次数，以及每 telemetrySampleRate 次分配中一次的调用点，
+        // 参见 PooledByteBufAllocatorMetric.telemetrySnapshot()。采样率为 0 时禁用调用点采样。
+        DEFAULT_TELEMETRY = SystemPropertyUtil.getBoolean("io.netty.allocator.telemetry", false);
+        DEFAULT_TELEMETRY_SAMPLE_RATE = Math.max(0, SystemPropertyUtil.getInt(
+                "io.netty.allocator.telemetrySampleRate", 1024));
+
+        // Period of the background reclaimer which releases chunks that stayed empty for reclaimIdleIntervals periods
+        // and stops allocating from idle chunks whose usage is below reclaimDrainUsage percent, 0 disables it.
+
+        // 后台回收器的执行周期，它会释放在 reclaimIdleIntervals 个周期内一直为空的块，
+        // 并停止从使用率低于 reclaimDrainUsage 百分比的空闲块中分配，0 表示禁用。
+        DEFAULT_RECLAIM_INTERVAL_MILLIS = Math.max(0, SystemPropertyUtil.getLong(
+                "io.netty.allocator.reclaimIntervalMillis", 0));
+        DEFAULT_RECLAIM_IDLE_INTERVALS = Math.max(1, SystemPropertyUtil.getInt(
+                "io.netty.allocator.reclaimIdleIntervals", 2));
+        DEFAULT_RECLAIM_DRAIN_USAGE = Math.min(100, Math.max(0, SystemPropertyUtil.getInt(
+                "io.netty.allocator.reclaimDrainUsage", 10)));
+
         // Use 1023 by default as we use an ArrayDeque as backing storage which will then allocate an internal array
 
         // 默认使用1023，因为我们使用ArrayDeque作为后备存储，它将分配一个内部数组
@@ -180,6 +258,17 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
             logger.debug("-Dio.netty.allocator.cacheTrimInterval: {}", DEFAULT_CACHE_TRIM_INTERVAL);
             logger.debug("-Dio.netty.allocator.cacheTrimIntervalMillis: {}", DEFAULT_CACHE_TRIM_INTERVAL_MILLIS);
             logger.debug("-Dio.netty.allocator.useCacheForAllThreads: {}", DEFAULT_USE_CACHE_FOR_ALL_THREADS);
+            logger.debug("-Dio.netty.allocator.adaptiveThreadCache: {}", DEFAULT_ADAPTIVE_THREAD_CACHE);
+            logger.debug("-Dio.netty.allocator.threadCacheMaxBytes: {}", DEFAULT_THREAD_CACHE_MAX_BYTES);
+            logger.debug("-Dio.netty.allocator.returnMagazineSize: {}", DEFAULT_RETURN_MAGAZINE_SIZE);
+            logger.debug("-Dio.netty.allocator.mappedChunkDirectory: {}", DEFAULT_MAPPED_CHUNK_DIRECTORY);
+            logger.debug("-Dio.netty.allocator.mappedChunkAlignment: {}", DEFAULT_MAPPED_CHUNK_ALIGNMENT);
+            logger.debug("-Dio.netty.allocator.bitmapRunIndex: {}", DEFAULT_BITMAP_RUN_INDEX);
+            logger.debug("-Dio.netty.allocator.telemetry: {}", DEFAULT_TELEMETRY);
+            logger.debug("-Dio.netty.allocator.telemetrySampleRate: {}", DEFAULT_TELEMETRY_SAMPLE_RATE);
+            logger.debug("-Dio.netty.allocator.reclaimIntervalMillis: {}", DEFAULT_RECLAIM_INTERVAL_MILLIS);
+            logger.debug("-Dio.netty.allocator.reclaimIdleIntervals: {}", DEFAULT_RECLAIM_IDLE_INTERVALS);
+            logger.debug("-Dio.netty.allocator.reclaimDrainUsage: {}", DEFAULT_RECLAIM_DRAIN_USAGE);
             logger.debug("-Dio.netty.allocator.maxCachedByteBuffersPerChunk: {}",
                     DEFAULT_MAX_CACHED_BYTEBUFFERS_PER_CHUNK);
         }
@@ -196,6 +285,7 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
     private final List<PoolArenaMetric> directArenaMetrics;
     private final PoolThreadLocalCache threadCache;
     private final int chunkSize;
+    private final boolean bitmapRunIndex;
     private final PooledByteBufAllocatorMetric metric;
 
     public PooledByteBufAllocator() {
@@ -292,7 +382,48 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
     public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
                                   int smallCacheSize, int normalCacheSize,
                                   boolean useCacheForAllThreads, int directMemoryCacheAlignment) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder,
+             smallCacheSize, normalCacheSize,
+             useCacheForAllThreads, directMemoryCacheAlignment, DEFAULT_MAPPED_CHUNK_DIRECTORY);
+    }
+
+    /**
+     * @param mappedChunkDirectory if not {@code null} the pooled chunks of the direct arenas are memory-mapped files
+     *                             in this directory (e.g. on {@code /dev/shm} or a tmpfs with transparent huge pages)
+     *                             instead of native memory. Huge buffers are never pooled and so never mapped.
+     */
+
+    /**
+     * @param mappedChunkDirectory 如果不为 {@code null}，直接arena的池化块将是此目录中的内存映射文件
+     *                             （例如位于 {@code /dev/shm} 或启用了透明大页的 tmpfs 上），而不是本机内存。
+     *                             巨大的缓冲区永远不会被池化，因此也永远不会被映射。
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int smallCacheSize, int normalCacheSize,
+                                  boolean useCacheForAllThreads, int directMemoryCacheAlignment,
+                                  File mappedChunkDirectory) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder,
+             smallCacheSize, normalCacheSize,
+             useCacheForAllThreads, directMemoryCacheAlignment, mappedChunkDirectory, DEFAULT_BITMAP_RUN_INDEX);
+    }
+
+    /**
+     * @param bitmapRunIndex if {@code true} every chunk keeps a two level bitmap of its free run sizes, so the run
+     *                       serving a normal allocation is found with two find-first-set operations. Costs
+     *                       {@code 8 * (chunkSize / pageSize)} bytes per chunk.
+     */
+
+    /**
+     * @param bitmapRunIndex 如果为 {@code true}，每个块都会维护其空闲运行大小的两级位图，
+     *                       因此通过两次查找第一个置位操作即可找到服务于正常分配的运行。
+     *                       每个块占用 {@code 8 * (chunkSize / pageSize)} 字节。
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int smallCacheSize, int normalCacheSize,
+                                  boolean useCacheForAllThreads, int directMemoryCacheAlignment,
+                                  File mappedChunkDirectory, boolean bitmapRunIndex) {
         super(preferDirect);
+        this.bitmapRunIndex = bitmapRunIndex;
         threadCache = new PoolThreadLocalCache(useCacheForAllThreads);
         this.smallCacheSize = smallCacheSize;
         this.normalCacheSize = normalCacheSize;
@@ -326,6 +457,12 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
 
         int pageShifts = validateAndCalculatePageShifts(pageSize, directMemoryCacheAlignment);
 
+        if (mappedChunkDirectory != null && !mappedChunkDirectory.isDirectory()) {
+            throw new IllegalArgumentException("mappedChunkDirectory: " + mappedChunkDirectory +
+                    " (expected: an existing directory)");
+        }
+        int mappedChunkAlignment = PlatformDependent.hasAlignDirectByteBuffer() ? DEFAULT_MAPPED_CHUNK_ALIGNMENT : 0;
+
         if (nHeapArena > 0) {
             heapArenas = newArenaArray(nHeapArena);
             List<PoolArenaMetric> metrics = new ArrayList<PoolArenaMetric>(heapArenas.length);
@@ -346,7 +483,8 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
             List<PoolArenaMetric> metrics = new ArrayList<PoolArenaMetric>(directArenas.length);
             for (int i = 0; i < directArenas.length; i ++) {
                 PoolArena.DirectArena arena = new PoolArena.DirectArena(
-                        this, pageSize, pageShifts, chunkSize, directMemoryCacheAlignment);
+                        this, pageSize, pageShifts, chunkSize, directMemoryCacheAlignment,
+                        mappedChunkDirectory, mappedChunkAlignment);
                 directArenas[i] = arena;
                 metrics.add(arena);
             }
@@ -356,6 +494,51 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
             directArenaMetrics = Collections.emptyList();
         }
         metric = new PooledByteBufAllocatorMetric(this);
+
+        if (DEFAULT_RECLAIM_INTERVAL_MILLIS > 0) {
+            ReclaimTask.schedule(this, DEFAULT_RECLAIM_INTERVAL_MILLIS);
+        }
+    }
+
+    /**
+     * Periodically calls {@link #reclaimIdleChunks()} on the {@link GlobalEventExecutor}. Only weakly references the
+     * allocator so it does not keep it alive, and cancels itself once the allocator was collected.
+     */
+
+    /**
+     * 在 {@link GlobalEventExecutor} 上定期调用 {@link #reclaimIdleChunks()}。仅弱引用分配器，
+     * 因此不会使其保持存活，并在分配器被回收后取消自身。
+     */
+    private static final class ReclaimTask implements Runnable {
+        private final WeakReference<PooledByteBufAllocator> allocator;
+        private volatile Future<?> future;
+
+        private ReclaimTask(PooledByteBufAllocator allocator) {
+            this.allocator = new WeakReference<PooledByteBufAllocator>(allocator);
+        }
+
+        static void schedule(PooledByteBufAllocator allocator, long intervalMillis) {
+            ReclaimTask task = new ReclaimTask(allocator);
+            task.future = GlobalEventExecutor.INSTANCE.scheduleAtFixedRate(
+                    task, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            PooledByteBufAllocator allocator = this.allocator.get();
+            if (allocator == null) {
+                Future<?> future = this.future;
+                if (future != null) {
+                    future.cancel(false);
+                }
+                return;
+            }
+            try {
+                allocator.reclaimIdleChunks();
+            } catch (Throwable t) {
+                logger.warn("Failed to reclaim idle chunks", t);
+            }
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -611,7 +794,9 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
                     executor != null) {
                 final PoolThreadCache cache = new PoolThreadCache(
                         heapArena, directArena, smallCacheSize, normalCacheSize,
-                        DEFAULT_MAX_CACHED_BUFFER_CAPACITY, DEFAULT_CACHE_TRIM_INTERVAL);
+                        DEFAULT_MAX_CACHED_BUFFER_CAPACITY, DEFAULT_CACHE_TRIM_INTERVAL,
+                        DEFAULT_ADAPTIVE_THREAD_CACHE ? DEFAULT_THREAD_CACHE_MAX_BYTES : 0,
+                        DEFAULT_RETURN_MAGAZINE_SIZE);
 
                 if (DEFAULT_CACHE_TRIM_INTERVAL_MILLIS > 0) {
                     if (executor != null) {
@@ -814,6 +999,142 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
         return chunkSize;
     }
 
+    final boolean adaptiveThreadCache() {
+        return DEFAULT_ADAPTIVE_THREAD_CACHE;
+    }
+
+    final long threadCacheMaxBytes() {
+        return DEFAULT_ADAPTIVE_THREAD_CACHE ? DEFAULT_THREAD_CACHE_MAX_BYTES : -1;
+    }
+
+    final long threadCacheHits() {
+        return threadCacheHits(heapArenas) + threadCacheHits(directArenas);
+    }
+
+    final long threadCacheMisses() {
+        return threadCacheMisses(heapArenas) + threadCacheMisses(directArenas);
+    }
+
+    final long threadCacheBytes() {
+        return threadCacheBytes(heapArenas) + threadCacheBytes(directArenas);
+    }
+
+    private static long threadCacheHits(PoolArena<?>[] arenas) {
+        long hits = 0;
+        if (arenas != null) {
+            for (PoolArena<?> arena : arenas) {
+                hits += arena.threadCacheHits.value();
+            }
+        }
+        return hits;
+    }
+
+    private static long threadCacheMisses(PoolArena<?>[] arenas) {
+        long misses = 0;
+        if (arenas != null) {
+            for (PoolArena<?> arena : arenas) {
+                misses += arena.threadCacheMisses.value();
+            }
+        }
+        return misses;
+    }
+
+    private static long threadCacheBytes(PoolArena<?>[] arenas) {
+        long bytes = 0;
+        if (arenas != null) {
+            for (PoolArena<?> arena : arenas) {
+                bytes += arena.threadCacheBytes.value();
+            }
+        }
+        return Math.max(0, bytes);
+    }
+
+    final int returnMagazineSize() {
+        return DEFAULT_RETURN_MAGAZINE_SIZE;
+    }
+
+    final long numMagazineEntries() {
+        return Math.max(0, magazineEntries(heapArenas) + magazineEntries(directArenas));
+    }
+
+    final long numMagazineReturns() {
+        return magazineReturns(heapArenas) + magazineReturns(directArenas);
+    }
+
+    final long numMagazineOverflows() {
+        return magazineOverflows(heapArenas) + magazineOverflows(directArenas);
+    }
+
+    private static long magazineEntries(PoolArena<?>[] arenas) {
+        long entries = 0;
+        if (arenas != null) {
+            for (PoolArena<?> arena : arenas) {
+                entries += arena.magazineEntries.value();
+            }
+        }
+        return entries;
+    }
+
+    private static long magazineReturns(PoolArena<?>[] arenas) {
+        long returns = 0;
+        if (arenas != null) {
+            for (PoolArena<?> arena : arenas) {
+                returns += arena.magazineReturns.value();
+            }
+        }
+        return returns;
+    }
+
+    private static long magazineOverflows(PoolArena<?>[] arenas) {
+        long overflows = 0;
+        if (arenas != null) {
+            for (PoolArena<?> arena : arenas) {
+                overflows += arena.magazineOverflows.value();
+            }
+        }
+        return overflows;
+    }
+
+    final AllocatorTelemetrySnapshot telemetrySnapshot() {
+        if (!DEFAULT_TELEMETRY) {
+            return null;
+        }
+        List<AllocatorTelemetrySnapshot.SizeClassStats> sizeClasses =
+                new ArrayList<AllocatorTelemetrySnapshot.SizeClassStats>();
+        List<AllocatorTelemetrySnapshot.ArenaStats> arenas = new ArrayList<AllocatorTelemetrySnapshot.ArenaStats>();
+        Map<String, Long> allocationSites = new HashMap<String, Long>();
+        collectTelemetry(heapArenas, sizeClasses, arenas, allocationSites);
+        collectTelemetry(directArenas, sizeClasses, arenas, allocationSites);
+        return new AllocatorTelemetrySnapshot(DEFAULT_TELEMETRY_SAMPLE_RATE, sizeClasses, arenas, allocationSites);
+    }
+
+    private static void collectTelemetry(PoolArena<?>[] arenas,
+                                         List<AllocatorTelemetrySnapshot.SizeClassStats> sizeClasses,
+                                         List<AllocatorTelemetrySnapshot.ArenaStats> arenaStats,
+                                         Map<String, Long> allocationSites) {
+        if (arenas == null || arenas.length == 0) {
+            return;
+        }
+        // All arenas of one kind share the same size classes.
+        // 同一类型的所有arena共享相同的大小类。
+        PoolArena<?> first = arenas[0];
+        for (int sizeIdx = 0; sizeIdx <= first.nSizes; sizeIdx++) {
+            long cacheHits = 0;
+            long arenaAllocations = 0;
+            for (PoolArena<?> arena : arenas) {
+                cacheHits += arena.telemetry.cacheHits(sizeIdx);
+                arenaAllocations += arena.telemetry.arenaAllocations(sizeIdx);
+            }
+            int size = sizeIdx < first.nSizes ? first.sizeIdx2size(sizeIdx) : -1;
+            sizeClasses.add(new AllocatorTelemetrySnapshot.SizeClassStats(
+                    first.isDirect(), sizeIdx, size, cacheHits, arenaAllocations));
+        }
+        for (PoolArena<?> arena : arenas) {
+            arenaStats.add(arena.chunkStats());
+            arena.telemetry.collectSites(allocationSites);
+        }
+    }
+
     final long usedHeapMemory() {
         return usedMemory(heapArenas);
     }
@@ -907,6 +1228,73 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
         return false;
     }
 
+    /**
+     * Release the pooled chunks that stayed empty during the last {@code io.netty.allocator.reclaimIdleIntervals}
+     * calls and stop allocating from idle chunks that are less than {@code io.netty.allocator.reclaimDrainUsage}
+     * percent used, so they get released once their last buffer is. This is called periodically if
+     * {@code io.netty.allocator.reclaimIntervalMillis} is set, but can also be called after a traffic spike.
+     *
+     * @return the number of bytes that were released by this call.
+     */
+
+    /**
+     * 释放在最近 {@code io.netty.allocator.reclaimIdleIntervals} 次调用中一直为空的池化块，
+     * 并停止从使用率低于 {@code io.netty.allocator.reclaimDrainUsage} 百分比的空闲块中分配，
+     * 以便在其最后一个缓冲区释放后将其释放。如果设置了 {@code io.netty.allocator.reclaimIntervalMillis}，
+     * 则会定期调用此方法，但也可以在流量高峰之后调用。
+     *
+     * @return 此次调用释放的字节数。
+     */
+    public long reclaimIdleChunks() {
+        return reclaimIdleChunks(heapArenas) + reclaimIdleChunks(directArenas);
+    }
+
+    private static long reclaimIdleChunks(PoolArena<?>[] arenas) {
+        long bytes = 0;
+        if (arenas != null) {
+            for (PoolArena<?> arena : arenas) {
+                bytes += arena.reclaimIdleChunks(DEFAULT_RECLAIM_IDLE_INTERVALS, DEFAULT_RECLAIM_DRAIN_USAGE);
+            }
+        }
+        return bytes;
+    }
+
+    final boolean bitmapRunIndex() {
+        return bitmapRunIndex;
+    }
+
+    final long reclaimIntervalMillis() {
+        return DEFAULT_RECLAIM_INTERVAL_MILLIS;
+    }
+
+    final long numReclaimedChunks() {
+        return reclaimedChunks(heapArenas) + reclaimedChunks(directArenas);
+    }
+
+    final long reclaimedBytes() {
+        return reclaimedBytes(heapArenas) + reclaimedBytes(directArenas);
+    }
+
+    private static long reclaimedChunks(PoolArena<?>[] arenas) {
+        long chunks = 0;
+        if (arenas != null) {
+            for (PoolArena<?> arena : arenas) {
+                chunks += arena.reclaimedChunks.value();
+            }
+        }
+        return chunks;
+    }
+
+    private static long reclaimedBytes(PoolArena<?>[] arenas) {
+        long bytes = 0;
+        if (arenas != null) {
+            for (PoolArena<?> arena : arenas) {
+                bytes += arena.reclaimedBytes.value();
+            }
+        }
+        return bytes;
+    }
+
     /**
      * Returns the status of the allocator (which contains all metrics) as string. Be aware this may be expensive
      * and so should not called too frequently.
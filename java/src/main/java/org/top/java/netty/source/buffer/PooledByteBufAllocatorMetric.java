@@ -125,6 +125,160 @@ public final class PooledByteBufAllocatorMetric implements ByteBufAllocatorMetri
         return allocator.chunkSize();
     }
 
+    /**
+     * Return {@code true} if the thread local caches size themselves by their hit rate
+     * ({@code -Dio.netty.allocator.adaptiveThreadCache}).
+     */
+
+    /**
+     * 如果线程本地缓存根据其命中率自行调整大小，则返回 {@code true}
+     * （{@code -Dio.netty.allocator.adaptiveThreadCache}）。
+     */
+    public boolean adaptiveThreadCache() {
+        return allocator.adaptiveThreadCache();
+    }
+
+    /**
+     * Return the maximum number of bytes a single adaptive thread local cache may retain, or {@code -1} if the thread
+     * local caches are not adaptive.
+     */
+
+    /**
+     * 返回单个自适应线程本地缓存最多可以保留的字节数，如果线程本地缓存不是自适应的，则返回 {@code -1}。
+     */
+    public long threadCacheMaxBytes() {
+        return allocator.threadCacheMaxBytes();
+    }
+
+    /**
+     * Return the number of allocations that were served by a thread local cache. The counters are updated each time a
+     * thread local cache is trimmed, so they lag behind by at most one trim interval.
+     */
+
+    /**
+     * 返回由线程本地缓存满足的分配次数。计数器在每次修剪线程本地缓存时更新，因此最多滞后一个修剪间隔。
+     */
+    public long threadCacheHits() {
+        return allocator.threadCacheHits();
+    }
+
+    /**
+     * Return the number of cacheable allocations that missed the thread local cache and went to an arena.
+     */
+
+    /**
+     * 返回未命中线程本地缓存而进入arena的可缓存分配次数。
+     */
+    public long threadCacheMisses() {
+        return allocator.threadCacheMisses();
+    }
+
+    /**
+     * Return the number of bytes currently retained by all adaptive thread local caches, {@code 0} if the thread
+     * local caches are not adaptive.
+     */
+
+    /**
+     * 返回所有自适应线程本地缓存当前保留的字节数，如果线程本地缓存不是自适应的，则返回 {@code 0}。
+     */
+    public long threadCacheBytes() {
+        return allocator.threadCacheBytes();
+    }
+
+    /**
+     * Return the number of buffers released by other threads that each thread local cache can take back
+     * ({@code -Dio.netty.allocator.returnMagazineSize}), {@code 0} if disabled.
+     */
+
+    /**
+     * 返回每个线程本地缓存可以取回的由其他线程释放的缓冲区数量
+     * （{@code -Dio.netty.allocator.returnMagazineSize}），如果禁用则返回 {@code 0}。
+     */
+    public int returnMagazineSize() {
+        return allocator.returnMagazineSize();
+    }
+
+    /**
+     * Return the number of buffers that currently wait in the return magazines for their owner thread.
+     */
+
+    /**
+     * 返回当前在归还弹匣中等待其所属线程的缓冲区数量。
+     */
+    public long numMagazineEntries() {
+        return allocator.numMagazineEntries();
+    }
+
+    /**
+     * Return the number of buffers other threads handed back through the return magazines.
+     */
+
+    /**
+     * 返回其他线程通过归还弹匣交还的缓冲区数量。
+     */
+    public long numMagazineReturns() {
+        return allocator.numMagazineReturns();
+    }
+
+    /**
+     * Return the number of buffers that were freed directly into the arena because the return magazine was full.
+     */
+
+    /**
+     * 返回由于归还弹匣已满而直接释放到arena中的缓冲区数量。
+     */
+    public long numMagazineOverflows() {
+        return allocator.numMagazineOverflows();
+    }
+
+    /**
+     * Return the period of the background idle chunk reclaimer in milliseconds, {@code 0} if it is disabled.
+     */
+
+    /**
+     * 返回后台空闲块回收器的执行周期（毫秒），如果禁用则返回 {@code 0}。
+     */
+    public long reclaimIntervalMillis() {
+        return allocator.reclaimIntervalMillis();
+    }
+
+    /**
+     * Return the number of chunks released by the idle chunk reclaimer, including draining chunks released once their
+     * last buffer was.
+     */
+
+    /**
+     * 返回空闲块回收器释放的块数量，包括在最后一个缓冲区释放后被释放的排空块。
+     */
+    public long numReclaimedChunks() {
+        return allocator.numReclaimedChunks();
+    }
+
+    /**
+     * Return the number of bytes released by the idle chunk reclaimer.
+     */
+
+    /**
+     * 返回空闲块回收器释放的字节数。
+     */
+    public long reclaimedBytes() {
+        return allocator.reclaimedBytes();
+    }
+
+    /**
+     * Return a snapshot of the per size class allocation counts and cache hit rates, the chunk fragmentation of every
+     * arena and the sampled allocation call sites, or {@code null} unless
+     * {@code -Dio.netty.allocator.telemetry=true}.
+     */
+
+    /**
+     * 返回每个大小类的分配次数和缓存命中率、每个arena的块碎片情况以及采样的分配调用点的快照，
+     * 除非设置了 {@code -Dio.netty.allocator.telemetry=true}，否则返回 {@code null}。
+     */
+    public AllocatorTelemetrySnapshot telemetrySnapshot() {
+        return allocator.telemetrySnapshot();
+    }
+
     @Override
     public long usedHeapMemory() {
         return allocator.usedHeapMemory();
@@ -146,6 +300,15 @@ public final class PooledByteBufAllocatorMetric implements ByteBufAllocatorMetri
                 .append("; smallCacheSize: ").append(smallCacheSize())
                 .append("; normalCacheSize: ").append(normalCacheSize())
                 .append("; numThreadLocalCaches: ").append(numThreadLocalCaches())
+                .append("; adaptiveThreadCache: ").append(adaptiveThreadCache())
+                .append("; threadCacheHits: ").append(threadCacheHits())
+                .append("; threadCacheMisses: ").append(threadCacheMisses())
+                .append("; threadCacheBytes: ").append(threadCacheBytes())
+                .append("; returnMagazineSize: ").append(returnMagazineSize())
+                .append("; numMagazineEntries: ").append(numMagazineEntries())
+                .append("; numMagazineOverflows: ").append(numMagazineOverflows())
+                .append("; numReclaimedChunks: ").append(numReclaimedChunks())
+                .append("; reclaimedBytes: ").append(reclaimedBytes())
                 .append("; chunkSize: ").append(chunkSize()).append(')');
         return sb.toString();
     }
@@ -0,0 +1,210 @@
+package org.top.java.netty.source.buffer;
+
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
+import static io.netty.util.internal.MathUtil.isOutOfBounds;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * A bounded cache of the {@link String}s decoded from {@link ByteBuf} content, for protocols in which the same short
+ * byte sequences arrive over and over again, like header names, JSON keys or Redis commands. Looking up a sequence
+ * that was decoded before returns the same {@link String} instance again, without allocating or decoding anything.
+ * <br>
+ * The cache is direct mapped: a sequence is stored in the entry selected by its
+ * {@link ByteBufUtil#hashCode(ByteBuf)} style hash and replaces whatever was stored there, so it never grows beyond
+ * its number of entries. Content is decoded as UTF-8, and sequences longer than {@link #maxLength()} are decoded
+ * without being cached.
+ * <br>
+ * An instance must only be used by a single thread. {@link #threadLocal()} returns the instance of the calling thread,
+ * sized by {@code io.netty.stringInternCache.size} and {@code io.netty.stringInternCache.maxLength}.
+ */
+
+/**
+ * 从 {@link ByteBuf} 内容解码出的 {@link String} 的有界缓存，适用于相同的短字节序列反复到达的协议，例如头部名称、
+ * JSON 键或 Redis 命令。查找之前解码过的序列会再次返回同一个 {@link String} 实例，而不分配或解码任何内容。
+ * <br>
+ * 该缓存是直接映射的：一个序列存储在由其 {@link ByteBufUtil#hashCode(ByteBuf)} 风格的哈希选中的条目中，并替换原先存储在那里的内容，
+ * 因此它永远不会超过其条目数。内容按 UTF-8 解码，长度超过 {@link #maxLength()} 的序列只解码而不缓存。
+ * <br>
+ * 一个实例只能由单个线程使用。{@link #threadLocal()} 返回调用线程的实例，其大小由
+ * {@code io.netty.stringInternCache.size} 和 {@code io.netty.stringInternCache.maxLength} 决定。
+ */
+public final class StringInternCache {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(StringInternCache.class);
+
+    private static final int DEFAULT_SIZE;
+    private static final int DEFAULT_MAX_LENGTH;
+
+    static {
+        DEFAULT_SIZE = SystemPropertyUtil.getInt("io.netty.stringInternCache.size", 1024);
+        DEFAULT_MAX_LENGTH = SystemPropertyUtil.getInt("io.netty.stringInternCache.maxLength", 64);
+        logger.debug("-Dio.netty.stringInternCache.size: {}", DEFAULT_SIZE);
+        logger.debug("-Dio.netty.stringInternCache.maxLength: {}", DEFAULT_MAX_LENGTH);
+    }
+
+    private static final FastThreadLocal<StringInternCache> CACHES = new FastThreadLocal<StringInternCache>() {
+        @Override
+        protected StringInternCache initialValue() {
+            return new StringInternCache(DEFAULT_SIZE, DEFAULT_MAX_LENGTH);
+        }
+    };
+
+    private final int mask;
+    private final int maxLength;
+    private final int[] hashes;
+    private final ByteBuf[] keys;
+    private final String[] values;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Returns the cache of the calling thread.
+     */
+
+    /**
+     * 返回调用线程的缓存。
+     */
+    public static StringInternCache threadLocal() {
+        return CACHES.get();
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param size      the number of entries, rounded up to the next power of two
+     * @param maxLength the maximum length in bytes of the sequences to cache
+     */
+
+    /**
+     * 创建一个新的缓存。
+     *
+     * @param size      条目数，向上取整到下一个 2 的幂
+     * @param maxLength 要缓存的序列的最大字节长度
+     */
+    public StringInternCache(int size, int maxLength) {
+        checkPositive(size, "size");
+        this.maxLength = checkPositiveOrZero(maxLength, "maxLength");
+        final int entries = findNextPositivePowerOfTwo(size);
+        mask = entries - 1;
+        hashes = new int[entries];
+        keys = new ByteBuf[entries];
+        values = new String[entries];
+    }
+
+    /**
+     * Returns the {@link String} decoded from the readable bytes of the given buffer, see
+     * {@link #intern(ByteBuf, int, int)}.
+     */
+
+    /**
+     * 返回从给定缓冲区的可读字节解码出的 {@link String}，参见 {@link #intern(ByteBuf, int, int)}。
+     */
+    public String intern(ByteBuf buf) {
+        return intern(buf, buf.readerIndex(), buf.readableBytes());
+    }
+
+    /**
+     * Returns the {@link String} decoded from the {@code length} bytes of {@code buf} starting at {@code index} as
+     * UTF-8, which is the same instance as returned for the same bytes before if they are still cached. The indexes of
+     * {@code buf} are not modified.
+     */
+
+    /**
+     * 返回将 {@code buf} 从 {@code index} 开始的 {@code length} 个字节按 UTF-8 解码得到的 {@link String}；
+     * 如果相同的字节仍在缓存中，则返回与之前相同的实例。{@code buf} 的索引不会被修改。
+     */
+    public String intern(ByteBuf buf, int index, int length) {
+        checkNotNull(buf, "buf");
+        if (isOutOfBounds(index, length, buf.capacity())) {
+            throw new IndexOutOfBoundsException("expected: " + "0 <= index(" + index + ") <= index + length(" + length
+                    + ") <= " + "buf.capacity(" + buf.capacity() + ')');
+        }
+        if (length == 0) {
+            return StringUtil.EMPTY_STRING;
+        }
+        if (length > maxLength) {
+            return buf.toString(index, length, CharsetUtil.UTF_8);
+        }
+
+        final int hash = ByteBufUtil.hashCode(buf, index, length);
+        final int entry = hash & mask;
+        final ByteBuf key = keys[entry];
+        if (key != null && hashes[entry] == hash && key.readableBytes() == length &&
+                ByteBufUtil.equals(buf, index, key, 0, length)) {
+            hits++;
+            return values[entry];
+        }
+
+        misses++;
+        final byte[] bytes = new byte[length];
+        buf.getBytes(index, bytes);
+        final ByteBuf newKey = Unpooled.wrappedBuffer(bytes);
+        final String value = newKey.toString(CharsetUtil.UTF_8);
+        hashes[entry] = hash;
+        keys[entry] = newKey;
+        values[entry] = value;
+        return value;
+    }
+
+    /**
+     * Returns the maximum length in bytes of the sequences this cache stores.
+     */
+
+    /**
+     * 返回此缓存存储的序列的最大字节长度。
+     */
+    public int maxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Returns how often a lookup found its sequence in this cache.
+     */
+
+    /**
+     * 返回查找在此缓存中找到其序列的次数。
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns how often a lookup did not find its sequence and had to decode it. Lookups of sequences longer than
+     * {@link #maxLength()} are not counted.
+     */
+
+    /**
+     * 返回查找未找到其序列而必须对其解码的次数。长度超过 {@link #maxLength()} 的序列的查找不计入在内。
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the share of lookups that were hits, between {@code 0} and {@code 1}.
+     */
+
+    /**
+     * 返回命中的查找所占的比例，介于 {@code 0} 和 {@code 1} 之间。
+     */
+    public double hitRate() {
+        final long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "StringInternCache(entries: " + values.length + ", maxLength: " + maxLength +
+                ", hits: " + hits + ", misses: " + misses + ')';
+    }
+}
@@ -1,6 +1,7 @@
 package org.top.java.netty.source.buffer.search;
 
 import io.netty.util.internal.PlatformDependent;
+import org.top.java.netty.source.buffer.ByteBuf;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -26,10 +27,12 @@ import java.util.Queue;
  * {@link io.netty.util.ByteProcessor} 实现的实例以执行实际搜索。
  * @see AbstractMultiSearchProcessorFactory
  */
-public class AhoCorasicSearchProcessorFactory extends AbstractMultiSearchProcessorFactory {
+public class AhoCorasicSearchProcessorFactory extends AbstractMultiSearchProcessorFactory
+        implements BulkSearchProcessorFactory {
 
     private final int[] jumpTable;
     private final int[] matchForNeedleId;
+    private final SearchPrefilter prefilter;
 
     static final int BITS_PER_SYMBOL = 8;
     static final int ALPHABET_SIZE = 1 << BITS_PER_SYMBOL;
@@ -39,7 +42,7 @@ public class AhoCorasicSearchProcessorFactory extends AbstractMultiSearchProcess
         int[] matchForNeedleId;
     }
 
-    public static class Processor implements MultiSearchProcessor {
+    public static class Processor implements MultiSearchProcessor, SearchPrefilter.Automaton {
 
         private final int[] jumpTable;
         private final int[] matchForNeedleId;
@@ -69,6 +72,11 @@ public class AhoCorasicSearchProcessorFactory extends AbstractMultiSearchProcess
         public void reset() {
             currentPosition = 0;
         }
+
+        @Override
+        public boolean isIdle() {
+            return currentPosition == 0;
+        }
     }
 
     AhoCorasicSearchProcessorFactory(byte[] ...needles) {
@@ -84,6 +92,7 @@ public class AhoCorasicSearchProcessorFactory extends AbstractMultiSearchProcess
         matchForNeedleId = context.matchForNeedleId;
 
         linkSuffixes();
+        prefilter = SearchPrefilter.forFirstBytes(needles);
 
         for (int i = 0; i < jumpTable.length; i++) {
             if (matchForNeedleId[jumpTable[i] >> BITS_PER_SYMBOL] >= 0) {
@@ -188,4 +197,9 @@ public class AhoCorasicSearchProcessorFactory extends AbstractMultiSearchProcess
         return new Processor(jumpTable, matchForNeedleId);
     }
 
+    @Override
+    public int search(ByteBuf haystack, int index, int length, SearchProcessor processor) {
+        return prefilter.search(haystack, index, length, processor);
+    }
+
 }
@@ -1,6 +1,7 @@
 package org.top.java.netty.source.buffer.search;
 
 import io.netty.util.internal.PlatformDependent;
+import org.top.java.netty.source.buffer.ByteBuf;
 
 /**
  * Implements <a href="https://en.wikipedia.org/wiki/Bitap_algorithm">Bitap</a> string search algorithm.
@@ -19,12 +20,14 @@ import io.netty.util.internal.PlatformDependent;
  * 实现的实例，用于执行实际的搜索。
  * @see AbstractSearchProcessorFactory
  */
-public class BitapSearchProcessorFactory extends AbstractSearchProcessorFactory {
+public class BitapSearchProcessorFactory extends AbstractSearchProcessorFactory
+        implements BulkSearchProcessorFactory {
 
     private final long[] bitMasks = new long[256];
     private final long successBit;
+    private final SearchPrefilter prefilter;
 
-    public static class Processor implements SearchProcessor {
+    public static class Processor implements SearchProcessor, SearchPrefilter.Automaton {
 
         private final long[] bitMasks;
         private final long successBit;
@@ -45,6 +48,11 @@ public class BitapSearchProcessorFactory extends AbstractSearchProcessorFactory
         public void reset() {
             currentMask = 0;
         }
+
+        @Override
+        public boolean isIdle() {
+            return currentMask == 0;
+        }
     }
 
     BitapSearchProcessorFactory(byte[] needle) {
@@ -59,6 +67,7 @@ public class BitapSearchProcessorFactory extends AbstractSearchProcessorFactory
         }
 
         successBit = 1L << (needle.length - 1);
+        prefilter = SearchPrefilter.forNeedle(needle);
     }
 
     /**
@@ -73,4 +82,9 @@ public class BitapSearchProcessorFactory extends AbstractSearchProcessorFactory
         return new Processor(bitMasks, successBit);
     }
 
+    @Override
+    public int search(ByteBuf haystack, int index, int length, SearchProcessor processor) {
+        return prefilter.search(haystack, index, length, processor);
+    }
+
 }
@@ -0,0 +1,71 @@
+package org.top.java.netty.source.buffer.search;
+
+import org.top.java.netty.source.buffer.ByteBuf;
+
+/**
+ * A {@link SearchProcessorFactory} that can also search a whole region of a {@link ByteBuf} at once, instead of
+ * being called back for every byte through {@link ByteBuf#forEachByte(int, int, io.netty.util.ByteProcessor)}.
+ * <br>
+ * The region is first scanned 8 bytes at a time for the bytes a match has to contain, using SWAR (SIMD Within A
+ * Register) like {@link ByteBuf#indexOf(int, int, byte)} does. Only the candidate positions found this way are fed to
+ * the {@link SearchProcessor}, which then decides whether there is a match just like it does byte by byte. This makes
+ * searching large regions for needles that occur rarely much cheaper, while the result and the state the
+ * {@link SearchProcessor} is left in are the same as with {@link ByteBuf#forEachByte(int, int,
+ * io.netty.util.ByteProcessor)}.
+ * <br>
+ * Example (continuing the search for all occurrences like in {@link AbstractSearchProcessorFactory}):
+ * <pre>
+ *     BulkSearchProcessorFactory factory = AbstractSearchProcessorFactory.newKmpSearchProcessorFactory(needle);
+ *     SearchProcessor processor = factory.newSearchProcessor();
+ *
+ *     int idx = factory.search(haystack, 0, haystack.readableBytes(), processor);
+ *     while (idx != -1) {
+ *         // idx is the index of the last byte of an occurrence of the needle
+ *         int continueFrom = idx + 1;
+ *         idx = factory.search(haystack, continueFrom, haystack.readableBytes() - continueFrom, processor);
+ *     }
+ * </pre>
+ */
+
+/**
+ * 一个还可以一次性搜索 {@link ByteBuf} 整个区域的 {@link SearchProcessorFactory}，而不是通过
+ * {@link ByteBuf#forEachByte(int, int, io.netty.util.ByteProcessor)} 对每个字节进行回调。
+ * <br>
+ * 首先像 {@link ByteBuf#indexOf(int, int, byte)} 一样使用 SWAR（寄存器内 SIMD）每次 8 个字节地扫描该区域，
+ * 查找匹配必须包含的字节。只有以这种方式找到的候选位置才会交给 {@link SearchProcessor}，由它像逐字节处理时一样
+ * 判断是否匹配。这使得在大区域中搜索很少出现的 needle 要便宜得多，而结果以及 {@link SearchProcessor} 所处的状态
+ * 与 {@link ByteBuf#forEachByte(int, int, io.netty.util.ByteProcessor)} 完全相同。
+ * <br>
+ * 示例（像 {@link AbstractSearchProcessorFactory} 中那样继续搜索所有出现）：
+ * <pre>
+ *     BulkSearchProcessorFactory factory = AbstractSearchProcessorFactory.newKmpSearchProcessorFactory(needle);
+ *     SearchProcessor processor = factory.newSearchProcessor();
+ *
+ *     int idx = factory.search(haystack, 0, haystack.readableBytes(), processor);
+ *     while (idx != -1) {
+ *         // idx 是 needle 某次出现的最后一个字节的索引
+ *         int continueFrom = idx + 1;
+ *         idx = factory.search(haystack, continueFrom, haystack.readableBytes() - continueFrom, processor);
+ *     }
+ * </pre>
+ */
+public interface BulkSearchProcessorFactory extends SearchProcessorFactory {
+
+    /**
+     * Searches the given region of {@code haystack} with the given {@link SearchProcessor}, which must have been
+     * created by {@link #newSearchProcessor()} of this factory.
+     *
+     * @return the same as {@code haystack.forEachByte(index, length, processor)}: the index of the last byte of the
+     *         first match, or {@code -1} if the region does not contain a match
+     */
+
+    /**
+     * 使用给定的 {@link SearchProcessor} 搜索 {@code haystack} 的给定区域，该处理器必须由此工厂的
+     * {@link #newSearchProcessor()} 创建。
+     *
+     * @return 与 {@code haystack.forEachByte(index, length, processor)} 相同：第一个匹配的最后一个字节的索引，
+     *         如果该区域不包含匹配则返回 {@code -1}
+     */
+    int search(ByteBuf haystack, int index, int length, SearchProcessor processor);
+
+}
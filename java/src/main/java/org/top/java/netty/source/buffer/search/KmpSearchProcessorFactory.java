@@ -1,6 +1,7 @@
 package org.top.java.netty.source.buffer.search;
 
 import io.netty.util.internal.PlatformDependent;
+import org.top.java.netty.source.buffer.ByteBuf;
 
 /**
  * Implements
@@ -23,12 +24,14 @@ import io.netty.util.internal.PlatformDependent;
  * 实现的实例，以执行实际的搜索。
  * @see AbstractSearchProcessorFactory
  */
-public class KmpSearchProcessorFactory extends AbstractSearchProcessorFactory {
+public class KmpSearchProcessorFactory extends AbstractSearchProcessorFactory
+        implements BulkSearchProcessorFactory {
 
     private final int[] jumpTable;
     private final byte[] needle;
+    private final SearchPrefilter prefilter;
 
-    public static class Processor implements SearchProcessor {
+    public static class Processor implements SearchProcessor, SearchPrefilter.Automaton {
 
         private final byte[] needle;
         private final int[] jumpTable;
@@ -59,11 +62,17 @@ public class KmpSearchProcessorFactory extends AbstractSearchProcessorFactory {
         public void reset() {
             currentPosition = 0;
         }
+
+        @Override
+        public boolean isIdle() {
+            return currentPosition == 0;
+        }
     }
 
     KmpSearchProcessorFactory(byte[] needle) {
         this.needle = needle.clone();
         this.jumpTable = new int[needle.length + 1];
+        this.prefilter = SearchPrefilter.forNeedle(needle);
 
         int j = 0;
         for (int i = 1; i < needle.length; i++) {
@@ -89,4 +98,9 @@ public class KmpSearchProcessorFactory extends AbstractSearchProcessorFactory {
         return new Processor(needle, jumpTable);
     }
 
+    @Override
+    public int search(ByteBuf haystack, int index, int length, SearchProcessor processor) {
+        return prefilter.search(haystack, index, length, processor);
+    }
+
 }
@@ -0,0 +1,235 @@
+package org.top.java.netty.source.buffer.search;
+
+import org.top.java.netty.source.buffer.ByteBuf;
+
+import java.nio.ByteOrder;
+
+import static io.netty.util.internal.MathUtil.isOutOfBounds;
+
+/**
+ * Skips the parts of a haystack in which no match can start, for {@link BulkSearchProcessorFactory}s.
+ * <br>
+ * For a single needle it looks for the needle byte that is expected to be the rarest in typical protocol data, for
+ * multiple needles for their first bytes. Up to {@value #MAX_SWAR_BYTES} distinct bytes are found 8 bytes at a time
+ * with SWAR, more through a lookup table. Whenever the {@link Automaton} has no partial match in progress, the
+ * search continues at the next position where a match could start, and it is only fed the bytes from there.
+ */
+
+/**
+ * 为 {@link BulkSearchProcessorFactory} 跳过 haystack 中不可能开始匹配的部分。
+ * <br>
+ * 对于单个 needle，它查找 needle 中在典型协议数据里预计最罕见的字节；对于多个 needle，查找它们的首字节。
+ * 最多 {@value #MAX_SWAR_BYTES} 个不同的字节使用 SWAR 每次 8 个字节地查找，更多的则通过查找表。每当
+ * {@link Automaton} 没有正在进行的部分匹配时，搜索就在下一个可能开始匹配的位置继续，并且只把从那里开始的字节交给它。
+ */
+final class SearchPrefilter {
+
+    /**
+     * A {@link SearchProcessor} that can tell whether it is in its initial state, that is whether it has no partial
+     * match in progress. Feeding it a byte a match can not start with leaves it in its initial state.
+     */
+
+    /**
+     * 一个能判断自己是否处于初始状态（即没有正在进行的部分匹配）的 {@link SearchProcessor}。
+     * 向它输入一个匹配不可能以之开头的字节时，它保持在初始状态。
+     */
+    interface Automaton extends SearchProcessor {
+        boolean isIdle();
+    }
+
+    private static final int MAX_SWAR_BYTES = 4;
+
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private final byte[] bytes;
+    private final long[] patterns;
+    private final boolean[] table;
+    // Distance from the start of a match to the byte looked for.
+    // 从匹配的起始位置到所查找字节的距离。
+    private final int offset;
+
+    private SearchPrefilter(byte[] bytes, int offset) {
+        this.bytes = bytes;
+        this.offset = offset;
+        if (bytes.length <= MAX_SWAR_BYTES) {
+            patterns = new long[bytes.length];
+            for (int i = 0; i < bytes.length; i++) {
+                patterns[i] = (bytes[i] & 0xFFL) * 0x101010101010101L;
+            }
+            table = null;
+        } else {
+            patterns = null;
+            table = new boolean[256];
+            for (byte b: bytes) {
+                table[b & 0xFF] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns a prefilter that looks for the rarest byte of the given needle.
+     */
+
+    /**
+     * 返回一个查找给定 needle 中最罕见字节的预过滤器。
+     */
+    static SearchPrefilter forNeedle(byte[] needle) {
+        if (needle.length == 0) {
+            // Nothing to look for, so there are no candidates.
+            // 没有要查找的内容，因此没有候选位置。
+            return new SearchPrefilter(new byte[0], 0);
+        }
+        int rarest = 0;
+        for (int i = 1; i < needle.length; i++) {
+            if (frequency(needle[i]) < frequency(needle[rarest])) {
+                rarest = i;
+            }
+        }
+        return new SearchPrefilter(new byte[] { needle[rarest] }, rarest);
+    }
+
+    /**
+     * Returns a prefilter that looks for the first bytes of the given needles.
+     */
+
+    /**
+     * 返回一个查找给定 needle 首字节的预过滤器。
+     */
+    static SearchPrefilter forFirstBytes(byte[][] needles) {
+        boolean[] seen = new boolean[256];
+        byte[] firstBytes = new byte[needles.length];
+        int count = 0;
+        for (byte[] needle: needles) {
+            final int first = needle[0] & 0xFF;
+            if (!seen[first]) {
+                seen[first] = true;
+                firstBytes[count++] = needle[0];
+            }
+        }
+        byte[] bytes = new byte[count];
+        System.arraycopy(firstBytes, 0, bytes, 0, count);
+        return new SearchPrefilter(bytes, 0);
+    }
+
+    // A rough ranking of how common a byte is in text based protocols and their payloads, lower is rarer.
+    // 一个字节在基于文本的协议及其负载中常见程度的粗略排名，越低越罕见。
+    private static int frequency(byte b) {
+        if (b >= 'a' && b <= 'z' || b == ' ') {
+            return 3;
+        }
+        if (b >= '0' && b <= '9' || b >= 'A' && b <= 'Z' || b == 0 || b == -1) {
+            return 2;
+        }
+        switch (b) {
+            case '\r':
+            case '\n':
+            case '\t':
+            case '.':
+            case ',':
+            case '/':
+            case '-':
+            case '=':
+            case ':':
+            case ';':
+            case '"':
+            case '\'':
+            case '_':
+            case '&':
+            case '?':
+                return 2;
+            default:
+                return b > 0 ? 1 : 0;
+        }
+    }
+
+    /**
+     * See {@link BulkSearchProcessorFactory#search(ByteBuf, int, int, SearchProcessor)}.
+     */
+
+    /**
+     * 参见 {@link BulkSearchProcessorFactory#search(ByteBuf, int, int, SearchProcessor)}。
+     */
+    int search(ByteBuf haystack, int index, int length, SearchProcessor processor) {
+        if (isOutOfBounds(index, length, haystack.capacity())) {
+            throw new IndexOutOfBoundsException("expected: " + "0 <= index(" + index + ") <= index + length(" +
+                    length + ") <= " + "haystack.capacity(" + haystack.capacity() + ')');
+        }
+        final Automaton automaton = (Automaton) processor;
+        final int toIndex = index + length;
+        for (int i = index; i < toIndex; i++) {
+            if (automaton.isIdle()) {
+                i = nextCandidate(haystack, i, toIndex);
+                if (i < 0) {
+                    return -1;
+                }
+            }
+            if (!automaton.process(haystack.getByte(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int nextCandidate(ByteBuf haystack, int fromIndex, int toIndex) {
+        if (offset == 0) {
+            return indexOfAny(haystack, fromIndex, toIndex);
+        }
+        final int index = indexOfAny(haystack, fromIndex + offset, toIndex);
+        if (index >= 0) {
+            return index - offset;
+        }
+        // A match starting in the last offset bytes can not end in this region any more, but its beginning must still
+        // be fed to the automaton so the search can be continued in the next region.
+
+        // 在最后 offset 个字节中开始的匹配已无法在此区域内结束，但其开头仍必须交给自动机，以便在下一个区域中继续搜索。
+        return Math.max(fromIndex, toIndex - offset);
+    }
+
+    private int indexOfAny(ByteBuf haystack, int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) {
+            return -1;
+        }
+        if (bytes.length == 1) {
+            // Already uses SWAR for all buffers based on AbstractByteBuf.
+            // 对所有基于 AbstractByteBuf 的缓冲区已经使用了 SWAR。
+            return haystack.indexOf(fromIndex, toIndex, bytes[0]);
+        }
+        int i = fromIndex;
+        if (table != null) {
+            for (; i < toIndex; i++) {
+                if (table[haystack.getByte(i) & 0xFF]) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        @SuppressWarnings("deprecation")
+        final boolean bigEndian = haystack.order() == ByteOrder.BIG_ENDIAN;
+        for (final int lastWordIndex = toIndex - Long.BYTES; i <= lastWordIndex; i += Long.BYTES) {
+            final long word = haystack.getLong(i);
+            long found = 0;
+            for (long pattern: patterns) {
+                found |= zeroBytes(word ^ pattern);
+            }
+            if (found != 0) {
+                return i + ((bigEndian ? Long.numberOfLeadingZeros(found) : Long.numberOfTrailingZeros(found)) >>> 3);
+            }
+        }
+        for (; i < toIndex; i++) {
+            final byte b = haystack.getByte(i);
+            for (byte value: bytes) {
+                if (b == value) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Sets the high bit of every byte of the given word that is zero, and only of those.
+    // 设置给定字中每个为零的字节的最高位，且仅设置这些字节的最高位。
+    private static long zeroBytes(long word) {
+        final long tmp = (word & LOW_BITS) + LOW_BITS;
+        return ~(tmp | word | LOW_BITS);
+    }
+}
@@ -0,0 +1,175 @@
+package org.top.java.netty.source.buffer.search;
+
+import org.top.java.netty.source.buffer.ByteBuf;
+import org.top.java.netty.source.buffer.CompositeByteBuf;
+
+import static io.netty.util.internal.MathUtil.isOutOfBounds;
+
+/**
+ * Searches a stream of {@link ByteBuf}s, for example the messages of successive {@code channelRead(...)} calls, for
+ * the needles of a {@link BulkSearchProcessorFactory}, without copying or consolidating them. A match may span any
+ * number of buffers: the state of the {@link SearchProcessor} is carried from one {@link #scan(ByteBuf, int, int)}
+ * to the next, so the buffers can be released as soon as they were scanned.
+ * <br>
+ * A {@link CompositeByteBuf} is scanned component by component, so every component gets the SWAR prefilter of
+ * {@link BulkSearchProcessorFactory#search(ByteBuf, int, int, SearchProcessor)} instead of being read byte by byte
+ * through the composite.
+ * <br>
+ * Example (inspecting the content that passes through a handler):
+ * <pre>
+ *     private final StreamingScanner scanner = new StreamingScanner(
+ *             AbstractMultiSearchProcessorFactory.newAhoCorasicSearchProcessorFactory(needles));
+ *
+ *     public void channelRead(ChannelHandlerContext ctx, Object msg) {
+ *         ByteBuf buf = (ByteBuf) msg;
+ *         int idx = scanner.scan(buf);
+ *         while (idx != -1) {
+ *             // needle scanner.foundNeedleId() ends at buf index idx, or at stream offset scanner.position() - 1
+ *             idx = scanner.scan(buf, idx + 1, buf.writerIndex() - idx - 1);
+ *         }
+ *         ctx.fireChannelRead(msg);
+ *     }
+ * </pre>
+ * Instances are not thread-safe, so a scanner must only be used for a single stream at a time.
+ */
+
+/**
+ * 在 {@link ByteBuf} 流（例如连续的 {@code channelRead(...)} 调用的消息）中搜索 {@link BulkSearchProcessorFactory}
+ * 的 needle，而无需复制或合并它们。一个匹配可以跨越任意数量的缓冲区：{@link SearchProcessor} 的状态会从一次
+ * {@link #scan(ByteBuf, int, int)} 延续到下一次，因此缓冲区在被扫描后即可释放。
+ * <br>
+ * {@link CompositeByteBuf} 按组件逐个扫描，因此每个组件都能使用
+ * {@link BulkSearchProcessorFactory#search(ByteBuf, int, int, SearchProcessor)} 的 SWAR 预过滤，而不是通过复合缓冲区
+ * 逐字节读取。
+ * <br>
+ * 示例（检查经过某个处理器的内容）：
+ * <pre>
+ *     private final StreamingScanner scanner = new StreamingScanner(
+ *             AbstractMultiSearchProcessorFactory.newAhoCorasicSearchProcessorFactory(needles));
+ *
+ *     public void channelRead(ChannelHandlerContext ctx, Object msg) {
+ *         ByteBuf buf = (ByteBuf) msg;
+ *         int idx = scanner.scan(buf);
+ *         while (idx != -1) {
+ *             // needle scanner.foundNeedleId() 结束于 buf 索引 idx，即流偏移量 scanner.position() - 1
+ *             idx = scanner.scan(buf, idx + 1, buf.writerIndex() - idx - 1);
+ *         }
+ *         ctx.fireChannelRead(msg);
+ *     }
+ * </pre>
+ * 实例不是线程安全的，因此一个扫描器同一时间只能用于单个流。
+ */
+public final class StreamingScanner {
+
+    private final BulkSearchProcessorFactory factory;
+    private final SearchProcessor processor;
+    private long position;
+
+    public StreamingScanner(BulkSearchProcessorFactory factory) {
+        this.factory = factory;
+        processor = factory.newSearchProcessor();
+    }
+
+    /**
+     * Scans the readable bytes of the given buffer, see {@link #scan(ByteBuf, int, int)}.
+     */
+
+    /**
+     * 扫描给定缓冲区的可读字节，参见 {@link #scan(ByteBuf, int, int)}。
+     */
+    public int scan(ByteBuf buffer) {
+        return scan(buffer, buffer.readerIndex(), buffer.readableBytes());
+    }
+
+    /**
+     * Continues the search with the given region of {@code buffer} as the next bytes of the stream. If a match is
+     * found, the scan stops right after it, and the rest of the region should be scanned next.
+     *
+     * @return the index in {@code buffer} of the last byte of the next match, or {@code -1} if no match ends in the
+     *         region
+     */
+
+    /**
+     * 将 {@code buffer} 的给定区域作为流的后续字节继续搜索。如果找到匹配，扫描会在匹配之后立即停止，
+     * 接下来应扫描该区域的剩余部分。
+     *
+     * @return 下一个匹配的最后一个字节在 {@code buffer} 中的索引，如果没有匹配在该区域内结束则返回 {@code -1}
+     */
+    public int scan(ByteBuf buffer, int index, int length) {
+        if (isOutOfBounds(index, length, buffer.capacity())) {
+            throw new IndexOutOfBoundsException("expected: " + "0 <= index(" + index + ") <= index + length(" +
+                    length + ") <= " + "buffer.capacity(" + buffer.capacity() + ')');
+        }
+        if (length == 0) {
+            return -1;
+        }
+        if (buffer instanceof CompositeByteBuf) {
+            return scanComponents((CompositeByteBuf) buffer, index, length);
+        }
+        return scan0(buffer, index, length);
+    }
+
+    private int scanComponents(CompositeByteBuf buffer, int index, int length) {
+        final int end = index + length;
+        for (int cIndex = buffer.toComponentIndex(index); index < end; cIndex++) {
+            final int componentIndex = buffer.toByteIndex(cIndex);
+            // A slice that shares the memory of the component, nothing is copied.
+            // 与组件共享内存的切片，不会复制任何内容。
+            final ByteBuf component = buffer.internalComponent(cIndex);
+            final int localIndex = index - componentIndex;
+            final int localLength = Math.min(end - index, component.capacity() - localIndex);
+            if (localLength <= 0) {
+                continue;
+            }
+            final int found = scan0(component, localIndex, localLength);
+            if (found != -1) {
+                return componentIndex + found;
+            }
+            index += localLength;
+        }
+        return -1;
+    }
+
+    private int scan0(ByteBuf buffer, int index, int length) {
+        final int found = factory.search(buffer, index, length, processor);
+        position += found == -1 ? length : found + 1 - index;
+        return found;
+    }
+
+    /**
+     * Returns the number of bytes of the stream scanned so far. Right after a match was found, the match ends at
+     * stream offset {@code position() - 1}.
+     */
+
+    /**
+     * 返回目前已扫描的流字节数。刚找到匹配之后，该匹配结束于流偏移量 {@code position() - 1}。
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Returns the id of the needle the last match was found for, which is its index in the needles the factory was
+     * created with, or {@code 0} if the factory searches for a single needle.
+     */
+
+    /**
+     * 返回最后一次匹配所对应的 needle 的 id，即其在创建工厂时给定的 needle 中的索引；如果工厂只搜索单个 needle，
+     * 则返回 {@code 0}。
+     */
+    public int foundNeedleId() {
+        return processor instanceof MultiSearchProcessor ? ((MultiSearchProcessor) processor).getFoundNeedleId() : 0;
+    }
+
+    /**
+     * Discards any partial match and the position, so this scanner can be used for a new stream.
+     */
+
+    /**
+     * 丢弃任何部分匹配和位置，以便此扫描器可以用于新的流。
+     */
+    public void reset() {
+        processor.reset();
+        position = 0;
+    }
+}
@@ -62,6 +62,10 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
      */
     private static final int INIT = 0;
 
+    // Index of the link for write(...) with flush, the single event masks use the index of their bit.
+    // 带 flush 的 write(...) 的链接索引，单一事件掩码使用其位的索引。
+    private static final int WRITE_AND_FLUSH_LINK = Integer.numberOfTrailingZeros(MASK_FLUSH) + 1;
+
     private final DefaultChannelPipeline pipeline;
     private final String name;
     private final boolean ordered;
@@ -84,6 +88,18 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     private volatile int handlerState = INIT;
 
+    // Precomputed results of findContextInbound(mask) and findContextOutbound(mask) for every event, indexed by
+    // linkIndex(mask) and maintained by the pipeline. null while this context is not part of the pipeline, then
+    // the list is walked instead.
+
+    // 每个事件的 findContextInbound(mask) 和 findContextOutbound(mask) 的预先计算结果，按 linkIndex(mask) 索引，
+    // 由管道维护。当此上下文不属于管道时为 null，此时改为遍历链表。
+    private volatile AbstractChannelHandlerContext[] links;
+
+    // The links while the pipeline computes them, only accessed while holding the lock of the pipeline.
+    // 管道计算过程中的链接，仅在持有管道锁时访问。
+    private AbstractChannelHandlerContext[] pendingLinks;
+
     AbstractChannelHandlerContext(DefaultChannelPipeline pipeline, EventExecutor executor,
                                   String name, Class<? extends ChannelHandler> handlerClass) {
         this.name = ObjectUtil.checkNotNull(name, "name");
@@ -1102,6 +1118,10 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
     }
 
     private AbstractChannelHandlerContext findContextInbound(int mask) {
+        final AbstractChannelHandlerContext[] links = this.links;
+        if (links != null) {
+            return links[linkIndex(mask)];
+        }
         AbstractChannelHandlerContext ctx = this;
         EventExecutor currentExecutor = executor();
         do {
@@ -1111,6 +1131,10 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
     }
 
     private AbstractChannelHandlerContext findContextOutbound(int mask) {
+        final AbstractChannelHandlerContext[] links = this.links;
+        if (links != null) {
+            return links[linkIndex(mask)];
+        }
         AbstractChannelHandlerContext ctx = this;
         EventExecutor currentExecutor = executor();
         do {
@@ -1119,6 +1143,99 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         return ctx;
     }
 
+    private static int linkIndex(int mask) {
+        return mask == (MASK_WRITE | MASK_FLUSH) ? WRITE_AND_FLUSH_LINK : Integer.numberOfTrailingZeros(mask);
+    }
+
+    /**
+     * Precomputes the context every inbound event is dispatched to from this context, so that dispatching is a single
+     * lookup instead of a walk over the contexts that do not handle the event. Called by the pipeline from the tail to
+     * the head after every change of the handler list, followed by {@link #linkOutbound()}.
+     */
+
+    /**
+     * 预先计算每个入站事件从此上下文分发到的上下文，使分发成为一次查找，而不是遍历不处理该事件的上下文。
+     * 由管道在处理程序列表的每次变更之后从尾部到头部调用，随后调用 {@link #linkOutbound()}。
+     */
+    final void linkInbound() {
+        final AbstractChannelHandlerContext[] links = new AbstractChannelHandlerContext[WRITE_AND_FLUSH_LINK + 1];
+        for (int i = 0; i < WRITE_AND_FLUSH_LINK; i++) {
+            final int mask = 1 << i;
+            if ((mask & MASK_ONLY_OUTBOUND) == 0) {
+                links[i] = linkInbound(mask, i);
+            }
+        }
+        pendingLinks = links;
+    }
+
+    /**
+     * Completes the links started by {@link #linkInbound()} with the outbound events and publishes them. Called by
+     * the pipeline from the head to the tail.
+     */
+
+    /**
+     * 用出站事件补全由 {@link #linkInbound()} 开始的链接并发布它们。由管道从头部到尾部调用。
+     */
+    final void linkOutbound() {
+        final AbstractChannelHandlerContext[] links = pendingLinks;
+        for (int i = 0; i < WRITE_AND_FLUSH_LINK; i++) {
+            final int mask = 1 << i;
+            if ((mask & MASK_ONLY_OUTBOUND) != 0) {
+                links[i] = linkOutbound(mask, i);
+            }
+        }
+        links[WRITE_AND_FLUSH_LINK] = linkOutbound(MASK_WRITE | MASK_FLUSH, WRITE_AND_FLUSH_LINK);
+        pendingLinks = null;
+        this.links = links;
+    }
+
+    /**
+     * Drops the precomputed links once this context was removed from the pipeline. Events that still reach it are
+     * then forwarded along {@link #next} and {@link #prev}, as they were left by the pipeline.
+     */
+
+    /**
+     * 在此上下文从管道中移除后丢弃预先计算的链接。之后仍到达它的事件将沿着管道留下的 {@link #next} 和 {@link #prev} 转发。
+     */
+    final void unlink() {
+        links = null;
+    }
+
+    // Same as findContextInbound(mask) and findContextOutbound(mask), but compares the executor fields instead of
+    // executor(), as the channel may not be registered yet. Contexts without an executor of their own share the
+    // event loop, so this only skips less. A skipped context with the same executor would continue the walk exactly
+    // like this context, so its link, which the pipeline computed just before, is reused instead.
+
+    // 与 findContextInbound(mask) 和 findContextOutbound(mask) 相同，但比较的是 executor 字段而不是 executor()，
+    // 因为通道可能尚未注册。没有自己执行器的上下文共享事件循环，因此这只会跳过得更少。被跳过且执行器相同的上下文
+    // 会与此上下文完全相同地继续遍历，因此直接复用管道刚刚为它计算好的链接。
+    private AbstractChannelHandlerContext linkInbound(int mask, int index) {
+        AbstractChannelHandlerContext ctx = next;
+        while (ctx != null && skipLinkedContext(ctx, mask, MASK_ONLY_INBOUND)) {
+            if (ctx.executor == executor) {
+                return ctx.pendingLinks[index];
+            }
+            ctx = ctx.next;
+        }
+        return ctx;
+    }
+
+    private AbstractChannelHandlerContext linkOutbound(int mask, int index) {
+        AbstractChannelHandlerContext ctx = prev;
+        while (ctx != null && skipLinkedContext(ctx, mask, MASK_ONLY_OUTBOUND)) {
+            if (ctx.executor == executor) {
+                return ctx.links[index];
+            }
+            ctx = ctx.prev;
+        }
+        return ctx;
+    }
+
+    private boolean skipLinkedContext(AbstractChannelHandlerContext ctx, int mask, int onlyMask) {
+        return (ctx.executionMask & (onlyMask | mask)) == 0 ||
+                (ctx.executor == executor && (ctx.executionMask & mask) == 0);
+    }
+
     private static boolean skipContext(
             AbstractChannelHandlerContext ctx, EventExecutor currentExecutor, int mask, int onlyMask) {
         // Ensure we correctly handle MASK_EXCEPTION_CAUGHT which is not included in the MASK_EXCEPTION_CAUGHT
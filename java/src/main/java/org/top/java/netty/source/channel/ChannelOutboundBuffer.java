@@ -7,7 +7,6 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.util.ReferenceCountUtil;
-import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.internal.*;
 import io.netty.util.internal.ObjectPool.Handle;
 import io.netty.util.internal.ObjectPool.ObjectCreator;
@@ -20,8 +19,6 @@ import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
-import static java.lang.Math.min;
-
 /**
  * (Transport implementors only) an internal data structure used by {@link AbstractChannel} to store its pending
  * outbound write requests.
@@ -51,27 +48,43 @@ public final class ChannelOutboundBuffer {
     // 假设是64位的JVM：
     //  - 16 bytes object header
     // - 16 字节对象头
-    //  - 6 reference fields
-    // - 6 个引用字段
-    //  - 2 long fields
-    // - 2 长字段
-    //  - 2 int fields
-    // - 2个整型字段
+    //  - 7 reference fields
+    // - 7 个引用字段
+    //  - 3 long fields
+    // - 3 长字段
+    //  - 5 int fields
+    // - 5个整型字段
     //  - 1 boolean field
     // - 1个布尔字段
     //  - padding
     // - padding
     static final int CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD =
-            SystemPropertyUtil.getInt("io.netty.transport.outboundBufferEntrySizeOverhead", 96);
+            SystemPropertyUtil.getInt("io.netty.transport.outboundBufferEntrySizeOverhead", 120);
+
+    // Messages up to the coalescing threshold are copied into a shared buffer of this size, see
+    // setCoalescingThreshold(int).
+
+    // 不超过合并阈值的消息会被复制到这个大小的共享缓冲区中，参见 setCoalescingThreshold(int)。
+    private static final int COALESCING_BUFFER_SIZE = Math.max(1024,
+            SystemPropertyUtil.getInt("io.netty.transport.outboundBufferCoalescingBufferSize", 4096));
+    private static final int DEFAULT_COALESCING_THRESHOLD = Math.min(COALESCING_BUFFER_SIZE,
+            Math.max(0, SystemPropertyUtil.getInt("io.netty.transport.outboundBufferCoalescingThreshold", 0)));
+    private static final ChannelPromise[] EMPTY_PROMISES = new ChannelPromise[0];
+    private static final boolean METRICS_ENABLED =
+            SystemPropertyUtil.getBoolean("io.netty.transport.outboundBufferMetrics", false);
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ChannelOutboundBuffer.class);
 
-    private static final FastThreadLocal<ByteBuffer[]> NIO_BUFFERS = new FastThreadLocal<ByteBuffer[]>() {
-        @Override
-        protected ByteBuffer[] initialValue() throws Exception {
-            return new ByteBuffer[1024];
-        }
-    };
+    private static final ByteBuffer[] EMPTY_NIO_BUFFERS = new ByteBuffer[0];
+    private static final int INITIAL_GATHER_CAPACITY = 16;
+    // Gather arrays up to the size of the former thread-local array are kept, so flushes of many buffers do not
+    // allocate and grow a new one each time. Larger ones are dropped once everything was written, so idle channels do
+    // not hold on to them. The system property can lower the limit for servers with many mostly idle channels.
+    // 不超过原先线程本地数组大小的收集数组会被保留，这样刷新大量缓冲区时不会每次都分配并扩容一个新数组。
+    // 更大的收集数组会在全部写出后被丢弃，这样空闲的通道就不会一直持有它们。
+    // 对于拥有大量基本空闲通道的服务器，可以通过系统属性降低该上限。
+    private static final int MAX_RETAINED_GATHER_CAPACITY = Math.max(INITIAL_GATHER_CAPACITY,
+            SystemPropertyUtil.getInt("io.netty.transport.outboundBufferRetainedGatherCapacity", 1024));
 
     private final Channel channel;
 
@@ -95,6 +108,19 @@ public final class ChannelOutboundBuffer {
     private int nioBufferCount;
     private long nioBufferSize;
 
+    // The gather list: the NIO buffers of the flushed entries from flushedEntry up to and including gatheredEntry,
+    // stored in gatherBuffers[gatherHead, gatherHead + gatherCount). It is extended by nioBuffers(...) and shrunk
+    // as entries are removed, so flush attempts after a partial write do not have to build it again.
+
+    // 收集列表：从 flushedEntry 到 gatheredEntry（包含）的已刷新条目的 NIO 缓冲区，
+    // 存放在 gatherBuffers[gatherHead, gatherHead + gatherCount) 中。它由 nioBuffers(...) 扩展，并随着条目被移除而收缩，
+    // 因此部分写出之后的刷新尝试不必重新构建它。
+    private ByteBuffer[] gatherBuffers = EMPTY_NIO_BUFFERS;
+    private int gatherHead;
+    private int gatherCount;
+    private long gatherBytes;
+    private Entry gatheredEntry;
+
     private boolean inFail;
 
     private static final AtomicLongFieldUpdater<ChannelOutboundBuffer> TOTAL_PENDING_SIZE_UPDATER =
@@ -111,8 +137,15 @@ public final class ChannelOutboundBuffer {
 
     private volatile Runnable fireChannelWritabilityChangedTask;
 
+    private volatile int coalescingThreshold = DEFAULT_COALESCING_THRESHOLD;
+
+    private volatile ChannelOutboundBufferMetrics metrics;
+
     ChannelOutboundBuffer(AbstractChannel channel) {
         this.channel = channel;
+        if (METRICS_ENABLED) {
+            setMetricsEnabled(true);
+        }
     }
 
     /**
@@ -124,7 +157,36 @@ public final class ChannelOutboundBuffer {
      * 将给定消息添加到此 {@link ChannelOutboundBuffer}。一旦消息被写入，给定的 {@link ChannelPromise} 将被通知。
      */
     public void addMessage(Object msg, int size, ChannelPromise promise) {
-        Entry entry = Entry.newInstance(msg, size, total(msg), promise);
+        final Entry entry;
+        if (msg instanceof ByteBuf && isCoalescable((ByteBuf) msg, promise)) {
+            ByteBuf buf = (ByteBuf) msg;
+            if (!promise.setUncancellable()) {
+                // Was cancelled already, so just free up memory.
+                // 已经被取消，所以只需释放内存。
+                ReferenceCountUtil.safeRelease(buf);
+                return;
+            }
+            Entry tail = tailEntry;
+            if (unflushedEntry != null && tail.isCoalescing() &&
+                    ((ByteBuf) tail.msg).maxWritableBytes() >= buf.readableBytes()) {
+                tail.coalesce(buf, size, promise);
+                incrementPendingOutboundBytes(size, false);
+                return;
+            }
+            // Start as small as the message and grow up to the limit, so the direct memory of the shared buffers
+            // stays close to the pending bytes the watermarks account for.
+            // 从与消息一样小的容量开始并增长到上限，使共享缓冲区的直接内存接近水位线所计算的待处理字节数。
+            ByteBuf coalescingBuf = channel.alloc().directBuffer(buf.readableBytes(), COALESCING_BUFFER_SIZE);
+            coalescingBuf.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+            ReferenceCountUtil.safeRelease(buf);
+            entry = Entry.newInstance(coalescingBuf, size, total(coalescingBuf), promise);
+            entry.promises = EMPTY_PROMISES;
+        } else {
+            entry = Entry.newInstance(msg, size, total(msg), promise);
+        }
+        if (metrics != null) {
+            entry.nanoTime = System.nanoTime();
+        }
         if (tailEntry == null) {
             flushedEntry = null;
         } else {
@@ -144,6 +206,88 @@ public final class ChannelOutboundBuffer {
         incrementPendingOutboundBytes(entry.pendingSize, false);
     }
 
+    private boolean isCoalescable(ByteBuf buf, ChannelPromise promise) {
+        // Progressive promises want to see the progress of their own message, so they are never coalesced.
+        // 渐进式 promise 希望看到它们自己消息的进度，因此永远不会被合并。
+        return buf.readableBytes() <= coalescingThreshold && !(promise instanceof ChannelProgressivePromise);
+    }
+
+    /**
+     * Enables coalescing of small {@link ByteBuf} messages: every {@link ByteBuf} of at most {@code threshold}
+     * readable bytes is copied into a shared pooled buffer at {@link #addMessage(Object, int, ChannelPromise)} time
+     * and released right away, so many tiny writes end up as one entry and one {@link ByteBuffer} of the gathering
+     * write. The {@link ChannelPromise} of every message is still notified on its own once the shared buffer was
+     * written or failed. As the bytes are copied right away, a coalesced message can no longer be cancelled.
+     * {@code 0} disables coalescing. The default is taken from the
+     * {@code io.netty.transport.outboundBufferCoalescingThreshold} system property and is {@code 0}.
+     *
+     * @param threshold the largest message in bytes that is coalesced, at most the size of the shared buffer
+     *                  ({@code io.netty.transport.outboundBufferCoalescingBufferSize}, 4096 by default)
+     */
+
+    /**
+     * 启用小 {@link ByteBuf} 消息的合并：每个可读字节数不超过 {@code threshold} 的 {@link ByteBuf} 都会在
+     * {@link #addMessage(Object, int, ChannelPromise)} 时被复制到一个共享的池化缓冲区中并立即释放，
+     * 因此许多微小的写操作最终只成为一个条目以及聚集写中的一个 {@link ByteBuffer}。每条消息的 {@link ChannelPromise}
+     * 仍会在共享缓冲区写出或失败后被单独通知。由于字节会被立即复制，被合并的消息不能再被取消。
+     * {@code 0} 禁用合并。默认值取自 {@code io.netty.transport.outboundBufferCoalescingThreshold} 系统属性，为 {@code 0}。
+     *
+     * @param threshold 被合并的最大消息字节数，最多为共享缓冲区的大小
+     *                  （{@code io.netty.transport.outboundBufferCoalescingBufferSize}，默认为 4096）
+     */
+    public void setCoalescingThreshold(int threshold) {
+        if (threshold < 0 || threshold > COALESCING_BUFFER_SIZE) {
+            throw new IllegalArgumentException(
+                    "threshold: " + threshold + " (expected: 0-" + COALESCING_BUFFER_SIZE + ')');
+        }
+        coalescingThreshold = threshold;
+    }
+
+    /**
+     * Returns the largest message in bytes that is coalesced, or {@code 0} if coalescing is disabled.
+     */
+
+    /**
+     * 返回被合并的最大消息字节数，如果禁用合并则返回 {@code 0}。
+     */
+    public int coalescingThreshold() {
+        return coalescingThreshold;
+    }
+
+    /**
+     * Enables or disables the {@link ChannelOutboundBufferMetrics} of this buffer. Enabling them starts from empty
+     * metrics and also stores them in the {@link ChannelOutboundBufferMetrics#KEY} attribute of the channel.
+     * Messages that were added before are not timed.
+     */
+
+    /**
+     * 启用或禁用此缓冲区的 {@link ChannelOutboundBufferMetrics}。启用时从空的指标开始，并同时将其保存在通道的
+     * {@link ChannelOutboundBufferMetrics#KEY} 属性中。之前添加的消息不会被计时。
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (enabled == (metrics != null)) {
+            return;
+        }
+        ChannelOutboundBufferMetrics metrics = null;
+        if (enabled) {
+            metrics = new ChannelOutboundBufferMetrics();
+            metrics.updateWritability(this);
+        }
+        this.metrics = metrics;
+        channel.attr(ChannelOutboundBufferMetrics.KEY).set(metrics);
+    }
+
+    /**
+     * Returns the {@link ChannelOutboundBufferMetrics} of this buffer, or {@code null} if they are disabled.
+     */
+
+    /**
+     * 返回此缓冲区的 {@link ChannelOutboundBufferMetrics}，如果已禁用则返回 {@code null}。
+     */
+    public ChannelOutboundBufferMetrics metrics() {
+        return metrics;
+    }
+
     /**
      * Add a flush to this {@link ChannelOutboundBuffer}. This means all previous added messages are marked as flushed
      * and so you will be able to handle them.
@@ -168,8 +312,14 @@ public final class ChannelOutboundBuffer {
                 // 还没有 flushedEntry，所以从 entry 开始
                 flushedEntry = entry;
             }
+            final ChannelOutboundBufferMetrics metrics = this.metrics;
+            final long now = metrics != null ? System.nanoTime() : 0;
             do {
                 flushed ++;
+                if (metrics != null && entry.nanoTime != 0) {
+                    metrics.recordFlushDelay(now - entry.nanoTime);
+                    entry.nanoTime = now;
+                }
                 if (!entry.promise.setUncancellable()) {
                     // Was cancelled so make sure we free up memory and notify about the freed bytes
                     // 已取消，确保我们释放内存并通知已释放的字节
@@ -326,6 +476,13 @@ public final class ChannelOutboundBuffer {
             // 仅发布消息，通知并递减，如果之前未被取消。
             ReferenceCountUtil.safeRelease(msg);
             safeSuccess(promise);
+            if (e.isCoalescing()) {
+                safeSuccess(e.promises, e.promiseCount);
+            }
+            ChannelOutboundBufferMetrics metrics = this.metrics;
+            if (metrics != null && e.nanoTime != 0) {
+                metrics.recordWriteDelay(System.nanoTime() - e.nanoTime);
+            }
             decrementPendingOutboundBytes(size, false, true);
         }
 
@@ -371,6 +528,9 @@ public final class ChannelOutboundBuffer {
             ReferenceCountUtil.safeRelease(msg);
 
             safeFail(promise, cause);
+            if (e.isCoalescing()) {
+                safeFail(e.promises, e.promiseCount, cause);
+            }
             decrementPendingOutboundBytes(size, false, notifyWritability);
         }
 
@@ -383,6 +543,9 @@ public final class ChannelOutboundBuffer {
     }
 
     private void removeEntry(Entry e) {
+        if (e.gatheredBuffers != -1) {
+            ungather(e);
+        }
         if (-- flushed == 0) {
             // processed everything
             // 处理了所有内容
@@ -427,6 +590,7 @@ public final class ChannelOutboundBuffer {
                 if (writtenBytes != 0) {
                     buf.readerIndex(readerIndex + (int) writtenBytes);
                     progress(writtenBytes);
+                    updateGathered(flushedEntry, readableBytes - (int) writtenBytes);
                 }
                 break;
             }
@@ -434,17 +598,14 @@ public final class ChannelOutboundBuffer {
         clearNioBuffers();
     }
 
-    // Clear all ByteBuffer from the array so these can be GC'ed.
+    // The gather list drops the ByteBuffers of removed entries itself so these can be GC'ed.
 
-    // 清除数组中的所有 ByteBuffer，以便它们可以被垃圾回收。
+    // 收集列表会自行丢弃已移除条目的 ByteBuffer，以便它们可以被垃圾回收。
     // See https://github.com/netty/netty/issues/3837
     // 参见 https://github.com/netty/netty/issues/3837
     private void clearNioBuffers() {
-        int count = nioBufferCount;
-        if (count > 0) {
-            nioBufferCount = 0;
-            Arrays.fill(NIO_BUFFERS.get(), 0, count, null);
-        }
+        nioBufferCount = 0;
+        nioBufferSize = 0;
     }
 
     /**
@@ -499,77 +660,55 @@ public final class ChannelOutboundBuffer {
     public ByteBuffer[] nioBuffers(int maxCount, long maxBytes) {
         assert maxCount > 0;
         assert maxBytes > 0;
-        long nioBufferSize = 0;
-        int nioBufferCount = 0;
-        final InternalThreadLocalMap threadLocalMap = InternalThreadLocalMap.get();
-        ByteBuffer[] nioBuffers = NIO_BUFFERS.get(threadLocalMap);
-        Entry entry = flushedEntry;
-        while (isFlushedEntry(entry) && entry.msg instanceof ByteBuf) {
-            if (!entry.cancelled) {
-                ByteBuf buf = (ByteBuf) entry.msg;
-                final int readerIndex = buf.readerIndex();
-                final int readableBytes = buf.writerIndex() - readerIndex;
-
-                if (readableBytes > 0) {
-                    if (maxBytes - readableBytes < nioBufferSize && nioBufferCount != 0) {
-                        // If the nioBufferSize + readableBytes will overflow maxBytes, and there is at least one entry
-                        // 如果 nioBufferSize + readableBytes 将溢出 maxBytes，并且至少有一个条目
-                        // we stop populate the ByteBuffer array. This is done for 2 reasons:
-                        // 我们停止填充ByteBuffer数组。这样做有两个原因：
-                        // 1. bsd/osx don't allow to write more bytes then Integer.MAX_VALUE with one writev(...) call
-                        // 1. bsd/osx 不允许在一次 writev(...) 调用中写入超过 Integer.MAX_VALUE 的字节
-                        // and so will return 'EINVAL', which will raise an IOException. On Linux it may work depending
-                        // 因此将返回 'EINVAL'，这将引发 IOException。在 Linux 上它可能会工作，具体取决于
-                        // on the architecture and kernel but to be safe we also enforce the limit here.
-                        // 在架构和内核上，但为了安全起见，我们在这里也强制执行限制。
-                        // 2. There is no sense in putting more data in the array than is likely to be accepted by the
-                        // 2. 在数组中放入比可能被接受的数据更多的数据是没有意义的。
-                        // OS.
-                        // 操作系统。将这些Java注释以原格式翻译，保留注释字符。仅输出翻译结果，无需解释，无需注释。
-                        //
-                        // See also:
-                        // 另请参阅：
-                        // - https://www.freebsd.org/cgi/man.cgi?query=write&sektion=2
-                        // - https://www.freebsd.org/cgi/man.cgi?query=write&sektion=2
-                        // - https://linux.die.net//man/2/writev
-                        // - https://linux.die.net//man/2/writev
-                        break;
-                    }
-                    nioBufferSize += readableBytes;
-                    int count = entry.count;
-                    if (count == -1) {
-                        //noinspection ConstantValueVariableUse
-                        //不检查常量值变量使用
-                        entry.count = count = buf.nioBufferCount();
-                    }
-                    int neededSpace = min(maxCount, nioBufferCount + count);
-                    if (neededSpace > nioBuffers.length) {
-                        nioBuffers = expandNioBufferArray(nioBuffers, neededSpace, nioBufferCount);
-                        NIO_BUFFERS.set(threadLocalMap, nioBuffers);
-                    }
-                    if (count == 1) {
-                        ByteBuffer nioBuf = entry.buf;
-                        if (nioBuf == null) {
-                            // cache ByteBuffer as it may need to create a new ByteBuffer instance if its a
-                            // 缓存 ByteBuffer，因为如果需要创建一个新的 ByteBuffer 实例，它可能会
-                            // derived buffer
-                            // 派生缓冲区
-                            entry.buf = nioBuf = buf.internalNioBuffer(readerIndex, readableBytes);
-                        }
-                        nioBuffers[nioBufferCount++] = nioBuf;
-                    } else {
-                        // The code exists in an extra method to ensure the method is not too big to inline as this
-                        // 代码存在于一个额外的方法中，以确保该方法不会太大而无法内联
-                        // branch is not very likely to get hit very frequently.
-                        // 分支不太可能被频繁命中。
-                        nioBufferCount = nioBuffers(entry, buf, nioBuffers, nioBufferCount, maxCount);
-                    }
-                    if (nioBufferCount >= maxCount) {
-                        break;
-                    }
+        // Only look at the entries that are not part of the gather list yet, and only as far as needed.
+        // 只查看尚未加入收集列表的条目，并且只查看到所需的范围。
+        Entry entry = gatheredEntry == null ? flushedEntry : gatheredEntry.next;
+        while (isFlushedEntry(entry) && entry.msg instanceof ByteBuf &&
+                gatherCount < maxCount && gatherBytes < maxBytes) {
+            gather(entry);
+            entry = entry.next;
+        }
+
+        if (gatherHead != 0) {
+            // Entries were removed since the last call, callers expect the buffers to start at index 0.
+            // 自上次调用以来有条目被移除，调用者期望缓冲区从索引 0 开始。
+            compactGatherBuffers();
+        }
+        ByteBuffer[] nioBuffers = gatherBuffers;
+        int nioBufferCount = gatherCount;
+        long nioBufferSize = gatherBytes;
+        if (nioBufferCount > maxCount || nioBufferSize > maxBytes) {
+            nioBufferCount = 0;
+            nioBufferSize = 0;
+            while (nioBufferCount < maxCount && nioBufferCount < gatherCount) {
+                final int remaining = nioBuffers[nioBufferCount].remaining();
+                if (maxBytes - remaining < nioBufferSize && nioBufferCount != 0) {
+                    // If the nioBufferSize + remaining will overflow maxBytes, and there is at least one buffer
+                    // 如果 nioBufferSize + remaining 将溢出 maxBytes，并且至少有一个缓冲区
+                    // we stop. This is done for 2 reasons:
+                    // 我们就停止。这样做有两个原因：
+                    // 1. bsd/osx don't allow to write more bytes then Integer.MAX_VALUE with one writev(...) call
+                    // 1. bsd/osx 不允许在一次 writev(...) 调用中写入超过 Integer.MAX_VALUE 的字节
+                    // and so will return 'EINVAL', which will raise an IOException. On Linux it may work depending
+                    // 因此将返回 'EINVAL'，这将引发 IOException。在 Linux 上它可能会工作，具体取决于
+                    // on the architecture and kernel but to be safe we also enforce the limit here.
+                    // 在架构和内核上，但为了安全起见，我们在这里也强制执行限制。
+                    // 2. There is no sense in putting more data in the array than is likely to be accepted by the
+                    // 2. 在数组中放入比可能被接受的数据更多的数据是没有意义的。
+                    // OS.
+                    // 操作系统。
+                    //
+                    // See also:
+                    // 另请参阅：
+                    // - https://www.freebsd.org/cgi/man.cgi?query=write&sektion=2
+                    // - https://www.freebsd.org/cgi/man.cgi?query=write&sektion=2
+                    // - https://linux.die.net//man/2/writev
+                    // - https://linux.die.net//man/2/writev
+                    break;
                 }
+                nioBufferSize += remaining;
+                nioBufferCount++;
             }
-            entry = entry.next;
         }
         this.nioBufferCount = nioBufferCount;
         this.nioBufferSize = nioBufferSize;
@@ -577,7 +716,58 @@ public final class ChannelOutboundBuffer {
         return nioBuffers;
     }
 
-    private static int nioBuffers(Entry entry, ByteBuf buf, ByteBuffer[] nioBuffers, int nioBufferCount, int maxCount) {
+    /**
+     * Appends the NIO buffers of the given flushed {@link ByteBuf} entry to the gather list.
+     */
+
+    /**
+     * 将给定的已刷新 {@link ByteBuf} 条目的 NIO 缓冲区追加到收集列表。
+     */
+    private void gather(Entry entry) {
+        int gathered = 0;
+        int gatheredBytes = 0;
+        if (!entry.cancelled) {
+            ByteBuf buf = (ByteBuf) entry.msg;
+            final int readerIndex = buf.readerIndex();
+            final int readableBytes = buf.writerIndex() - readerIndex;
+
+            if (readableBytes > 0) {
+                int count = entry.count;
+                if (count == -1) {
+                    //noinspection ConstantValueVariableUse
+                    //不检查常量值变量使用
+                    entry.count = count = buf.nioBufferCount();
+                }
+                ensureGatherCapacity(count);
+                if (count == 1) {
+                    ByteBuffer nioBuf = entry.buf;
+                    if (nioBuf == null) {
+                        // cache ByteBuffer as it may need to create a new ByteBuffer instance if its a
+                        // 缓存 ByteBuffer，因为如果需要创建一个新的 ByteBuffer 实例，它可能会
+                        // derived buffer
+                        // 派生缓冲区
+                        entry.buf = nioBuf = buf.internalNioBuffer(readerIndex, readableBytes);
+                    }
+                    gatherBuffers[gatherHead + gatherCount] = nioBuf;
+                    gathered = 1;
+                } else {
+                    // The code exists in an extra method to ensure the method is not too big to inline as this
+                    // 代码存在于一个额外的方法中，以确保该方法不会太大而无法内联
+                    // branch is not very likely to get hit very frequently.
+                    // 分支不太可能被频繁命中。
+                    gathered = nioBuffers(entry, buf, gatherBuffers, gatherHead + gatherCount);
+                }
+                gatheredBytes = readableBytes;
+            }
+        }
+        entry.gatheredBuffers = gathered;
+        entry.gatheredBytes = gatheredBytes;
+        gatherCount += gathered;
+        gatherBytes += gatheredBytes;
+        gatheredEntry = entry;
+    }
+
+    private static int nioBuffers(Entry entry, ByteBuf buf, ByteBuffer[] nioBuffers, int index) {
         ByteBuffer[] nioBufs = entry.bufs;
         if (nioBufs == null) {
             // cached ByteBuffers as they may be expensive to create in terms
@@ -586,16 +776,90 @@ public final class ChannelOutboundBuffer {
             // 对象分配
             entry.bufs = nioBufs = buf.nioBuffers();
         }
-        for (int i = 0; i < nioBufs.length && nioBufferCount < maxCount; ++i) {
+        int count = 0;
+        for (int i = 0; i < nioBufs.length; ++i) {
             ByteBuffer nioBuf = nioBufs[i];
             if (nioBuf == null) {
                 break;
             } else if (!nioBuf.hasRemaining()) {
                 continue;
             }
-            nioBuffers[nioBufferCount++] = nioBuf;
+            nioBuffers[index + count++] = nioBuf;
+        }
+        return count;
+    }
+
+    /**
+     * Removes the NIO buffers of the given entry, which must be the first entry of the gather list.
+     */
+
+    /**
+     * 移除给定条目的 NIO 缓冲区，该条目必须是收集列表的第一个条目。
+     */
+    private void ungather(Entry e) {
+        final int count = e.gatheredBuffers;
+        if (count > 0) {
+            Arrays.fill(gatherBuffers, gatherHead, gatherHead + count, null);
+            gatherHead += count;
+            gatherCount -= count;
+        }
+        gatherBytes -= e.gatheredBytes;
+        if (e == gatheredEntry) {
+            gatheredEntry = null;
+        }
+        if (gatherCount == 0) {
+            gatherHead = 0;
+            gatherBytes = 0;
+            if (gatherBuffers.length > MAX_RETAINED_GATHER_CAPACITY) {
+                gatherBuffers = EMPTY_NIO_BUFFERS;
+            }
         }
-        return nioBufferCount;
+    }
+
+    /**
+     * Accounts for a partial write of the given entry, which must be the first entry of the gather list. The
+     * written bytes were consumed from its NIO buffers by the write itself.
+     */
+
+    /**
+     * 记录给定条目的部分写出，该条目必须是收集列表的第一个条目。写出的字节已经由写操作本身从其 NIO 缓冲区中消耗。
+     */
+    private void updateGathered(Entry e, int readableBytes) {
+        if (e.gatheredBuffers <= 0) {
+            return;
+        }
+        // Drop the fully written buffers of a multi-buffer entry, zero length buffers must not be handed out.
+        // 丢弃多缓冲区条目中已完全写出的缓冲区，不能交出长度为零的缓冲区。
+        while (e.gatheredBuffers > 1 && !gatherBuffers[gatherHead].hasRemaining()) {
+            gatherBuffers[gatherHead++] = null;
+            gatherCount--;
+            e.gatheredBuffers--;
+        }
+        gatherBytes += readableBytes - e.gatheredBytes;
+        e.gatheredBytes = readableBytes;
+    }
+
+    private void ensureGatherCapacity(int count) {
+        if (gatherHead + gatherCount + count <= gatherBuffers.length) {
+            return;
+        }
+        if (gatherHead != 0) {
+            compactGatherBuffers();
+        }
+        int neededSpace = gatherCount + count;
+        if (neededSpace > gatherBuffers.length) {
+            gatherBuffers = gatherBuffers.length == 0 ?
+                    new ByteBuffer[Math.max(INITIAL_GATHER_CAPACITY, neededSpace)] :
+                    expandNioBufferArray(gatherBuffers, neededSpace, gatherCount);
+        }
+    }
+
+    private void compactGatherBuffers() {
+        final int head = gatherHead;
+        final int count = gatherCount;
+        System.arraycopy(gatherBuffers, head, gatherBuffers, 0, count);
+        Arrays.fill(gatherBuffers, Math.max(count, head), head + count, null);
+        gatherHead = 0;
     }
 
     private static ByteBuffer[] expandNioBufferArray(ByteBuffer[] array, int neededSpace, int size) {
@@ -696,6 +960,7 @@ public final class ChannelOutboundBuffer {
             final int newValue = oldValue & mask;
             if (UNWRITABLE_UPDATER.compareAndSet(this, oldValue, newValue)) {
                 if (oldValue != 0 && newValue == 0) {
+                    recordWritabilityChanged();
                     fireChannelWritabilityChanged(true);
                 }
                 break;
@@ -710,6 +975,7 @@ public final class ChannelOutboundBuffer {
             final int newValue = oldValue | mask;
             if (UNWRITABLE_UPDATER.compareAndSet(this, oldValue, newValue)) {
                 if (oldValue == 0 && newValue != 0) {
+                    recordWritabilityChanged();
                     fireChannelWritabilityChanged(true);
                 }
                 break;
@@ -730,6 +996,7 @@ public final class ChannelOutboundBuffer {
             final int newValue = oldValue & ~1;
             if (UNWRITABLE_UPDATER.compareAndSet(this, oldValue, newValue)) {
                 if (oldValue != 0 && newValue == 0) {
+                    recordWritabilityChanged();
                     fireChannelWritabilityChanged(invokeLater);
                 }
                 break;
@@ -743,6 +1010,7 @@ public final class ChannelOutboundBuffer {
             final int newValue = oldValue | 1;
             if (UNWRITABLE_UPDATER.compareAndSet(this, oldValue, newValue)) {
                 if (oldValue == 0) {
+                    recordWritabilityChanged();
                     fireChannelWritabilityChanged(invokeLater);
                 }
                 break;
@@ -750,6 +1018,15 @@ public final class ChannelOutboundBuffer {
         }
     }
 
+    private void recordWritabilityChanged() {
+        ChannelOutboundBufferMetrics metrics = this.metrics;
+        if (metrics != null) {
+            // Another thread may have changed the writability again already, so the metrics read the current one.
+            // 其他线程可能已经再次改变了可写性，因此指标读取的是当前的可写性。
+            metrics.updateWritability(this);
+        }
+    }
+
     private void fireChannelWritabilityChanged(boolean invokeLater) {
         final ChannelPipeline pipeline = channel.pipeline();
         if (invokeLater) {
@@ -852,6 +1129,9 @@ public final class ChannelOutboundBuffer {
                 if (!e.cancelled) {
                     ReferenceCountUtil.safeRelease(e.msg);
                     safeFail(e.promise, cause);
+                    if (e.isCoalescing()) {
+                        safeFail(e.promises, e.promiseCount, cause);
+                    }
                 }
                 e = e.recycleAndGetNext();
             }
@@ -873,6 +1153,20 @@ public final class ChannelOutboundBuffer {
         PromiseNotificationUtil.trySuccess(promise, null, promise instanceof VoidChannelPromise ? null : logger);
     }
 
+    private static void safeSuccess(ChannelPromise[] promises, int count) {
+        for (int i = 0; i < count; i++) {
+            safeSuccess(promises[i]);
+            promises[i] = null;
+        }
+    }
+
+    private static void safeFail(ChannelPromise[] promises, int count, Throwable cause) {
+        for (int i = 0; i < count; i++) {
+            safeFail(promises[i], cause);
+            promises[i] = null;
+        }
+    }
+
     private static void safeFail(ChannelPromise promise, Throwable cause) {
         // Only log if the given promise is not of type VoidChannelPromise as tryFailure(...) is expected to return
         // 仅当给定的 promise 不是 VoidChannelPromise 类型时记录日志，因为 tryFailure(...) 预期会返回
@@ -994,10 +1288,19 @@ public final class ChannelOutboundBuffer {
         ByteBuffer[] bufs;
         ByteBuffer buf;
         ChannelPromise promise;
+        // The promises of the messages coalesced into msg after the first one, null if msg is not coalescing.
+        // 在第一条消息之后合并到 msg 中的消息的 promise，如果 msg 不是合并缓冲区则为 null。
+        ChannelPromise[] promises;
         long progress;
         long total;
+        // When the message was added or, once flushed, when it was flushed. Only set if metrics are enabled.
+        // 消息被添加的时间，或者在刷新后为其被刷新的时间。仅在启用指标时设置。
+        long nanoTime;
         int pendingSize;
         int count = -1;
+        int gatheredBuffers = -1;
+        int gatheredBytes;
+        int promiseCount;
         boolean cancelled;
 
         private Entry(Handle<Entry> handle) {
@@ -1013,6 +1316,22 @@ public final class ChannelOutboundBuffer {
             return entry;
         }
 
+        boolean isCoalescing() {
+            return promises != null;
+        }
+
+        void coalesce(ByteBuf buf, int size, ChannelPromise promise) {
+            final int readableBytes = buf.readableBytes();
+            ((ByteBuf) msg).writeBytes(buf, buf.readerIndex(), readableBytes);
+            ReferenceCountUtil.safeRelease(buf);
+            if (promiseCount == promises.length) {
+                promises = Arrays.copyOf(promises, Math.max(4, promiseCount << 1));
+            }
+            promises[promiseCount++] = promise;
+            pendingSize += size;
+            total += readableBytes;
+        }
+
         int cancel() {
             if (!cancelled) {
                 cancelled = true;
@@ -1042,8 +1361,13 @@ public final class ChannelOutboundBuffer {
             promise = null;
             progress = 0;
             total = 0;
+            nanoTime = 0;
             pendingSize = 0;
             count = -1;
+            gatheredBuffers = -1;
+            gatheredBytes = 0;
+            promises = null;
+            promiseCount = 0;
             cancelled = false;
             handle.recycle(this);
         }
@@ -0,0 +1,155 @@
+package org.top.java.netty.source.channel;
+
+import io.netty.util.AttributeKey;
+import org.top.java.netty.source.util.concurrent.LatencyHistogram;
+
+/**
+ * Optional timing of the messages and the writability of a {@link ChannelOutboundBuffer}, to find slow consumers that
+ * make outbound data pile up. It records
+ * <ul>
+ * <li>how long messages waited between {@link ChannelOutboundBuffer#addMessage(Object, int, ChannelPromise)} and
+ * {@link ChannelOutboundBuffer#addFlush()},</li>
+ * <li>how long flushed messages waited until they were written and {@link ChannelOutboundBuffer#remove() removed},
+ * </li>
+ * <li>how often the channel became unwritable and for how long.</li>
+ * </ul>
+ * Enable it with {@link ChannelOutboundBuffer#setMetricsEnabled(boolean)} or the
+ * {@code io.netty.transport.outboundBufferMetrics} system property. The metrics are also stored in the channel
+ * attribute {@link #KEY}, so they can still be read after the channel was closed. All getters can be called from
+ * any thread.
+ */
+
+/**
+ * {@link ChannelOutboundBuffer} 中消息与可写性的可选计时，用于找出导致出站数据堆积的慢消费者。它记录
+ * <ul>
+ * <li>消息在 {@link ChannelOutboundBuffer#addMessage(Object, int, ChannelPromise)} 与
+ * {@link ChannelOutboundBuffer#addFlush()} 之间等待了多久，</li>
+ * <li>已刷新的消息等待了多久才被写出并{@link ChannelOutboundBuffer#remove() 移除}，</li>
+ * <li>通道变为不可写的频率以及持续时间。</li>
+ * </ul>
+ * 通过 {@link ChannelOutboundBuffer#setMetricsEnabled(boolean)} 或 {@code io.netty.transport.outboundBufferMetrics}
+ * 系统属性启用。指标也保存在通道属性 {@link #KEY} 中，因此在通道关闭后仍可读取。所有 getter 都可以从任何线程调用。
+ */
+public final class ChannelOutboundBufferMetrics {
+
+    /**
+     * The channel attribute that holds the metrics of the {@link ChannelOutboundBuffer} of a channel.
+     */
+
+    /**
+     * 保存通道的 {@link ChannelOutboundBuffer} 指标的通道属性。
+     */
+    public static final AttributeKey<ChannelOutboundBufferMetrics> KEY =
+            AttributeKey.valueOf(ChannelOutboundBufferMetrics.class, "KEY");
+
+    // Only recorded by the event loop of the channel.
+    // 仅由通道的事件循环记录。
+    private final LatencyHistogram flushDelay = new LatencyHistogram();
+    private final LatencyHistogram writeDelay = new LatencyHistogram();
+
+    // Writability may change on any thread, guarded by this.
+    // 可写性可能在任何线程上改变，由 this 保护。
+    private final LatencyHistogram unwritableDuration = new LatencyHistogram();
+    private boolean unwritable;
+    private long unwritableSinceNanos;
+    private long unwritableCount;
+    private long unwritableNanos;
+
+    ChannelOutboundBufferMetrics() { }
+
+    void recordFlushDelay(long nanos) {
+        flushDelay.record(nanos);
+    }
+
+    void recordWriteDelay(long nanos) {
+        writeDelay.record(nanos);
+    }
+
+    /**
+     * Records a change of the writability of the given buffer. The writability is read while holding the lock, so
+     * concurrent changes are recorded in the order they are observed and the last call always sees the final state.
+     */
+
+    /**
+     * 记录给定缓冲区可写性的变化。可写性在持有锁时读取，因此并发的变化按被观察到的顺序记录，最后一次调用总能看到最终状态。
+     */
+    synchronized void updateWritability(ChannelOutboundBuffer buffer) {
+        boolean unwritable = !buffer.isWritable();
+        if (unwritable == this.unwritable) {
+            return;
+        }
+        this.unwritable = unwritable;
+        if (unwritable) {
+            unwritableSinceNanos = System.nanoTime();
+            unwritableCount++;
+        } else {
+            long duration = System.nanoTime() - unwritableSinceNanos;
+            unwritableDuration.record(duration);
+            unwritableNanos += duration;
+        }
+    }
+
+    /**
+     * Returns the time messages waited between being added and being flushed.
+     */
+
+    /**
+     * 返回消息从被添加到被刷新之间等待的时间。
+     */
+    public LatencyHistogram.Snapshot flushDelay() {
+        return flushDelay.snapshot();
+    }
+
+    /**
+     * Returns the time flushed messages waited until they were completely written.
+     */
+
+    /**
+     * 返回已刷新的消息直到被完全写出所等待的时间。
+     */
+    public LatencyHistogram.Snapshot writeDelay() {
+        return writeDelay.snapshot();
+    }
+
+    /**
+     * Returns the durations of the completed periods in which the channel was unwritable.
+     */
+
+    /**
+     * 返回通道处于不可写状态的已结束时段的持续时间。
+     */
+    public LatencyHistogram.Snapshot unwritableDuration() {
+        return unwritableDuration.snapshot();
+    }
+
+    /**
+     * Returns how often the channel became unwritable.
+     */
+
+    /**
+     * 返回通道变为不可写的次数。
+     */
+    public synchronized long unwritableCount() {
+        return unwritableCount;
+    }
+
+    /**
+     * Returns the total time in nanoseconds the channel was unwritable, including the current period if it is
+     * unwritable right now.
+     */
+
+    /**
+     * 返回通道处于不可写状态的总时间（纳秒），如果当前不可写，则包括当前时段。
+     */
+    public synchronized long unwritableNanos() {
+        return unwritable ? unwritableNanos + System.nanoTime() - unwritableSinceNanos : unwritableNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ChannelOutboundBufferMetrics(flushDelay: [" + flushDelay() +
+                "]; writeDelay: [" + writeDelay() +
+                "]; unwritableCount: " + unwritableCount() +
+                "; unwritableNanos: " + unwritableNanos() + ')';
+    }
+}
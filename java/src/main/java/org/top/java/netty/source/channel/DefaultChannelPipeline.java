@@ -45,6 +45,9 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     private static final AtomicReferenceFieldUpdater<DefaultChannelPipeline, MessageSizeEstimator.Handle> ESTIMATOR =
             AtomicReferenceFieldUpdater.newUpdater(
                     DefaultChannelPipeline.class, MessageSizeEstimator.Handle.class, "estimatorHandle");
+    private static final int LOCK_SPINS = 16;
+    private static final AtomicReferenceFieldUpdater<DefaultChannelPipeline, Thread> MUTATOR =
+            AtomicReferenceFieldUpdater.newUpdater(DefaultChannelPipeline.class, Thread.class, "mutator");
     final HeadContext head;
     final TailContext tail;
 
@@ -57,6 +60,14 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     private volatile MessageSizeEstimator.Handle estimatorHandle;
     private boolean firstRegistration = true;
 
+    // The thread holding the lock of this pipeline and how often it acquired it, see lock().
+    // 持有此管道锁的线程及其获取锁的次数，参见 lock()。
+    private volatile Thread mutator;
+    private int mutatorHolds;
+    // The number of threads that gave up spinning and wait on the monitor of this pipeline for the lock.
+    // 放弃自旋并在此管道的监视器上等待锁的线程数。
+    private volatile int lockWaiters;
+
     /**
      * This is the head of a linked list that is processed by {@link #callHandlerAddedForAllHandlers()} and so process
      * all the pending {@link #callHandlerAdded0(AbstractChannelHandlerContext)}.
@@ -93,6 +104,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
 
         head.next = tail;
         tail.prev = head;
+        relink();
     }
 
     final MessageSizeEstimator.Handle estimatorHandle() {
@@ -152,7 +164,8 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     @Override
     public final ChannelPipeline addFirst(EventExecutorGroup group, String name, ChannelHandler handler) {
         final AbstractChannelHandlerContext newCtx;
-        synchronized (this) {
+        lock();
+        try {
             checkMultiplicity(handler);
             name = filterName(name, handler);
 
@@ -178,6 +191,8 @@ public class DefaultChannelPipeline implements ChannelPipeline {
                 callHandlerAddedInEventLoop(newCtx, executor);
                 return this;
             }
+        } finally {
+            unlock();
         }
         callHandlerAdded0(newCtx);
         return this;
@@ -189,6 +204,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         newCtx.next = nextCtx;
         head.next = newCtx;
         nextCtx.prev = newCtx;
+        relink();
     }
 
     @Override
@@ -199,7 +215,8 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     @Override
     public final ChannelPipeline addLast(EventExecutorGroup group, String name, ChannelHandler handler) {
         final AbstractChannelHandlerContext newCtx;
-        synchronized (this) {
+        lock();
+        try {
             checkMultiplicity(handler);
 
             newCtx = newContext(group, filterName(name, handler), handler);
@@ -224,6 +241,8 @@ public class DefaultChannelPipeline implements ChannelPipeline {
                 callHandlerAddedInEventLoop(newCtx, executor);
                 return this;
             }
+        } finally {
+            unlock();
         }
         callHandlerAdded0(newCtx);
         return this;
@@ -235,6 +254,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         newCtx.next = tail;
         prev.next = newCtx;
         tail.prev = newCtx;
+        relink();
     }
 
     @Override
@@ -247,7 +267,8 @@ public class DefaultChannelPipeline implements ChannelPipeline {
             EventExecutorGroup group, String baseName, String name, ChannelHandler handler) {
         final AbstractChannelHandlerContext newCtx;
         final AbstractChannelHandlerContext ctx;
-        synchronized (this) {
+        lock();
+        try {
             checkMultiplicity(handler);
             name = filterName(name, handler);
             ctx = getContextOrDie(baseName);
@@ -274,16 +295,19 @@ public class DefaultChannelPipeline implements ChannelPipeline {
                 callHandlerAddedInEventLoop(newCtx, executor);
                 return this;
             }
+        } finally {
+            unlock();
         }
         callHandlerAdded0(newCtx);
         return this;
     }
 
-    private static void addBefore0(AbstractChannelHandlerContext ctx, AbstractChannelHandlerContext newCtx) {
+    private void addBefore0(AbstractChannelHandlerContext ctx, AbstractChannelHandlerContext newCtx) {
         newCtx.prev = ctx.prev;
         newCtx.next = ctx;
         ctx.prev.next = newCtx;
         ctx.prev = newCtx;
+        relink();
     }
 
     private String filterName(String name, ChannelHandler handler) {
@@ -305,7 +329,8 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         final AbstractChannelHandlerContext newCtx;
         final AbstractChannelHandlerContext ctx;
 
-        synchronized (this) {
+        lock();
+        try {
             checkMultiplicity(handler);
             name = filterName(name, handler);
             ctx = getContextOrDie(baseName);
@@ -331,16 +356,19 @@ public class DefaultChannelPipeline implements ChannelPipeline {
                 callHandlerAddedInEventLoop(newCtx, executor);
                 return this;
             }
+        } finally {
+            unlock();
         }
         callHandlerAdded0(newCtx);
         return this;
     }
 
-    private static void addAfter0(AbstractChannelHandlerContext ctx, AbstractChannelHandlerContext newCtx) {
+    private void addAfter0(AbstractChannelHandlerContext ctx, AbstractChannelHandlerContext newCtx) {
         newCtx.prev = ctx;
         newCtx.next = ctx.next;
         ctx.next.prev = newCtx;
         ctx.next = newCtx;
+        relink();
     }
 
     public final ChannelPipeline addFirst(ChannelHandler handler) {
@@ -468,7 +496,8 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     private AbstractChannelHandlerContext remove(final AbstractChannelHandlerContext ctx) {
         assert ctx != head && ctx != tail;
 
-        synchronized (this) {
+        lock();
+        try {
             atomicRemoveFromHandlerList(ctx);
 
             // If the registered is false it means that the channel was not registered on an eventloop yet.
@@ -493,23 +522,129 @@ public class DefaultChannelPipeline implements ChannelPipeline {
                 });
                 return ctx;
             }
+        } finally {
+            unlock();
         }
         callHandlerRemoved0(ctx);
         return ctx;
     }
 
     /**
-     * Method is synchronized to make the handler removal from the double linked list atomic.
+     * Method holds the mutation lock to make the handler removal from the double linked list atomic.
+     */
+
+    /**
+     * 方法持有变更锁以使从双向链表中移除处理程序的操作具有原子性。
+     */
+    private void atomicRemoveFromHandlerList(AbstractChannelHandlerContext ctx) {
+        lock();
+        try {
+            AbstractChannelHandlerContext prev = ctx.prev;
+            AbstractChannelHandlerContext next = ctx.next;
+            prev.next = next;
+            next.prev = prev;
+            ctx.unlink();
+            relink();
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Recomputes the dispatch links of all contexts. Must be called while holding the lock of this pipeline after
+     * every change of the handler list.
+     *
+     * The inbound links are computed from the tail to the head and the outbound links from the head to the tail, so
+     * each context can reuse the links of the neighbour it skips and the whole pipeline is relinked in linear time.
+     * The new links are built aside and only published once complete, so events that race with the mutation see
+     * either the old or the new links of a context, but never a partially filled one.
      */
 
     /**
-     * 方法被同步以使从双向链表中移除处理程序的操作具有原子性。
+     * 重新计算所有上下文的分发链接。必须在持有此管道锁的情况下，在处理程序列表的每次变更之后调用。
+     *
+     * 入站链接从尾部到头部计算，出站链接从头部到尾部计算，因此每个上下文都可以复用它所跳过的相邻上下文的链接，
+     * 整个管道以线性时间重新链接。新链接在旁边构建，完成后才发布，因此与变更竞争的事件看到的是某个上下文的旧链接或新链接，
+     * 而绝不会是部分填充的链接。
      */
-    private synchronized void atomicRemoveFromHandlerList(AbstractChannelHandlerContext ctx) {
-        AbstractChannelHandlerContext prev = ctx.prev;
-        AbstractChannelHandlerContext next = ctx.next;
-        prev.next = next;
-        next.prev = prev;
+    private void relink() {
+        for (AbstractChannelHandlerContext ctx = tail; ctx != null; ctx = ctx.prev) {
+            ctx.linkInbound();
+        }
+        for (AbstractChannelHandlerContext ctx = head; ctx != null; ctx = ctx.next) {
+            ctx.linkOutbound();
+        }
+    }
+
+    /**
+     * Acquires the lock that serializes all changes of the handler list. The lock is reentrant, as handlers may
+     * change the pipeline from handlerAdded(...) or handlerRemoved(...) while it is held.
+     *
+     * It is a single CAS when uncontended, which is the common case of a pipeline only changed by the event loop of
+     * its channel. Contention only happens if another thread changes the pipeline at the same time: the thread
+     * spins briefly and then blocks on the monitor of the pipeline, as the lock may be held while user code runs.
+     */
+
+    /**
+     * 获取串行化处理程序列表所有变更的锁。该锁是可重入的，因为处理程序可能在锁被持有时从 handlerAdded(...) 或
+     * handlerRemoved(...) 中修改管道。
+     *
+     * 在无竞争时它只是一次 CAS，这是仅由其通道的事件循环修改管道的常见情况。只有在另一个线程同时修改管道时才会发生竞争：
+     * 该线程会短暂自旋，然后阻塞在管道的监视器上，因为锁可能在用户代码运行期间被持有。
+     */
+    private void lock() {
+        final Thread currentThread = Thread.currentThread();
+        if (mutator == currentThread) {
+            mutatorHolds++;
+            return;
+        }
+        if (!MUTATOR.compareAndSet(this, null, currentThread)) {
+            lockSlow(currentThread);
+        }
+        mutatorHolds = 1;
+    }
+
+    private void lockSlow(Thread currentThread) {
+        for (int i = 0; i < LOCK_SPINS; i++) {
+            Thread.yield();
+            if (MUTATOR.compareAndSet(this, null, currentThread)) {
+                return;
+            }
+        }
+        boolean interrupted = false;
+        synchronized (this) {
+            // Register before the last attempt, so unlock() either sees the waiter or the attempt succeeds.
+            // 在最后一次尝试之前登记，这样 unlock() 要么看到等待者，要么这次尝试成功。
+            lockWaiters++;
+            try {
+                while (!MUTATOR.compareAndSet(this, null, currentThread)) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // Like a monitor the lock can not be interrupted, keep the interrupt for later.
+                        // 与监视器一样，该锁不可被中断，保留中断状态留待之后处理。
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                lockWaiters--;
+            }
+        }
+        if (interrupted) {
+            currentThread.interrupt();
+        }
+    }
+
+    private void unlock() {
+        assert mutator == Thread.currentThread();
+        if (--mutatorHolds == 0) {
+            mutator = null;
+            if (lockWaiters != 0) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
     }
 
     @Override
@@ -551,7 +686,8 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         assert ctx != head && ctx != tail;
 
         final AbstractChannelHandlerContext newCtx;
-        synchronized (this) {
+        lock();
+        try {
             checkMultiplicity(newHandler);
             if (newName == null) {
                 newName = generateName(newHandler);
@@ -597,6 +733,8 @@ public class DefaultChannelPipeline implements ChannelPipeline {
                 });
                 return ctx.handler();
             }
+        } finally {
+            unlock();
         }
         // Invoke newHandler.handlerAdded() first (i.e. before oldHandler.handlerRemoved() is invoked)
         // 首先调用 newHandler.handlerAdded()（即在调用 oldHandler.handlerRemoved() 之前）
@@ -609,7 +747,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         return ctx.handler();
     }
 
-    private static void replace0(AbstractChannelHandlerContext oldCtx, AbstractChannelHandlerContext newCtx) {
+    private void replace0(AbstractChannelHandlerContext oldCtx, AbstractChannelHandlerContext newCtx) {
         AbstractChannelHandlerContext prev = oldCtx.prev;
         AbstractChannelHandlerContext next = oldCtx.next;
         newCtx.prev = prev;
@@ -632,6 +770,8 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         // 更新对替换的引用，以便正确转发缓冲内容
         oldCtx.prev = newCtx;
         oldCtx.next = newCtx;
+        oldCtx.unlink();
+        relink();
     }
 
     private static void checkMultiplicity(ChannelHandler handler) {
@@ -892,8 +1032,13 @@ public class DefaultChannelPipeline implements ChannelPipeline {
      *
      * 参见：https://github.com/netty/netty/issues/3156
      */
-    private synchronized void destroy() {
-        destroyUp(head.next, false);
+    private void destroy() {
+        lock();
+        try {
+            destroyUp(head.next, false);
+        } finally {
+            unlock();
+        }
     }
 
     private void destroyUp(AbstractChannelHandlerContext ctx, boolean inEventLoop) {
@@ -1157,7 +1302,8 @@ public class DefaultChannelPipeline implements ChannelPipeline {
 
     private void callHandlerAddedForAllHandlers() {
         final PendingHandlerCallback pendingHandlerCallbackHead;
-        synchronized (this) {
+        lock();
+        try {
             assert !registered;
 
             // This Channel itself was registered.
@@ -1169,11 +1315,13 @@ public class DefaultChannelPipeline implements ChannelPipeline {
             // Null out so it can be GC'ed.
             // 置空以便可以被垃圾回收。
             this.pendingHandlerCallbackHead = null;
+        } finally {
+            unlock();
         }
 
-        // This must happen outside of the synchronized(...) block as otherwise handlerAdded(...) may be called while
+        // This must happen outside of the locked block as otherwise handlerAdded(...) may be called while
 
-        // 这必须在 synchronized(...) 块之外发生，否则 handlerAdded(...) 可能会在
+        // 这必须在加锁的代码块之外发生，否则 handlerAdded(...) 可能会在
         // holding the lock and so produce a deadlock if handlerAdded(...) will try to add another handler from outside
         // 持有锁，因此如果 handlerAdded(...) 尝试从外部添加另一个处理程序，则会产生死锁
         // the EventLoop.
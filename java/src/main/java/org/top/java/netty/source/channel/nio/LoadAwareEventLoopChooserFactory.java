@@ -0,0 +1,88 @@
+package org.top.java.netty.source.channel.nio;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorChooserFactory;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link EventExecutorChooserFactory} that places new channels on the less loaded of two randomly picked
+ * {@link NioEventLoop}s ("power of two random choices"). This keeps a few heavy connections from piling up on one
+ * event loop, while looking at two candidates only keeps the choice cheap and avoids the herd behaviour of always
+ * picking the least loaded one.
+ * <p>
+ * The load of an event loop is {@code registeredChannels * (100 + utilisation) + pendingTasks * 100}, so every
+ * channel counts more on a busy event loop and every pending task counts like a channel on an idle one. Executors
+ * that are no {@link NioEventLoop}s are handed out round-robin.
+ */
+
+/**
+ * 将新通道放在两个随机挑选的 {@link NioEventLoop} 中负载较低的那个上的 {@link EventExecutorChooserFactory}（"两个随机选择的力量"）。
+ * 这可以防止少数繁重的连接堆积在一个事件循环上，而只查看两个候选者可以让选择保持低开销，并避免总是选择负载最低者时的羊群效应。
+ * <p>
+ * 事件循环的负载为 {@code registeredChannels * (100 + utilisation) + pendingTasks * 100}，因此在繁忙的事件循环上每个通道的权重更大，
+ * 而在空闲的事件循环上每个挂起的任务与一个通道的权重相同。不是 {@link NioEventLoop} 的执行器按轮询方式分配。
+ */
+public final class LoadAwareEventLoopChooserFactory implements EventExecutorChooserFactory {
+
+    public static final LoadAwareEventLoopChooserFactory INSTANCE = new LoadAwareEventLoopChooserFactory();
+
+    private LoadAwareEventLoopChooserFactory() { }
+
+    @Override
+    public EventExecutorChooser newChooser(EventExecutor[] executors) {
+        return new LoadAwareEventExecutorChooser(executors);
+    }
+
+    /**
+     * Returns the load of the given {@link EventExecutor}, see the class documentation.
+     */
+
+    /**
+     * 返回给定 {@link EventExecutor} 的负载，参见类文档。
+     */
+    static long load(EventExecutor executor) {
+        if (!(executor instanceof NioEventLoop)) {
+            return 0;
+        }
+        NioEventLoop loop = (NioEventLoop) executor;
+        return (long) loop.registeredChannels() * (100 + loop.utilisation()) + (long) loop.pendingTasks() * 100;
+    }
+
+    private static final class LoadAwareEventExecutorChooser implements EventExecutorChooser {
+        private final AtomicInteger idx = new AtomicInteger();
+        private final EventExecutor[] executors;
+        private final boolean nioEventLoops;
+
+        LoadAwareEventExecutorChooser(EventExecutor[] executors) {
+            this.executors = executors;
+            boolean nioEventLoops = true;
+            for (EventExecutor executor: executors) {
+                if (!(executor instanceof NioEventLoop)) {
+                    nioEventLoops = false;
+                    break;
+                }
+            }
+            this.nioEventLoops = nioEventLoops;
+        }
+
+        @Override
+        public EventExecutor next() {
+            final int length = executors.length;
+            if (!nioEventLoops || length < 2) {
+                return executors[(idx.getAndIncrement() & Integer.MAX_VALUE) % length];
+            }
+            // Pick two distinct executors.
+            // 挑选两个不同的执行器。
+            int first = PlatformDependent.threadLocalRandom().nextInt(length);
+            int second = PlatformDependent.threadLocalRandom().nextInt(length - 1);
+            if (second >= first) {
+                second++;
+            }
+            EventExecutor a = executors[first];
+            EventExecutor b = executors[second];
+            return load(b) < load(a) ? b : a;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.top.java.netty.source.channel.nio;
 
 import io.netty.channel.*;
 import io.netty.util.IntSupplier;
+import io.netty.util.concurrent.AbstractEventExecutor;
 import io.netty.util.concurrent.RejectedExecutionHandler;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.PlatformDependent;
@@ -10,6 +11,8 @@ import io.netty.util.internal.ReflectionUtil;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
+import org.top.java.netty.source.util.concurrent.EventLoopInstrumentation;
+import org.top.java.netty.source.util.concurrent.EventLoopStats;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
@@ -22,6 +25,7 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -44,6 +48,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
             SystemPropertyUtil.getBoolean("io.netty.noKeySetOptimization", false);
 
     private static final int MIN_PREMATURE_SELECTOR_RETURNS = 3;
+    private static final long UTILISATION_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
     private static final int SELECTOR_AUTO_REBUILD_THRESHOLD;
 
     private final IntSupplier selectNowSupplier = new IntSupplier() {
@@ -132,18 +137,40 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     private final AtomicLong nextWakeupNanos = new AtomicLong(AWAKE);
 
     private final SelectStrategy selectStrategy;
+    private final NioWaitStrategy waitStrategy;
 
     private volatile int ioRatio = 50;
+
+    // Adaptive ioRatio, 0 if disabled. Apart from the volatile fields only the event loop thread touches the state.
+
+    // 自适应 ioRatio，为 0 时禁用。除 volatile 字段外，只有事件循环线程会访问这些状态。
+    private volatile long targetIoLatencyNanos;
+    private volatile int adaptiveIoRatio = 50;
+    private volatile long taskQueueDelayNanos;
+    private long minTaskBudgetNanos;
+    private int lastPendingTasks;
+    private long lastTaskPhaseEndNanos;
+
+    // Share of the last window of UTILISATION_WINDOW_NANOS that was not spent waiting for I/O or tasks.
+
+    // 上一个 UTILISATION_WINDOW_NANOS 窗口中未用于等待 I/O 或任务的时间占比。
+    private volatile int utilisation;
+    private volatile long utilisationWindowStartNanos;
+    private long waitNanos;
+    private volatile EventLoopInstrumentation instrumentation = EventLoopInstrumentation.newInstanceIfEnabled();
+    private volatile String threadName;
     private int cancelledKeys;
     private boolean needsToSelectAgain;
 
     NioEventLoop(NioEventLoopGroup parent, Executor executor, SelectorProvider selectorProvider,
                  SelectStrategy strategy, RejectedExecutionHandler rejectedExecutionHandler,
-                 EventLoopTaskQueueFactory taskQueueFactory, EventLoopTaskQueueFactory tailTaskQueueFactory) {
+                 EventLoopTaskQueueFactory taskQueueFactory, EventLoopTaskQueueFactory tailTaskQueueFactory,
+                 NioWaitStrategy waitStrategy) {
         super((EventLoopGroup) parent, executor, false, newTaskQueue(taskQueueFactory), newTaskQueue(tailTaskQueueFactory),
                 rejectedExecutionHandler);
         this.provider = ObjectUtil.checkNotNull(selectorProvider, "selectorProvider");
         this.selectStrategy = ObjectUtil.checkNotNull(strategy, "selectStrategy");
+        this.waitStrategy = ObjectUtil.checkNotNull(waitStrategy, "waitStrategy");
         final SelectorTuple selectorTuple = openSelector();
         this.selector = selectorTuple.selector;
         this.unwrappedSelector = selectorTuple.unwrappedSelector;
@@ -379,6 +406,146 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         this.ioRatio = ioRatio;
     }
 
+    /**
+     * Enables the adaptive ioRatio if {@code targetIoLatency} is positive, or disables it otherwise. While it is
+     * enabled {@link #getIoRatio()} is ignored. The time budget of the tasks is chosen in every iteration so that
+     * the time spent for I/O plus the time spent for tasks stays within the target, which bounds how long ready
+     * I/O waits to be processed. If the backlog of tasks keeps growing the tasks get a larger share, up to the
+     * target itself, so that they are not starved by I/O either.
+     */
+
+    /**
+     * 如果 {@code targetIoLatency} 为正数则启用自适应 ioRatio，否则禁用它。启用时会忽略 {@link #getIoRatio()}。
+     * 每次迭代都会选择任务的时间预算，使 I/O 时间加上任务时间保持在目标之内，从而限制就绪的 I/O 等待处理的时间。
+     * 如果任务积压持续增长，任务会获得更大的份额，最多为目标本身，这样任务也不会被 I/O 饿死。
+     */
+    public void setTargetIoLatency(long targetIoLatency, TimeUnit unit) {
+        ObjectUtil.checkNotNull(unit, "unit");
+        targetIoLatencyNanos = Math.max(0, unit.toNanos(targetIoLatency));
+    }
+
+    /**
+     * Returns the target I/O latency of the adaptive ioRatio in nanoseconds, or {@code 0} if it is disabled.
+     */
+
+    /**
+     * 返回自适应 ioRatio 的目标 I/O 延迟（纳秒），如果已禁用则返回 {@code 0}。
+     */
+    public long targetIoLatencyNanos() {
+        return targetIoLatencyNanos;
+    }
+
+    /**
+     * Returns the percentage of time for I/O that the adaptive ioRatio chose in the last iteration, or
+     * {@link #getIoRatio()} if it is disabled.
+     */
+
+    /**
+     * 返回自适应 ioRatio 在上一次迭代中选择的 I/O 时间百分比，如果已禁用则返回 {@link #getIoRatio()}。
+     */
+    public int adaptiveIoRatio() {
+        return targetIoLatencyNanos > 0 ? adaptiveIoRatio : ioRatio;
+    }
+
+    /**
+     * Returns the estimated time in nanoseconds that tasks wait in the task queue, as an exponential moving
+     * average of the time between two task phases of the adaptive ioRatio that found tasks pending. Only updated
+     * while the adaptive ioRatio is enabled.
+     */
+
+    /**
+     * 返回任务在任务队列中等待的估计时间（纳秒），即自适应 ioRatio 发现有挂起任务的两次任务阶段之间时间的指数移动平均值。
+     * 仅在启用自适应 ioRatio 时更新。
+     */
+    public long taskQueueDelayNanos() {
+        return taskQueueDelayNanos;
+    }
+
+    /**
+     * Returns the percentage of time this event loop spent on I/O and tasks rather than waiting for them, measured
+     * over the last window of roughly 100 milliseconds. An event loop that has been blocked in its
+     * {@link Selector} for longer than a window reports {@code 0}.
+     */
+
+    /**
+     * 返回此事件循环在最近一个约 100 毫秒的窗口中用于 I/O 和任务（而非等待它们）的时间百分比。
+     * 在其 {@link Selector} 中阻塞超过一个窗口的事件循环会报告 {@code 0}。
+     */
+    public int utilisation() {
+        if (nextWakeupNanos.get() != AWAKE &&
+                System.nanoTime() - utilisationWindowStartNanos > UTILISATION_WINDOW_NANOS) {
+            return 0;
+        }
+        return utilisation;
+    }
+
+    /**
+     * Enables or disables the {@link EventLoopInstrumentation} of this event loop. Enabling it starts from empty
+     * histograms. It is enabled from the start if the {@code io.netty.eventLoop.instrumentation} system property
+     * is set.
+     */
+
+    /**
+     * 启用或禁用此事件循环的 {@link EventLoopInstrumentation}。启用时从空的直方图开始。
+     * 如果设置了 {@code io.netty.eventLoop.instrumentation} 系统属性，则从一开始就启用。
+     */
+    public void setInstrumentationEnabled(boolean enabled) {
+        if (enabled != (instrumentation != null)) {
+            instrumentation = enabled ? new EventLoopInstrumentation() : null;
+        }
+    }
+
+    /**
+     * Returns the values recorded by the {@link EventLoopInstrumentation} of this event loop together with its
+     * pending tasks and {@link #utilisation()}, or {@code null} if the instrumentation is disabled. Can be called
+     * from any thread and does not pause the event loop.
+     */
+
+    /**
+     * 返回此事件循环的 {@link EventLoopInstrumentation} 记录的值及其挂起任务数和 {@link #utilisation()}，
+     * 如果未启用则返回 {@code null}。可以从任何线程调用，并且不会暂停事件循环。
+     */
+    public EventLoopStats instrumentationSnapshot() {
+        EventLoopInstrumentation instrumentation = this.instrumentation;
+        if (instrumentation == null) {
+            return null;
+        }
+        // Not threadProperties(), it would submit a task and wait for it if the event loop did not start yet.
+        // 不使用 threadProperties()，如果事件循环尚未启动，它会提交一个任务并等待其完成。
+        String name = threadName;
+        return instrumentation.snapshot(name == null ? toString() : name, pendingTasks(), utilisation());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        EventLoopInstrumentation instrumentation = this.instrumentation;
+        if (instrumentation == null) {
+            super.execute(task);
+        } else if (task instanceof AbstractEventExecutor.LazyRunnable) {
+            // The wrapper hides the marker interface, so keep the task from waking up the selector explicitly.
+            // 包装器隐藏了标记接口，因此显式地避免该任务唤醒 selector。
+            super.lazyExecute(instrumentation.wrap(task));
+        } else {
+            super.execute(instrumentation.wrap(ObjectUtil.checkNotNull(task, "task")));
+        }
+    }
+
+    @Override
+    public void lazyExecute(Runnable task) {
+        EventLoopInstrumentation instrumentation = this.instrumentation;
+        super.lazyExecute(instrumentation == null ? task
+                : instrumentation.wrap(ObjectUtil.checkNotNull(task, "task")));
+    }
+
+    @Override
+    protected void afterRunningAllTasks() {
+        super.afterRunningAllTasks();
+        EventLoopInstrumentation instrumentation = this.instrumentation;
+        if (instrumentation != null) {
+            instrumentation.recordBatchEnd();
+        }
+    }
+
     /**
      * Replaces the current {@link Selector} of this event loop with newly created {@link Selector}s to work
      * around the infamous epoll 100% CPU bug.
@@ -538,10 +705,13 @@ public final class NioEventLoop extends SingleThreadEventLoop {
 
     @Override
     protected void run() {
+        threadName = Thread.currentThread().getName();
         int selectCnt = 0;
         for (;;) {
             try {
                 int strategy;
+                boolean blocked = false;
+                final long waitStartTime = System.nanoTime();
                 try {
                     strategy = selectStrategy.calculateStrategy(selectNowSupplier, hasTasks());
                     switch (strategy) {
@@ -549,10 +719,19 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                         continue;
 
                     case SelectStrategy.BUSY_WAIT:
-                        // fall-through to SELECT since the busy-wait is not supported with NIO
-                        // 由于NIO不支持忙等待，因此直接进入SELECT
+                        strategy = poll(NioWaitStrategy.busySpin());
+                        break;
 
                     case SelectStrategy.SELECT:
+                        if (!waitStrategy.isBlocking()) {
+                            // Poll first, nextWakeupNanos stays AWAKE meanwhile so that submitting a task from
+                            // another thread does not need to wake up the selector.
+                            // 先轮询，在此期间 nextWakeupNanos 保持为 AWAKE，因此从其他线程提交任务不需要唤醒 selector。
+                            strategy = poll(waitStrategy);
+                            if (strategy != SelectStrategy.SELECT) {
+                                break;
+                            }
+                        }
                         long curDeadlineNanos = nextScheduledTaskDeadlineNanos();
                         if (curDeadlineNanos == -1L) {
                             curDeadlineNanos = NONE; // nothing on the calendar
@@ -561,6 +740,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                         try {
                             if (!hasTasks()) {
                                 strategy = select(curDeadlineNanos);
+                                blocked = true;
                             }
                         } finally {
                             // This update is just to help block unnecessary selector wakeups
@@ -586,12 +766,33 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                     continue;
                 }
 
+                updateUtilisation(waitStartTime);
+                final EventLoopInstrumentation instrumentation = this.instrumentation;
+                if (instrumentation != null) {
+                    if (blocked) {
+                        instrumentation.recordSelectWakeup(strategy);
+                    } else {
+                        instrumentation.recordSelectedKeys(strategy);
+                    }
+                }
                 selectCnt++;
                 cancelledKeys = 0;
                 needsToSelectAgain = false;
                 final int ioRatio = this.ioRatio;
+                final long targetIoLatencyNanos = this.targetIoLatencyNanos;
                 boolean ranTasks;
-                if (ioRatio == 100) {
+                if (targetIoLatencyNanos > 0) {
+                    final long ioStartTime = System.nanoTime();
+                    try {
+                        if (strategy > 0) {
+                            processSelectedKeys();
+                        }
+                    } finally {
+                        // Ensure we always run tasks.
+                        // 确保我们始终运行任务。
+                        ranTasks = runAllTasksAdaptive(System.nanoTime() - ioStartTime, targetIoLatencyNanos);
+                    }
+                } else if (ioRatio == 100) {
                     try {
                         if (strategy > 0) {
                             processSelectedKeys();
@@ -654,6 +855,47 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         }
     }
 
+    private void updateUtilisation(long waitStartTime) {
+        final long now = System.nanoTime();
+        long windowStart = utilisationWindowStartNanos;
+        if (windowStart == 0) {
+            utilisationWindowStartNanos = windowStart = waitStartTime;
+        }
+        waitNanos += now - waitStartTime;
+        final long window = now - windowStart;
+        if (window >= UTILISATION_WINDOW_NANOS) {
+            utilisation = (int) Math.max(0, (window - waitNanos) * 100 / window);
+            utilisationWindowStartNanos = now;
+            waitNanos = 0;
+        }
+    }
+
+    private boolean runAllTasksAdaptive(long ioTime, long targetIoLatencyNanos) {
+        final int pendingTasks = pendingTasks();
+        if (pendingTasks > 0 && lastTaskPhaseEndNanos != 0) {
+            long delay = System.nanoTime() - lastTaskPhaseEndNanos;
+            taskQueueDelayNanos += (delay - taskQueueDelayNanos) >> 3;
+        }
+
+        // A growing backlog means the tasks are starved, so raise their minimum budget. Otherwise let it decay.
+        // 积压增长意味着任务被饿死了，因此提高它们的最低预算。否则让它逐渐衰减。
+        if (pendingTasks > lastPendingTasks) {
+            minTaskBudgetNanos = Math.min(Math.max(minTaskBudgetNanos << 1, targetIoLatencyNanos >>> 4),
+                    targetIoLatencyNanos);
+        } else {
+            minTaskBudgetNanos >>>= 1;
+        }
+        lastPendingTasks = pendingTasks;
+
+        final long taskBudget = Math.max(targetIoLatencyNanos - ioTime, minTaskBudgetNanos);
+        adaptiveIoRatio = (int) Math.max(1, ioTime * 100 / (ioTime + Math.max(1, taskBudget)));
+        try {
+            return runAllTasks(taskBudget);
+        } finally {
+            lastTaskPhaseEndNanos = System.nanoTime();
+        }
+    }
+
     // returns true if selectCnt should be reset
 
     // 如果 selectCnt 应该被重置，则返回 true
@@ -973,6 +1215,35 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         return timeoutMillis <= 0 ? selector.selectNow() : selector.select(timeoutMillis);
     }
 
+    /**
+     * Polls the {@link Selector} without blocking until I/O is ready, there is work to do or the
+     * {@link NioWaitStrategy} gives up.
+     *
+     * @return the number of selected keys, or {@link SelectStrategy#SELECT} if the caller should block
+     */
+
+    /**
+     * 以非阻塞方式轮询 {@link Selector}，直到 I/O 就绪、有工作要做或 {@link NioWaitStrategy} 放弃。
+     *
+     * @return 选中的键的数量，如果调用者应该阻塞则返回 {@link SelectStrategy#SELECT}
+     */
+    private int poll(NioWaitStrategy waitStrategy) throws IOException {
+        for (int polls = 1;; polls++) {
+            int selected = selector.selectNow();
+            if (selected > 0 || hasTasks() || hasDueScheduledTask() || isShuttingDown()) {
+                return selected;
+            }
+            if (!waitStrategy.keepPolling(polls)) {
+                return SelectStrategy.SELECT;
+            }
+        }
+    }
+
+    private boolean hasDueScheduledTask() {
+        long deadlineNanos = nextScheduledTaskDeadlineNanos();
+        return deadlineNanos != -1L && deadlineToDelayNanos(deadlineNanos) <= 0;
+    }
+
     private void selectAgain() {
         needsToSelectAgain = false;
         try {
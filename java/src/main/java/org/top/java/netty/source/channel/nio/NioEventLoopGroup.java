@@ -5,15 +5,23 @@ package org.top.java.netty.source.channel.nio;
 // import org.top.java.netty.source.channel.MultithreadEventLoopGroup;
 
 import io.netty.channel.*;
+import io.netty.util.concurrent.DefaultEventExecutorChooserFactory;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.EventExecutorChooserFactory;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
 import io.netty.util.concurrent.RejectedExecutionHandler;
 import io.netty.util.concurrent.RejectedExecutionHandlers;
+import io.netty.util.internal.ObjectUtil;
+import org.top.java.netty.source.util.concurrent.EventLoopStats;
 
 import java.nio.channels.Selector;
 import java.nio.channels.spi.SelectorProvider;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link MultithreadEventLoopGroup} implementations which is used for NIO {@link Selector} based {@link Channel}s.
@@ -24,6 +32,10 @@ import java.util.concurrent.ThreadFactory;
  */
 public class NioEventLoopGroup extends MultithreadEventLoopGroup {
 
+    // Moving a channel only pays off if the target is lighter by more than two idle channels.
+    // 只有当目标比当前轻两个以上空闲通道时，移动通道才划算。
+    private static final long MIGRATION_THRESHOLD = 200;
+
     /**
      * Create a new instance using the default number of threads, the default {@link ThreadFactory} and
      * the {@link SelectorProvider} which is returned by {@link SelectorProvider#provider()}.
@@ -165,6 +177,60 @@ public class NioEventLoopGroup extends MultithreadEventLoopGroup {
                 rejectedExecutionHandler, taskQueueFactory, tailTaskQueueFactory);
     }
 
+    /**
+     * Create a new instance using the specified number of threads, the given {@link Executor} and the given
+     * {@link NioWaitStrategy}.
+     */
+
+    /**
+     * 使用指定的线程数、给定的 {@link Executor} 和给定的 {@link NioWaitStrategy} 创建新实例。
+     */
+    public NioEventLoopGroup(int nThreads, Executor executor, NioWaitStrategy waitStrategy) {
+        this(nThreads, executor, DefaultEventExecutorChooserFactory.INSTANCE, SelectorProvider.provider(),
+                DefaultSelectStrategyFactory.INSTANCE, RejectedExecutionHandlers.reject(), null, null, waitStrategy);
+    }
+
+    /**
+     * @param nThreads the number of threads that will be used by this instance.
+     * @param executor the Executor to use, or {@code null} if default one should be used.
+     * @param chooserFactory the {@link EventExecutorChooserFactory} to use.
+     * @param selectorProvider the {@link SelectorProvider} to use.
+     * @param selectStrategyFactory the {@link SelectStrategyFactory} to use.
+     * @param rejectedExecutionHandler the {@link RejectedExecutionHandler} to use.
+     * @param taskQueueFactory the {@link EventLoopTaskQueueFactory} to use for
+     *                         {@link SingleThreadEventLoop#execute(Runnable)},
+     *                         or {@code null} if default one should be used.
+     * @param tailTaskQueueFactory the {@link EventLoopTaskQueueFactory} to use for
+     *                             {@link SingleThreadEventLoop#executeAfterEventLoopIteration(Runnable)},
+     *                             or {@code null} if default one should be used.
+     * @param waitStrategy the {@link NioWaitStrategy} the event loops use when they have nothing to do.
+     */
+
+    /**
+     * @param nThreads 此实例将使用的线程数。
+     * @param executor 要使用的 Executor，或 {@code null} 如果应使用默认的。
+     * @param chooserFactory 要使用的 {@link EventExecutorChooserFactory}。
+     * @param selectorProvider 要使用的 {@link SelectorProvider}。
+     * @param selectStrategyFactory 要使用的 {@link SelectStrategyFactory}。
+     * @param rejectedExecutionHandler 要使用的 {@link RejectedExecutionHandler}。
+     * @param taskQueueFactory 用于 {@link SingleThreadEventLoop#execute(Runnable)} 的 {@link EventLoopTaskQueueFactory}，
+     *                         或 {@code null} 如果应使用默认的。
+     * @param tailTaskQueueFactory 用于 {@link SingleThreadEventLoop#executeAfterEventLoopIteration(Runnable)} 的 {@link EventLoopTaskQueueFactory}，
+     *                             或 {@code null} 如果应使用默认的。
+     * @param waitStrategy 事件循环在无事可做时使用的 {@link NioWaitStrategy}。
+     */
+    public NioEventLoopGroup(int nThreads, Executor executor, EventExecutorChooserFactory chooserFactory,
+                             SelectorProvider selectorProvider,
+                             SelectStrategyFactory selectStrategyFactory,
+                             RejectedExecutionHandler rejectedExecutionHandler,
+                             EventLoopTaskQueueFactory taskQueueFactory,
+                             EventLoopTaskQueueFactory tailTaskQueueFactory,
+                             NioWaitStrategy waitStrategy) {
+        super(nThreads, executor, chooserFactory, selectorProvider, selectStrategyFactory,
+                rejectedExecutionHandler, taskQueueFactory, tailTaskQueueFactory,
+                ObjectUtil.checkNotNull(waitStrategy, "waitStrategy"));
+    }
+
     /**
      * Sets the percentage of the desired amount of time spent for I/O in the child event loops.  The default value is
      * {@code 50}, which means the event loop will try to spend the same amount of time for I/O as for non-I/O tasks.
@@ -179,6 +245,56 @@ public class NioEventLoopGroup extends MultithreadEventLoopGroup {
         }
     }
 
+    /**
+     * Enables the adaptive ioRatio of the child event loops with the given target I/O latency, or disables it if
+     * {@code targetIoLatency} is not positive. See {@link NioEventLoop#setTargetIoLatency(long, TimeUnit)}.
+     */
+
+    /**
+     * 以给定的目标 I/O 延迟启用子事件循环的自适应 ioRatio，如果 {@code targetIoLatency} 不是正数则禁用它。
+     * 参见 {@link NioEventLoop#setTargetIoLatency(long, TimeUnit)}。
+     */
+    public void setTargetIoLatency(long targetIoLatency, TimeUnit unit) {
+        for (EventExecutor e: this) {
+            ((NioEventLoop) e).setTargetIoLatency(targetIoLatency, unit);
+        }
+    }
+
+    /**
+     * Enables or disables the instrumentation of the child event loops. See
+     * {@link NioEventLoop#setInstrumentationEnabled(boolean)}.
+     */
+
+    /**
+     * 启用或禁用子事件循环的监测。参见 {@link NioEventLoop#setInstrumentationEnabled(boolean)}。
+     */
+    public void setInstrumentationEnabled(boolean enabled) {
+        for (EventExecutor e: this) {
+            ((NioEventLoop) e).setInstrumentationEnabled(enabled);
+        }
+    }
+
+    /**
+     * Returns the {@link NioEventLoop#instrumentationSnapshot()} of every child event loop that has its
+     * instrumentation enabled. The event loops keep running while the snapshot is taken, so the values of
+     * different event loops are not taken at exactly the same time.
+     */
+
+    /**
+     * 返回每个启用了监测的子事件循环的 {@link NioEventLoop#instrumentationSnapshot()}。
+     * 获取快照时事件循环继续运行，因此不同事件循环的值并非在完全相同的时刻获取。
+     */
+    public List<EventLoopStats> instrumentationSnapshot() {
+        List<EventLoopStats> stats = new ArrayList<EventLoopStats>(executorCount());
+        for (EventExecutor e: this) {
+            EventLoopStats snapshot = ((NioEventLoop) e).instrumentationSnapshot();
+            if (snapshot != null) {
+                stats.add(snapshot);
+            }
+        }
+        return stats;
+    }
+
     /**
      * Replaces the current {@link Selector}s of the child event loops with newly created {@link Selector}s to work
      * around the  infamous epoll 100% CPU bug.
@@ -193,6 +309,74 @@ public class NioEventLoopGroup extends MultithreadEventLoopGroup {
         }
     }
 
+    /**
+     * Moves the given idle {@link Channel} from its current event loop to the least loaded event loop of this group,
+     * as judged by {@link LoadAwareEventLoopChooserFactory}. The channel stays where it is if it is not registered
+     * to an event loop of this group, if it has pending writes, or if no event loop is less loaded by more than
+     * two channels' worth. The channel is deregistered and registered again, so its handlers see a
+     * {@code channelUnregistered} / {@code channelRegistered} pair but stay active.
+     *
+     * @return a {@link Future} that is notified with the event loop the channel is registered to afterwards
+     */
+
+    /**
+     * 将给定的空闲 {@link Channel} 从其当前事件循环移动到此组中负载最低的事件循环，负载由 {@link LoadAwareEventLoopChooserFactory} 判断。
+     * 如果通道未注册到此组的事件循环、有挂起的写操作，或者没有哪个事件循环的负载低出两个通道以上，则通道保持不动。
+     * 通道会被注销并重新注册，因此其处理器会看到一对 {@code channelUnregistered} / {@code channelRegistered} 事件，但保持活跃。
+     *
+     * @return 一个 {@link Future}，通知之后通道所注册的事件循环
+     */
+    public Future<EventLoop> migrate(final Channel channel) {
+        final EventLoop current = channel.eventLoop();
+        final Promise<EventLoop> promise = current.newPromise();
+        EventLoop target = current;
+        if (current.parent() == this) {
+            long targetLoad = LoadAwareEventLoopChooserFactory.load(current);
+            for (EventExecutor e: this) {
+                long load = LoadAwareEventLoopChooserFactory.load(e);
+                if (load + MIGRATION_THRESHOLD < targetLoad) {
+                    target = (EventLoop) e;
+                    targetLoad = load;
+                }
+            }
+        }
+        if (target == current) {
+            return promise.setSuccess(current);
+        }
+
+        final EventLoop newEventLoop = target;
+        current.execute(new Runnable() {
+            @Override
+            public void run() {
+                ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+                if (!channel.isRegistered() || channel.eventLoop() != current || buffer != null && !buffer.isEmpty()) {
+                    promise.setSuccess(channel.eventLoop());
+                    return;
+                }
+                channel.deregister().addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) {
+                        if (!future.isSuccess()) {
+                            promise.setFailure(future.cause());
+                            return;
+                        }
+                        newEventLoop.register(channel).addListener(new ChannelFutureListener() {
+                            @Override
+                            public void operationComplete(ChannelFuture future) {
+                                if (future.isSuccess()) {
+                                    promise.setSuccess(newEventLoop);
+                                } else {
+                                    promise.setFailure(future.cause());
+                                }
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        return promise;
+    }
+
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
         SelectorProvider selectorProvider = (SelectorProvider) args[0];
@@ -200,6 +384,7 @@ public class NioEventLoopGroup extends MultithreadEventLoopGroup {
         RejectedExecutionHandler rejectedExecutionHandler = (RejectedExecutionHandler) args[2];
         EventLoopTaskQueueFactory taskQueueFactory = null;
         EventLoopTaskQueueFactory tailTaskQueueFactory = null;
+        NioWaitStrategy waitStrategy = NioWaitStrategy.blocking();
 
         int argsLength = args.length;
         if (argsLength > 3) {
@@ -208,8 +393,11 @@ public class NioEventLoopGroup extends MultithreadEventLoopGroup {
         if (argsLength > 4) {
             tailTaskQueueFactory = (EventLoopTaskQueueFactory) args[4];
         }
+        if (argsLength > 5) {
+            waitStrategy = (NioWaitStrategy) args[5];
+        }
         return new NioEventLoop(this, executor, selectorProvider,
                 selectStrategyFactory.newSelectStrategy(),
-                rejectedExecutionHandler, taskQueueFactory, tailTaskQueueFactory);
+                rejectedExecutionHandler, taskQueueFactory, tailTaskQueueFactory, waitStrategy);
     }
 }
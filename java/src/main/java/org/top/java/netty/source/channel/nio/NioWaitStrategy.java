@@ -0,0 +1,123 @@
+package org.top.java.netty.source.channel.nio;
+
+import io.netty.channel.SelectStrategy;
+import io.netty.util.internal.ObjectUtil;
+
+/**
+ * Decides how a {@link NioEventLoop} waits for I/O when it has nothing else to do, which is when its
+ * {@link SelectStrategy} returned {@link SelectStrategy#SELECT}.
+ * <ul>
+ *     <li>{@link #blocking()} calls {@code Selector.select(timeout)} right away. Submitting a task from another
+ *     thread has to wake up the {@link java.nio.channels.Selector}, which costs a system call on both sides.</li>
+ *     <li>{@link #busySpin()} never blocks and calls {@code Selector.selectNow()} until I/O is ready or a task is
+ *     submitted. This gives the lowest latency but burns a whole core per event loop.</li>
+ *     <li>{@link #spinYieldPark(int, int)} calls {@code Selector.selectNow()} a number of times, then yields the
+ *     CPU between further calls a number of times and finally parks in a blocking select.</li>
+ * </ul>
+ * A {@link SelectStrategy} that returns {@link SelectStrategy#BUSY_WAIT} gets a busy spin for that wait, whatever
+ * wait strategy the event loop was created with.
+ */
+
+/**
+ * 决定 {@link NioEventLoop} 在无事可做时（即其 {@link SelectStrategy} 返回 {@link SelectStrategy#SELECT} 时）如何等待 I/O。
+ * <ul>
+ *     <li>{@link #blocking()} 立即调用 {@code Selector.select(timeout)}。从其他线程提交任务时必须唤醒
+ *     {@link java.nio.channels.Selector}，这在双方都需要一次系统调用。</li>
+ *     <li>{@link #busySpin()} 从不阻塞，一直调用 {@code Selector.selectNow()} 直到 I/O 就绪或有任务提交。
+ *     这提供了最低的延迟，但每个事件循环会占满一个核心。</li>
+ *     <li>{@link #spinYieldPark(int, int)} 先调用若干次 {@code Selector.selectNow()}，然后在后续若干次调用之间让出 CPU，
+ *     最后停放在阻塞的 select 中。</li>
+ * </ul>
+ * 返回 {@link SelectStrategy#BUSY_WAIT} 的 {@link SelectStrategy} 在那次等待中会获得忙自旋，无论事件循环是用哪种等待策略创建的。
+ */
+public final class NioWaitStrategy {
+
+    private static final NioWaitStrategy BLOCKING = new NioWaitStrategy(0, 0);
+    private static final NioWaitStrategy BUSY_SPIN = new NioWaitStrategy(-1, 0);
+
+    private final int spins;
+    private final int yields;
+
+    private NioWaitStrategy(int spins, int yields) {
+        this.spins = spins;
+        this.yields = yields;
+    }
+
+    /**
+     * Returns the default strategy which blocks in {@code Selector.select(timeout)} right away.
+     */
+
+    /**
+     * 返回默认策略，它会立即阻塞在 {@code Selector.select(timeout)} 中。
+     */
+    public static NioWaitStrategy blocking() {
+        return BLOCKING;
+    }
+
+    /**
+     * Returns a strategy that never blocks and polls with {@code Selector.selectNow()} instead.
+     */
+
+    /**
+     * 返回一个从不阻塞、改用 {@code Selector.selectNow()} 轮询的策略。
+     */
+    public static NioWaitStrategy busySpin() {
+        return BUSY_SPIN;
+    }
+
+    /**
+     * Returns a strategy that polls {@code spins} times, then polls {@code yields} more times with a
+     * {@link Thread#yield()} in between and finally blocks in {@code Selector.select(timeout)}.
+     */
+
+    /**
+     * 返回一个策略，它先轮询 {@code spins} 次，然后在每次轮询之间调用 {@link Thread#yield()} 再轮询 {@code yields} 次，
+     * 最后阻塞在 {@code Selector.select(timeout)} 中。
+     */
+    public static NioWaitStrategy spinYieldPark(int spins, int yields) {
+        ObjectUtil.checkPositiveOrZero(spins, "spins");
+        ObjectUtil.checkPositiveOrZero(yields, "yields");
+        if (spins == 0 && yields == 0) {
+            return BLOCKING;
+        }
+        return new NioWaitStrategy(spins, yields);
+    }
+
+    /**
+     * Returns {@code true} if the event loop blocks in the {@link java.nio.channels.Selector} right away.
+     */
+
+    /**
+     * 如果事件循环立即阻塞在 {@link java.nio.channels.Selector} 中则返回 {@code true}。
+     */
+    boolean isBlocking() {
+        return spins == 0 && yields == 0;
+    }
+
+    /**
+     * Returns {@code true} if the event loop should keep polling after the given number of unsuccessful polls.
+     * A {@link Thread#yield()} is issued before the poll once the spins are used up.
+     */
+
+    /**
+     * 如果事件循环在给定次数的轮询失败后应继续轮询，则返回 {@code true}。自旋次数用完后，每次轮询前都会调用 {@link Thread#yield()}。
+     */
+    boolean keepPolling(int polls) {
+        if (spins < 0 || polls < spins) {
+            return true;
+        }
+        if (polls - spins < yields) {
+            Thread.yield();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        if (spins < 0) {
+            return "NioWaitStrategy(busySpin)";
+        }
+        return "NioWaitStrategy(spins: " + spins + ", yields: " + yields + ')';
+    }
+}
@@ -184,6 +184,60 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
         }
     };
 
+    /**
+     * Cumulate {@link ByteBuf}s by appending them to a ring of segments without any memory copy, and release each
+     * segment as soon as it was read. Unlike the {@link #COMPOSITE_CUMULATOR} it finds the segment of an index in
+     * constant time, and {@link ByteBuf#retainedSlice(int, int)} and {@link ByteBuf#readRetainedSlice(int)} return
+     * slices of the received buffers, so frames that span several reads, like the ones of a
+     * {@link LengthFieldBasedFrameDecoder}, are never copied. Be aware that such frames are
+     * {@link CompositeByteBuf}s.
+     */
+
+    /**
+     * 通过把 {@link ByteBuf} 追加到一个段组成的环中来累积它们，完全不做内存拷贝，并在每个段读完后立即释放它。
+     * 与 {@link #COMPOSITE_CUMULATOR} 不同，它能在常数时间内找到某个索引所在的段，并且
+     * {@link ByteBuf#retainedSlice(int, int)} 和 {@link ByteBuf#readRetainedSlice(int)} 返回的是收到的缓冲区的切片，
+     * 因此跨越多次读取的帧（例如 {@link LengthFieldBasedFrameDecoder} 的帧）永远不会被拷贝。
+     * 请注意，这样的帧是 {@link CompositeByteBuf}。
+     */
+    public static final Cumulator SLICE_CUMULATOR = new Cumulator() {
+        @Override
+        public ByteBuf cumulate(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+            if (!cumulation.isReadable()) {
+                cumulation.release();
+                return in;
+            }
+            SliceRingByteBuf ring = null;
+            try {
+                if (cumulation instanceof SliceRingByteBuf && cumulation.refCnt() == 1) {
+                    ring = (SliceRingByteBuf) cumulation;
+                    // Writer index must equal capacity if we are going to append new segments
+                    // 如果要追加新段，写索引必须等于容量
+                    if (ring.writerIndex() != ring.capacity()) {
+                        ring.capacity(ring.writerIndex());
+                    }
+                } else {
+                    ring = new SliceRingByteBuf(alloc);
+                    ring.addFlattenedSegments(cumulation);
+                }
+                ring.addSegment(in);
+                in = null;
+                return ring;
+            } finally {
+                if (in != null) {
+                    // We must release if the ownership was not transferred as otherwise it may produce a leak
+                    // 如果所有权未转移，我们必须释放，否则可能会导致泄漏
+                    in.release();
+                    // Also release any new buffer allocated if we're not returning it
+                    // 如果未返回新分配的缓冲区，则释放它
+                    if (ring != null && ring != cumulation) {
+                        ring.release();
+                    }
+                }
+            }
+        }
+    };
+
     private static final byte STATE_INIT = 0;
     private static final byte STATE_CALLING_CHILD_DECODE = 1;
     private static final byte STATE_HANDLER_REMOVED_PENDING = 2;
@@ -3,7 +3,6 @@ package org.top.java.netty.source.codec;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.*;
 
 import java.nio.ByteOrder;
@@ -289,7 +288,7 @@ import static io.netty.util.internal.ObjectUtil.*;
  * </pre>
  * @see LengthFieldPrepender
  */
-public class LengthFieldBasedFrameDecoder extends io.netty.handler.codec.ByteToMessageDecoder {
+public class LengthFieldBasedFrameDecoder extends ByteToMessageDecoder {
 
     private final ByteOrder byteOrder;
     private final int maxFrameLength;
@@ -690,11 +689,13 @@ public class LengthFieldBasedFrameDecoder extends io.netty.handler.codec.ByteToM
     }
 
     /**
-     * Extract the sub-region of the specified buffer.
+     * Extract the sub-region of the specified buffer. With the {@link ByteToMessageDecoder#SLICE_CUMULATOR} the
+     * frame is built from slices of the received buffers, even if it spans several reads.
      */
 
     /**
-     * 提取指定缓冲区的子区域。
+     * 提取指定缓冲区的子区域。使用 {@link ByteToMessageDecoder#SLICE_CUMULATOR} 时，即使帧跨越多次读取，
+     * 它也由收到的缓冲区的切片构成。
      */
     protected ByteBuf extractFrame(ChannelHandlerContext ctx, ByteBuf buffer, int index, int length) {
         return buffer.retainedSlice(index, length);
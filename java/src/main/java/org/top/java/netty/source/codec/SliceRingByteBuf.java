@@ -0,0 +1,1029 @@
+package org.top.java.netty.source.codec;
+
+import io.netty.buffer.AbstractReferenceCountedByteBuf;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ByteProcessor;
+import io.netty.util.internal.EmptyArrays;
+import io.netty.util.internal.RecyclableArrayList;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.util.Collections;
+
+import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
+import static java.lang.Integer.MAX_VALUE;
+
+/**
+ * The cumulation of {@link ByteToMessageDecoder#SLICE_CUMULATOR}: a ring of the received buffers that are appended
+ * without copying and released once they were read. Every segment covers a range of absolute offsets that never
+ * change, so discarding read bytes only moves the base offset, and a page table that maps every {@code 1 << PAGE_SHIFT}
+ * bytes to the first segment overlapping them finds the segment of an index in constant time as long as the reads are
+ * not much smaller than a page. {@link #retainedSlice(int, int)} returns retained slices of the segments themselves,
+ * so frames do not keep the cumulation alive and do not copy bytes either.
+ */
+
+/**
+ * {@link ByteToMessageDecoder#SLICE_CUMULATOR} 的累积缓冲区：由收到的缓冲区组成的环，追加时不做拷贝，读完后即释放。
+ * 每个段覆盖一段永不改变的绝对偏移量，因此丢弃已读字节只需移动基准偏移量；页表把每 {@code 1 << PAGE_SHIFT}
+ * 个字节映射到与之重叠的第一个段，只要每次读取不比一页小太多，就能在常数时间内找到某个索引所在的段。
+ * {@link #retainedSlice(int, int)} 返回段本身的保留切片，因此帧既不会让累积缓冲区保持存活，也不会拷贝字节。
+ */
+final class SliceRingByteBuf extends AbstractReferenceCountedByteBuf {
+
+    private static final ByteBuffer EMPTY_NIO_BUFFER = Unpooled.EMPTY_BUFFER.nioBuffer();
+    private static final int PAGE_SHIFT = 10;
+    private static final int INITIAL_SEGMENTS = 16;
+    private static final int INITIAL_PAGES = 64;
+
+    private final ByteBufAllocator alloc;
+
+    // Ring of the segments and, per slot, the absolute offset after the segment and the value that turns an absolute
+    // offset into an index of the segment.
+    // 段组成的环，以及每个槽位上该段之后的绝对偏移量和把绝对偏移量转换为段内索引的差值。
+    private ByteBuf[] segments = new ByteBuf[INITIAL_SEGMENTS];
+    private int[] ends = new int[INITIAL_SEGMENTS];
+    private int[] adjustments = new int[INITIAL_SEGMENTS];
+    private int head;
+    private int size;
+
+    // Ring of the slot of the first segment overlapping each live page, indexed by the page modulo its length.
+    // 每个存活页中与之重叠的第一个段的槽位组成的环，以页号对其长度取模作为索引。
+    private int[] pages = new int[INITIAL_PAGES];
+    private int nextPage;
+
+    // The absolute offset of index 0 and the number of bytes in all segments.
+    // 索引 0 的绝对偏移量以及所有段中的字节数。
+    private int base;
+    private int capacity;
+
+    SliceRingByteBuf(ByteBufAllocator alloc) {
+        super(MAX_VALUE);
+        this.alloc = alloc;
+    }
+
+    /**
+     * Appends the readable bytes of the given buffer and takes over its ownership, unless an exception is thrown.
+     */
+
+    /**
+     * 追加给定缓冲区的可读字节并接管其所有权，除非抛出异常。
+     */
+    void addSegment(ByteBuf buffer) {
+        int length = buffer.readableBytes();
+        if (length == 0) {
+            buffer.release();
+            return;
+        }
+        int writerIndex = writerIndex();
+        addSegment0(buffer, buffer.readerIndex(), length);
+        if (writerIndex == capacity - length) {
+            writerIndex(capacity);
+        }
+    }
+
+    /**
+     * Appends the readable bytes of the given buffer and takes over its ownership. If it is a {@link SliceRingByteBuf}
+     * itself, it is shared with someone else, so retained slices of its segments are appended and it is released.
+     */
+
+    /**
+     * 追加给定缓冲区的可读字节并接管其所有权。如果它本身是 {@link SliceRingByteBuf}，说明它被其他人共享，
+     * 因此追加其各段的保留切片，然后释放它。
+     */
+    void addFlattenedSegments(ByteBuf buffer) {
+        if (!(buffer instanceof SliceRingByteBuf)) {
+            addSegment(buffer);
+            return;
+        }
+        SliceRingByteBuf ring = (SliceRingByteBuf) buffer;
+        int index = ring.readerIndex();
+        int length = ring.readableBytes();
+        if (length > 0) {
+            int slot = ring.slotOf(ring.base + index);
+            while (length > 0) {
+                int abs = ring.base + index;
+                int localLength = Math.min(length, ring.ends[slot] - abs);
+                ByteBuf slice = ring.segments[slot].retainedSlice(abs + ring.adjustments[slot], localLength);
+                try {
+                    addSegment(slice);
+                } catch (Throwable cause) {
+                    slice.release();
+                    throw cause;
+                }
+                index += localLength;
+                length -= localLength;
+                slot = (slot + 1) & (ring.segments.length - 1);
+            }
+        }
+        ring.release();
+    }
+
+    private void addSegment0(ByteBuf buffer, int readerIndex, int length) {
+        if (length > MAX_VALUE - base - capacity) {
+            if (length > maxCapacity() - capacity) {
+                throw new IllegalArgumentException(
+                        "Can't increase capacity by " + length + " to more than " + maxCapacity());
+            }
+            // The absolute offsets would overflow, so let them start at 0 again.
+            // 绝对偏移量将会溢出，因此让它们重新从 0 开始。
+            rebase();
+        }
+        if (size == segments.length) {
+            growSegments();
+        }
+        int start = base + capacity;
+        int end = start + length;
+        int pagesNeeded = ((end - 1) >>> PAGE_SHIFT) - (base >>> PAGE_SHIFT) + 1;
+        if (pagesNeeded > pages.length) {
+            pages = new int[findNextPositivePowerOfTwo(pagesNeeded)];
+            indexPages();
+        }
+        int slot = (head + size) & (segments.length - 1);
+        segments[slot] = buffer;
+        ends[slot] = end;
+        adjustments[slot] = readerIndex - start;
+        size++;
+        capacity += length;
+        indexPages(slot, end);
+    }
+
+    private void growSegments() {
+        int length = segments.length;
+        ByteBuf[] newSegments = new ByteBuf[length << 1];
+        int[] newEnds = new int[length << 1];
+        int[] newAdjustments = new int[length << 1];
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) & (length - 1);
+            newSegments[i] = segments[slot];
+            newEnds[i] = ends[slot];
+            newAdjustments[i] = adjustments[slot];
+        }
+        segments = newSegments;
+        ends = newEnds;
+        adjustments = newAdjustments;
+        head = 0;
+        indexPages();
+    }
+
+    private void rebase() {
+        int mask = segments.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) & mask;
+            ends[slot] -= base;
+            adjustments[slot] += base;
+        }
+        base = 0;
+        indexPages();
+    }
+
+    private void indexPages() {
+        nextPage = base >>> PAGE_SHIFT;
+        int mask = segments.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) & mask;
+            indexPages(slot, ends[slot]);
+        }
+    }
+
+    private void indexPages(int slot, int end) {
+        int lastPage = (end - 1) >>> PAGE_SHIFT;
+        int pageMask = pages.length - 1;
+        for (; nextPage <= lastPage; nextPage++) {
+            pages[nextPage & pageMask] = slot;
+        }
+    }
+
+    /**
+     * Returns the slot of the segment that contains the given absolute offset, which must be in bounds.
+     */
+
+    /**
+     * 返回包含给定绝对偏移量的段的槽位，该偏移量必须在边界内。
+     */
+    private int slotOf(int abs) {
+        int slot = pages[(abs >>> PAGE_SHIFT) & (pages.length - 1)];
+        int mask = segments.length - 1;
+        while (ends[slot] <= abs) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Releases the segments that end before the given index, and moves the indexes so it becomes index 0.
+     */
+
+    /**
+     * 释放在给定索引之前结束的段，并移动索引使其成为索引 0。
+     */
+    private void discard(int index) {
+        base += index;
+        capacity -= index;
+        int mask = segments.length - 1;
+        while (size > 0 && ends[head] <= base) {
+            segments[head].release();
+            segments[head] = null;
+            head = (head + 1) & mask;
+            size--;
+        }
+        if (size == 0) {
+            head = 0;
+            base = 0;
+            nextPage = 0;
+        } else {
+            // The first live page may still point to a released slot that is going to be reused.
+            // 第一个存活页可能仍指向一个已释放且将被重用的槽位。
+            pages[(base >>> PAGE_SHIFT) & (pages.length - 1)] = head;
+        }
+    }
+
+    @Override
+    public ByteBuf discardReadBytes() {
+        int readerIndex = readerIndex();
+        if (readerIndex == 0) {
+            ensureAccessible();
+            return this;
+        }
+        int writerIndex = writerIndex();
+        discard(readerIndex);
+        setIndex(0, writerIndex - readerIndex);
+        adjustMarkers(readerIndex);
+        return this;
+    }
+
+    @Override
+    public ByteBuf discardSomeReadBytes() {
+        // Discarding never copies, so there is no reason to keep any read bytes.
+        // 丢弃从不拷贝，因此没有理由保留任何已读字节。
+        return discardReadBytes();
+    }
+
+    @Override
+    public ByteBuf retainedSlice() {
+        return retainedSlice(readerIndex(), readableBytes());
+    }
+
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        checkIndex(index, length);
+        if (length == 0) {
+            return Unpooled.EMPTY_BUFFER;
+        }
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + length <= ends[slot]) {
+            return segments[slot].retainedSlice(abs + adjustments[slot], length);
+        }
+        CompositeByteBuf frame = alloc.compositeBuffer(MAX_VALUE);
+        try {
+            int mask = segments.length - 1;
+            while (length > 0) {
+                int localLength = Math.min(length, ends[slot] - abs);
+                frame.addComponent(true, segments[slot].retainedSlice(abs + adjustments[slot], localLength));
+                abs += localLength;
+                length -= localLength;
+                slot = (slot + 1) & mask;
+            }
+            return frame;
+        } catch (Throwable cause) {
+            frame.release();
+            throw cause;
+        }
+    }
+
+    @Override
+    public int forEachByte(ByteProcessor processor) {
+        return forEachByte(readerIndex(), readableBytes(), processor);
+    }
+
+    @Override
+    public int forEachByte(int index, int length, ByteProcessor processor) {
+        checkIndex(index, length);
+        if (length == 0) {
+            return -1;
+        }
+        int abs = base + index;
+        int slot = slotOf(abs);
+        int mask = segments.length - 1;
+        while (length > 0) {
+            int localLength = Math.min(length, ends[slot] - abs);
+            int found = segments[slot].forEachByte(abs + adjustments[slot], localLength, processor);
+            if (found != -1) {
+                return found - adjustments[slot] - base;
+            }
+            abs += localLength;
+            length -= localLength;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public ByteBuf capacity(int newCapacity) {
+        checkNewCapacity(newCapacity);
+        if (newCapacity > capacity) {
+            int length = newCapacity - capacity;
+            ByteBuf padding = alloc.buffer(length, length);
+            try {
+                addSegment0(padding, 0, length);
+            } catch (Throwable cause) {
+                padding.release();
+                throw cause;
+            }
+        } else if (newCapacity < capacity) {
+            int mask = segments.length - 1;
+            int trim = capacity - newCapacity;
+            while (trim > 0) {
+                int slot = (head + size - 1) & mask;
+                int start = size == 1 ? base : ends[(slot - 1) & mask];
+                int length = ends[slot] - start;
+                ByteBuf segment = segments[slot];
+                if (length <= trim) {
+                    segments[slot] = null;
+                    size--;
+                    segment.release();
+                } else {
+                    segments[slot] = segment.retainedSlice(start + adjustments[slot], length - trim);
+                    ends[slot] -= trim;
+                    adjustments[slot] = -start;
+                    segment.release();
+                    length = trim;
+                }
+                capacity -= length;
+                trim -= length;
+            }
+            // Pages after the new end are indexed again by the next segment.
+            // 新末尾之后的页会由下一个段重新建立索引。
+            nextPage = capacity == 0 ? base >>> PAGE_SHIFT : ((base + capacity - 1) >>> PAGE_SHIFT) + 1;
+            setIndex(Math.min(readerIndex(), newCapacity), Math.min(writerIndex(), newCapacity));
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBufAllocator alloc() {
+        return alloc;
+    }
+
+    @Override
+    @Deprecated
+    public ByteOrder order() {
+        return ByteOrder.BIG_ENDIAN;
+    }
+
+    @Override
+    public ByteBuf unwrap() {
+        return null;
+    }
+
+    @Override
+    public boolean isDirect() {
+        if (size == 0) {
+            return false;
+        }
+        int mask = segments.length - 1;
+        for (int i = 0; i < size; i++) {
+            if (!segments[(head + i) & mask].isDirect()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean hasArray() {
+        switch (size) {
+        case 0:
+            return true;
+        case 1:
+            return segments[head].hasArray();
+        default:
+            return false;
+        }
+    }
+
+    @Override
+    public byte[] array() {
+        switch (size) {
+        case 0:
+            return EmptyArrays.EMPTY_BYTES;
+        case 1:
+            return segments[head].array();
+        default:
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public int arrayOffset() {
+        switch (size) {
+        case 0:
+            return 0;
+        case 1:
+            return segments[head].arrayOffset() + base + adjustments[head];
+        default:
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public boolean hasMemoryAddress() {
+        switch (size) {
+        case 0:
+            return Unpooled.EMPTY_BUFFER.hasMemoryAddress();
+        case 1:
+            return segments[head].hasMemoryAddress();
+        default:
+            return false;
+        }
+    }
+
+    @Override
+    public long memoryAddress() {
+        switch (size) {
+        case 0:
+            return Unpooled.EMPTY_BUFFER.memoryAddress();
+        case 1:
+            return segments[head].memoryAddress() + base + adjustments[head];
+        default:
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    protected byte _getByte(int index) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        return segments[slot].getByte(abs + adjustments[slot]);
+    }
+
+    @Override
+    protected short _getShort(int index) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 2 <= ends[slot]) {
+            return segments[slot].getShort(abs + adjustments[slot]);
+        }
+        return (short) ((_getByte(index) & 0xff) << 8 | _getByte(index + 1) & 0xff);
+    }
+
+    @Override
+    protected short _getShortLE(int index) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 2 <= ends[slot]) {
+            return segments[slot].getShortLE(abs + adjustments[slot]);
+        }
+        return (short) (_getByte(index) & 0xff | (_getByte(index + 1) & 0xff) << 8);
+    }
+
+    @Override
+    protected int _getUnsignedMedium(int index) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 3 <= ends[slot]) {
+            return segments[slot].getUnsignedMedium(abs + adjustments[slot]);
+        }
+        return (_getShort(index) & 0xffff) << 8 | _getByte(index + 2) & 0xff;
+    }
+
+    @Override
+    protected int _getUnsignedMediumLE(int index) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 3 <= ends[slot]) {
+            return segments[slot].getUnsignedMediumLE(abs + adjustments[slot]);
+        }
+        return _getShortLE(index) & 0xffff | (_getByte(index + 2) & 0xff) << 16;
+    }
+
+    @Override
+    protected int _getInt(int index) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 4 <= ends[slot]) {
+            return segments[slot].getInt(abs + adjustments[slot]);
+        }
+        return (_getShort(index) & 0xffff) << 16 | _getShort(index + 2) & 0xffff;
+    }
+
+    @Override
+    protected int _getIntLE(int index) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 4 <= ends[slot]) {
+            return segments[slot].getIntLE(abs + adjustments[slot]);
+        }
+        return _getShortLE(index) & 0xffff | (_getShortLE(index + 2) & 0xffff) << 16;
+    }
+
+    @Override
+    protected long _getLong(int index) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 8 <= ends[slot]) {
+            return segments[slot].getLong(abs + adjustments[slot]);
+        }
+        return (_getInt(index) & 0xffffffffL) << 32 | _getInt(index + 4) & 0xffffffffL;
+    }
+
+    @Override
+    protected long _getLongLE(int index) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 8 <= ends[slot]) {
+            return segments[slot].getLongLE(abs + adjustments[slot]);
+        }
+        return _getIntLE(index) & 0xffffffffL | (_getIntLE(index + 4) & 0xffffffffL) << 32;
+    }
+
+    @Override
+    protected void _setByte(int index, int value) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        segments[slot].setByte(abs + adjustments[slot], value);
+    }
+
+    @Override
+    protected void _setShort(int index, int value) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 2 <= ends[slot]) {
+            segments[slot].setShort(abs + adjustments[slot], value);
+        } else {
+            _setByte(index, (byte) (value >>> 8));
+            _setByte(index + 1, (byte) value);
+        }
+    }
+
+    @Override
+    protected void _setShortLE(int index, int value) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 2 <= ends[slot]) {
+            segments[slot].setShortLE(abs + adjustments[slot], value);
+        } else {
+            _setByte(index, (byte) value);
+            _setByte(index + 1, (byte) (value >>> 8));
+        }
+    }
+
+    @Override
+    protected void _setMedium(int index, int value) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 3 <= ends[slot]) {
+            segments[slot].setMedium(abs + adjustments[slot], value);
+        } else {
+            _setShort(index, (short) (value >> 8));
+            _setByte(index + 2, (byte) value);
+        }
+    }
+
+    @Override
+    protected void _setMediumLE(int index, int value) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 3 <= ends[slot]) {
+            segments[slot].setMediumLE(abs + adjustments[slot], value);
+        } else {
+            _setShortLE(index, (short) value);
+            _setByte(index + 2, (byte) (value >>> 16));
+        }
+    }
+
+    @Override
+    protected void _setInt(int index, int value) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 4 <= ends[slot]) {
+            segments[slot].setInt(abs + adjustments[slot], value);
+        } else {
+            _setShort(index, (short) (value >>> 16));
+            _setShort(index + 2, (short) value);
+        }
+    }
+
+    @Override
+    protected void _setIntLE(int index, int value) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 4 <= ends[slot]) {
+            segments[slot].setIntLE(abs + adjustments[slot], value);
+        } else {
+            _setShortLE(index, (short) value);
+            _setShortLE(index + 2, (short) (value >>> 16));
+        }
+    }
+
+    @Override
+    protected void _setLong(int index, long value) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 8 <= ends[slot]) {
+            segments[slot].setLong(abs + adjustments[slot], value);
+        } else {
+            _setInt(index, (int) (value >>> 32));
+            _setInt(index + 4, (int) value);
+        }
+    }
+
+    @Override
+    protected void _setLongLE(int index, long value) {
+        int abs = base + index;
+        int slot = slotOf(abs);
+        if (abs + 8 <= ends[slot]) {
+            segments[slot].setLongLE(abs + adjustments[slot], value);
+        } else {
+            _setIntLE(index, (int) value);
+            _setIntLE(index + 4, (int) (value >>> 32));
+        }
+    }
+
+    @Override
+    public ByteBuf getBytes(int index, ByteBuf dst, int dstIndex, int length) {
+        checkDstIndex(index, length, dstIndex, dst.capacity());
+        if (length == 0) {
+            return this;
+        }
+        int abs = base + index;
+        int slot = slotOf(abs);
+        int mask = segments.length - 1;
+        while (length > 0) {
+            int localLength = Math.min(length, ends[slot] - abs);
+            segments[slot].getBytes(abs + adjustments[slot], dst, dstIndex, localLength);
+            abs += localLength;
+            dstIndex += localLength;
+            length -= localLength;
+            slot = (slot + 1) & mask;
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf getBytes(int index, byte[] dst, int dstIndex, int length) {
+        checkDstIndex(index, length, dstIndex, dst.length);
+        if (length == 0) {
+            return this;
+        }
+        int abs = base + index;
+        int slot = slotOf(abs);
+        int mask = segments.length - 1;
+        while (length > 0) {
+            int localLength = Math.min(length, ends[slot] - abs);
+            segments[slot].getBytes(abs + adjustments[slot], dst, dstIndex, localLength);
+            abs += localLength;
+            dstIndex += localLength;
+            length -= localLength;
+            slot = (slot + 1) & mask;
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf getBytes(int index, ByteBuffer dst) {
+        int limit = dst.limit();
+        int length = dst.remaining();
+        checkIndex(index, length);
+        if (length == 0) {
+            return this;
+        }
+        int abs = base + index;
+        int slot = slotOf(abs);
+        int mask = segments.length - 1;
+        try {
+            while (length > 0) {
+                int localLength = Math.min(length, ends[slot] - abs);
+                dst.limit(dst.position() + localLength);
+                segments[slot].getBytes(abs + adjustments[slot], dst);
+                abs += localLength;
+                length -= localLength;
+                slot = (slot + 1) & mask;
+            }
+        } finally {
+            dst.limit(limit);
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf getBytes(int index, OutputStream out, int length) throws IOException {
+        checkIndex(index, length);
+        if (length == 0) {
+            return this;
+        }
+        int abs = base + index;
+        int slot = slotOf(abs);
+        int mask = segments.length - 1;
+        while (length > 0) {
+            int localLength = Math.min(length, ends[slot] - abs);
+            segments[slot].getBytes(abs + adjustments[slot], out, localLength);
+            abs += localLength;
+            length -= localLength;
+            slot = (slot + 1) & mask;
+        }
+        return this;
+    }
+
+    @Override
+    public int getBytes(int index, GatheringByteChannel out, int length) throws IOException {
+        if (nioBufferCount() == 1) {
+            return out.write(internalNioBuffer(index, length));
+        }
+        long writtenBytes = out.write(nioBuffers(index, length));
+        return writtenBytes > MAX_VALUE ? MAX_VALUE : (int) writtenBytes;
+    }
+
+    @Override
+    public int getBytes(int index, FileChannel out, long position, int length) throws IOException {
+        if (nioBufferCount() == 1) {
+            return out.write(internalNioBuffer(index, length), position);
+        }
+        long writtenBytes = 0;
+        for (ByteBuffer buf : nioBuffers(index, length)) {
+            writtenBytes += out.write(buf, position + writtenBytes);
+        }
+        return writtenBytes > MAX_VALUE ? MAX_VALUE : (int) writtenBytes;
+    }
+
+    @Override
+    public ByteBuf setBytes(int index, ByteBuf src, int srcIndex, int length) {
+        checkSrcIndex(index, length, srcIndex, src.capacity());
+        if (length == 0) {
+            return this;
+        }
+        int abs = base + index;
+        int slot = slotOf(abs);
+        int mask = segments.length - 1;
+        while (length > 0) {
+            int localLength = Math.min(length, ends[slot] - abs);
+            segments[slot].setBytes(abs + adjustments[slot], src, srcIndex, localLength);
+            abs += localLength;
+            srcIndex += localLength;
+            length -= localLength;
+            slot = (slot + 1) & mask;
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf setBytes(int index, byte[] src, int srcIndex, int length) {
+        checkSrcIndex(index, length, srcIndex, src.length);
+        if (length == 0) {
+            return this;
+        }
+        int abs = base + index;
+        int slot = slotOf(abs);
+        int mask = segments.length - 1;
+        while (length > 0) {
+            int localLength = Math.min(length, ends[slot] - abs);
+            segments[slot].setBytes(abs + adjustments[slot], src, srcIndex, localLength);
+            abs += localLength;
+            srcIndex += localLength;
+            length -= localLength;
+            slot = (slot + 1) & mask;
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf setBytes(int index, ByteBuffer src) {
+        int limit = src.limit();
+        int length = src.remaining();
+        checkIndex(index, length);
+        if (length == 0) {
+            return this;
+        }
+        int abs = base + index;
+        int slot = slotOf(abs);
+        int mask = segments.length - 1;
+        try {
+            while (length > 0) {
+                int localLength = Math.min(length, ends[slot] - abs);
+                src.limit(src.position() + localLength);
+                segments[slot].setBytes(abs + adjustments[slot], src);
+                abs += localLength;
+                length -= localLength;
+                slot = (slot + 1) & mask;
+            }
+        } finally {
+            src.limit(limit);
+        }
+        return this;
+    }
+
+    @Override
+    public int setBytes(int index, InputStream in, int length) throws IOException {
+        checkIndex(index, length);
+        if (length == 0) {
+            return in.read(EmptyArrays.EMPTY_BYTES);
+        }
+        int abs = base + index;
+        int slot = slotOf(abs);
+        int mask = segments.length - 1;
+        int readBytes = 0;
+        do {
+            int localLength = Math.min(length, ends[slot] - abs);
+            int localReadBytes = segments[slot].setBytes(abs + adjustments[slot], in, localLength);
+            if (localReadBytes < 0) {
+                return readBytes == 0 ? -1 : readBytes;
+            }
+            abs += localReadBytes;
+            length -= localReadBytes;
+            readBytes += localReadBytes;
+            if (localReadBytes == localLength) {
+                slot = (slot + 1) & mask;
+            }
+        } while (length > 0);
+        return readBytes;
+    }
+
+    @Override
+    public int setBytes(int index, ScatteringByteChannel in, int length) throws IOException {
+        checkIndex(index, length);
+        if (length == 0) {
+            return in.read(EMPTY_NIO_BUFFER);
+        }
+        int abs = base + index;
+        int slot = slotOf(abs);
+        int mask = segments.length - 1;
+        int readBytes = 0;
+        do {
+            int localLength = Math.min(length, ends[slot] - abs);
+            int localReadBytes = segments[slot].setBytes(abs + adjustments[slot], in, localLength);
+            if (localReadBytes == 0) {
+                break;
+            }
+            if (localReadBytes < 0) {
+                return readBytes == 0 ? -1 : readBytes;
+            }
+            abs += localReadBytes;
+            length -= localReadBytes;
+            readBytes += localReadBytes;
+            if (localReadBytes == localLength) {
+                slot = (slot + 1) & mask;
+            }
+        } while (length > 0);
+        return readBytes;
+    }
+
+    @Override
+    public int setBytes(int index, FileChannel in, long position, int length) throws IOException {
+        checkIndex(index, length);
+        if (length == 0) {
+            return in.read(EMPTY_NIO_BUFFER, position);
+        }
+        int abs = base + index;
+        int slot = slotOf(abs);
+        int mask = segments.length - 1;
+        int readBytes = 0;
+        do {
+            int localLength = Math.min(length, ends[slot] - abs);
+            int localReadBytes = segments[slot].setBytes(
+                    abs + adjustments[slot], in, position + readBytes, localLength);
+            if (localReadBytes == 0) {
+                break;
+            }
+            if (localReadBytes < 0) {
+                return readBytes == 0 ? -1 : readBytes;
+            }
+            abs += localReadBytes;
+            length -= localReadBytes;
+            readBytes += localReadBytes;
+            if (localReadBytes == localLength) {
+                slot = (slot + 1) & mask;
+            }
+        } while (length > 0);
+        return readBytes;
+    }
+
+    @Override
+    public ByteBuf copy(int index, int length) {
+        checkIndex(index, length);
+        ByteBuf dst = isDirect() ? alloc.directBuffer(length) : alloc.heapBuffer(length);
+        try {
+            getBytes(index, dst, 0, length);
+            return dst.writerIndex(length);
+        } catch (Throwable cause) {
+            dst.release();
+            throw cause;
+        }
+    }
+
+    @Override
+    public int nioBufferCount() {
+        switch (size) {
+        case 0:
+            return 1;
+        case 1:
+            return segments[head].nioBufferCount();
+        default:
+            int count = 0;
+            int mask = segments.length - 1;
+            for (int i = 0; i < size; i++) {
+                count += segments[(head + i) & mask].nioBufferCount();
+            }
+            return count;
+        }
+    }
+
+    @Override
+    public ByteBuffer internalNioBuffer(int index, int length) {
+        switch (size) {
+        case 0:
+            return EMPTY_NIO_BUFFER;
+        case 1:
+            checkIndex(index, length);
+            return segments[head].internalNioBuffer(base + index + adjustments[head], length);
+        default:
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public ByteBuffer nioBuffer(int index, int length) {
+        checkIndex(index, length);
+        if (size == 0) {
+            return EMPTY_NIO_BUFFER;
+        }
+        if (size == 1 && segments[head].nioBufferCount() == 1) {
+            return segments[head].nioBuffer(base + index + adjustments[head], length);
+        }
+        ByteBuffer[] buffers = nioBuffers(index, length);
+        if (buffers.length == 1) {
+            return buffers[0];
+        }
+        ByteBuffer merged = ByteBuffer.allocate(length).order(order());
+        for (ByteBuffer buf: buffers) {
+            merged.put(buf);
+        }
+        merged.flip();
+        return merged;
+    }
+
+    @Override
+    public ByteBuffer[] nioBuffers(int index, int length) {
+        checkIndex(index, length);
+        if (length == 0) {
+            return new ByteBuffer[] { EMPTY_NIO_BUFFER };
+        }
+        RecyclableArrayList buffers = RecyclableArrayList.newInstance(size);
+        try {
+            int abs = base + index;
+            int slot = slotOf(abs);
+            int mask = segments.length - 1;
+            while (length > 0) {
+                ByteBuf segment = segments[slot];
+                int localLength = Math.min(length, ends[slot] - abs);
+                switch (segment.nioBufferCount()) {
+                case 0:
+                    throw new UnsupportedOperationException();
+                case 1:
+                    buffers.add(segment.nioBuffer(abs + adjustments[slot], localLength));
+                    break;
+                default:
+                    Collections.addAll(buffers, segment.nioBuffers(abs + adjustments[slot], localLength));
+                }
+                abs += localLength;
+                length -= localLength;
+                slot = (slot + 1) & mask;
+            }
+            return buffers.toArray(new ByteBuffer[0]);
+        } finally {
+            buffers.recycle();
+        }
+    }
+
+    @Override
+    protected void deallocate() {
+        int mask = segments.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) & mask;
+            segments[slot].release();
+            segments[slot] = null;
+        }
+        size = 0;
+        capacity = 0;
+    }
+
+    @Override
+    public String toString() {
+        String result = super.toString();
+        result = result.substring(0, result.length() - 1);
+        return result + ", segments: " + size + ')';
+    }
+}
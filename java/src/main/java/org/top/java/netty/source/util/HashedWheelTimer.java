@@ -7,11 +7,15 @@ import static io.netty.util.internal.ObjectUtil.checkNotNull;
 
 import org.top.java.netty.source.util.concurrent.ImmediateExecutor;
 import org.top.java.netty.source.util.internal.PlatformDependent;
+import org.top.java.netty.source.util.internal.SystemPropertyUtil;
 import org.top.java.netty.source.util.internal.logging.InternalLogger;
 import org.top.java.netty.source.util.internal.logging.InternalLoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
@@ -24,6 +28,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import static io.netty.util.internal.StringUtil.simpleClassName;
 
@@ -51,6 +56,16 @@ import static io.netty.util.internal.StringUtil.simpleClassName;
  * (i.e. the size of the wheel) is 512.  You could specify a larger value
  * if you are going to schedule a lot of timeouts.
  *
+ * <h3>Hierarchical Wheels</h3>
+ *
+ * By default a timeout that is further away than one rotation stays in its bucket and is visited once per
+ * rotation until its remaining rounds reach zero, so the cost of a tick grows with the number of far away
+ * timeouts.  When more than one wheel level is configured (see the {@code levels} constructor argument or the
+ * {@code io.netty.hashedWheelTimer.levels} system property) every level {@code L} above the first has the same
+ * number of buckets, each spanning {@code ticksPerWheel^L} ticks.  A far away timeout is parked on the lowest level
+ * that can hold it and is cascaded down one level when the tick range of its bucket begins, so a tick only touches
+ * the timeouts that expire in it plus the timeouts of at most one bucket per level.
+ *
  * <h3>Do not create many instances.</h3>
  *
  * {@link HashedWheelTimer} creates a new thread whenever it is instantiated and
@@ -82,6 +97,13 @@ import static io.netty.util.internal.StringUtil.simpleClassName;
  *
  * {@link HashedWheelTimer}维护一个称为“轮”的数据结构。简单来说，轮是一个{@link TimerTask}的哈希表，其哈希函数是“任务的截止时间”。默认的每轮滴答数（即轮的大小）为512。如果你计划调度大量超时任务，可以指定一个更大的值。
  *
+ * <h3>分层时间轮</h3>
+ *
+ * 默认情况下，超过一轮的超时会留在它的桶中，每轮被访问一次，直到剩余轮数变为零，因此一次滴答的开销会随远期超时的数量增长。
+ * 当配置了多于一层的时间轮时（参见构造函数的 {@code levels} 参数或 {@code io.netty.hashedWheelTimer.levels} 系统属性），
+ * 第一层之上的每一层 {@code L} 都有相同数量的桶，每个桶覆盖 {@code ticksPerWheel^L} 个滴答。远期超时会被放在能容纳它的最低层，
+ * 并在其所在桶的滴答范围开始时向下级联一层，因此一次滴答只会触及在此滴答到期的超时以及每层最多一个桶中的超时。
+ *
  * <h3>不要创建多个实例。</h3>
  *
  * {@link HashedWheelTimer}在每次实例化并启动时都会创建一个新线程。因此，你应该确保只创建一个实例并在整个应用程序中共享它。一个常见的错误是为每个连接创建一个新实例，这会导致你的应用程序无响应。
@@ -105,6 +127,8 @@ public class HashedWheelTimer implements Timer {
     private static final AtomicBoolean WARNED_TOO_MANY_INSTANCES = new AtomicBoolean();
     private static final int INSTANCE_COUNT_LIMIT = 64;
     private static final long MILLISECOND_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int DEFAULT_LEVELS =
+            Math.max(1, SystemPropertyUtil.getInt("io.netty.hashedWheelTimer.levels", 1));
     private static final ResourceLeakDetector<HashedWheelTimer> leakDetector = ResourceLeakDetectorFactory.instance()
             .newResourceLeakDetector(HashedWheelTimer.class, 1);
 
@@ -124,6 +148,10 @@ public class HashedWheelTimer implements Timer {
     private final long tickDuration;
     private final HashedWheelBucket[] wheel;
     private final int mask;
+    private final int wheelBits;
+    // Levels above the first one, only non-empty if the timer runs in hierarchical mode.
+    // 第一层之上的各层，仅在计时器以分层模式运行时非空。
+    private final HashedWheelBucket[][] overflowWheels;
     private final CountDownLatch startTimeInitialized = new CountDownLatch(1);
     private final Queue<HashedWheelTimeout> timeouts = PlatformDependent.newMpscQueue();
     private final Queue<HashedWheelTimeout> cancelledTimeouts = PlatformDependent.newMpscQueue();
@@ -394,11 +422,67 @@ public class HashedWheelTimer implements Timer {
             ThreadFactory threadFactory,
             long tickDuration, TimeUnit unit, int ticksPerWheel, boolean leakDetection,
             long maxPendingTimeouts, Executor taskExecutor) {
+        this(threadFactory, tickDuration, unit, ticksPerWheel, leakDetection,
+                maxPendingTimeouts, taskExecutor, DEFAULT_LEVELS);
+    }
+
+    /**
+     * Creates a new timer.
+     *
+     * @param threadFactory        a {@link ThreadFactory} that creates a
+     *                             background {@link Thread} which is dedicated to
+     *                             {@link TimerTask} execution.
+     * @param tickDuration         the duration between tick
+     * @param unit                 the time unit of the {@code tickDuration}
+     * @param ticksPerWheel        the size of the wheel
+     * @param leakDetection        {@code true} if leak detection should be enabled always,
+     *                             if false it will only be enabled if the worker thread is not
+     *                             a daemon thread.
+     * @param maxPendingTimeouts   The maximum number of pending timeouts after which call to
+     *                             {@code newTimeout} will result in
+     *                             {@link RejectedExecutionException}
+     *                             being thrown. No maximum pending timeouts limit is assumed if
+     *                             this value is 0 or negative.
+     * @param taskExecutor         The {@link Executor} that is used to execute the submitted {@link TimerTask}s.
+     *                             The caller is responsible to shutdown the {@link Executor} once it is not needed
+     *                             anymore.
+     * @param levels               the number of wheel levels. {@code 1} keeps a single wheel that counts the
+     *                             remaining rounds of far away timeouts, larger values add overflow levels that
+     *                             are cascaded into the lower ones.
+     * @throws NullPointerException     if either of {@code threadFactory} and {@code unit} is {@code null}
+     * @throws IllegalArgumentException if either of {@code tickDuration}, {@code ticksPerWheel} and
+     *                                  {@code levels} is &lt;= 0
+     */
+    /**
+     * 创建一个新的计时器。
+     *
+     * @param threadFactory        用于创建后台 {@link Thread} 的 {@link ThreadFactory}，
+     *                             该线程专门用于执行 {@link TimerTask}。
+     * @param tickDuration         每次滴答的持续时间
+     * @param unit                 {@code tickDuration} 的时间单位
+     * @param ticksPerWheel        时间轮的大小
+     * @param leakDetection        {@code true} 表示始终启用泄漏检测，
+     *                             如果为 {@code false}，则仅在工作线程不是守护线程时启用。
+     * @param maxPendingTimeouts   最大待处理超时数，超过此值后调用 {@code newTimeout} 将导致
+     *                             抛出 {@link RejectedExecutionException}。
+     *                             如果此值为 0 或负数，则不假设有最大待处理超时限制。
+     * @param taskExecutor         用于执行提交的 {@link TimerTask} 的 {@link Executor}。
+     *                             调用者负责在不再需要时关闭 {@link Executor}。
+     * @param levels               时间轮的层数。{@code 1} 保持单个时间轮并为远期超时计算剩余轮数，
+     *                             更大的值会增加向下级联的溢出层。
+     * @throws NullPointerException     如果 {@code threadFactory} 或 {@code unit} 为 {@code null}
+     * @throws IllegalArgumentException 如果 {@code tickDuration}、{@code ticksPerWheel} 或 {@code levels} &lt;= 0
+     */
+    public HashedWheelTimer(
+            ThreadFactory threadFactory,
+            long tickDuration, TimeUnit unit, int ticksPerWheel, boolean leakDetection,
+            long maxPendingTimeouts, Executor taskExecutor, int levels) {
 
         checkNotNull(threadFactory, "threadFactory");
         checkNotNull(unit, "unit");
         checkPositive(tickDuration, "tickDuration");
         checkPositive(ticksPerWheel, "ticksPerWheel");
+        checkPositive(levels, "levels");
         this.taskExecutor = checkNotNull(taskExecutor, "taskExecutor");
 
         // Normalize ticksPerWheel to power of two and initialize the wheel.
@@ -406,6 +490,17 @@ public class HashedWheelTimer implements Timer {
         // 将 ticksPerWheel 规范化为 2 的幂并初始化轮子。
         wheel = createWheel(ticksPerWheel);
         mask = wheel.length - 1;
+        wheelBits = Integer.numberOfTrailingZeros(wheel.length);
+
+        // A wheel with a single bucket can not be cascaded and levels whose buckets would span more than 2^62
+        // ticks can never be used.
+
+        // 只有一个桶的时间轮无法级联，而桶跨度超过 2^62 个滴答的层永远不会被使用。
+        levels = wheelBits == 0 ? 1 : Math.min(levels, (62 + wheelBits) / wheelBits);
+        overflowWheels = new HashedWheelBucket[levels - 1][];
+        for (int i = 0; i < overflowWheels.length; i++) {
+            overflowWheels[i] = createWheel(wheel.length);
+        }
 
         // Convert tickDuration to nanos.
 
@@ -565,19 +660,23 @@ public class HashedWheelTimer implements Timer {
         return worker.unprocessedTimeouts();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned handle can be moved to another deadline with {@link ReschedulableTimeout#reschedule}.
+     */
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 返回的句柄可以通过 {@link ReschedulableTimeout#reschedule} 移动到另一个截止时间。
+     */
     @Override
-    public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+    public ReschedulableTimeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
         checkNotNull(task, "task");
         checkNotNull(unit, "unit");
 
-        long pendingTimeoutsCount = pendingTimeouts.incrementAndGet();
-
-        if (maxPendingTimeouts > 0 && pendingTimeoutsCount > maxPendingTimeouts) {
-            pendingTimeouts.decrementAndGet();
-            throw new RejectedExecutionException("Number of pending timeouts ("
-                + pendingTimeoutsCount + ") is greater than or equal to maximum allowed pending "
-                + "timeouts (" + maxPendingTimeouts + ")");
-        }
+        reservePendingTimeouts(1);
 
         start();
 
@@ -586,6 +685,82 @@ public class HashedWheelTimer implements Timer {
         // 将超时添加到超时队列中，该队列将在下一个 tick 时处理。
         // During processing all the queued HashedWheelTimeouts will be added to the correct HashedWheelBucket.
         // 在处理过程中，所有排队的 HashedWheelTimeouts 将被添加到正确的 HashedWheelBucket 中。
+        HashedWheelTimeout timeout = new HashedWheelTimeout(this, task, deadline(delay, unit));
+        timeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Schedules all specified {@link TimerTask}s for one-time execution after the specified delay. This is
+     * cheaper than calling {@link #newTimeout(TimerTask, long, TimeUnit)} for every task, as the pending timeouts
+     * are counted once and the whole batch is handed to the worker thread with a single queue operation.
+     *
+     * @return the handles associated with the specified tasks, in the same order
+     *
+     * @throws IllegalStateException       if this timer has been {@linkplain #stop() stopped} already
+     * @throws RejectedExecutionException if the pending timeouts are too many, in which case none of the tasks
+     *                                    is scheduled
+     */
+
+    /**
+     * 安排所有指定的 {@link TimerTask} 在指定的延迟后一次性执行。这比为每个任务调用
+     * {@link #newTimeout(TimerTask, long, TimeUnit)} 更便宜，因为挂起的超时只计数一次，
+     * 并且整批任务通过一次队列操作交给工作线程。
+     *
+     * @return 与指定任务关联的句柄，顺序相同
+     *
+     * @throws IllegalStateException       如果此计时器已被 {@linkplain #stop() 停止}
+     * @throws RejectedExecutionException 如果挂起的超时过多，此时不会调度任何任务
+     */
+    public List<ReschedulableTimeout> newTimeouts(Collection<? extends TimerTask> tasks, long delay, TimeUnit unit) {
+        checkNotNull(tasks, "tasks");
+        checkNotNull(unit, "unit");
+        for (TimerTask task: tasks) {
+            checkNotNull(task, "task");
+        }
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        reservePendingTimeouts(tasks.size());
+
+        start();
+
+        // The batch is chained via HashedWheelTimeout.next, which is unused until the worker thread puts the
+        // timeouts into their buckets, so only the head needs to be added to the queue.
+
+        // 整批超时通过 HashedWheelTimeout.next 链接在一起，该字段在工作线程将超时放入桶之前不会被使用，
+        // 因此只需将头节点添加到队列中。
+        long deadline = deadline(delay, unit);
+        List<ReschedulableTimeout> handles = new ArrayList<ReschedulableTimeout>(tasks.size());
+        HashedWheelTimeout head = null;
+        HashedWheelTimeout tail = null;
+        for (TimerTask task: tasks) {
+            HashedWheelTimeout timeout = new HashedWheelTimeout(this, task, deadline);
+            if (head == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+            handles.add(timeout);
+        }
+        timeouts.add(head);
+        return handles;
+    }
+
+    private void reservePendingTimeouts(int count) {
+        long pendingTimeoutsCount = pendingTimeouts.addAndGet(count);
+
+        if (maxPendingTimeouts > 0 && pendingTimeoutsCount > maxPendingTimeouts) {
+            pendingTimeouts.addAndGet(-count);
+            throw new RejectedExecutionException("Number of pending timeouts ("
+                + pendingTimeoutsCount + ") is greater than or equal to maximum allowed pending "
+                + "timeouts (" + maxPendingTimeouts + ")");
+        }
+    }
+
+    private long deadline(long delay, TimeUnit unit) {
         long deadline = System.nanoTime() + unit.toNanos(delay) - startTime;
 
         // Guard against overflow.
@@ -594,9 +769,7 @@ public class HashedWheelTimer implements Timer {
         if (delay > 0 && deadline < 0) {
             deadline = Long.MAX_VALUE;
         }
-        HashedWheelTimeout timeout = new HashedWheelTimeout(this, task, deadline);
-        timeouts.add(timeout);
-        return timeout;
+        return deadline;
     }
 
     /**
@@ -648,7 +821,14 @@ public class HashedWheelTimer implements Timer {
                     HashedWheelBucket bucket =
                             wheel[idx];
                     transferTimeoutsToBuckets();
-                    bucket.expireTimeouts(deadline);
+                    cascadeTimeouts();
+                    HashedWheelTimeout moved = bucket.expireTimeouts(deadline);
+                    while (moved != null) {
+                        HashedWheelTimeout next = moved.next;
+                        moved.next = null;
+                        scheduleTimeout(moved);
+                        moved = next;
+                    }
                     tick++;
                 }
             } while (WORKER_STATE_UPDATER.get(HashedWheelTimer.this) == WORKER_STATE_STARTED);
@@ -659,14 +839,27 @@ public class HashedWheelTimer implements Timer {
             for (HashedWheelBucket bucket: wheel) {
                 bucket.clearTimeouts(unprocessedTimeouts);
             }
+            for (HashedWheelBucket[] overflowWheel: overflowWheels) {
+                for (HashedWheelBucket bucket: overflowWheel) {
+                    bucket.clearTimeouts(unprocessedTimeouts);
+                }
+            }
             for (;;) {
                 HashedWheelTimeout timeout = timeouts.poll();
                 if (timeout == null) {
                     break;
                 }
-                if (!timeout.isCancelled()) {
-                    unprocessedTimeouts.add(timeout);
+                if (timeout.bucket != null) {
+                    // Already collected from its bucket above.
+                    // 已经在上面从其桶中收集。
+                    continue;
                 }
+                do {
+                    if (timeout.state() == HashedWheelTimeout.ST_INIT) {
+                        unprocessedTimeouts.add(timeout);
+                    }
+                    timeout = timeout.next;
+                } while (timeout != null);
             }
             processCancelledTasks();
         }
@@ -676,27 +869,99 @@ public class HashedWheelTimer implements Timer {
             // 每次最多只传输100000个超时，以防止线程在刚工作时使工作线程停滞
             // adds new timeouts in a loop.
             // 在循环中添加新的超时。
-            for (int i = 0; i < 100000; i++) {
+            for (int i = 0; i < 100000;) {
                 HashedWheelTimeout timeout = timeouts.poll();
                 if (timeout == null) {
                     // all processed
                     // 所有已处理
                     break;
                 }
-                if (timeout.state() == HashedWheelTimeout.ST_CANCELLED) {
-                    // Was cancelled in the meantime.
-                    // 在此期间被取消了。
+                if (timeout.bucket != null) {
+                    // The deadline was moved to an earlier time by reschedule(...), so take the timeout out of its
+                    // current bucket first. A cancelled one is removed once the cancellation is processed.
+
+                    // 截止时间被 reschedule(...) 提前了，因此先将超时从其当前桶中取出。
+                    // 已取消的超时会在处理取消时被移除。
+                    if (!timeout.isCancelled()) {
+                        timeout.bucket.unlink(timeout);
+                        scheduleTimeout(timeout);
+                    }
+                    i++;
                     continue;
                 }
 
-                long calculated = timeout.deadline / tickDuration;
+                // Timeouts added by newTimeouts(...) are chained via next.
+                // 通过 newTimeouts(...) 添加的超时通过 next 链接在一起。
+                do {
+                    HashedWheelTimeout next = timeout.next;
+                    timeout.next = null;
+                    // Skip timeouts that were cancelled in the meantime, or that expired after they were queued
+                    // again by reschedule(...).
+                    // 跳过在此期间被取消的超时，或者在被 reschedule(...) 再次排队后已经过期的超时。
+                    if (timeout.state() == HashedWheelTimeout.ST_INIT) {
+                        scheduleTimeout(timeout);
+                    }
+                    timeout = next;
+                    i++;
+                } while (timeout != null);
+            }
+        }
+
+        private void scheduleTimeout(HashedWheelTimeout timeout) {
+            long calculated = timeout.deadline / tickDuration;
+            final long ticks = Math.max(calculated, tick); // Ensure we don't schedule for past.
+            if (overflowWheels.length == 0) {
                 timeout.remainingRounds = (calculated - tick) / wheel.length;
+                wheel[(int) (ticks & mask)].addTimeout(timeout);
+                return;
+            }
+
+            // Use the lowest level whose current rotation contains the deadline, the top level takes the rest.
+            // The chosen bucket is always ahead of the current one of its level, so it will be cascaded in time.
+
+            // 使用当前一轮包含截止时间的最低层，其余的都放入最高层。
+            // 所选的桶总是在其所在层的当前桶之后，因此会被及时级联。
+            timeout.remainingRounds = 0;
+            int level = 0;
+            while (level < overflowWheels.length &&
+                    ticks >>> (level + 1) * wheelBits != tick >>> (level + 1) * wheelBits) {
+                level++;
+            }
+            if (level == 0) {
+                wheel[(int) (ticks & mask)].addTimeout(timeout);
+            } else {
+                overflowWheels[level - 1][(int) (ticks >>> level * wheelBits & mask)].addTimeout(timeout);
+            }
+        }
 
-                final long ticks = Math.max(calculated, tick); // Ensure we don't schedule for past.
-                int stopIndex = (int) (ticks & mask);
+        /**
+         * Moves the timeouts of every overflow bucket whose tick range begins with the current tick one or more
+         * levels down. Higher levels go first so that their timeouts can take part in the cascade of lower levels.
+         */
 
-                HashedWheelBucket bucket = wheel[stopIndex];
-                bucket.addTimeout(timeout);
+        /**
+         * 将所有滴答范围从当前滴答开始的溢出桶中的超时向下移动一层或多层。
+         * 先处理较高的层，以便其超时可以参与较低层的级联。
+         */
+        private void cascadeTimeouts() {
+            for (int level = overflowWheels.length; level > 0; level--) {
+                int shift = level * wheelBits;
+                if ((tick & (1L << shift) - 1) != 0) {
+                    continue;
+                }
+                HashedWheelTimeout timeout = overflowWheels[level - 1][(int) (tick >>> shift & mask)].detachAll();
+                while (timeout != null) {
+                    HashedWheelTimeout next = timeout.next;
+                    timeout.next = null;
+                    timeout.prev = null;
+                    timeout.bucket = null;
+                    if (!timeout.isCancelled()) {
+                        // A cancelled timeout is released once the cancellation is processed.
+                        // 已取消的超时会在处理取消时被释放。
+                        scheduleTimeout(timeout);
+                    }
+                    timeout = next;
+                }
             }
         }
 
@@ -778,24 +1043,32 @@ public class HashedWheelTimer implements Timer {
         }
     }
 
-    private static final class HashedWheelTimeout implements Timeout, Runnable {
+    private static final class HashedWheelTimeout implements ReschedulableTimeout, Runnable {
 
         private static final int ST_INIT = 0;
         private static final int ST_CANCELLED = 1;
         private static final int ST_EXPIRED = 2;
         private static final AtomicIntegerFieldUpdater<HashedWheelTimeout> STATE_UPDATER =
                 AtomicIntegerFieldUpdater.newUpdater(HashedWheelTimeout.class, "state");
+        private static final AtomicLongFieldUpdater<HashedWheelTimeout> DEADLINE_UPDATER =
+                AtomicLongFieldUpdater.newUpdater(HashedWheelTimeout.class, "deadline");
 
         private final HashedWheelTimer timer;
         private final TimerTask task;
-        private final long deadline;
+
+        // Only moved by reschedule(...). The worker thread places the timeout by the deadline it reads and places it
+        // again if it finds a later one once the timeout is due. An earlier deadline queues the timeout again.
+
+        // 仅由 reschedule(...) 移动。工作线程根据其读取到的截止时间放置超时，并在超时到期时如果发现更晚的截止时间
+        // 则再次放置它。更早的截止时间会让超时再次排队。
+        private volatile long deadline;
 
         @SuppressWarnings({"unused", "FieldMayBeFinal", "RedundantFieldInitialization" })
         private volatile int state = ST_INIT;
 
-        // remainingRounds will be calculated and set by Worker.transferTimeoutsToBuckets() before the
+        // remainingRounds will be calculated and set by Worker.scheduleTimeout() before the
 
-        // remainingRounds 将在 Worker.transferTimeoutsToBuckets() 方法中计算并设置
+        // remainingRounds 将在 Worker.scheduleTimeout() 方法中计算并设置
         // HashedWheelTimeout will be added to the correct HashedWheelBucket.
         // HashedWheelTimeout 将被添加到正确的 HashedWheelBucket 中。
         long remainingRounds;
@@ -873,10 +1146,60 @@ public class HashedWheelTimer implements Timer {
             return state() == ST_EXPIRED;
         }
 
-        public void expire() {
+        @Override
+        public boolean reschedule(long delay, TimeUnit unit) {
+            checkNotNull(unit, "unit");
+            long deadline = timer.deadline(delay, unit);
+            long previous = DEADLINE_UPDATER.getAndSet(this, deadline);
+            for (;;) {
+                switch (state()) {
+                    case ST_CANCELLED:
+                        return false;
+                    case ST_INIT:
+                        if (deadline < previous) {
+                            // The bucket may be too far away, let the worker thread move it.
+                            // 所在的桶可能太远了，让工作线程移动它。
+                            timer.timeouts.add(this);
+                        }
+                        return true;
+                    default:
+                        // Expired already, arm it again.
+                        // 已经过期，重新激活它。
+                        if (compareAndSetState(ST_EXPIRED, ST_INIT)) {
+                            try {
+                                timer.start();
+                                timer.reservePendingTimeouts(1);
+                            } catch (RuntimeException e) {
+                                if (!compareAndSetState(ST_INIT, ST_EXPIRED)) {
+                                    // Cancelled in the meantime, which released a pending timeout.
+                                    // 在此期间被取消，这已经释放了一个挂起的超时。
+                                    timer.pendingTimeouts.incrementAndGet();
+                                }
+                                throw e;
+                            }
+                            timer.timeouts.add(this);
+                            return true;
+                        }
+                }
+            }
+        }
+
+        public void expire(long now) {
             if (!compareAndSetState(ST_INIT, ST_EXPIRED)) {
                 return;
             }
+            if (deadline > now) {
+                // reschedule(...) moved the deadline while this timeout was expired. Unless it armed the timeout
+                // again already, queue it so that it is put into the bucket of its new deadline.
+
+                // reschedule(...) 在此超时过期时移动了截止时间。除非它已经重新激活了该超时，
+                // 否则将其排队，以便将其放入新截止时间对应的桶中。
+                if (compareAndSetState(ST_EXPIRED, ST_INIT)) {
+                    timer.pendingTimeouts.incrementAndGet();
+                    timer.timeouts.add(this);
+                }
+                return;
+            }
 
             try {
                 timer.taskExecutor.execute(this);
@@ -965,14 +1288,17 @@ public class HashedWheelTimer implements Timer {
         }
 
         /**
-         * Expire all {@link HashedWheelTimeout}s for the given {@code deadline}.
+         * Expire all {@link HashedWheelTimeout}s for the given {@code deadline} and return the ones whose deadline
+         * was moved to a later time, chained via {@link HashedWheelTimeout#next}.
          */
 
         /**
-         * 为给定的 {@code deadline} 使所有 {@link HashedWheelTimeout} 过期。
+         * 为给定的 {@code deadline} 使所有 {@link HashedWheelTimeout} 过期，并返回截止时间被推后的超时，
+         * 它们通过 {@link HashedWheelTimeout#next} 链接在一起。
          */
-        public void expireTimeouts(long deadline) {
+        public HashedWheelTimeout expireTimeouts(long deadline) {
             HashedWheelTimeout timeout = head;
+            HashedWheelTimeout moved = null;
 
             // process all timeouts
 
@@ -980,14 +1306,16 @@ public class HashedWheelTimer implements Timer {
             while (timeout != null) {
                 HashedWheelTimeout next = timeout.next;
                 if (timeout.remainingRounds <= 0) {
-                    next = remove(timeout);
                     if (timeout.deadline <= deadline) {
-                        timeout.expire();
+                        next = remove(timeout);
+                        timeout.expire(deadline);
                     } else {
-                        // The timeout was placed into a wrong slot. This should never happen.
-                        // 超时被放入了错误的槽位。这种情况永远不应该发生。
-                        throw new IllegalStateException(String.format(
-                                "timeout.deadline (%d) > deadline (%d)", timeout.deadline, deadline));
+                        // The deadline was moved to a later time by reschedule(...), place it again once this
+                        // bucket was processed.
+                        // 截止时间被 reschedule(...) 推后了，在处理完此桶后再次放置它。
+                        next = unlink(timeout);
+                        timeout.next = moved;
+                        moved = timeout;
                     }
                 } else if (timeout.isCancelled()) {
                     next = remove(timeout);
@@ -996,9 +1324,23 @@ public class HashedWheelTimer implements Timer {
                 }
                 timeout = next;
             }
+            return moved;
         }
 
         public HashedWheelTimeout remove(HashedWheelTimeout timeout) {
+            HashedWheelTimeout next = unlink(timeout);
+            timeout.timer.pendingTimeouts.decrementAndGet();
+            return next;
+        }
+
+        /**
+         * Take the {@link HashedWheelTimeout} out of this bucket without releasing it.
+         */
+
+        /**
+         * 将 {@link HashedWheelTimeout} 从此桶中取出但不释放它。
+         */
+        public HashedWheelTimeout unlink(HashedWheelTimeout timeout) {
             HashedWheelTimeout next = timeout.next;
             // remove timeout that was either processed or cancelled by updating the linked-list
             // 通过更新链表移除已处理或取消的超时
@@ -1028,7 +1370,6 @@ public class HashedWheelTimer implements Timer {
             timeout.prev = null;
             timeout.next = null;
             timeout.bucket = null;
-            timeout.timer.pendingTimeouts.decrementAndGet();
             return next;
         }
 
@@ -1052,6 +1393,20 @@ public class HashedWheelTimer implements Timer {
             }
         }
 
+        /**
+         * Empty this bucket and return the former head of its still linked timeouts.
+         */
+
+        /**
+         * 清空此桶并返回其仍然链接在一起的超时的原头节点。
+         */
+        HashedWheelTimeout detachAll() {
+            HashedWheelTimeout head = this.head;
+            this.head = null;
+            tail = null;
+            return head;
+        }
+
         private HashedWheelTimeout pollTimeout() {
             HashedWheelTimeout head = this.head;
             if (head == null) {
@@ -0,0 +1,39 @@
+package org.top.java.netty.source.util;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Timeout} whose deadline can be moved after it was created, without allocating a new handle or
+ * cancelling and scheduling the {@link TimerTask} again.
+ */
+
+/**
+ * 一个在创建后可以移动截止时间的 {@link Timeout}，无需分配新的句柄，也无需取消后再次调度 {@link TimerTask}。
+ */
+public interface ReschedulableTimeout extends Timeout {
+
+    /**
+     * Moves the deadline of this handle so that its {@link TimerTask} is executed after the specified delay,
+     * counted from now. If the task was executed already the handle is armed again and the task will be executed
+     * one more time.
+     *
+     * @return {@code true} if the handle was rescheduled, {@code false} if it has been cancelled
+     *
+     * @throws IllegalStateException      if the handle needs to be armed again but the {@link Timer} has been
+     *                                    {@linkplain Timer#stop() stopped} already
+     * @throws RejectedExecutionException if the handle needs to be armed again but the pending timeouts are
+     *                                    too many
+     */
+
+    /**
+     * 移动此句柄的截止时间，使其 {@link TimerTask} 在从现在开始的指定延迟后执行。
+     * 如果任务已经执行过，则该句柄会被重新激活，任务会再执行一次。
+     *
+     * @return 如果句柄被重新调度则返回 {@code true}，如果它已被取消则返回 {@code false}
+     *
+     * @throws IllegalStateException      如果句柄需要重新激活但 {@link Timer} 已被 {@linkplain Timer#stop() 停止}
+     * @throws RejectedExecutionException 如果句柄需要重新激活但挂起的超时过多
+     */
+    boolean reschedule(long delay, TimeUnit unit);
+}
@@ -0,0 +1,467 @@
+
+
+package org.top.java.netty.source.util.collection;
+
+import static io.netty.util.internal.MathUtil.safeFindNextPositivePowerOfTwo;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from {@code int} keys to {@code long} values that never boxes, so counters and indexes can be kept without
+ * generating garbage. Uses open addressing with linear probing, deletions shift displaced entries back instead of
+ * leaving tombstones. The key {@code 0} marks an empty slot and so is stored outside of the table.
+ * <p>
+ * Missing keys are reported as the {@code noEntryValue} given at construction, {@code 0} by default. Use
+ * {@link #containsKey(int)} or {@link #getOrDefault(int, long)} if that value is also a legitimate one.
+ */
+
+/**
+ * 一个从 {@code int} 键到 {@code long} 值的哈希映射，永远不会装箱，因此可以维护计数器和索引而不产生垃圾。
+ * 使用线性探测的开放寻址法，删除时将移位的条目向后移动而不是留下墓碑。键 {@code 0} 用于标记空槽位，
+ * 因此存储在表之外。
+ * <p>
+ * 缺失的键以构造时给定的 {@code noEntryValue}（默认为 {@code 0}）报告。如果该值也是合法值，
+ * 请使用 {@link #containsKey(int)} 或 {@link #getOrDefault(int, long)}。
+ */
+public class IntLongHashMap {
+
+    /** Default initial capacity. Used if not specified in the constructor */
+
+    /** 默认初始容量。如果未在构造函数中指定，则使用此值 */
+    public static final int DEFAULT_CAPACITY = 8;
+
+    /** Default load factor. Used if not specified in the constructor */
+
+    /** 默认加载因子。如果在构造函数中未指定，则使用此值 */
+    public static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Visits the entries of the map, see {@link #forEach(EntryVisitor)}.
+     */
+
+    /**
+     * 访问映射的条目，参见 {@link #forEach(EntryVisitor)}。
+     */
+    public interface EntryVisitor {
+        /**
+         * @return {@code true} to continue with the next entry, {@code false} to stop.
+         */
+
+        /**
+         * @return {@code true} 表示继续访问下一个条目，{@code false} 表示停止。
+         */
+        boolean visit(int key, long value);
+    }
+
+    /** The maximum number of elements allowed in the table without allocating more space. */
+
+    /** 在不分配更多空间的情况下表中允许的最大元素数量。 */
+    private int maxSize;
+
+    /** The load factor for the map. Used to calculate {@link #maxSize}. */
+
+    /** 映射的负载因子。用于计算 {@link #maxSize}。 */
+    private final float loadFactor;
+    private final long noEntryValue;
+
+    private int[] keys;
+    private long[] values;
+    // Number of entries in the table, not counting the zero key.
+    // 表中的条目数，不包括零键。
+    private int size;
+    private int mask;
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public IntLongHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    public IntLongHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    public IntLongHashMap(int initialCapacity, float loadFactor, long noEntryValue) {
+        if (loadFactor <= 0.0f || loadFactor > 1.0f) {
+            // Cannot exceed 1 because we can never store more than capacity elements;
+            // 不能超过1，因为我们永远无法存储超过容量的元素；
+            // using a bigger loadFactor would trigger rehashing before the desired load is reached.
+            // 使用更大的负载因子会在达到期望负载之前触发重新哈希。
+            throw new IllegalArgumentException("loadFactor must be > 0 and <= 1");
+        }
+
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+
+        int capacity = safeFindNextPositivePowerOfTwo(initialCapacity);
+        keys = new int[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        maxSize = calcMaxSize(capacity);
+    }
+
+    /**
+     * Returns the value reported for keys that are not in the map.
+     */
+
+    /**
+     * 返回对于不在映射中的键所报告的值。
+     */
+    public long noEntryValue() {
+        return noEntryValue;
+    }
+
+    /**
+     * Returns the value of the given key, or {@link #noEntryValue()} if it is not in the map.
+     */
+
+    /**
+     * 返回给定键的值，如果不在映射中则返回 {@link #noEntryValue()}。
+     */
+    public long get(int key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    /**
+     * Returns the value of the given key, or {@code defaultValue} if it is not in the map.
+     */
+
+    /**
+     * 返回给定键的值，如果不在映射中则返回 {@code defaultValue}。
+     */
+    public long getOrDefault(int key, long defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int index = indexOf(key);
+        return index == -1 ? defaultValue : values[index];
+    }
+
+    public boolean containsKey(int key) {
+        return key == 0 ? hasZeroKey : indexOf(key) != -1;
+    }
+
+    /**
+     * Maps the given key to the given value.
+     *
+     * @return the previous value of the key, or {@link #noEntryValue()} if it was not in the map.
+     */
+
+    /**
+     * 将给定的键映射到给定的值。
+     *
+     * @return 该键之前的值，如果它不在映射中则返回 {@link #noEntryValue()}。
+     */
+    public long put(int key, long value) {
+        if (key == 0) {
+            long prev = hasZeroKey ? zeroValue : noEntryValue;
+            hasZeroKey = true;
+            zeroValue = value;
+            return prev;
+        }
+        for (int index = hashIndex(key);; index = probeNext(index)) {
+            int existing = keys[index];
+            if (existing == 0) {
+                keys[index] = key;
+                values[index] = value;
+                growSize();
+                return noEntryValue;
+            }
+            if (existing == key) {
+                long prev = values[index];
+                values[index] = value;
+                return prev;
+            }
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the value of the given key, or maps the key to {@code delta} if it is not in the map yet.
+     *
+     * @return the new value of the key.
+     */
+
+    /**
+     * 将 {@code delta} 加到给定键的值上，如果该键尚不在映射中，则将其映射到 {@code delta}。
+     *
+     * @return 该键的新值。
+     */
+    public long addTo(int key, long delta) {
+        if (key == 0) {
+            zeroValue = hasZeroKey ? zeroValue + delta : delta;
+            hasZeroKey = true;
+            return zeroValue;
+        }
+        for (int index = hashIndex(key);; index = probeNext(index)) {
+            int existing = keys[index];
+            if (existing == 0) {
+                keys[index] = key;
+                values[index] = delta;
+                growSize();
+                return delta;
+            }
+            if (existing == key) {
+                return values[index] += delta;
+            }
+        }
+    }
+
+    /**
+     * Removes the given key.
+     *
+     * @return the value of the removed key, or {@link #noEntryValue()} if it was not in the map.
+     */
+
+    /**
+     * 移除给定的键。
+     *
+     * @return 被移除键的值，如果它不在映射中则返回 {@link #noEntryValue()}。
+     */
+    public long remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            hasZeroKey = false;
+            long prev = zeroValue;
+            zeroValue = 0;
+            return prev;
+        }
+        int index = indexOf(key);
+        if (index == -1) {
+            return noEntryValue;
+        }
+        long prev = values[index];
+        removeAt(index);
+        return prev;
+    }
+
+    public int size() {
+        return hasZeroKey ? size + 1 : size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0 && !hasZeroKey;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        size = 0;
+        hasZeroKey = false;
+        zeroValue = 0;
+    }
+
+    /**
+     * Calls the visitor for every entry of the map until it returns {@code false}. Does not allocate, the map must
+     * not be modified by the visitor.
+     *
+     * @return {@code true} if all entries were visited, {@code false} if the visitor stopped early.
+     */
+
+    /**
+     * 对映射的每个条目调用访问者，直到其返回 {@code false}。不会分配内存，访问者不得修改映射。
+     *
+     * @return 如果访问了所有条目则返回 {@code true}，如果访问者提前停止则返回 {@code false}。
+     */
+    public boolean forEach(EntryVisitor visitor) {
+        if (hasZeroKey && !visitor.visit(0, zeroValue)) {
+            return false;
+        }
+        int[] keys = this.keys;
+        long[] values = this.values;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && !visitor.visit(keys[i], values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // Summing the entry hashes does not depend on the order of the entries in the table.
+        // 对条目哈希求和不依赖于条目在表中的顺序。
+        int hash = hasZeroKey ? (int) (zeroValue ^ zeroValue >>> 32) : 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                hash += keys[i] ^ (int) (values[i] ^ values[i] >>> 32);
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof IntLongHashMap)) {
+            return false;
+        }
+        IntLongHashMap other = (IntLongHashMap) obj;
+        if (size() != other.size()) {
+            return false;
+        }
+        if (hasZeroKey && (!other.hasZeroKey || other.zeroValue != zeroValue)) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            int key = keys[i];
+            if (key != 0) {
+                int index = other.indexOf(key);
+                if (index == -1 || other.values[index] != values[i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "{}";
+        }
+        StringBuilder sb = new StringBuilder(8 * size());
+        sb.append('{');
+        if (hasZeroKey) {
+            sb.append("0=").append(zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(keys[i]).append('=').append(values[i]);
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Locates the index for the given non zero key.
+     *
+     * @return the index where the key was found, or {@code -1} if no entry is found for that key.
+     */
+
+    /**
+     * 定位给定非零键的索引。
+     *
+     * @return 找到键的索引，如果未找到该键的条目，则返回 {@code -1}。
+     */
+    private int indexOf(int key) {
+        for (int index = hashIndex(key);; index = probeNext(index)) {
+            int existing = keys[index];
+            if (existing == key) {
+                return index;
+            }
+            if (existing == 0) {
+                // There is always at least one empty slot, so this ends every probe sequence.
+                // 始终至少有一个空槽位，因此这会结束每个探测序列。
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Returns the hashed index for the given key. The key is mixed first, as ids and counters are often sequential.
+     */
+
+    /**
+     * 返回给定键的哈希索引。先对键进行混合，因为 ID 和计数器通常是连续的。
+     */
+    private int hashIndex(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ h >>> 16) & mask;
+    }
+
+    private int probeNext(int index) {
+        // The array lengths are always a power of two, so we can use a bitmask to stay inside the array bounds.
+        // 数组长度始终是2的幂，因此我们可以使用位掩码来保持在数组边界内。
+        return index + 1 & mask;
+    }
+
+    private void growSize() {
+        size++;
+
+        if (size > maxSize) {
+            if (keys.length == MAX_CAPACITY) {
+                throw new IllegalStateException("Max capacity reached at size=" + size);
+            }
+
+            // Double the capacity.
+
+            // 将容量加倍。
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Removes entry at the given index position and shifts displaced entries after it back, so no tombstone is
+     * needed (Knuth Section 6.4 Algorithm R).
+     */
+
+    /**
+     * 移除给定索引位置的条目，并将其后移位的条目向后移动，因此不需要墓碑（Knuth 第6.4节算法R）。
+     */
+    private void removeAt(final int index) {
+        --size;
+        keys[index] = 0;
+        values[index] = 0;
+
+        int nextFree = index;
+        for (int i = probeNext(index); keys[i] != 0; i = probeNext(i)) {
+            int key = keys[i];
+            int bucket = hashIndex(key);
+            if (i < bucket && (bucket <= nextFree || nextFree <= i) ||
+                bucket <= nextFree && nextFree <= i) {
+                // Move the displaced entry "back" to the first available position.
+                // 将移位的条目“移回”到第一个可用的位置。
+                keys[nextFree] = key;
+                values[nextFree] = values[i];
+                keys[i] = 0;
+                values[i] = 0;
+                nextFree = i;
+            }
+        }
+    }
+
+    /**
+     * Calculates the maximum size allowed before rehashing.
+     */
+
+    /**
+     * 计算在重新哈希之前允许的最大大小。
+     */
+    private int calcMaxSize(int capacity) {
+        // Clip the upper bound so that there will always be at least one available slot.
+        // 剪裁上限，以确保始终至少有一个可用槽位。
+        int upperBound = capacity - 1;
+        return Math.min(upperBound, (int) (capacity * loadFactor));
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        long[] oldVals = values;
+
+        keys = new int[newCapacity];
+        values = new long[newCapacity];
+        maxSize = calcMaxSize(newCapacity);
+        mask = newCapacity - 1;
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            int oldKey = oldKeys[i];
+            if (oldKey != 0) {
+                int index = hashIndex(oldKey);
+                while (keys[index] != 0) {
+                    index = probeNext(index);
+                }
+                keys[index] = oldKey;
+                values[index] = oldVals[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,846 @@
+
+
+package org.top.java.netty.source.util.collection;
+
+import static io.netty.util.internal.MathUtil.safeFindNextPositivePowerOfTwo;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A Swiss table style implementation of {@link IntObjectMap}. Next to the keys and values every slot has a control
+ * byte, which is {@code 0} if the slot is empty or the top 7 bits of the hash of its key with the high bit set.
+ * The control bytes of 8 consecutive slots are packed into one {@code long}, so a lookup compares the fingerprint
+ * against a whole group of slots at once with a few SWAR operations and only touches the keys of the slots that
+ * match. Collisions are resolved using linear probing and deletions shift displaced entries back instead of leaving
+ * tombstones, so lookups never get slower after many removals. This allows a higher default load factor than
+ * {@link IntObjectHashMap}.
+ *
+ * @param <V> The value type stored in the map.
+ */
+
+/**
+ * {@link IntObjectMap} 的 Swiss table 风格实现。除了键和值之外，每个槽位还有一个控制字节，
+ * 如果槽位为空则为 {@code 0}，否则为其键的哈希值的高 7 位并设置最高位。
+ * 8 个连续槽位的控制字节被打包到一个 {@code long} 中，因此查找时可以通过几次 SWAR 操作将指纹与整组槽位
+ * 一次性比较，并且只访问匹配槽位的键。冲突通过线性探测解决，删除时将移位的条目向后移动而不是留下墓碑，
+ * 因此多次删除后查找也不会变慢。这使得默认负载因子可以比 {@link IntObjectHashMap} 更高。
+ *
+ * @param <V> 存储在映射中的值类型。
+ */
+public class IntObjectSwissHashMap<V> implements IntObjectMap<V> {
+
+    /** Default initial capacity. Used if not specified in the constructor */
+
+    /** 默认初始容量。如果未在构造函数中指定，则使用此值 */
+    public static final int DEFAULT_CAPACITY = 8;
+
+    /** Default load factor. Used if not specified in the constructor */
+
+    /** 默认加载因子。如果在构造函数中未指定，则使用此值 */
+    public static final float DEFAULT_LOAD_FACTOR = 0.875f;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int GROUP_SIZE = 8;
+    private static final int GROUP_SHIFT = 3;
+    private static final long LSB = 0x0101010101010101L;
+    private static final long MSB = 0x8080808080808080L;
+
+    /** The maximum number of elements allowed without allocating more space. */
+
+    /** 在不分配更多空间的情况下允许的最大元素数量。 */
+    private int maxSize;
+
+    /** The load factor for the map. Used to calculate {@link #maxSize}. */
+
+    /** 映射的负载因子。用于计算 {@link #maxSize}。 */
+    private final float loadFactor;
+
+    private long[] ctrl;
+    private int[] keys;
+    private V[] values;
+    private int size;
+    private int mask;
+
+    private final Set<Integer> keySet = new KeySet();
+    private final Set<Entry<Integer, V>> entrySet = new EntrySet();
+    private final Iterable<PrimitiveEntry<V>> entries = new Iterable<PrimitiveEntry<V>>() {
+        @Override
+        public Iterator<PrimitiveEntry<V>> iterator() {
+            return new PrimitiveIterator();
+        }
+    };
+
+    public IntObjectSwissHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public IntObjectSwissHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    public IntObjectSwissHashMap(int initialCapacity, float loadFactor) {
+        if (loadFactor <= 0.0f || loadFactor > 1.0f) {
+            // Cannot exceed 1 because we can never store more than capacity elements;
+            // 不能超过1，因为我们永远无法存储超过容量的元素；
+            // using a bigger loadFactor would trigger rehashing before the desired load is reached.
+            // 使用更大的负载因子会在达到期望负载之前触发重新哈希。
+            throw new IllegalArgumentException("loadFactor must be > 0 and <= 1");
+        }
+
+        this.loadFactor = loadFactor;
+        allocate(Math.max(GROUP_SIZE, safeFindNextPositivePowerOfTwo(initialCapacity)));
+    }
+
+    private void allocate(int capacity) {
+        ctrl = new long[capacity >>> GROUP_SHIFT];
+        keys = new int[capacity];
+        @SuppressWarnings({ "unchecked", "SuspiciousArrayCast" })
+        V[] temp = (V[]) new Object[capacity];
+        values = temp;
+        mask = capacity - 1;
+        maxSize = calcMaxSize(capacity);
+    }
+
+    @Override
+    public V get(int key) {
+        int index = indexOf(key);
+        return index == -1 ? null : values[index];
+    }
+
+    @Override
+    public V put(int key, V value) {
+        int hash = hash(key);
+        int index = indexOf(key, hash);
+        if (index != -1) {
+            // Found existing entry with this key, just replace the value.
+            // 找到具有此键的现有条目，只需替换值。
+            V previousValue = values[index];
+            values[index] = value;
+            return previousValue;
+        }
+        insert(key, value, hash);
+        growSize();
+        return null;
+    }
+
+    @Override
+    public void putAll(Map<? extends Integer, ? extends V> sourceMap) {
+        if (sourceMap instanceof IntObjectSwissHashMap) {
+            // Optimization - iterate through the arrays.
+            // 优化 - 遍历数组。
+            @SuppressWarnings("unchecked")
+            IntObjectSwissHashMap<V> source = (IntObjectSwissHashMap<V>) sourceMap;
+            for (int i = 0; i < source.keys.length; ++i) {
+                if (source.isFull(i)) {
+                    put(source.keys[i], source.values[i]);
+                }
+            }
+            return;
+        }
+
+        // Otherwise, just add each entry.
+
+        // 否则，只需添加每个条目。
+        for (Entry<? extends Integer, ? extends V> entry : sourceMap.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public V remove(int key) {
+        int index = indexOf(key);
+        if (index == -1) {
+            return null;
+        }
+
+        V prev = values[index];
+        removeAt(index, null);
+        return prev;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(ctrl, 0);
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int i = 0; i < values.length; ++i) {
+            if (isFull(i)) {
+                V v = values[i];
+                if (value == null ? v == null : value.equals(v)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterable<PrimitiveEntry<V>> entries() {
+        return entries;
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Iterator<V>() {
+                    final PrimitiveIterator iter = new PrimitiveIterator();
+
+                    @Override
+                    public boolean hasNext() {
+                        return iter.hasNext();
+                    }
+
+                    @Override
+                    public V next() {
+                        return iter.next().value();
+                    }
+
+                    @Override
+                    public void remove() {
+                        iter.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        // Same as IntObjectHashMap, so maps holding the same entries have the same hash code no matter which
+        // implementation is used.
+        // 与 IntObjectHashMap 相同，因此无论使用哪种实现，持有相同条目的映射都具有相同的哈希码。
+        int hash = size;
+        for (int i = 0; i < keys.length; ++i) {
+            if (isFull(i)) {
+                hash ^= keys[i];
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof IntObjectMap)) {
+            return false;
+        }
+        @SuppressWarnings("rawtypes")
+        IntObjectMap other = (IntObjectMap) obj;
+        if (size != other.size()) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; ++i) {
+            if (isFull(i)) {
+                int key = keys[i];
+                V value = values[i];
+                if (value == null) {
+                    if (other.get(key) != null || !other.containsKey(key)) {
+                        return false;
+                    }
+                } else if (!value.equals(other.get(key))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return containsKey(objectToKey(key));
+    }
+
+    @Override
+    public V get(Object key) {
+        return get(objectToKey(key));
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(objectToKey(key), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return remove(objectToKey(key));
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        return keySet;
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return entrySet;
+    }
+
+    private int objectToKey(Object key) {
+        return (int) ((Integer) key).intValue();
+    }
+
+    /**
+     * Returns the hash of the given key. Keys such as stream ids are often sequential, so they are multiplied by the
+     * golden ratio to spread them over both the slot index (low bits) and the fingerprint (high bits).
+     */
+
+    /**
+     * 返回给定键的哈希值。诸如流 ID 之类的键通常是连续的，因此将它们乘以黄金比例，
+     * 使其同时分散到槽位索引（低位）和指纹（高位）上。
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+
+    /**
+     * Returns the control byte of a full slot for the given hash.
+     */
+
+    /**
+     * 返回给定哈希值对应的已占用槽位的控制字节。
+     */
+    private static long fingerprint(int hash) {
+        return hash >>> 25 | 0x80;
+    }
+
+    private boolean isFull(int index) {
+        return (ctrl[index >>> GROUP_SHIFT] & 0x80L << ((index & GROUP_SIZE - 1) << 3)) != 0;
+    }
+
+    private void setCtrl(int index, long value) {
+        int shift = (index & GROUP_SIZE - 1) << 3;
+        int group = index >>> GROUP_SHIFT;
+        ctrl[group] = ctrl[group] & ~(0xFFL << shift) | value << shift;
+    }
+
+    private long ctrlAt(int index) {
+        return ctrl[index >>> GROUP_SHIFT] >>> ((index & GROUP_SIZE - 1) << 3) & 0xFF;
+    }
+
+    private int indexOf(int key) {
+        return indexOf(key, hash(key));
+    }
+
+    /**
+     * Locates the index for the given key. Probes one group of 8 control bytes at a time, starting with the group
+     * that holds the home slot of the key, until a group with an empty slot at or after the home slot is found.
+     *
+     * @param key the key for an entry in the map.
+     * @return the index where the key was found, or {@code -1} if no entry is found for that key.
+     */
+
+    /**
+     * 定位给定键的索引。每次探测一组 8 个控制字节，从包含该键起始槽位的组开始，
+     * 直到找到在起始槽位或其之后有空槽位的组。
+     *
+     * @param key 映射中某个条目的键。
+     * @return 找到键的索引，如果未找到该键的条目，则返回 {@code -1}。
+     */
+    private int indexOf(int key, int hash) {
+        long pattern = fingerprint(hash) * LSB;
+        int start = hash & mask;
+        int group = start >>> GROUP_SHIFT;
+        // Slots before the home slot in its group belong to other probe sequences.
+        // 起始槽位所在组中位于其之前的槽位属于其他探测序列。
+        long from = -1L << ((start & GROUP_SIZE - 1) << 3);
+        int groups = ctrl.length;
+        for (int probed = 0; probed <= groups; probed++) {
+            long word = ctrl[group];
+            // Bytes equal to the fingerprint become 0, the classic "has zero byte" test then flags them. A flag can
+            // be a false positive, which is fine as the key is compared anyway.
+            // 等于指纹的字节变为 0，然后经典的“包含零字节”测试会标记它们。标记可能是误报，
+            // 这没有关系，因为无论如何都会比较键。
+            long x = word ^ pattern;
+            long match = (x - LSB) & ~x & MSB & from;
+            while (match != 0) {
+                int index = group << GROUP_SHIFT | Long.numberOfTrailingZeros(match) >>> 3;
+                if (keys[index] == key) {
+                    return index;
+                }
+                match &= match - 1;
+            }
+            if ((~word & MSB & from) != 0) {
+                // An empty slot ends the probe sequence.
+                // 空槽位结束探测序列。
+                return -1;
+            }
+            from = -1L;
+            group = group + 1 == groups ? 0 : group + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a key that is not yet in the map in the first empty slot at or after its home slot.
+     */
+
+    /**
+     * 将尚不在映射中的键存储在其起始槽位或之后的第一个空槽位中。
+     */
+    private void insert(int key, V value, int hash) {
+        int index = firstEmpty(hash & mask);
+        setCtrl(index, fingerprint(hash));
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    private int firstEmpty(int start) {
+        int group = start >>> GROUP_SHIFT;
+        long from = -1L << ((start & GROUP_SIZE - 1) << 3);
+        for (;;) {
+            long empty = ~ctrl[group] & MSB & from;
+            if (empty != 0) {
+                return group << GROUP_SHIFT | Long.numberOfTrailingZeros(empty) >>> 3;
+            }
+            from = -1L;
+            group = group + 1 == ctrl.length ? 0 : group + 1;
+        }
+    }
+
+    /**
+     * Grows the map size after an insertion. If necessary, performs a rehash of the map.
+     */
+
+    /**
+     * 在插入后扩大映射的大小。如果必要，执行映射的重新哈希。
+     */
+    private void growSize() {
+        size++;
+
+        if (size > maxSize) {
+            if (keys.length == MAX_CAPACITY) {
+                throw new IllegalStateException("Max capacity reached at size=" + size);
+            }
+
+            // Double the capacity.
+
+            // 将容量加倍。
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Removes entry at the given index position. Entries after it that were displaced from their home slot are
+     * shifted back, so no tombstone is needed (Knuth Section 6.4 Algorithm R).
+     *
+     * @param index the index position of the element to remove.
+     * @param iter the iterator removing the entry, or {@code null}. It is told about entries of a probe sequence that
+     *             wraps around the end of the table which are shifted from below {@code index} to above it.
+     */
+
+    /**
+     * 移除给定索引位置的条目。其后从起始槽位移位的条目会被向后移动，因此不需要墓碑（Knuth 第6.4节算法R）。
+     *
+     * @param index 要移除元素的索引位置。
+     * @param iter 移除该条目的迭代器，或 {@code null}。对于环绕表末尾的探测序列中从 {@code index} 之下
+     *             移动到其之上的条目，会通知该迭代器。
+     */
+    private void removeAt(final int index, PrimitiveIterator iter) {
+        --size;
+        setCtrl(index, 0);
+        keys[index] = 0;
+        values[index] = null;
+
+        int nextFree = index;
+        for (int i = (index + 1) & mask; isFull(i); i = (i + 1) & mask) {
+            int key = keys[i];
+            int bucket = hash(key) & mask;
+            if (i < bucket && (bucket <= nextFree || nextFree <= i) ||
+                bucket <= nextFree && nextFree <= i) {
+                // Move the displaced entry "back" to the first available position.
+                // 将移位的条目“移回”到第一个可用的位置。
+                if (iter != null && i < index && nextFree >= index) {
+                    iter.wrapped(key);
+                }
+                setCtrl(nextFree, ctrlAt(i));
+                keys[nextFree] = key;
+                values[nextFree] = values[i];
+                setCtrl(i, 0);
+                keys[i] = 0;
+                values[i] = null;
+                nextFree = i;
+            }
+        }
+    }
+
+    /**
+     * Calculates the maximum size allowed before rehashing.
+     */
+
+    /**
+     * 计算在重新哈希之前允许的最大大小。
+     */
+    private int calcMaxSize(int capacity) {
+        // Clip the upper bound so that there will always be at least one available slot.
+        // 剪裁上限，以确保始终至少有一个可用槽位。
+        int upperBound = capacity - 1;
+        return Math.min(upperBound, (int) (capacity * loadFactor));
+    }
+
+    /**
+     * Rehashes the map for the given capacity.
+     *
+     * @param newCapacity the new capacity for the map.
+     */
+
+    /**
+     * 为给定的容量重新哈希映射。
+     *
+     * @param newCapacity 映射的新容量。
+     */
+    private void rehash(int newCapacity) {
+        long[] oldCtrl = ctrl;
+        int[] oldKeys = keys;
+        V[] oldVals = values;
+
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if ((oldCtrl[i >>> GROUP_SHIFT] & 0x80L << ((i & GROUP_SIZE - 1) << 3)) != 0) {
+                int key = oldKeys[i];
+                insert(key, oldVals[i], hash(key));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "{}";
+        }
+        StringBuilder sb = new StringBuilder(4 * size);
+        sb.append('{');
+        boolean first = true;
+        for (int i = 0; i < values.length; ++i) {
+            if (isFull(i)) {
+                V value = values[i];
+                if (!first) {
+                    sb.append(", ");
+                }
+                sb.append(keyToString(keys[i])).append('=').append(value == this ? "(this Map)" : value);
+                first = false;
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Helper method called by {@link #toString()} in order to convert a single map key into a string.
+     * This is protected to allow subclasses to override the appearance of a given key.
+     */
+
+    /**
+     * 由 {@link #toString()} 调用的辅助方法，用于将单个映射键转换为字符串。
+     * 此方法被保护以允许子类覆盖给定键的外观。
+     */
+    protected String keyToString(int key) {
+        return Integer.toString(key);
+    }
+
+    /**
+     * Set implementation for iterating over the entries of the map.
+     */
+
+    /**
+     * 用于迭代映射条目的集合实现。
+     */
+    private final class EntrySet extends AbstractSet<Entry<Integer, V>> {
+        @Override
+        public Iterator<Entry<Integer, V>> iterator() {
+            return new MapIterator();
+        }
+
+        @Override
+        public int size() {
+            return IntObjectSwissHashMap.this.size();
+        }
+    }
+
+    /**
+     * Set implementation for iterating over the keys.
+     */
+
+    /**
+     * 用于遍历键的Set实现。
+     */
+    private final class KeySet extends AbstractSet<Integer> {
+        @Override
+        public int size() {
+            return IntObjectSwissHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return IntObjectSwissHashMap.this.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            int index = indexOf(objectToKey(o));
+            if (index == -1) {
+                return false;
+            }
+            removeAt(index, null);
+            return true;
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> retainedKeys) {
+            boolean changed = false;
+            for(Iterator<PrimitiveEntry<V>> iter = entries().iterator(); iter.hasNext(); ) {
+                PrimitiveEntry<V> entry = iter.next();
+                if (!retainedKeys.contains(entry.key())) {
+                    changed = true;
+                    iter.remove();
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public void clear() {
+            IntObjectSwissHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<Integer>() {
+                private final Iterator<Entry<Integer, V>> iter = entrySet.iterator();
+
+                @Override
+                public boolean hasNext() {
+                    return iter.hasNext();
+                }
+
+                @Override
+                public Integer next() {
+                    return iter.next().getKey();
+                }
+
+                @Override
+                public void remove() {
+                    iter.remove();
+                }
+            };
+        }
+    }
+
+    /**
+     * Iterator over primitive entries. Entry key/values are overwritten by each call to {@link #next()}.
+     * The slots are visited from the end of the table to the start, so removing an entry only shifts entries that were
+     * already visited. The exception are entries of a probe sequence that wraps around the end of the table, those are
+     * remembered when they are shifted and returned after all slots were visited.
+     */
+
+    /**
+     * 遍历原始条目的迭代器。每次调用 {@link #next()} 都会覆盖条目的键/值。
+     * 槽位从表的末尾向开头访问，因此移除一个条目只会移动已经访问过的条目。例外情况是环绕表末尾的探测序列中的条目，
+     * 它们在被移动时会被记录下来，并在访问完所有槽位之后返回。
+     */
+    private final class PrimitiveIterator implements Iterator<PrimitiveEntry<V>>, PrimitiveEntry<V> {
+        // All slots at and above pos were visited, nextIndex is the next full slot below it, -1 if there is none or
+        // -2 if it was not searched yet.
+        // 位于 pos 及其之上的所有槽位都已访问，nextIndex 是其下方的下一个已占用槽位，如果没有则为 -1，
+        // 如果尚未搜索则为 -2。
+        private int pos = keys.length;
+        private int nextIndex = -2;
+        private int entryIndex = -1;
+        private int[] wrappedKeys;
+        private int wrappedCount;
+        private int wrappedIndex = -1;
+        private boolean removable;
+
+        private int nextIndex() {
+            if (nextIndex == -2) {
+                int i = pos;
+                while (--i >= 0 && !isFull(i)) {
+                }
+                nextIndex = i;
+            }
+            return nextIndex;
+        }
+
+        void wrapped(int key) {
+            if (wrappedKeys == null) {
+                wrappedKeys = new int[2];
+            } else if (wrappedCount == wrappedKeys.length) {
+                wrappedKeys = Arrays.copyOf(wrappedKeys, wrappedCount << 1);
+            }
+            wrappedKeys[wrappedCount++] = key;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex() >= 0 || wrappedIndex + 1 < wrappedCount;
+        }
+
+        @Override
+        public PrimitiveEntry<V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            int index = nextIndex();
+            if (index >= 0) {
+                pos = index;
+                nextIndex = -2;
+                entryIndex = index;
+            } else {
+                wrappedIndex++;
+                entryIndex = -1;
+            }
+            removable = true;
+            return this;
+        }
+
+        @Override
+        public void remove() {
+            if (!removable) {
+                throw new IllegalStateException("next must be called before each remove.");
+            }
+            removable = false;
+            if (entryIndex >= 0) {
+                removeAt(entryIndex, this);
+                nextIndex = -2;
+            } else {
+                IntObjectSwissHashMap.this.remove(wrappedKeys[wrappedIndex]);
+            }
+        }
+
+        @Override
+        public int key() {
+            return entryIndex >= 0 ? keys[entryIndex] : wrappedKeys[wrappedIndex];
+        }
+
+        @Override
+        public V value() {
+            return entryIndex >= 0 ? values[entryIndex] : get(wrappedKeys[wrappedIndex]);
+        }
+
+        @Override
+        public void setValue(V value) {
+            if (entryIndex >= 0) {
+                values[entryIndex] = value;
+            } else {
+                put(wrappedKeys[wrappedIndex], value);
+            }
+        }
+    }
+
+    /**
+     * Iterator used by the {@link Map} interface.
+     */
+
+    /**
+     * 用于 {@link Map} 接口的迭代器。
+     */
+    private final class MapIterator implements Iterator<Entry<Integer, V>> {
+        private final PrimitiveIterator iter = new PrimitiveIterator();
+
+        @Override
+        public boolean hasNext() {
+            return iter.hasNext();
+        }
+
+        @Override
+        public Entry<Integer, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            iter.next();
+
+            return new MapEntry(iter.entryIndex, iter.key());
+        }
+
+        @Override
+        public void remove() {
+            iter.remove();
+        }
+    }
+
+    /**
+     * A single entry in the map.
+     */
+
+    /**
+     * 映射中的单个条目。
+     */
+    final class MapEntry implements Entry<Integer, V> {
+        // -1 for an entry that was shifted while iterating, which is then looked up by its key.
+        // 对于在迭代期间被移动的条目为 -1，此时通过其键查找。
+        private final int entryIndex;
+        private final int key;
+
+        MapEntry(int entryIndex, int key) {
+            this.entryIndex = entryIndex;
+            this.key = key;
+        }
+
+        @Override
+        public Integer getKey() {
+            verifyExists();
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            verifyExists();
+            return entryIndex >= 0 ? values[entryIndex] : get(key);
+        }
+
+        @Override
+        public V setValue(V value) {
+            verifyExists();
+            if (entryIndex < 0) {
+                return put(key, value);
+            }
+            V prevValue = values[entryIndex];
+            values[entryIndex] = value;
+            return prevValue;
+        }
+
+        private void verifyExists() {
+            if (entryIndex >= 0 ? !isFull(entryIndex) || keys[entryIndex] != key : !containsKey(key)) {
+                throw new IllegalStateException("The map entry has been removed");
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.top.java.netty.source.util.concurrent;
+
+import org.top.java.netty.source.util.internal.SystemPropertyUtil;
+import org.top.java.netty.source.util.internal.logging.InternalLogger;
+import org.top.java.netty.source.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * Opt-in recorder of the latency and utilisation of a single event loop. The event loop wraps every task that is
+ * submitted to it with {@link #wrap(Runnable)}, which records how long the task waited in the queue and how long
+ * it ran, and reports the end of each batch of tasks and the outcome of its selects. All recording happens on the
+ * event loop thread, and {@link #snapshot(String, int, int)} can be called from any thread without pausing it.
+ */
+
+/**
+ * 单个事件循环延迟和利用率的可选记录器。事件循环用 {@link #wrap(Runnable)} 包装提交给它的每个任务，
+ * 记录任务在队列中等待了多久以及运行了多久，并报告每批任务的结束及其 select 的结果。
+ * 所有记录都发生在事件循环线程上，{@link #snapshot(String, int, int)} 可以从任何线程调用而无需暂停它。
+ */
+public final class EventLoopInstrumentation {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(EventLoopInstrumentation.class);
+
+    private static final boolean ENABLED_BY_DEFAULT =
+            SystemPropertyUtil.getBoolean("io.netty.eventLoop.instrumentation", false);
+
+    static {
+        logger.debug("-Dio.netty.eventLoop.instrumentation: {}", ENABLED_BY_DEFAULT);
+    }
+
+    private final LatencyHistogram queueDelay = new LatencyHistogram();
+    private final LatencyHistogram taskDuration = new LatencyHistogram();
+    private final LatencyHistogram batchDuration = new LatencyHistogram();
+
+    // Only written by the event loop thread.
+    // 仅由事件循环线程写入。
+    private volatile long selectWakeups;
+    private volatile long selectedKeys;
+    private long currentBatchNanos;
+    private boolean inBatch;
+
+    /**
+     * Returns a new instance if {@code io.netty.eventLoop.instrumentation} is set, or {@code null} otherwise.
+     */
+
+    /**
+     * 如果设置了 {@code io.netty.eventLoop.instrumentation} 则返回一个新实例，否则返回 {@code null}。
+     */
+    public static EventLoopInstrumentation newInstanceIfEnabled() {
+        return ENABLED_BY_DEFAULT ? new EventLoopInstrumentation() : null;
+    }
+
+    /**
+     * Returns a {@link Runnable} that runs the given task and records its queue delay and duration.
+     */
+
+    /**
+     * 返回一个运行给定任务并记录其队列延迟和持续时间的 {@link Runnable}。
+     */
+    public Runnable wrap(Runnable task) {
+        return new InstrumentedTask(task, System.nanoTime());
+    }
+
+    /**
+     * Records that the event loop woke up from a blocking select and found the given number of selected keys.
+     */
+
+    /**
+     * 记录事件循环从阻塞的 select 中醒来并发现了给定数量的已选择键。
+     */
+    public void recordSelectWakeup(int selectedKeys) {
+        selectWakeups++;
+        recordSelectedKeys(selectedKeys);
+    }
+
+    /**
+     * Records the given number of selected keys.
+     */
+
+    /**
+     * 记录给定数量的已选择键。
+     */
+    public void recordSelectedKeys(int selectedKeys) {
+        if (selectedKeys > 0) {
+            this.selectedKeys += selectedKeys;
+        }
+    }
+
+    /**
+     * Records the end of a batch of tasks, usually from {@code afterRunningAllTasks()}.
+     */
+
+    /**
+     * 记录一批任务的结束，通常从 {@code afterRunningAllTasks()} 调用。
+     */
+    public void recordBatchEnd() {
+        if (inBatch) {
+            batchDuration.record(currentBatchNanos);
+            currentBatchNanos = 0;
+            inBatch = false;
+        }
+    }
+
+    /**
+     * Returns a point-in-time view of the recorded values.
+     *
+     * @param name          the name of the event loop, for example its thread name
+     * @param pendingTasks  the number of tasks pending right now
+     * @param utilisation   the percentage of time the event loop is busy, or {@code -1} if unknown
+     */
+
+    /**
+     * 返回记录值的时间点视图。
+     *
+     * @param name          事件循环的名称，例如其线程名
+     * @param pendingTasks  当前挂起的任务数量
+     * @param utilisation   事件循环繁忙时间的百分比，如果未知则为 {@code -1}
+     */
+    public EventLoopStats snapshot(String name, int pendingTasks, int utilisation) {
+        return new EventLoopStats(name, queueDelay.snapshot(), taskDuration.snapshot(), batchDuration.snapshot(),
+                selectWakeups, selectedKeys, pendingTasks, utilisation);
+    }
+
+    private final class InstrumentedTask implements Runnable {
+        private final Runnable task;
+        private final long submitNanos;
+
+        InstrumentedTask(Runnable task, long submitNanos) {
+            this.task = task;
+            this.submitNanos = submitNanos;
+        }
+
+        @Override
+        public void run() {
+            final long start = System.nanoTime();
+            queueDelay.record(start - submitNanos);
+            try {
+                task.run();
+            } finally {
+                final long duration = System.nanoTime() - start;
+                taskDuration.record(duration);
+                currentBatchNanos += duration;
+                inBatch = true;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
+}
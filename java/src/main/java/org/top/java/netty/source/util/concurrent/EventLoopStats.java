@@ -0,0 +1,134 @@
+package org.top.java.netty.source.util.concurrent;
+
+/**
+ * A point-in-time view of the values recorded by the {@link EventLoopInstrumentation} of one event loop.
+ */
+
+/**
+ * 一个事件循环的 {@link EventLoopInstrumentation} 所记录值的时间点视图。
+ */
+public final class EventLoopStats {
+
+    private final String name;
+    private final LatencyHistogram.Snapshot queueDelay;
+    private final LatencyHistogram.Snapshot taskDuration;
+    private final LatencyHistogram.Snapshot batchDuration;
+    private final long selectWakeups;
+    private final long selectedKeys;
+    private final int pendingTasks;
+    private final int utilisation;
+
+    EventLoopStats(String name, LatencyHistogram.Snapshot queueDelay, LatencyHistogram.Snapshot taskDuration,
+                   LatencyHistogram.Snapshot batchDuration, long selectWakeups, long selectedKeys,
+                   int pendingTasks, int utilisation) {
+        this.name = name;
+        this.queueDelay = queueDelay;
+        this.taskDuration = taskDuration;
+        this.batchDuration = batchDuration;
+        this.selectWakeups = selectWakeups;
+        this.selectedKeys = selectedKeys;
+        this.pendingTasks = pendingTasks;
+        this.utilisation = utilisation;
+    }
+
+    /**
+     * Returns the name of the event loop.
+     */
+
+    /**
+     * 返回事件循环的名称。
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the time tasks waited in the task queue before they were run.
+     */
+
+    /**
+     * 返回任务在运行前在任务队列中等待的时间。
+     */
+    public LatencyHistogram.Snapshot queueDelay() {
+        return queueDelay;
+    }
+
+    /**
+     * Returns the time single tasks ran.
+     */
+
+    /**
+     * 返回单个任务的运行时间。
+     */
+    public LatencyHistogram.Snapshot taskDuration() {
+        return taskDuration;
+    }
+
+    /**
+     * Returns the time each batch of tasks ran, that is each call of {@code runAllTasks} that ran at least one
+     * instrumented task.
+     */
+
+    /**
+     * 返回每批任务的运行时间，即每次至少运行了一个被记录任务的 {@code runAllTasks} 调用。
+     */
+    public LatencyHistogram.Snapshot batchDuration() {
+        return batchDuration;
+    }
+
+    /**
+     * Returns how often the event loop woke up from a blocking select.
+     */
+
+    /**
+     * 返回事件循环从阻塞的 select 中醒来的次数。
+     */
+    public long selectWakeups() {
+        return selectWakeups;
+    }
+
+    /**
+     * Returns the total number of selected keys the event loop processed.
+     */
+
+    /**
+     * 返回事件循环处理的已选择键的总数。
+     */
+    public long selectedKeys() {
+        return selectedKeys;
+    }
+
+    /**
+     * Returns the number of tasks that were pending when the snapshot was taken.
+     */
+
+    /**
+     * 返回获取快照时挂起的任务数量。
+     */
+    public int pendingTasks() {
+        return pendingTasks;
+    }
+
+    /**
+     * Returns the percentage of time the event loop was busy, or {@code -1} if the event loop does not measure it.
+     */
+
+    /**
+     * 返回事件循环繁忙时间的百分比，如果事件循环不测量它则返回 {@code -1}。
+     */
+    public int utilisation() {
+        return utilisation;
+    }
+
+    @Override
+    public String toString() {
+        return "EventLoopStats(" + name +
+                "; queueDelay: [" + queueDelay +
+                "]; taskDuration: [" + taskDuration +
+                "]; batchDuration: [" + batchDuration +
+                "]; selectWakeups: " + selectWakeups +
+                "; selectedKeys: " + selectedKeys +
+                "; pendingTasks: " + pendingTasks +
+                "; utilisation: " + utilisation + "%)";
+    }
+}
@@ -0,0 +1,178 @@
+package org.top.java.netty.source.util.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A log-linear histogram of nanosecond values in the style of HdrHistogram: every power of two is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so any recorded value is reported with a relative error below 7%.
+ * Values above roughly 18 minutes are counted in the last bucket.
+ * <p>
+ * Recording is lock-free and must only be done by a single thread, typically the event loop that owns the
+ * histogram. Any thread may take a {@link #snapshot()} at any time without pausing the recording thread, at the
+ * cost of the snapshot possibly missing the values recorded while it was taken.
+ */
+
+/**
+ * 一个 HdrHistogram 风格的纳秒值对数线性直方图：每个二的幂区间被分成 {@value #SUB_BUCKETS} 个线性子桶，
+ * 因此报告的任何记录值的相对误差都低于 7%。大约 18 分钟以上的值计入最后一个桶。
+ * <p>
+ * 记录是无锁的，并且只能由单个线程完成，通常是拥有该直方图的事件循环。任何线程都可以随时获取 {@link #snapshot()}，
+ * 无需暂停记录线程，代价是快照可能会遗漏在获取过程中记录的值。
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private volatile long sum;
+    private volatile long max;
+
+    /**
+     * Records the given value in nanoseconds. Negative values are recorded as {@code 0}.
+     */
+
+    /**
+     * 记录给定的纳秒值。负值被记录为 {@code 0}。
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        int index = bucketIndex(nanos);
+        // Single writer, so a plain read followed by an ordered write is enough.
+        // 单一写入者，因此普通读取后跟有序写入就足够了。
+        counts.lazySet(index, counts.get(index) + 1);
+        sum += nanos;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    /**
+     * Returns a point-in-time copy of this histogram.
+     */
+
+    /**
+     * 返回此直方图的一个时间点副本。
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sum, max);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> exponent - SUB_BUCKET_BITS) & SUB_BUCKETS - 1;
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index & SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + subBucket) << exponent - SUB_BUCKET_BITS;
+        return lowerBound + (1L << exponent - SUB_BUCKET_BITS) - 1;
+    }
+
+    /**
+     * An immutable copy of a {@link LatencyHistogram}.
+     */
+
+    /**
+     * {@link LatencyHistogram} 的不可变副本。
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Returns the number of recorded values.
+         */
+
+        /**
+         * 返回记录的值的数量。
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the largest recorded value in nanoseconds.
+         */
+
+        /**
+         * 返回记录的最大值（纳秒）。
+         */
+        public long max() {
+            return max;
+        }
+
+        /**
+         * Returns the mean of the recorded values in nanoseconds.
+         */
+
+        /**
+         * 返回记录值的平均值（纳秒）。
+         */
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Returns the value in nanoseconds below which the given percentage of the recorded values fall, for
+         * example {@code 99.0} for the p99.
+         */
+
+        /**
+         * 返回给定百分比的记录值所低于的纳秒值，例如 {@code 99.0} 表示 p99。
+         */
+        public long percentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile: " + percentile + " (expected: 0-100)");
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count: " + count + ", mean: " + (long) mean() + "ns, p50: " + percentile(50) +
+                    "ns, p99: " + percentile(99) + "ns, p99.9: " + percentile(99.9) + "ns, max: " + max + "ns";
+        }
+    }
+}
@@ -78,6 +78,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
     private final RejectedExecutionHandler rejectedExecutionHandler;
 
     private long lastExecutionTime;
+    private volatile EventLoopInstrumentation instrumentation = EventLoopInstrumentation.newInstanceIfEnabled();
 
     @SuppressWarnings({ "FieldMayBeFinal", "unused" })
     private volatile int state = ST_NOT_STARTED;
@@ -467,7 +468,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         if (ranAtLeastOne) {
             lastExecutionTime = getCurrentTimeNanos();
         }
-        afterRunningAllTasks();
+        finishRunningAllTasks();
         return ranAtLeastOne;
     }
 
@@ -503,7 +504,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         if (drainAttempt > 0) {
             lastExecutionTime = getCurrentTimeNanos();
         }
-        afterRunningAllTasks();
+        finishRunningAllTasks();
 
         return drainAttempt > 0;
     }
@@ -577,7 +578,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         fetchFromScheduledTaskQueue();
         Runnable task = pollTask();
         if (task == null) {
-            afterRunningAllTasks();
+            finishRunningAllTasks();
             return false;
         }
 
@@ -608,7 +609,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             }
         }
 
-        afterRunningAllTasks();
+        finishRunningAllTasks();
         this.lastExecutionTime = lastExecutionTime;
         return true;
     }
@@ -623,6 +624,48 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
     @UnstableApi
     protected void afterRunningAllTasks() { }
 
+    private void finishRunningAllTasks() {
+        EventLoopInstrumentation instrumentation = this.instrumentation;
+        if (instrumentation != null) {
+            instrumentation.recordBatchEnd();
+        }
+        afterRunningAllTasks();
+    }
+
+    /**
+     * Enables or disables the {@link EventLoopInstrumentation} of this executor. Enabling it starts from empty
+     * histograms. It is enabled from the start if the {@code io.netty.eventLoop.instrumentation} system property
+     * is set.
+     */
+
+    /**
+     * 启用或禁用此执行器的 {@link EventLoopInstrumentation}。启用时从空的直方图开始。
+     * 如果设置了 {@code io.netty.eventLoop.instrumentation} 系统属性，则从一开始就启用。
+     */
+    public void setInstrumentationEnabled(boolean enabled) {
+        if (enabled != (instrumentation != null)) {
+            instrumentation = enabled ? new EventLoopInstrumentation() : null;
+        }
+    }
+
+    /**
+     * Returns the values recorded by the {@link EventLoopInstrumentation} of this executor, or {@code null} if it
+     * is disabled. Can be called from any thread and does not pause the executor.
+     */
+
+    /**
+     * 返回此执行器的 {@link EventLoopInstrumentation} 记录的值，如果已禁用则返回 {@code null}。
+     * 可以从任何线程调用，并且不会暂停执行器。
+     */
+    public EventLoopStats instrumentationSnapshot() {
+        EventLoopInstrumentation instrumentation = this.instrumentation;
+        if (instrumentation == null) {
+            return null;
+        }
+        Thread thread = this.thread;
+        return instrumentation.snapshot(thread == null ? toString() : thread.getName(), pendingTasks(), -1);
+    }
+
     /**
      * Returns the amount of time left until the scheduled task with the closest dead line is executed.
      */
@@ -1001,11 +1044,16 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
 
     private void execute0(@Schedule Runnable task) {
         ObjectUtil.checkNotNull(task, "task");
-        execute(task, !(task instanceof LazyRunnable) && wakesUpForTask(task));
+        execute(instrument(task), !(task instanceof LazyRunnable) && wakesUpForTask(task));
     }
 
     private void lazyExecute0(@Schedule Runnable task) {
-        execute(ObjectUtil.checkNotNull(task, "task"), false);
+        execute(instrument(ObjectUtil.checkNotNull(task, "task")), false);
+    }
+
+    private Runnable instrument(Runnable task) {
+        EventLoopInstrumentation instrumentation = this.instrumentation;
+        return instrumentation == null ? task : instrumentation.wrap(task);
     }
 
     private void execute(Runnable task, boolean immediate) {
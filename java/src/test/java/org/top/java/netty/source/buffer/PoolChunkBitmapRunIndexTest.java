@@ -0,0 +1,79 @@
+package org.top.java.netty.source.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PoolChunkBitmapRunIndexTest {
+
+    private static final int PAGE_SIZE = 4096;
+
+    /**
+     * One heap arena, no thread caches and a bitmap run index, so every release goes straight back to the chunk.
+     */
+
+    /**
+     * 一个堆 arena、没有线程缓存并且使用位图运行索引，因此每次释放都会直接回到块中。
+     */
+    private static PooledByteBufAllocator newAllocator() {
+        return new PooledByteBufAllocator(false, 1, 0, PAGE_SIZE, 5, 0, 0, false, 0, null, true);
+    }
+
+    private static PooledByteBuf<?> allocate(PooledByteBufAllocator alloc, int size) {
+        return (PooledByteBuf<?>) alloc.newHeapBuffer(size, size);
+    }
+
+    @Test
+    void freeFirstAndLastRun() {
+        PooledByteBufAllocator alloc = newAllocator();
+        int chunkSize = alloc.metric().chunkSize();
+        int runSize = chunkSize / 4;
+
+        PooledByteBuf<?>[] runs = new PooledByteBuf<?>[4];
+        for (int i = 0; i < runs.length; i++) {
+            runs[i] = allocate(alloc, runSize);
+            assertSame(runs[0].chunk, runs[i].chunk);
+            assertEquals(i * runSize, runs[i].offset);
+        }
+        PoolChunk<?> chunk = runs[0].chunk;
+
+        // The first run has no page before it and the last run none after it.
+        // 第一个运行之前没有页，最后一个运行之后也没有页。
+        assertTrue(runs[0].release());
+        assertTrue(runs[3].release());
+
+        // Both free runs are still found and collapsed with their freed neighbours.
+        // 两个空闲运行仍然能被找到，并与其被释放的相邻运行合并。
+        assertTrue(runs[1].release());
+        PooledByteBuf<?> first = allocate(alloc, 2 * runSize);
+        assertSame(chunk, first.chunk);
+        assertEquals(0, first.offset);
+
+        assertTrue(runs[2].release());
+        PooledByteBuf<?> second = allocate(alloc, 2 * runSize);
+        assertSame(chunk, second.chunk);
+        assertEquals(2 * runSize, second.offset);
+
+        assertTrue(first.release());
+        assertTrue(second.release());
+    }
+
+    @Test
+    void freeRunSpanningTheChunk() {
+        PooledByteBufAllocator alloc = newAllocator();
+        int chunkSize = alloc.metric().chunkSize();
+
+        PooledByteBuf<?> whole = allocate(alloc, chunkSize);
+        assertEquals(0, whole.offset);
+        assertEquals(chunkSize, whole.maxLength);
+        assertTrue(whole.release());
+
+        // The run is available again as a whole.
+        // 该运行再次作为一个整体可用。
+        PooledByteBuf<?> again = allocate(alloc, chunkSize);
+        assertEquals(0, again.offset);
+        assertTrue(again.release());
+    }
+}
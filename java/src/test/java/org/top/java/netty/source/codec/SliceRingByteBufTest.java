@@ -0,0 +1,314 @@
+package org.top.java.netty.source.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ByteProcessor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SliceRingByteBufTest {
+
+    private static final ByteBufAllocator ALLOC = new UnpooledByteBufAllocator(false, true);
+
+    private int nextValue;
+
+    /**
+     * Returns a segment of {@code length} readable bytes that continue the values of the previous segment, preceded
+     * by a few bytes that were already read.
+     */
+
+    /**
+     * 返回一个有 {@code length} 个可读字节的段，其值接续上一个段，并且前面有几个已经读过的字节。
+     */
+    private ByteBuf segment(int length) {
+        ByteBuf segment = ALLOC.heapBuffer(length + 3);
+        segment.writeBytes(new byte[] { -1, -1, -1 });
+        for (int i = 0; i < length; i++) {
+            segment.writeByte(value(nextValue++));
+        }
+        return segment.skipBytes(3);
+    }
+
+    private static byte value(int index) {
+        return (byte) (index * 31 + 7);
+    }
+
+    private static void assertContent(ByteBuf expected, ByteBuf ring) {
+        assertEquals(expected.readableBytes(), ring.readableBytes());
+        for (int i = 0; i < expected.readableBytes(); i++) {
+            assertEquals(expected.getByte(expected.readerIndex() + i), ring.getByte(ring.readerIndex() + i));
+        }
+        byte[] bytes = new byte[ring.readableBytes()];
+        ring.getBytes(ring.readerIndex(), bytes);
+        for (int i = 0; i < bytes.length; i++) {
+            assertEquals(expected.getByte(expected.readerIndex() + i), bytes[i]);
+        }
+    }
+
+    @Test
+    void readsSpanSegments() {
+        SliceRingByteBuf ring = new SliceRingByteBuf(ALLOC);
+        int[] lengths = { 3, 5, 1, 7, 2, 1, 1, 9, 4 };
+        int total = 0;
+        for (int length: lengths) {
+            ring.addSegment(segment(length));
+            total += length;
+        }
+        ByteBuf reference = ALLOC.heapBuffer(total);
+        for (int i = 0; i < total; i++) {
+            reference.writeByte(value(i));
+        }
+
+        assertEquals(total, ring.capacity());
+        assertEquals(total, ring.writerIndex());
+        assertContent(reference, ring);
+        for (int i = 0; i < total; i++) {
+            if (i + 2 <= total) {
+                assertEquals(reference.getShort(i), ring.getShort(i));
+                assertEquals(reference.getShortLE(i), ring.getShortLE(i));
+            }
+            if (i + 3 <= total) {
+                assertEquals(reference.getUnsignedMedium(i), ring.getUnsignedMedium(i));
+                assertEquals(reference.getUnsignedMediumLE(i), ring.getUnsignedMediumLE(i));
+            }
+            if (i + 4 <= total) {
+                assertEquals(reference.getInt(i), ring.getInt(i));
+                assertEquals(reference.getIntLE(i), ring.getIntLE(i));
+            }
+            if (i + 8 <= total) {
+                assertEquals(reference.getLong(i), ring.getLong(i));
+                assertEquals(reference.getLongLE(i), ring.getLongLE(i));
+            }
+        }
+
+        final byte last = value(total - 1);
+        assertEquals(total - 1, ring.forEachByte(new ByteProcessor() {
+            @Override
+            public boolean process(byte value) {
+                return value != last;
+            }
+        }));
+
+        // Writes across a boundary end up in both segments.
+        // 跨越边界的写入会落到两个段中。
+        ring.setInt(2, 0x01020304);
+        reference.setInt(2, 0x01020304);
+        ring.setLongLE(14, 0x1122334455667788L);
+        reference.setLongLE(14, 0x1122334455667788L);
+        assertContent(reference, ring);
+
+        ring.release();
+        reference.release();
+    }
+
+    @Test
+    void discardReadBytesReusesReleasedSlots() {
+        SliceRingByteBuf ring = new SliceRingByteBuf(ALLOC);
+        ByteBuf expected = ALLOC.heapBuffer();
+        List<ByteBuf> segments = new ArrayList<ByteBuf>();
+        for (int i = 0; i < 10; i++) {
+            ByteBuf segment = segment(100);
+            segments.add(segment);
+            expected.writeBytes(segment, segment.readerIndex(), segment.readableBytes());
+            ring.addSegment(segment);
+        }
+
+        ring.skipBytes(450);
+        expected.skipBytes(450);
+        ring.discardReadBytes();
+        expected.discardReadBytes();
+        assertEquals(0, ring.readerIndex());
+        assertEquals(550, ring.writerIndex());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, segments.get(i).refCnt());
+        }
+        assertEquals(1, segments.get(4).refCnt());
+        assertContent(expected, ring);
+
+        // These wrap around and take the slots of the released segments, first small, then spanning pages.
+        // 这些段会绕回并占用已释放段的槽位，先是小段，然后是跨越多页的段。
+        for (int i = 0; i < 8; i++) {
+            ByteBuf segment = segment(i < 4 ? 100 : 3000);
+            expected.writeBytes(segment, segment.readerIndex(), segment.readableBytes());
+            ring.addSegment(segment);
+        }
+        assertContent(expected, ring);
+
+        // Discard again and grow the ring past its initial size.
+        // 再次丢弃，并让环增长到超过其初始大小。
+        ring.skipBytes(5000);
+        expected.skipBytes(5000);
+        ring.discardSomeReadBytes();
+        expected.discardReadBytes();
+        assertContent(expected, ring);
+        for (int i = 0; i < 40; i++) {
+            ByteBuf segment = segment(1 + i * 37);
+            expected.writeBytes(segment, segment.readerIndex(), segment.readableBytes());
+            ring.addSegment(segment);
+        }
+        assertContent(expected, ring);
+        assertEquals(expected.getLong(4321), ring.getLong(4321));
+
+        // Everything read, so all segments are released.
+        // 全部已读，因此所有段都被释放。
+        ring.skipBytes(ring.readableBytes());
+        ring.discardReadBytes();
+        assertEquals(0, ring.capacity());
+        ring.addSegment(segment(10));
+        assertEquals(10, ring.readableBytes());
+        assertEquals(value(nextValue - 1), ring.getByte(9));
+
+        ring.release();
+        expected.release();
+    }
+
+    @Test
+    void capacityShrinkThenAppend() {
+        SliceRingByteBuf ring = new SliceRingByteBuf(ALLOC);
+        ByteBuf first = segment(100);
+        ByteBuf second = segment(100);
+        ByteBuf third = segment(100);
+        ring.addSegment(first);
+        ring.addSegment(second);
+        ring.addSegment(third);
+
+        ring.capacity(250);
+        assertEquals(250, ring.capacity());
+        assertEquals(250, ring.writerIndex());
+        // The trimmed segment is replaced by a retained slice of it.
+        // 被截断的段被替换为它的一个保留切片。
+        assertEquals(1, third.refCnt());
+
+        ring.capacity(150);
+        assertEquals(150, ring.capacity());
+        assertEquals(150, ring.writerIndex());
+        assertEquals(0, third.refCnt());
+        assertEquals(1, second.refCnt());
+
+        nextValue = 1000;
+        ring.addSegment(segment(100));
+        assertEquals(250, ring.capacity());
+        assertEquals(250, ring.writerIndex());
+        for (int i = 0; i < 150; i++) {
+            assertEquals(value(i), ring.getByte(i));
+        }
+        for (int i = 150; i < 250; i++) {
+            assertEquals(value(1000 + i - 150), ring.getByte(i));
+        }
+        ByteBuf reference = ALLOC.heapBuffer(8);
+        reference.writeByte(value(147)).writeByte(value(148)).writeByte(value(149))
+                .writeByte(value(1000)).writeByte(value(1001));
+        assertEquals(reference.getInt(0), ring.getInt(147));
+        assertEquals(reference.getInt(1), ring.getInt(148));
+
+        ring.release();
+        reference.release();
+        assertEquals(0, first.refCnt());
+        assertEquals(0, second.refCnt());
+    }
+
+    @Test
+    void retainedSlicesOutliveTheRing() {
+        SliceRingByteBuf ring = new SliceRingByteBuf(ALLOC);
+        ByteBuf first = segment(100);
+        ByteBuf second = segment(100);
+        ring.addSegment(first);
+        ring.addSegment(second);
+
+        ByteBuf spanning = ring.retainedSlice(50, 100);
+        assertTrue(spanning instanceof CompositeByteBuf);
+        assertEquals(2, first.refCnt());
+        assertEquals(2, second.refCnt());
+        assertEquals(1, ring.refCnt());
+
+        ByteBuf single = ring.readRetainedSlice(30);
+        assertEquals(30, ring.readerIndex());
+        assertEquals(3, first.refCnt());
+
+        assertTrue(ring.release());
+        assertEquals(2, first.refCnt());
+        assertEquals(1, second.refCnt());
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(value(50 + i), spanning.getByte(i));
+        }
+        for (int i = 0; i < 30; i++) {
+            assertEquals(value(i), single.getByte(i));
+        }
+
+        assertTrue(spanning.release());
+        assertEquals(1, first.refCnt());
+        assertEquals(0, second.refCnt());
+        assertTrue(single.release());
+        assertEquals(0, first.refCnt());
+    }
+
+    @Test
+    void lengthFieldBasedFrameDecoderWithSliceCumulator() {
+        int[] frameLengths = { 5000, 10, 0, 3000, 1, 64 * 1024 };
+        ByteBuf stream = ALLOC.heapBuffer();
+        for (int frameLength: frameLengths) {
+            stream.writeInt(frameLength);
+            for (int i = 0; i < frameLength; i++) {
+                stream.writeByte(value(frameLength + i));
+            }
+        }
+
+        LengthFieldBasedFrameDecoder decoder = new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4);
+        decoder.setCumulator(ByteToMessageDecoder.SLICE_CUMULATOR);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+
+        // Tiny reads first, so the length fields are split as well, then reads of a typical segment size.
+        // 先是极小的读取，使长度字段也被拆分，然后是典型报文段大小的读取。
+        List<ByteBuf> reads = new ArrayList<ByteBuf>();
+        List<ByteBuf> frames = new ArrayList<ByteBuf>();
+        while (stream.isReadable()) {
+            int length = Math.min(stream.readerIndex() < 5100 ? 3 : 1460, stream.readableBytes());
+            ByteBuf read = ALLOC.heapBuffer(length).writeBytes(stream, length);
+            reads.add(read);
+            channel.writeInbound(read);
+            for (;;) {
+                ByteBuf frame = channel.readInbound();
+                if (frame == null) {
+                    break;
+                }
+                frames.add(frame);
+            }
+        }
+        assertFalse(channel.finish());
+        assertNull(channel.readInbound());
+
+        assertEquals(frameLengths.length, frames.size());
+        for (int i = 0; i < frameLengths.length; i++) {
+            ByteBuf frame = frames.get(i);
+            assertNotNull(frame);
+            assertEquals(frameLengths[i], frame.readableBytes());
+            for (int j = 0; j < frameLengths[i]; j++) {
+                assertEquals(value(frameLengths[i] + j), frame.getByte(frame.readerIndex() + j));
+            }
+        }
+        // Frames that span reads are built from slices of the reads instead of copies.
+        // 跨越多次读取的帧由读取的切片构成，而不是拷贝。
+        assertTrue(frames.get(0) instanceof CompositeByteBuf);
+        assertTrue(frames.get(5) instanceof CompositeByteBuf);
+
+        for (ByteBuf frame: frames) {
+            frame.release();
+        }
+        for (ByteBuf read: reads) {
+            assertEquals(0, read.refCnt());
+        }
+        stream.release();
+    }
+}